@@ -0,0 +1,115 @@
+package com.itick.client.backfill;
+
+import com.itick.client.kline.KlineKey;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * 回补检查点
+ * 每个检查点是目录下的一个properties文件，记录每个序列已经交给接收方的最后时间。
+ * 文件先写临时文件再替换，进程在写入过程中退出不会留下损坏的检查点。
+ */
+public class BackfillCheckpoints {
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final Path dir;
+
+    public BackfillCheckpoints(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 读取检查点，文件不存在时返回空的检查点
+     *
+     * @param id 检查点名称，只能包含字母、数字、点、下划线和连字符
+     */
+    public Checkpoint load(String id) {
+        Path file = fileOf(id);
+        Map<String, Long> completed = new TreeMap<>();
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取回补检查点失败: " + file, e);
+            }
+            properties.forEach((key, value) -> completed.put((String) key, Long.parseLong((String) value)));
+        }
+        return new Checkpoint(file, completed);
+    }
+
+    /**
+     * 删除检查点，下次回补从头开始
+     */
+    public void delete(String id) throws IOException {
+        Files.deleteIfExists(fileOf(id));
+    }
+
+    private Path fileOf(String id) {
+        if (id == null || !VALID_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("无效的检查点名称: " + id);
+        }
+        return dir.resolve(id + ".properties");
+    }
+
+    private static String keyOf(KlineKey key) {
+        return key.region() + ":" + key.code() + ":" + key.kType();
+    }
+
+    /**
+     * 一个回补任务的检查点
+     */
+    public static final class Checkpoint {
+
+        private final Path file;
+        private final Map<String, Long> completed;
+
+        Checkpoint(Path file, Map<String, Long> completed) {
+            this.file = file;
+            this.completed = completed;
+        }
+
+        /**
+         * 序列已经处理到的时间，没有记录时返回Long.MIN_VALUE
+         */
+        public synchronized long completedTo(KlineKey key) {
+            return completed.getOrDefault(keyOf(key), Long.MIN_VALUE);
+        }
+
+        /**
+         * 记录序列已经处理到的时间并写入文件
+         */
+        public synchronized void commit(KlineKey key, long to) {
+            completed.put(keyOf(key), to);
+            Properties properties = new Properties();
+            completed.forEach((k, v) -> properties.setProperty(k, Long.toString(v)));
+            try {
+                Files.createDirectories(file.getParent());
+                Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    properties.store(writer, null);
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("写入回补检查点失败: " + file, e);
+            }
+        }
+    }
+}
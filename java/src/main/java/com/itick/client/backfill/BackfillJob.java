@@ -0,0 +1,23 @@
+package com.itick.client.backfill;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * K线回补任务
+ * 拉取codes × kTypes中每个序列在[from, to]时间范围内的K线
+ */
+@Data
+@Builder
+public class BackfillJob {
+    private String region;          // 市场代码
+    private List<String> codes;     // 产品代码
+    private List<Integer> kTypes;   // 周期类型
+    private long from;              // 开始时间（毫秒，包含）
+    private long to;                // 结束时间（毫秒，包含）
+    private Integer pageSize;       // 每页K线数量，为null时使用配置的默认值
+    private Integer concurrency;    // 同时进行的请求数，为null时使用配置的默认值
+    private String checkpointId;    // 检查点名称，为null时不记录检查点，失败后从头开始
+}
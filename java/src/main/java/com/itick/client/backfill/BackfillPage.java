@@ -0,0 +1,17 @@
+package com.itick.client.backfill;
+
+import com.itick.client.kline.KlineKey;
+import com.itick.client.model.KlineData;
+
+import java.util.List;
+
+/**
+ * 回补得到的一页K线
+ *
+ * @param key K线序列
+ * @param from 页的开始时间（毫秒，不包含）
+ * @param to 页的结束时间（毫秒，包含）
+ * @param bars 时间在(from, to]内的K线，按时间升序
+ */
+public record BackfillPage(KlineKey key, long from, long to, List<KlineData> bars) {
+}
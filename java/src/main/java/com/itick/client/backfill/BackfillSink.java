@@ -0,0 +1,16 @@
+package com.itick.client.backfill;
+
+/**
+ * 回补结果的接收方
+ * 同一序列的页按时间顺序依次交给接收方，接收方处理完一页后才会记录该页的检查点
+ */
+@FunctionalInterface
+public interface BackfillSink {
+
+    /**
+     * 处理一页K线，抛出异常时回补任务失败，已处理的页不会重复
+     *
+     * @param page 一页K线
+     */
+    void accept(BackfillPage page) throws Exception;
+}
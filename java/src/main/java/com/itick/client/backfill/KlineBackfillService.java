@@ -0,0 +1,236 @@
+package com.itick.client.backfill;
+
+import com.itick.client.kline.KlineKey;
+import com.itick.client.kline.KlineType;
+import com.itick.client.model.KlineData;
+import com.itick.client.service.KlineService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * K线批量回补
+ * 把(产品 × 周期 × 时间范围)的回补任务拆成按结束时间翻页的请求，以有限的并发数和令牌桶限速执行，
+ * 结果按序列依次输出，同一序列内按时间升序。
+ *
+ * 接口按et + limit向前翻页，每页覆盖的时间跨度取limit个最短周期：
+ * 数据有间隔（休市、停牌）时limit根K线覆盖的时间只会更长，所以相邻的页之间不会漏掉数据，
+ * 各页的结束时间可以预先算出，不需要等待上一页的结果，多个页可以同时请求。
+ * 每页只保留落在本页时间范围内的K线，页与页之间不会重复。
+ *
+ * 同时在途和已完成等待输出的页都不超过并发数，内存占用与回补的时间范围无关。
+ * 指定检查点名称时，每页交给下游后记录该序列已处理到的时间，失败后用同一个任务重新回补会跳过已完成的部分。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KlineBackfillService {
+
+    private static final long MIN_MONTH_MILLIS = 28 * 86_400_000L;
+
+    private final KlineService klineService;
+
+    @Value("${itick.backfill.page-size:1000}")
+    private int defaultPageSize;
+
+    @Value("${itick.backfill.concurrency:4}")
+    private int defaultConcurrency;
+
+    @Value("${itick.backfill.rate-per-second:10}")
+    private double ratePerSecond;
+
+    @Value("${itick.backfill.burst:10}")
+    private int burst;
+
+    @Value("${itick.backfill.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${itick.backfill.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    @Value("${itick.backfill.checkpoint-dir:backfill}")
+    private String checkpointDir;
+
+    private TokenBucket tokenBucket;
+    private BackfillCheckpoints checkpoints;
+
+    @PostConstruct
+    public void init() {
+        tokenBucket = new TokenBucket(ratePerSecond, burst);
+        checkpoints = new BackfillCheckpoints(Path.of(checkpointDir));
+    }
+
+    /**
+     * 回补K线，逐条输出
+     * 适合单个序列；多个序列时按任务中的顺序依次输出，每个序列内按时间升序
+     *
+     * @param job 回补任务
+     * @return K线流
+     */
+    public Flux<KlineData> backfill(BackfillJob job) {
+        return run(job, page -> Flux.fromIterable(page.bars()));
+    }
+
+    /**
+     * 回补K线，按页输出，每页带有所属的序列
+     *
+     * @param job 回补任务
+     * @return 页流
+     */
+    public Flux<BackfillPage> backfillPages(BackfillJob job) {
+        return run(job, Mono::just);
+    }
+
+    /**
+     * 回补K线并交给接收方
+     * 接收方在独立的线程中依次调用，可以执行阻塞的写入操作
+     *
+     * @param job 回补任务
+     * @param sink 接收方
+     * @return 交给接收方的K线总数
+     */
+    public Mono<Long> backfill(BackfillJob job, BackfillSink sink) {
+        return run(job, page -> Mono.fromCallable(() -> {
+            sink.accept(page);
+            return (long) page.bars().size();
+        }).subscribeOn(Schedulers.boundedElastic()))
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * 删除检查点，下次使用该检查点的回补从头开始
+     */
+    public void resetCheckpoint(String checkpointId) throws IOException {
+        checkpoints.delete(checkpointId);
+    }
+
+    /**
+     * 执行回补任务
+     * 页按计划顺序请求，flatMapSequential保证按计划顺序输出；每页的输出完成后才记录检查点
+     */
+    private <R> Flux<R> run(BackfillJob job, Function<BackfillPage, ? extends Publisher<R>> emit) {
+        return Flux.defer(() -> {
+            int pageSize = job.getPageSize() != null ? job.getPageSize() : defaultPageSize;
+            int concurrency = job.getConcurrency() != null ? job.getConcurrency() : defaultConcurrency;
+            if (pageSize <= 0 || concurrency <= 0) {
+                return Flux.error(new IllegalArgumentException("每页数量和并发数必须大于0"));
+            }
+            if (job.getCodes() == null || job.getCodes().isEmpty() || job.getKTypes() == null || job.getKTypes().isEmpty()) {
+                return Flux.error(new IllegalArgumentException("未指定产品代码或周期类型"));
+            }
+            BackfillCheckpoints.Checkpoint checkpoint = job.getCheckpointId() != null
+                    ? checkpoints.load(job.getCheckpointId()) : null;
+            List<PageRequest> plan = plan(job, pageSize, checkpoint);
+            AtomicLong pages = new AtomicLong();
+            AtomicLong bars = new AtomicLong();
+            long start = System.currentTimeMillis();
+            log.info("开始回补K线: {} 个序列，{} 页，并发数 {}", job.getCodes().size() * job.getKTypes().size(),
+                    plan.size(), concurrency);
+
+            return Flux.fromIterable(plan)
+                    .flatMapSequential(this::fetch, concurrency, 1)
+                    .concatMap(page -> Flux.<R>from(emit.apply(page))
+                            .concatWith(Mono.fromRunnable(() -> {
+                                pages.incrementAndGet();
+                                bars.addAndGet(page.bars().size());
+                                if (checkpoint != null) {
+                                    checkpoint.commit(page.key(), page.to());
+                                }
+                            })), 1)
+                    .doOnComplete(() -> log.info("K线回补完成: {} 页，{} 条，用时 {} 毫秒",
+                            pages.get(), bars.get(), System.currentTimeMillis() - start))
+                    .doOnError(e -> log.error("K线回补失败，已完成 {} 页，{} 条", pages.get(), bars.get(), e));
+        });
+    }
+
+    /**
+     * 拆分任务
+     * 每个序列从结束时间向前按页的时间跨度切分，跳过检查点之前的部分，再按时间升序排列
+     */
+    private List<PageRequest> plan(BackfillJob job, int pageSize, BackfillCheckpoints.Checkpoint checkpoint) {
+        List<PageRequest> plan = new ArrayList<>();
+        for (String code : job.getCodes()) {
+            for (int kType : job.getKTypes()) {
+                KlineKey key = new KlineKey(job.getRegion(), code, kType);
+                long from = job.getFrom();
+                if (checkpoint != null && checkpoint.completedTo(key) != Long.MIN_VALUE) {
+                    from = Math.max(from, checkpoint.completedTo(key) + 1);
+                }
+                long span = pageSize * minDurationMillis(KlineType.of(kType));
+                List<PageRequest> series = new ArrayList<>();
+                for (long end = job.getTo(); end >= from; end -= span) {
+                    series.add(new PageRequest(key, Math.max(end - span, from - 1), end, pageSize));
+                }
+                Collections.reverse(series);
+                plan.addAll(series);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * 周期的最短时长，月线按28天计算
+     */
+    private static long minDurationMillis(KlineType type) {
+        return type == KlineType.MONTH_1 ? MIN_MONTH_MILLIS : type.getDurationMillis();
+    }
+
+    /**
+     * 按令牌桶限速请求一页，失败时按退避时间重试，每次重试重新获取令牌
+     */
+    private Mono<BackfillPage> fetch(PageRequest request) {
+        KlineKey key = request.key();
+        return Mono.defer(() -> {
+                    long waitNanos = tokenBucket.reserve();
+                    Mono<List<KlineData>> page = klineService.fetchPage(key.region(), key.code(), key.kType(),
+                            request.to(), request.limit());
+                    return waitNanos > 0 ? Mono.delay(Duration.ofNanos(waitNanos)).then(page) : page;
+                })
+                .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(retryDelayMs))
+                        .doBeforeRetry(signal -> log.warn("回补K线请求失败，第 {} 次重试: {} et={}",
+                                signal.totalRetries() + 1, key, request.to())))
+                .map(bars -> new BackfillPage(key, request.from(), request.to(), slice(bars, request)));
+    }
+
+    /**
+     * 只保留时间在(from, to]内的K线，按时间升序排列
+     */
+    private static List<KlineData> slice(List<KlineData> bars, PageRequest request) {
+        List<KlineData> result = new ArrayList<>(bars.size());
+        for (KlineData bar : bars) {
+            if (bar.getT() > request.from() && bar.getT() <= request.to()) {
+                result.add(bar);
+            }
+        }
+        result.sort(Comparator.comparingLong(KlineData::getT));
+        return result;
+    }
+
+    /**
+     * 一页的请求参数
+     *
+     * @param key K线序列
+     * @param from 页的开始时间（不包含）
+     * @param to 页的结束时间（包含），即请求的et
+     * @param limit 请求的K线数量
+     */
+    private record PageRequest(KlineKey key, long from, long to, int limit) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.itick.client.backfill;
+
+/**
+ * 令牌桶限流
+ * 令牌按固定速率补充，最多积累capacity个，允许短时间的突发请求。
+ * 调用方预约一个令牌并得到需要等待的时间，预约本身不阻塞，适合在响应式链路中配合延迟使用。
+ */
+public final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数，小于等于0表示不限流
+     * @param capacity 最多积累的令牌数
+     */
+    public TokenBucket(double ratePerSecond, int capacity) {
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.capacity = Math.max(1, capacity);
+        this.tokens = this.capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * 预约一个令牌
+     *
+     * @return 令牌可用前需要等待的纳秒数，0表示可以立即使用
+     */
+    public synchronized long reserve() {
+        if (tokensPerNano <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+}
@@ -1,14 +1,27 @@
 package com.itick.client.config;
 
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 /**
  * WebClient配置类
  * 配置用于HTTP请求的WebClient
+ *
+ * 底层Netty客户端使用独立的连接池：限制连接数和等待获取连接的请求数，空闲和存活时间过长的连接在后台淘汰；
+ * 同时设置连接超时和响应超时、启用gzip压缩，服务端支持时通过ALPN协商使用HTTP/2。
+ * 启用指标时连接池和请求的统计以reactor.netty.*指标输出。
  */
+@Slf4j
 @Configuration
 public class WebClientConfig {
 
@@ -18,17 +31,90 @@ public class WebClientConfig {
     @Value("${itick.api.token}")
     private String apiToken;
 
+    @Value("${itick.http.max-connections:500}")
+    private int maxConnections;
+
+    @Value("${itick.http.pending-acquire-max-count:2000}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${itick.http.pending-acquire-timeout-ms:10000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${itick.http.max-idle-time-ms:30000}")
+    private long maxIdleTimeMs;
+
+    @Value("${itick.http.max-life-time-ms:300000}")
+    private long maxLifeTimeMs;
+
+    @Value("${itick.http.evict-interval-ms:30000}")
+    private long evictIntervalMs;
+
+    @Value("${itick.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${itick.http.read-timeout-ms:30000}")
+    private long readTimeoutMs;
+
+    @Value("${itick.http.http2:true}")
+    private boolean http2;
+
+    @Value("${itick.http.compression:true}")
+    private boolean compression;
+
+    @Value("${itick.http.max-in-memory-kb:16384}")
+    private int maxInMemoryKb;
+
+    @Value("${itick.http.metrics-enabled:true}")
+    private boolean metricsEnabled;
+
+    /**
+     * iTick HTTP接口使用的连接池，应用关闭时释放
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider itickConnectionProvider() {
+        return ConnectionProvider.builder("itick-api")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(evictIntervalMs))
+                .metrics(metricsEnabled)
+                .build();
+    }
+
     /**
      * 创建WebClient Bean
      * 用于发送HTTP请求到iTick.org API
-     * 
+     * 使用Spring Boot自动配置的Builder，请求耗时和错误由Actuator记录为http.client.requests指标
+     *
+     * @param builder Spring Boot提供的WebClient.Builder
+     * @param itickConnectionProvider 连接池
      * @return 配置好的WebClient实例
      */
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder()
+    public WebClient webClient(WebClient.Builder builder, ConnectionProvider itickConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(itickConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs))
+                .compress(compression)
+                .protocol(http2 ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11}
+                        : new HttpProtocol[]{HttpProtocol.HTTP11})
+                // 指标的uri标签去掉查询参数，避免产品代码和时间参数导致标签数量无限增长
+                .metrics(metricsEnabled, WebClientConfig::stripQuery);
+        log.info("HTTP客户端: 最大连接数 {}，等待队列 {}，HTTP/2 {}，压缩 {}", maxConnections, pendingAcquireMaxCount,
+                http2 ? "启用" : "关闭", compression ? "启用" : "关闭");
+
+        return builder
                 .baseUrl(baseUrl)
                 .defaultHeader("token", apiToken)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemoryKb * 1024))
                 .build();
     }
+
+    private static String stripQuery(String uri) {
+        int query = uri.indexOf('?');
+        return query < 0 ? uri : uri.substring(0, query);
+    }
 }
@@ -1,15 +1,37 @@
 package com.itick.client.controller;
 
+import com.itick.client.gateway.MarketDataGateway;
+import com.itick.client.gateway.SseGatewayClient;
+import com.itick.client.kline.KlineAggregator;
 import com.itick.client.model.KlineData;
+import com.itick.client.replay.ReplayMarketDataSource;
+import com.itick.client.replay.ReplayStats;
 import com.itick.client.service.KlineService;
 import com.itick.client.service.WebSocketClientService;
+import com.itick.client.trace.PayloadTracer;
+import com.itick.client.trace.TraceSettings;
+import com.itick.client.websocket.ConnectionStats;
+import com.itick.client.websocket.WebSocketConnection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 产品数据控制器
@@ -21,11 +43,18 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StockDataController {
 
+    private static final long SUBSCRIBE_ACK_TIMEOUT_SECONDS = 10;
+
     private final KlineService klineService;
     private final WebSocketClientService webSocketClientService;
+    private final KlineAggregator klineAggregator;
+    private final ObjectProvider<ReplayMarketDataSource> replayMarketDataSource;
+    private final PayloadTracer payloadTracer;
+    private final MarketDataGateway marketDataGateway;
 
     /**
      * 获取特定股票/外汇/指数的K线数据
+     * 查询最新K线且实时聚合的数据足够时直接返回聚合结果，否则通过HTTP API获取
      * 
      * @param region 市场代码
      * @param code 产品代码
@@ -41,7 +70,11 @@ public class StockDataController {
             @RequestParam int kType,
             @RequestParam(required = false) Long endTime,
             @RequestParam(required = false) Integer limit) {
-        
+
+        List<KlineData> live = klineAggregator.getLatestBars(region, code, kType, endTime, limit);
+        if (live != null) {
+            return Mono.just(ResponseEntity.ok(live));
+        }
         return klineService.getKlineData(region, code, kType, endTime, limit)
                 .map(ResponseEntity::ok)
                 .doOnError(e -> log.error("获取K线数据时出错", e));
@@ -49,22 +82,190 @@ public class StockDataController {
 
     /**
      * 订阅实时产品数据
+     * 等待服务端确认订阅，超时未确认时返回202
      * 
      * @param symbols 产品代码，多个代码用逗号分隔
      * @param types 数据类型，可选值：quote(报价)、tick(成交)、depth(盘口)
      * @return 订阅结果
      */
     @PostMapping("/subscribe")
-    public ResponseEntity<String> subscribe(
+    public CompletableFuture<ResponseEntity<String>> subscribe(
             @RequestParam String symbols,
             @RequestParam String types) {
-        
+
+        String description = "产品代码: " + symbols + "，数据类型: " + types;
         try {
-            webSocketClientService.subscribe(symbols, types);
-            return ResponseEntity.ok("已发送订阅请求，产品代码: " + symbols + "，数据类型: " + types);
+            return webSocketClientService.subscribe(symbols, types)
+                    .orTimeout(SUBSCRIBE_ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .handle((ignored, e) -> {
+                        if (e == null) {
+                            return ResponseEntity.ok("订阅成功，" + description);
+                        }
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        if (cause instanceof TimeoutException) {
+                            return ResponseEntity.accepted().body("已发送订阅请求，等待服务端确认，" + description);
+                        }
+                        log.error("订阅产品数据时出错", cause);
+                        return ResponseEntity.internalServerError().body("订阅失败: " + cause.getMessage());
+                    });
         } catch (Exception e) {
             log.error("订阅产品数据时出错", e);
-            return ResponseEntity.internalServerError().body("订阅失败: " + e.getMessage());
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.internalServerError().body("订阅失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 取消订阅实时产品数据
+     *
+     * @param symbols 产品代码，多个代码用逗号分隔
+     * @param types 数据类型，多个类型用逗号分隔
+     * @return 取消订阅结果
+     */
+    @PostMapping("/unsubscribe")
+    public CompletableFuture<ResponseEntity<String>> unsubscribe(
+            @RequestParam String symbols,
+            @RequestParam String types) {
+
+        return webSocketClientService.unsubscribe(symbols, types)
+                .thenApply(ignored -> ResponseEntity.ok("已取消订阅，产品代码: " + symbols + "，数据类型: " + types));
+    }
+
+    /**
+     * 通过SSE接收实时行情（行情扇出网关）
+     * 事件名为数据类型，事件数据与iTick推送的行情消息格式相同；客户端处理不过来时丢弃最旧的事件
+     *
+     * @param symbols 产品代码，多个代码用逗号分隔，省略时接收所有产品
+     * @param types 数据类型，多个类型用逗号分隔，可选值：quote(报价)、tick(成交)、depth(盘口)
+     * @return SSE事件流
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<ResponseBodyEmitter> stream(
+            @RequestParam(required = false) String symbols,
+            @RequestParam(defaultValue = "quote,tick,depth") String types) {
+
+        if (!marketDataGateway.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        SseGatewayClient client;
+        try {
+            client = marketDataGateway.openSse();
+        } catch (IllegalStateException e) {
+            log.warn("拒绝SSE连接: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
+        try {
+            marketDataGateway.select(client, symbols == null ? null : splitCsv(symbols), splitCsv(types));
+        } catch (IllegalArgumentException e) {
+            client.close();
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .body(client.getEmitter());
+    }
+
+    /**
+     * 查看行情扇出网关的客户端数量和发送统计
+     */
+    @GetMapping("/gateway")
+    public ResponseEntity<Map<String, Object>> getGatewayStats() {
+        return ResponseEntity.ok(marketDataGateway.getStats());
+    }
+
+    /**
+     * 查看WebSocket连接状态
+     * 包括订阅台账中各状态的订阅数量、重连次数和数据中断时长
+     *
+     * @return 每个连接的状态
+     */
+    @GetMapping("/connections")
+    public ResponseEntity<List<Map<String, Object>>> getConnections() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (WebSocketConnection connection : webSocketClientService.getConnections()) {
+            ConnectionStats stats = connection.getStats();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", connection.getName());
+            item.put("open", connection.isOpen());
+            item.put("subscriptions", connection.getLedger().countByState());
+            item.put("reconnectCount", stats.getReconnectCount());
+            item.put("gapCount", stats.getGapCount());
+            item.put("lastGapMillis", stats.getLastGapMillis());
+            item.put("maxGapMillis", stats.getMaxGapMillis());
+            item.put("totalGapMillis", stats.getTotalGapMillis());
+            item.put("currentGapMillis", stats.getCurrentGapMillis(now));
+            result.add(item);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 查看行情回放进度和吞吐量
+     *
+     * @return 回放统计，未启用回放模式时返回404
+     */
+    @GetMapping("/replay")
+    public ResponseEntity<ReplayStats> getReplayStats() {
+        ReplayMarketDataSource replay = replayMarketDataSource.getIfAvailable();
+        if (replay == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(replay.getStats());
+    }
+
+    /**
+     * 查看原始消息跟踪的设置和统计
+     *
+     * @return 跟踪设置以及已输出、已丢弃的消息数
+     */
+    @GetMapping("/trace")
+    public ResponseEntity<Map<String, Object>> getTrace() {
+        return ResponseEntity.ok(describeTrace());
+    }
+
+    /**
+     * 在运行时修改原始消息跟踪设置，未指定的参数保持不变
+     *
+     * @param enabled 是否启用跟踪（可选）
+     * @param sampleRate 采样比例，0到1之间（可选）
+     * @param symbols 只跟踪这些产品，多个代码用逗号分隔，空字符串表示跟踪所有消息（可选）
+     * @return 修改后的跟踪设置
+     */
+    @PostMapping("/trace")
+    public ResponseEntity<?> updateTrace(
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) Double sampleRate,
+            @RequestParam(required = false) String symbols) {
+
+        TraceSettings current = payloadTracer.getSettings();
+        try {
+            payloadTracer.update(new TraceSettings(
+                    enabled != null ? enabled : current.enabled(),
+                    sampleRate != null ? sampleRate : current.sampleRate(),
+                    symbols != null ? PayloadTracer.parseSymbols(symbols) : current.symbols()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok(describeTrace());
+    }
+
+    private static List<String> splitCsv(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+
+    private Map<String, Object> describeTrace() {
+        TraceSettings settings = payloadTracer.getSettings();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", settings.enabled());
+        result.put("sampleRate", settings.sampleRate());
+        result.put("symbols", settings.symbols());
+        result.put("traced", payloadTracer.getTraced());
+        result.put("dropped", payloadTracer.getDropped());
+        return result;
     }
 }
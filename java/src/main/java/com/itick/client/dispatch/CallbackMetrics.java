@@ -0,0 +1,47 @@
+package com.itick.client.dispatch;
+
+/**
+ * 订阅者回调耗时统计
+ * 每个订阅登记创建一个计时器，分发时记录订阅者处理每条数据的耗时
+ */
+public interface CallbackMetrics {
+
+    /**
+     * 不统计回调耗时
+     */
+    CallbackMetrics NOOP = channel -> CallbackTimer.NOOP;
+
+    /**
+     * 为新的订阅者创建计时器
+     *
+     * @param channel 通道名称，例如quote、tick、depth、kline
+     * @return 计时器
+     */
+    CallbackTimer newTimer(String channel);
+
+    /**
+     * 单个订阅者的回调计时器
+     * record在分发线程中调用，实现不应产生对象分配
+     */
+    interface CallbackTimer {
+
+        CallbackTimer NOOP = new CallbackTimer() {
+            @Override
+            public void record(long nanos) {
+            }
+        };
+
+        /**
+         * 记录一次回调耗时
+         *
+         * @param nanos 耗时，单位纳秒
+         */
+        void record(long nanos);
+
+        /**
+         * 订阅取消时调用，释放计时器占用的资源
+         */
+        default void close() {
+        }
+    }
+}
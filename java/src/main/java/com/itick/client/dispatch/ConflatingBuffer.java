@@ -0,0 +1,298 @@
+package com.itick.client.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 按产品合并的最新值缓冲区
+ * 每个产品一个最新值槽位和一个脏标记位，新数据直接覆盖槽位；消费者每次只取出上次之后有变化的产品的最新值，
+ * 中间的更新被合并掉。消费者落后时，每一轮的工作量只与产品数量有关，与数据到达的速度无关。
+ *
+ * 槽位按页分配，每页1024个产品，另有一个页级脏标记，没有变化的页直接跳过。
+ * 写入可以来自多个线程，drain只能由一个线程调用。
+ *
+ * 可以由调用方定期调用drain（拉取模式），也可以通过start启动独立线程，有变化时自动交给订阅者（推送模式）；
+ * 推送模式的线程没有变化时一直等待，由offer唤醒，空闲时不占用CPU。
+ *
+ * @param <T> 数据类型
+ */
+@Slf4j
+public class ConflatingBuffer<T> implements Subscription {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MAX_PAGES = Long.SIZE;
+    /** 最多支持的产品数量 */
+    public static final int MAX_SYMBOLS = MAX_PAGES * PAGE_SIZE;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final Function<? super T, String> symbolExtractor;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicReferenceArray<Page<T>> pages = new AtomicReferenceArray<>(MAX_PAGES);
+    private final AtomicLong dirtyPages = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private volatile boolean active = true;
+    private volatile Subscription upstream;
+    private volatile Thread drainThread;
+    // 每个产品上次交给消费者的数据，只由drain线程访问，用于跳过重复交付
+    private final Object[][] lastDelivered = new Object[MAX_PAGES][];
+
+    /**
+     * 一页产品的槽位和脏标记
+     */
+    private static final class Page<T> {
+        private final AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(PAGE_SIZE);
+        private final AtomicLongArray dirty = new AtomicLongArray(PAGE_SIZE / Long.SIZE);
+    }
+
+    /**
+     * @param symbolExtractor 从数据中提取产品代码
+     */
+    public ConflatingBuffer(Function<? super T, String> symbolExtractor) {
+        this.symbolExtractor = symbolExtractor;
+    }
+
+    /**
+     * 启动推送模式：由独立线程在有变化时把各产品的最新值交给订阅者
+     *
+     * @param name 线程名称中的数据类型
+     * @param subscriber 订阅者
+     */
+    public void start(String name, Consumer<? super T> subscriber) {
+        Thread thread = new Thread(() -> {
+            while (active) {
+                int count;
+                try {
+                    count = drain(subscriber);
+                } catch (Exception e) {
+                    log.error("订阅者处理数据时出错", e);
+                    count = 1;
+                }
+                if (count == 0) {
+                    // offer在页脏标记从0变为非0时唤醒本线程，唤醒发生在park之前时park立即返回；
+                    // 醒来后重新检查脏标记，提前返回（虚假唤醒）时继续等待
+                    while (active && dirtyPages.get() == 0) {
+                        LockSupport.park(this);
+                    }
+                }
+            }
+        }, "itick-" + name + "-conflate-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        drainThread = thread;
+        thread.start();
+    }
+
+    /**
+     * 绑定上游订阅，取消时一并取消
+     */
+    public void bind(Subscription upstream) {
+        this.upstream = upstream;
+        if (!active) {
+            upstream.cancel();
+        }
+    }
+
+    /**
+     * 写入一条数据，覆盖该产品尚未被取走的旧值
+     *
+     * @param data 数据
+     */
+    public void offer(T data) {
+        if (!active) {
+            return;
+        }
+        String symbol = symbolExtractor.apply(data);
+        if (symbol == null) {
+            return;
+        }
+        int id = idOf(symbol);
+        if (id < 0) {
+            return;
+        }
+        updates.incrementAndGet();
+
+        int pageIndex = id >>> PAGE_BITS;
+        Page<T> page = page(pageIndex);
+        int slot = id & PAGE_MASK;
+        page.slots.set(slot, data);
+
+        // 先设置产品的脏标记，再设置页的脏标记；drain按相反的顺序清除，保证不会漏掉更新
+        int word = slot >>> 6;
+        long bit = 1L << (slot & 63);
+        long previous;
+        do {
+            previous = page.dirty.get(word);
+        } while (!page.dirty.compareAndSet(word, previous, previous | bit));
+        if ((previous & bit) != 0) {
+            return;
+        }
+        long pageBit = 1L << pageIndex;
+        long previousPages;
+        do {
+            previousPages = dirtyPages.get();
+        } while ((previousPages & pageBit) == 0 && !dirtyPages.compareAndSet(previousPages, previousPages | pageBit));
+        if (previousPages == 0) {
+            Thread thread = drainThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    private int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        synchronized (ids) {
+            id = ids.get(symbol);
+            if (id == null) {
+                if (nextId.get() >= MAX_SYMBOLS) {
+                    if (nextId.getAndIncrement() == MAX_SYMBOLS) {
+                        log.warn("合并缓冲区的产品数量超过上限 {}，之后出现的产品将被忽略", MAX_SYMBOLS);
+                    }
+                    return -1;
+                }
+                id = nextId.getAndIncrement();
+                ids.put(symbol, id);
+            }
+            return id;
+        }
+    }
+
+    private Page<T> page(int index) {
+        Page<T> page = pages.get(index);
+        if (page == null) {
+            pages.compareAndSet(index, null, new Page<>());
+            page = pages.get(index);
+        }
+        return page;
+    }
+
+    /**
+     * 把上次调用之后有变化的产品的最新值依次交给消费者，只能由一个线程调用
+     *
+     * @param consumer 消费者
+     * @return 交付的数据条数
+     */
+    public int drain(Consumer<? super T> consumer) {
+        return drain(consumer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 最多交付max条有变化的产品的最新值，其余产品保持待交付状态，留给下一次调用，只能由一个线程调用
+     * 用于按下游请求量交付数据
+     *
+     * @param consumer 消费者
+     * @param max 最多交付的条数
+     * @return 交付的数据条数
+     */
+    public int drain(Consumer<? super T> consumer, int max) {
+        if (max <= 0) {
+            return 0;
+        }
+        long pageBits = dirtyPages.getAndSet(0);
+        int count = 0;
+        while (pageBits != 0) {
+            int pageIndex = Long.numberOfTrailingZeros(pageBits);
+            pageBits &= pageBits - 1;
+            Page<T> page = pages.get(pageIndex);
+            Object[] last = lastDelivered[pageIndex];
+            if (last == null) {
+                last = new Object[PAGE_SIZE];
+                lastDelivered[pageIndex] = last;
+            }
+            for (int word = 0; word < PAGE_SIZE / Long.SIZE; word++) {
+                if (page.dirty.get(word) == 0) {
+                    continue;
+                }
+                long bits = page.dirty.getAndSet(word, 0);
+                while (bits != 0) {
+                    if (count == max) {
+                        restore(page, pageIndex, word, bits, pageBits);
+                        delivered.addAndGet(count);
+                        return count;
+                    }
+                    int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    T data = page.slots.get(slot);
+                    // 写入方在清除脏标记之后、读取槽位之前覆盖的数据可能已经在上一轮交付过
+                    if (data == null || data == last[slot]) {
+                        continue;
+                    }
+                    last[slot] = data;
+                    consumer.accept(data);
+                    count++;
+                }
+            }
+        }
+        delivered.addAndGet(count);
+        return count;
+    }
+
+    /**
+     * 达到交付上限时，把已经取出但尚未交付的脏标记放回，与offer一样先放回产品的标记再放回页的标记
+     */
+    private void restore(Page<T> page, int pageIndex, int word, long bits, long remainingPages) {
+        page.dirty.getAndAccumulate(word, bits, (current, restored) -> current | restored);
+        dirtyPages.getAndAccumulate((1L << pageIndex) | remainingPages, (current, restored) -> current | restored);
+    }
+
+    /**
+     * 是否有尚未交付的变化
+     */
+    public boolean hasPending() {
+        return dirtyPages.get() != 0;
+    }
+
+    /**
+     * 写入的数据条数
+     */
+    public long getUpdates() {
+        return updates.get();
+    }
+
+    /**
+     * 交给消费者的数据条数，与写入条数的差值就是被合并掉的更新
+     */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * 出现过的产品数量
+     */
+    public int getSymbolCount() {
+        return ids.size();
+    }
+
+    @Override
+    public void cancel() {
+        active = false;
+        Subscription current = upstream;
+        if (current != null) {
+            current.cancel();
+        }
+        Thread thread = drainThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+}
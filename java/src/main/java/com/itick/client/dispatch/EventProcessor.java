@@ -0,0 +1,66 @@
+package com.itick.client.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Consumer;
+
+/**
+ * 环形缓冲区消费者
+ * 在独立线程中按顺序读取环形缓冲区的数据并交给订阅者处理，
+ * 订阅者抛出的异常会被记录，不会影响后续数据的处理。
+ *
+ * @param <T> 数据类型
+ */
+@Slf4j
+public class EventProcessor<T> implements Runnable {
+
+    private final RingBuffer<T> ringBuffer;
+    private final Sequence sequence;
+    private final Consumer<? super T> handler;
+    private volatile boolean running = true;
+
+    public EventProcessor(RingBuffer<T> ringBuffer, Consumer<? super T> handler) {
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+        this.sequence = ringBuffer.addGatingSequence();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public Sequence getSequence() {
+        return sequence;
+    }
+
+    /**
+     * 停止处理并释放对生产者的约束
+     */
+    public void halt() {
+        running = false;
+        ringBuffer.removeGatingSequence(sequence);
+        ringBuffer.getWaitStrategy().signalAllWhenBlocking();
+    }
+
+    @Override
+    public void run() {
+        WaitStrategy waitStrategy = ringBuffer.getWaitStrategy();
+        long next = sequence.get() + 1;
+        try {
+            while (running) {
+                long available = waitStrategy.waitFor(next, ringBuffer.getCursor(), this);
+                while (next <= available && running) {
+                    try {
+                        handler.accept(ringBuffer.get(next));
+                    } catch (Exception e) {
+                        log.error("订阅者处理数据时出错", e);
+                    }
+                    next++;
+                }
+                sequence.set(next - 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
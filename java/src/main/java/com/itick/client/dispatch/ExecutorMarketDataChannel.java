@@ -0,0 +1,189 @@
+package com.itick.client.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 线程池分发通道
+ * 每个订阅者拥有一个邮箱，邮箱按产品分成多个队列：同一个产品的数据按发布顺序依次交给订阅者，
+ * 不同产品的数据可以在线程池的不同线程上同时处理。接收线程只负责入队，不会被订阅者阻塞。
+ *
+ * 使用虚拟线程池时，订阅者可以在回调中执行阻塞操作（HTTP调用、数据库写入等）而不占用平台线程；
+ * 使用固定大小的平台线程池时，每个队列每次最多处理BATCH_SIZE条数据后让出线程，避免个别产品独占线程。
+ *
+ * 每个产品队列的容量有上限，订阅者跟不上时丢弃新的数据并计数。
+ *
+ * @param <T> 数据类型
+ */
+@Slf4j
+public class ExecutorMarketDataChannel<T> implements MarketDataChannel<T> {
+
+    private static final int BATCH_SIZE = 256;
+    private static final String NO_SYMBOL = "";
+
+    private final String name;
+    private final Function<? super T, String> symbolExtractor;
+    private final Executor executor;
+    private final int mailboxCapacity;
+    private final CallbackMetrics metrics;
+    private final SubscriberRegistry<T> registry = new SubscriberRegistry<>();
+
+    /**
+     * @param name 通道名称，用于日志和回调耗时统计
+     * @param symbolExtractor 从数据中提取产品代码
+     * @param executor 执行订阅者回调的线程池
+     * @param mailboxCapacity 每个订阅者每个产品最多排队的数据条数
+     * @param metrics 订阅者回调耗时统计
+     */
+    public ExecutorMarketDataChannel(String name, Function<? super T, String> symbolExtractor, Executor executor,
+                                     int mailboxCapacity, CallbackMetrics metrics) {
+        this.name = name;
+        this.symbolExtractor = symbolExtractor;
+        this.executor = executor;
+        this.mailboxCapacity = mailboxCapacity;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Subscription subscribe(Consumer<? super T> subscriber, SymbolFilter filter) {
+        Mailbox mailbox = new Mailbox(subscriber, metrics.newTimer(name));
+        SubscriberRegistry.Registration<T> registration = registry.register(mailbox::offer, filter);
+        registration.onCancel(mailbox::close);
+        return registration;
+    }
+
+    @Override
+    public void publish(T data) {
+        registry.dispatch(data, symbolExtractor.apply(data));
+    }
+
+    @Override
+    public boolean hasSubscribers() {
+        return registry.size() > 0;
+    }
+
+    @Override
+    public void close() {
+        registry.clear();
+    }
+
+    /**
+     * 单个订阅者的邮箱
+     */
+    private final class Mailbox {
+
+        private final Consumer<? super T> subscriber;
+        private final CallbackMetrics.CallbackTimer timer;
+        private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean active = true;
+
+        Mailbox(Consumer<? super T> subscriber, CallbackMetrics.CallbackTimer timer) {
+            this.subscriber = subscriber;
+            this.timer = timer;
+        }
+
+        void offer(T data) {
+            String symbol = symbolExtractor.apply(data);
+            String key = symbol == null ? NO_SYMBOL : symbol;
+            Lane lane = lanes.get(key);
+            if (lane == null) {
+                lane = lanes.computeIfAbsent(key, ignored -> new Lane(this));
+            }
+            lane.offer(data);
+        }
+
+        void onDropped() {
+            if (dropped.incrementAndGet() % 10000 == 1) {
+                log.warn("{}数据订阅者处理过慢，队列已满，已丢弃 {} 条数据", name, dropped.get());
+            }
+        }
+
+        void deliver(T data) {
+            long start = System.nanoTime();
+            try {
+                subscriber.accept(data);
+            } catch (Exception e) {
+                log.error("订阅者处理数据时出错", e);
+            }
+            timer.record(System.nanoTime() - start);
+        }
+
+        void close() {
+            active = false;
+            lanes.values().forEach(Lane::clear);
+            timer.close();
+        }
+    }
+
+    /**
+     * 一个订阅者的一个产品的数据队列，同一时刻最多由一个线程处理
+     */
+    private final class Lane implements Runnable {
+
+        private final Mailbox mailbox;
+        private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Lane(Mailbox mailbox) {
+            this.mailbox = mailbox;
+        }
+
+        void offer(T data) {
+            if (size.incrementAndGet() > mailboxCapacity) {
+                size.decrementAndGet();
+                mailbox.onDropped();
+                return;
+            }
+            queue.offer(data);
+            schedule();
+        }
+
+        private void schedule() {
+            if (mailbox.active && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    log.debug("{}数据分发线程池已关闭", name);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                T data;
+                int processed = 0;
+                while (mailbox.active && processed < BATCH_SIZE && (data = queue.poll()) != null) {
+                    size.decrementAndGet();
+                    mailbox.deliver(data);
+                    processed++;
+                }
+            } finally {
+                scheduled.set(false);
+                // 处理期间可能有新数据入队，或者本批次已达上限
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        void clear() {
+            queue.clear();
+            size.set(0);
+        }
+    }
+}
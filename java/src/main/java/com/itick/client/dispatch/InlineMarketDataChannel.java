@@ -0,0 +1,56 @@
+package com.itick.client.dispatch;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 同步分发通道
+ * 在发布数据的线程（WebSocket接收线程）中依次调用关注该产品的订阅者，
+ * 订阅者通过按产品代码索引的路由表查找。
+ * 有多个接收线程时订阅者可能被并发调用，但同一个产品的数据总是来自同一个连接。
+ *
+ * @param <T> 数据类型
+ */
+public class InlineMarketDataChannel<T> implements MarketDataChannel<T> {
+
+    private final Function<? super T, String> symbolExtractor;
+    private final SubscriberRegistry<T> registry;
+
+    /**
+     * @param symbolExtractor 从数据中提取产品代码
+     */
+    public InlineMarketDataChannel(Function<? super T, String> symbolExtractor) {
+        this(null, symbolExtractor, CallbackMetrics.NOOP);
+    }
+
+    /**
+     * @param name 通道名称，用于回调耗时统计
+     * @param symbolExtractor 从数据中提取产品代码
+     * @param metrics 订阅者回调耗时统计
+     */
+    public InlineMarketDataChannel(String name, Function<? super T, String> symbolExtractor,
+                                   CallbackMetrics metrics) {
+        this.symbolExtractor = symbolExtractor;
+        this.registry = new SubscriberRegistry<>(name, metrics);
+    }
+
+    @Override
+    public Subscription subscribe(Consumer<? super T> subscriber, SymbolFilter filter) {
+        return registry.register(subscriber, filter);
+    }
+
+    @Override
+    public void publish(T data) {
+        registry.dispatch(data, symbolExtractor.apply(data));
+    }
+
+    @Override
+    public boolean hasSubscribers() {
+        return registry.size() > 0;
+    }
+
+    @Override
+    public void close() {
+        registry.clear();
+    }
+}
@@ -0,0 +1,38 @@
+package com.itick.client.dispatch;
+
+import java.util.function.Consumer;
+
+/**
+ * 行情数据通道
+ * 连接WebSocket接收线程（生产者）和订阅者，每种数据类型对应一个通道
+ *
+ * @param <T> 数据类型
+ */
+public interface MarketDataChannel<T> {
+
+    /**
+     * 添加订阅者
+     *
+     * @param subscriber 订阅者
+     * @param filter 产品过滤条件，为null时接收所有产品
+     * @return 订阅句柄
+     */
+    Subscription subscribe(Consumer<? super T> subscriber, SymbolFilter filter);
+
+    /**
+     * 发布数据给所有订阅者
+     *
+     * @param data 数据
+     */
+    void publish(T data);
+
+    /**
+     * 是否有订阅者，没有订阅者时生产者可以跳过构建数据对象
+     */
+    boolean hasSubscribers();
+
+    /**
+     * 关闭通道，取消所有订阅并停止分发线程
+     */
+    void close();
+}
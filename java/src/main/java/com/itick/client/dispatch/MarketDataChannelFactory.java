@@ -0,0 +1,121 @@
+package com.itick.client.dispatch;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 行情数据通道工厂
+ * 根据配置创建同步分发、环形缓冲区分发或线程池分发的通道，默认为同步分发
+ *
+ * 分发模式：
+ * inline - 在接收线程中直接调用订阅者；
+ * ring - 每种数据类型一个环形缓冲区，每个订阅者一个平台线程；
+ * platform - 每个订阅者一个按产品排序的邮箱，由固定大小的平台线程池处理；
+ * virtual - 与platform相同，但由虚拟线程处理（需要Java 21），建立连接和重连也使用虚拟线程。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MarketDataChannelFactory {
+
+    private final CallbackMetrics callbackMetrics;
+
+    @Value("${itick.dispatch.mode:inline}")
+    private String mode;
+
+    @Value("${itick.dispatch.buffer-size:4096}")
+    private int bufferSize;
+
+    @Value("${itick.dispatch.wait-strategy:blocking}")
+    private String waitStrategy;
+
+    @Value("${itick.dispatch.pool-size:0}")
+    private int poolSize;
+
+    @Value("${itick.dispatch.mailbox-capacity:10000}")
+    private int mailboxCapacity;
+
+    private ExecutorService dispatchExecutor;
+    private ExecutorService connectExecutor;
+
+    /**
+     * 创建数据通道
+     *
+     * @param name 通道名称，例如quote、tick、depth、kline
+     * @param symbolExtractor 从数据中提取产品代码
+     * @param multiProducer 是否有多个线程同时发布数据
+     * @return 数据通道
+     */
+    public <T> MarketDataChannel<T> create(String name, Function<? super T, String> symbolExtractor,
+                                           boolean multiProducer) {
+        switch (mode.trim().toLowerCase()) {
+            case "inline":
+                return new InlineMarketDataChannel<>(name, symbolExtractor, callbackMetrics);
+            case "ring":
+                log.info("{}数据使用环形缓冲区分发，缓冲区大小: {}，等待策略: {}", name, bufferSize, waitStrategy);
+                return new RingBufferMarketDataChannel<>(name, symbolExtractor, bufferSize,
+                        WaitStrategies.of(waitStrategy), multiProducer, callbackMetrics);
+            case "platform":
+            case "virtual":
+                return new ExecutorMarketDataChannel<>(name, symbolExtractor, dispatchExecutor(), mailboxCapacity,
+                        callbackMetrics);
+            default:
+                throw new IllegalArgumentException("未知的分发模式: " + mode);
+        }
+    }
+
+    /**
+     * 线程池分发模式共用的线程池，第一次使用时创建
+     */
+    private synchronized ExecutorService dispatchExecutor() {
+        if (dispatchExecutor == null) {
+            if (isVirtual()) {
+                dispatchExecutor = VirtualThreads.newThreadPerTaskExecutor("itick-dispatch-");
+                log.info("订阅者回调使用虚拟线程分发，每个产品队列容量: {}", mailboxCapacity);
+            } else {
+                int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+                AtomicInteger counter = new AtomicInteger();
+                dispatchExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+                    Thread thread = new Thread(runnable, "itick-dispatch-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                log.info("订阅者回调使用平台线程池分发，线程数: {}，每个产品队列容量: {}", threads, mailboxCapacity);
+            }
+        }
+        return dispatchExecutor;
+    }
+
+    /**
+     * 建立连接和重连使用的线程池
+     * virtual模式下为虚拟线程池，其他模式返回null，由调用方使用默认的线程
+     */
+    public synchronized ExecutorService connectExecutor() {
+        if (connectExecutor == null && isVirtual()) {
+            connectExecutor = VirtualThreads.newThreadPerTaskExecutor("itick-connect-");
+        }
+        return connectExecutor;
+    }
+
+    private boolean isVirtual() {
+        return "virtual".equals(mode.trim().toLowerCase());
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdownNow();
+        }
+        if (connectExecutor != null) {
+            connectExecutor.shutdownNow();
+        }
+    }
+}
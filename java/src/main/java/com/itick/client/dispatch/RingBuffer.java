@@ -0,0 +1,169 @@
+package com.itick.client.dispatch;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 有界的单生产者/多消费者环形缓冲区
+ * 每个消费者持有独立的序号，生产者只在最慢的消费者落后一整圈时等待。
+ * 槽位在创建时分配，发布数据不会产生对象分配。
+ *
+ * 默认只允许一个线程调用publish；有多个生产者时（例如连接池中的多个接收线程）需要开启multiProducer，
+ * 发布过程会加锁串行化。
+ *
+ * @param <T> 数据类型
+ */
+public class RingBuffer<T> {
+
+    private static final Sequence[] NO_SEQUENCES = new Sequence[0];
+
+    private final Object[] entries;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final boolean multiProducer;
+    private final Sequence cursor = new Sequence(-1);
+
+    private final Object gatingLock = new Object();
+    private volatile Sequence[] gatingSequences = NO_SEQUENCES;
+    private long cachedGatingSequence = -1;
+
+    /**
+     * @param bufferSize 缓冲区大小，必须是2的幂
+     * @param waitStrategy 消费者等待策略
+     * @param multiProducer 是否有多个线程同时发布
+     */
+    public RingBuffer(int bufferSize, WaitStrategy waitStrategy, boolean multiProducer) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("缓冲区大小必须是2的幂: " + bufferSize);
+        }
+        this.entries = new Object[bufferSize];
+        this.mask = bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+        this.multiProducer = multiProducer;
+    }
+
+    public int getBufferSize() {
+        return entries.length;
+    }
+
+    public Sequence getCursor() {
+        return cursor;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * 发布一条数据，缓冲区已满时等待最慢的消费者
+     *
+     * @param data 数据
+     */
+    public void publish(T data) {
+        if (multiProducer) {
+            synchronized (this) {
+                publishNext(data);
+            }
+        } else {
+            publishNext(data);
+        }
+    }
+
+    /**
+     * 尝试发布一条数据，缓冲区已满时直接放弃，不等待消费者
+     *
+     * @param data 数据
+     * @return 是否已发布
+     */
+    public boolean tryPublish(T data) {
+        if (multiProducer) {
+            synchronized (this) {
+                return tryPublishNext(data);
+            }
+        }
+        return tryPublishNext(data);
+    }
+
+    private boolean tryPublishNext(T data) {
+        long next = cursor.get() + 1;
+        long wrapPoint = next - entries.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long minSequence = minimumGatingSequence(next - 1);
+            cachedGatingSequence = minSequence;
+            if (wrapPoint > minSequence) {
+                return false;
+            }
+        }
+        entries[(int) (next & mask)] = data;
+        cursor.set(next);
+        waitStrategy.signalAllWhenBlocking();
+        return true;
+    }
+
+    private void publishNext(T data) {
+        long next = cursor.get() + 1;
+        long wrapPoint = next - entries.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long minSequence;
+            while (wrapPoint > (minSequence = minimumGatingSequence(next - 1))) {
+                LockSupport.parkNanos(1);
+            }
+            cachedGatingSequence = minSequence;
+        }
+        entries[(int) (next & mask)] = data;
+        cursor.set(next);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    /**
+     * 读取指定序号的数据
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long sequence) {
+        return (T) entries[(int) (sequence & mask)];
+    }
+
+    /**
+     * 添加消费者序号，新消费者从当前已发布的位置开始消费
+     *
+     * @return 消费者序号
+     */
+    public Sequence addGatingSequence() {
+        synchronized (gatingLock) {
+            Sequence sequence = new Sequence(cursor.get());
+            Sequence[] current = gatingSequences;
+            Sequence[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = sequence;
+            gatingSequences = updated;
+            // 添加期间生产者可能已经前进，重新对齐到最新位置
+            sequence.set(cursor.get());
+            return sequence;
+        }
+    }
+
+    /**
+     * 移除消费者序号
+     */
+    public void removeGatingSequence(Sequence sequence) {
+        synchronized (gatingLock) {
+            Sequence[] current = gatingSequences;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == sequence) {
+                    Sequence[] updated = new Sequence[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    gatingSequences = updated;
+                    return;
+                }
+            }
+        }
+    }
+
+    private long minimumGatingSequence(long defaultValue) {
+        long minimum = defaultValue;
+        for (Sequence sequence : gatingSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+}
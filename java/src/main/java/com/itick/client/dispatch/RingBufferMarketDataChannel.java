@@ -0,0 +1,82 @@
+package com.itick.client.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 环形缓冲区分发通道
+ * 接收线程只负责把数据写入环形缓冲区，每个订阅者拥有独立的消费序号和分发线程，
+ * 慢订阅者不会阻塞接收线程，直到它落后整个缓冲区大小。
+ *
+ * @param <T> 数据类型
+ */
+@Slf4j
+public class RingBufferMarketDataChannel<T> implements MarketDataChannel<T> {
+
+    private final String name;
+    private final Function<? super T, String> symbolExtractor;
+    private final RingBuffer<T> ringBuffer;
+    private final SubscriberRegistry<T> registry;
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    /**
+     * @param name 通道名称，用于分发线程命名
+     * @param symbolExtractor 从数据中提取产品代码
+     * @param bufferSize 缓冲区大小，必须是2的幂
+     * @param waitStrategy 消费者等待策略
+     * @param multiProducer 是否有多个线程同时发布
+     */
+    public RingBufferMarketDataChannel(String name, Function<? super T, String> symbolExtractor,
+                                       int bufferSize, WaitStrategy waitStrategy, boolean multiProducer) {
+        this(name, symbolExtractor, bufferSize, waitStrategy, multiProducer, CallbackMetrics.NOOP);
+    }
+
+    /**
+     * @param name 通道名称，用于分发线程命名和回调耗时统计
+     * @param symbolExtractor 从数据中提取产品代码
+     * @param bufferSize 缓冲区大小，必须是2的幂
+     * @param waitStrategy 消费者等待策略
+     * @param multiProducer 是否有多个线程同时发布
+     * @param metrics 订阅者回调耗时统计
+     */
+    public RingBufferMarketDataChannel(String name, Function<? super T, String> symbolExtractor,
+                                       int bufferSize, WaitStrategy waitStrategy, boolean multiProducer,
+                                       CallbackMetrics metrics) {
+        this.name = name;
+        this.symbolExtractor = symbolExtractor;
+        this.ringBuffer = new RingBuffer<>(bufferSize, waitStrategy, multiProducer);
+        this.registry = new SubscriberRegistry<>(name, metrics);
+    }
+
+    @Override
+    public Subscription subscribe(Consumer<? super T> subscriber, SymbolFilter filter) {
+        SubscriberRegistry.Registration<T> registration = registry.register(subscriber, filter);
+        EventProcessor<T> processor = new EventProcessor<>(ringBuffer,
+                data -> registration.deliver(data, symbolExtractor.apply(data)));
+        registration.onCancel(processor::halt);
+
+        Thread thread = new Thread(processor, "itick-" + name + "-dispatch-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+        log.debug("已启动{}数据分发线程: {}", name, thread.getName());
+        return registration;
+    }
+
+    @Override
+    public void publish(T data) {
+        ringBuffer.publish(data);
+    }
+
+    @Override
+    public boolean hasSubscribers() {
+        return registry.size() > 0;
+    }
+
+    @Override
+    public void close() {
+        registry.clear();
+    }
+}
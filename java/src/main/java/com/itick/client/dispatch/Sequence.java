@@ -0,0 +1,39 @@
+package com.itick.client.dispatch;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 环形缓冲区中的序号
+ * 前后填充缓存行，避免生产者和各消费者的序号之间发生伪共享
+ */
+public class Sequence {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Sequence.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+    private volatile long value;
+    @SuppressWarnings("unused")
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    public Sequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    public long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    public void set(long value) {
+        VALUE.setRelease(this, value);
+    }
+}
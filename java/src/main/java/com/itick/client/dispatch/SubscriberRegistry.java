@@ -0,0 +1,247 @@
+package com.itick.client.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 无锁的写时复制订阅者注册表
+ * 注册和取消通过CAS替换整个路由表完成，可以与分发同时进行。
+ *
+ * 路由表按产品代码索引订阅者数组：某个产品第一次出现时计算一次匹配的订阅者，
+ * 之后每条数据的分发只需要一次哈希查找，然后遍历该产品的订阅者数组，
+ * 开销与订阅者总数无关，也不产生对象分配。
+ *
+ * @param <T> 数据类型
+ */
+@Slf4j
+public class SubscriberRegistry<T> {
+
+    private final String channel;
+    private final CallbackMetrics metrics;
+    private final AtomicReference<RoutingTable<T>> table = new AtomicReference<>(new RoutingTable<>(emptyArray()));
+
+    public SubscriberRegistry() {
+        this(null, CallbackMetrics.NOOP);
+    }
+
+    /**
+     * @param channel 通道名称，用于回调耗时统计
+     * @param metrics 回调耗时统计
+     */
+    public SubscriberRegistry(String channel, CallbackMetrics metrics) {
+        this.channel = channel;
+        this.metrics = metrics;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Registration<T>[] emptyArray() {
+        return (Registration<T>[]) new Registration<?>[0];
+    }
+
+    /**
+     * 注册订阅者
+     *
+     * @param subscriber 订阅者
+     * @param filter 产品过滤条件
+     * @return 订阅登记，可用于取消订阅
+     */
+    public Registration<T> register(Consumer<? super T> subscriber, SymbolFilter filter) {
+        Registration<T> registration = new Registration<>(this, subscriber, filter, metrics.newTimer(channel));
+        RoutingTable<T> current;
+        RoutingTable<T> updated;
+        do {
+            current = table.get();
+            Registration<T>[] registrations = Arrays.copyOf(current.registrations, current.registrations.length + 1);
+            registrations[current.registrations.length] = registration;
+            updated = new RoutingTable<>(registrations);
+        } while (!table.compareAndSet(current, updated));
+        return registration;
+    }
+
+    /**
+     * 移除订阅登记
+     */
+    void remove(Registration<T> registration) {
+        RoutingTable<T> current;
+        RoutingTable<T> updated;
+        do {
+            current = table.get();
+            int index = indexOf(current.registrations, registration);
+            if (index < 0) {
+                return;
+            }
+            Registration<T>[] registrations = Arrays.copyOf(current.registrations, current.registrations.length - 1);
+            System.arraycopy(current.registrations, index + 1, registrations, index,
+                    current.registrations.length - index - 1);
+            updated = new RoutingTable<>(registrations);
+        } while (!table.compareAndSet(current, updated));
+    }
+
+    private static int indexOf(Registration<?>[] array, Registration<?> registration) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == registration) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 将数据分发给关注该产品的订阅者
+     *
+     * @param data 数据
+     * @param symbol 数据所属的产品代码
+     */
+    public void dispatch(T data, String symbol) {
+        for (Registration<T> registration : table.get().route(symbol)) {
+            registration.deliver(data);
+        }
+    }
+
+    /**
+     * 是否有订阅者关注该产品
+     * 用于在分发前跳过无人关注的数据的准备工作（例如序列化）
+     *
+     * @param symbol 产品代码
+     */
+    public boolean hasSubscribers(String symbol) {
+        return table.get().route(symbol).length > 0;
+    }
+
+    /**
+     * 取消所有订阅
+     */
+    public void clear() {
+        for (Registration<T> registration : table.get().registrations) {
+            registration.cancel();
+        }
+    }
+
+    /**
+     * 当前的订阅者数量
+     */
+    public int size() {
+        return table.get().registrations.length;
+    }
+
+    /**
+     * 路由表
+     * 注册表每次变更都会生成新的路由表，产品索引在分发时按需填充，因此总是与订阅者数组一致
+     */
+    private static final class RoutingTable<T> {
+
+        private final Registration<T>[] registrations;
+        private final Registration<T>[] unfiltered;
+        private final Map<String, Registration<T>[]> routes = new ConcurrentHashMap<>();
+
+        RoutingTable(Registration<T>[] registrations) {
+            this.registrations = registrations;
+            this.unfiltered = Arrays.stream(registrations)
+                    .filter(registration -> registration.filter.isAll())
+                    .toArray(length -> Arrays.copyOf(registrations, length));
+        }
+
+        Registration<T>[] route(String symbol) {
+            if (symbol == null) {
+                return unfiltered;
+            }
+            Registration<T>[] matched = routes.get(symbol);
+            if (matched == null) {
+                matched = Arrays.stream(registrations)
+                        .filter(registration -> registration.filter.matches(symbol))
+                        .toArray(length -> Arrays.copyOf(registrations, length));
+                routes.putIfAbsent(symbol, matched);
+            }
+            return matched;
+        }
+    }
+
+    /**
+     * 订阅登记
+     * 保存订阅者及其产品过滤条件，同时作为取消订阅的句柄
+     *
+     * @param <T> 数据类型
+     */
+    public static final class Registration<T> implements Subscription {
+
+        private final SubscriberRegistry<T> registry;
+        private final Consumer<? super T> subscriber;
+        private final SymbolFilter filter;
+        private final CallbackMetrics.CallbackTimer timer;
+        private final boolean timed;
+        private final AtomicBoolean active = new AtomicBoolean(true);
+        private volatile Runnable cancelHook;
+
+        Registration(SubscriberRegistry<T> registry, Consumer<? super T> subscriber, SymbolFilter filter,
+                     CallbackMetrics.CallbackTimer timer) {
+            this.registry = registry;
+            this.subscriber = subscriber;
+            this.filter = filter == null ? SymbolFilter.all() : filter;
+            this.timer = timer;
+            this.timed = timer != CallbackMetrics.CallbackTimer.NOOP;
+        }
+
+        /**
+         * 设置取消订阅时需要额外执行的清理动作
+         */
+        public void onCancel(Runnable cancelHook) {
+            this.cancelHook = cancelHook;
+        }
+
+        public SymbolFilter getFilter() {
+            return filter;
+        }
+
+        /**
+         * 将数据交给订阅者处理，订阅者抛出的异常会被记录
+         * 启用回调耗时统计时记录每次处理的耗时
+         */
+        public void deliver(T data) {
+            if (!active.get()) {
+                return;
+            }
+            long start = timed ? System.nanoTime() : 0;
+            try {
+                subscriber.accept(data);
+            } catch (Exception e) {
+                log.error("订阅者处理数据时出错", e);
+            }
+            if (timed) {
+                timer.record(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * 数据属于关注的产品时交给订阅者处理
+         */
+        public void deliver(T data, String symbol) {
+            if (filter.matches(symbol)) {
+                deliver(data);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!active.compareAndSet(true, false)) {
+                return;
+            }
+            registry.remove(this);
+            timer.close();
+            Runnable hook = cancelHook;
+            if (hook != null) {
+                hook.run();
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            return active.get();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.itick.client.dispatch;
+
+/**
+ * 订阅句柄
+ * 由订阅方法返回，用于取消订阅
+ */
+public interface Subscription {
+
+    /**
+     * 取消订阅，重复调用没有副作用
+     */
+    void cancel();
+
+    /**
+     * 订阅是否仍然有效
+     */
+    boolean isActive();
+}
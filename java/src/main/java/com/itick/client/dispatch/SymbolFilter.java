@@ -0,0 +1,114 @@
+package com.itick.client.dispatch;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * 产品过滤条件
+ * 描述订阅者关注哪些产品：全部产品、指定的产品集合，或者按产品代码前缀/后缀匹配（例如地区后缀"$ba"）
+ */
+public final class SymbolFilter {
+
+    private enum Mode {
+        ALL,
+        SYMBOLS,
+        PREFIX,
+        SUFFIX
+    }
+
+    private static final SymbolFilter ALL = new SymbolFilter(Mode.ALL, null, null);
+
+    private final Mode mode;
+    private final Set<String> symbols;
+    private final String pattern;
+
+    private SymbolFilter(Mode mode, Set<String> symbols, String pattern) {
+        this.mode = mode;
+        this.symbols = symbols;
+        this.pattern = pattern;
+    }
+
+    /**
+     * 接收所有产品
+     */
+    public static SymbolFilter all() {
+        return ALL;
+    }
+
+    /**
+     * 只接收指定的产品
+     *
+     * @param symbols 产品代码集合，为null时接收所有产品
+     */
+    public static SymbolFilter of(Collection<String> symbols) {
+        return symbols == null ? ALL : new SymbolFilter(Mode.SYMBOLS, Set.copyOf(symbols), null);
+    }
+
+    /**
+     * 只接收指定的产品
+     *
+     * @param symbols 产品代码
+     */
+    public static SymbolFilter of(String... symbols) {
+        return new SymbolFilter(Mode.SYMBOLS, Set.of(symbols), null);
+    }
+
+    /**
+     * 接收代码以指定前缀开头的产品
+     *
+     * @param prefix 代码前缀
+     */
+    public static SymbolFilter prefix(String prefix) {
+        return new SymbolFilter(Mode.PREFIX, null, prefix);
+    }
+
+    /**
+     * 接收代码以指定后缀结尾的产品，例如"$ba"
+     *
+     * @param suffix 代码后缀
+     */
+    public static SymbolFilter suffix(String suffix) {
+        return new SymbolFilter(Mode.SUFFIX, null, suffix);
+    }
+
+    /**
+     * 是否接收所有产品
+     */
+    public boolean isAll() {
+        return mode == Mode.ALL;
+    }
+
+    /**
+     * 判断产品是否符合过滤条件
+     *
+     * @param symbol 产品代码，可能为null
+     */
+    public boolean matches(String symbol) {
+        switch (mode) {
+            case ALL:
+                return true;
+            case SYMBOLS:
+                return symbol != null && symbols.contains(symbol);
+            case PREFIX:
+                return symbol != null && symbol.startsWith(pattern);
+            case SUFFIX:
+                return symbol != null && symbol.endsWith(pattern);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case SYMBOLS:
+                return "symbols" + symbols;
+            case PREFIX:
+                return "prefix[" + pattern + "]";
+            case SUFFIX:
+                return "suffix[" + pattern + "]";
+            default:
+                return "all";
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.itick.client.dispatch;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程工具
+ * 项目以Java 17编译，虚拟线程相关的API（Java 21）通过反射调用，在Java 21及以上的运行时可用。
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        try {
+            newThreadFactory("itick-probe-");
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 创建为每个任务启动一个虚拟线程的线程池
+     *
+     * @param prefix 线程名前缀，后面附加从0开始的序号
+     * @return 线程池
+     * @throws IllegalStateException 如果运行时不支持虚拟线程
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory factory = newThreadFactory(prefix);
+        try {
+            Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) method.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("当前Java版本不支持虚拟线程，需要Java 21或更高版本", e);
+        }
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     *
+     * @param prefix 线程名前缀，后面附加从0开始的序号
+     * @return 线程工厂
+     * @throws IllegalStateException 如果运行时不支持虚拟线程
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            throw new IllegalStateException("当前Java版本不支持虚拟线程，需要Java 21或更高版本", e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.itick.client.dispatch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 内置的等待策略
+ *
+ * <ul>
+ *     <li>blocking：锁和条件变量，CPU占用最低，延迟最高</li>
+ *     <li>sleeping：先自旋，再让出CPU，最后短暂休眠，兼顾延迟和CPU占用</li>
+ *     <li>yielding：自旋后让出CPU，适合消费者线程数不超过空闲核数的场景</li>
+ *     <li>busy-spin：持续自旋，延迟最低，需要为每个消费者独占一个核</li>
+ * </ul>
+ */
+public final class WaitStrategies {
+
+    private WaitStrategies() {
+    }
+
+    /**
+     * 根据名称创建等待策略
+     *
+     * @param name 策略名称：blocking、sleeping、yielding、busy-spin
+     * @return 等待策略
+     */
+    public static WaitStrategy of(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "blocking":
+                return new BlockingWaitStrategy();
+            case "sleeping":
+                return new SleepingWaitStrategy();
+            case "yielding":
+                return new YieldingWaitStrategy();
+            case "busy-spin":
+                return new BusySpinWaitStrategy();
+            default:
+                throw new IllegalArgumentException("未知的等待策略: " + name);
+        }
+    }
+
+    /**
+     * 使用锁和条件变量等待
+     */
+    static class BlockingWaitStrategy implements WaitStrategy {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+        private final AtomicBoolean signalNeeded = new AtomicBoolean();
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, EventProcessor<?> processor) throws InterruptedException {
+            long available = cursor.get();
+            if (available < sequence) {
+                lock.lock();
+                try {
+                    while ((available = cursor.get()) < sequence && processor.isRunning()) {
+                        signalNeeded.set(true);
+                        published.await(1, TimeUnit.MILLISECONDS);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+            if (signalNeeded.getAndSet(false)) {
+                lock.lock();
+                try {
+                    published.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * 自旋、让出CPU、休眠逐级退避
+     */
+    static class SleepingWaitStrategy implements WaitStrategy {
+
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 100;
+        private static final long SLEEP_NANOS = 100_000;
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, EventProcessor<?> processor) {
+            long available;
+            int counter = SPIN_TRIES + YIELD_TRIES;
+            while ((available = cursor.get()) < sequence && processor.isRunning()) {
+                if (counter > YIELD_TRIES) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else if (counter > 0) {
+                    counter--;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(SLEEP_NANOS);
+                }
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+        }
+    }
+
+    /**
+     * 自旋后让出CPU
+     */
+    static class YieldingWaitStrategy implements WaitStrategy {
+
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, EventProcessor<?> processor) {
+            long available;
+            int counter = SPIN_TRIES;
+            while ((available = cursor.get()) < sequence && processor.isRunning()) {
+                if (counter > 0) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+        }
+    }
+
+    /**
+     * 持续自旋
+     */
+    static class BusySpinWaitStrategy implements WaitStrategy {
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, EventProcessor<?> processor) {
+            long available;
+            while ((available = cursor.get()) < sequence && processor.isRunning()) {
+                Thread.onSpinWait();
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.itick.client.dispatch;
+
+/**
+ * 消费者等待策略
+ * 决定消费者在没有新数据时如何等待生产者
+ */
+public interface WaitStrategy {
+
+    /**
+     * 等待指定序号可用
+     *
+     * @param sequence 需要等待的序号
+     * @param cursor 生产者已发布的序号
+     * @param processor 等待中的处理器，停止后应尽快返回
+     * @return 当前可用的最大序号，可能小于sequence（处理器已停止时）
+     * @throws InterruptedException 如果等待被中断
+     */
+    long waitFor(long sequence, Sequence cursor, EventProcessor<?> processor) throws InterruptedException;
+
+    /**
+     * 生产者发布数据后通知阻塞中的消费者
+     */
+    void signalAllWhenBlocking();
+}
@@ -1,5 +1,6 @@
 package com.itick.client.example;
 
+import com.itick.client.dispatch.Subscription;
 import com.itick.client.model.KlineData;
 import com.itick.client.model.websocket.QuoteData;
 import com.itick.client.service.KlineService;
@@ -7,6 +8,7 @@ import com.itick.client.service.WebSocketClientService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
@@ -22,10 +24,11 @@ import java.util.concurrent.TimeUnit;
  * 产品数据示例应用
  * 演示如何使用客户端订阅WebSocket数据和获取K线数据
  * 
- * 这是一个命令行示例，可以运行它来测试功能
+ * 这是一个命令行示例，可以运行它来测试功能；itick.example.enabled=false时不启动
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(name = "itick.example.enabled", havingValue = "true", matchIfMissing = true)
 @RequiredArgsConstructor
 public class StockDataExample implements CommandLineRunner {
 
@@ -70,7 +73,7 @@ public class StockDataExample implements CommandLineRunner {
         CountDownLatch latch = new CountDownLatch(3);
         
         // 订阅报价数据
-        webSocketClientService.subscribeToQuotes(quoteData -> {
+        Subscription subscription = webSocketClientService.subscribeToQuotes(quoteData -> {
             displayQuoteData(quoteData);
             latch.countDown();
         });
@@ -91,6 +94,9 @@ public class StockDataExample implements CommandLineRunner {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("等待报价数据时被中断", e);
+        } finally {
+            // 取消本次测试的订阅，避免重复测试时订阅者不断累积
+            subscription.cancel();
         }
     }
     
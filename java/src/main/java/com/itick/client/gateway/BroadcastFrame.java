@@ -0,0 +1,66 @@
+package com.itick.client.gateway;
+
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * 广播帧
+ * 一条行情数据序列化后的结果，由所有关注该数据的客户端共享：
+ * JSON只在网关收到数据时生成一次，WebSocket消息和SSE事件在第一次使用时由JSON拼接并缓存。
+ *
+ * 缓存字段允许多个发送线程同时初始化，结果相同，只会多做一次拼接。
+ */
+public final class BroadcastFrame {
+
+    private final String type;
+    private final String symbol;
+    private final String json;
+    private TextMessage textMessage;
+    private String sseEvent;
+
+    /**
+     * @param type 数据类型：quote、tick、depth
+     * @param symbol 产品代码
+     * @param json 序列化后的消息，格式与iTick推送的行情消息相同
+     */
+    public BroadcastFrame(String type, String symbol, String json) {
+        this.type = type;
+        this.symbol = symbol;
+        this.json = json;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * WebSocket文本消息
+     */
+    public TextMessage getTextMessage() {
+        TextMessage message = textMessage;
+        if (message == null) {
+            message = new TextMessage(json);
+            textMessage = message;
+        }
+        return message;
+    }
+
+    /**
+     * 完整的SSE事件文本，事件名为数据类型
+     */
+    public String getSseEvent() {
+        String event = sseEvent;
+        if (event == null) {
+            event = "event:" + type + "\ndata:" + json + "\n\n";
+            sseEvent = event;
+        }
+        return event;
+    }
+}
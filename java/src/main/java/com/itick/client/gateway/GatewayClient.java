@@ -0,0 +1,182 @@
+package com.itick.client.gateway;
+
+import com.itick.client.dispatch.Subscription;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 网关客户端
+ * 分发线程只把广播帧放入客户端自己的有界队列，由发送线程池逐个写到客户端连接，
+ * 个别客户端网络慢不会拖慢分发线程和其他客户端。
+ *
+ * 队列满时丢弃最旧的帧并计数，客户端重新跟上后收到的是较新的行情。
+ * 同一时刻最多有一个发送任务处理该客户端的队列，帧按入队顺序发送。
+ */
+@Slf4j
+public abstract class GatewayClient implements Consumer<BroadcastFrame> {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final String id;
+    private final Executor executor;
+    private final int capacity;
+    private final Queue<BroadcastFrame> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile List<Subscription> subscriptions = List.of();
+    private volatile Runnable closeHook;
+
+    /**
+     * 客户端当前引用的上游订阅（类型:产品），由网关在持有客户端锁时读写
+     */
+    List<String> selectedKeys = List.of();
+
+    /**
+     * @param id 客户端标识
+     * @param executor 发送线程池
+     * @param capacity 最多排队的帧数
+     */
+    protected GatewayClient(String id, Executor executor, int capacity) {
+        this.id = id;
+        this.executor = executor;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 将帧写到客户端连接，只会在发送线程中被依次调用
+     */
+    protected abstract void send(BroadcastFrame frame) throws IOException;
+
+    /**
+     * 关闭客户端连接
+     */
+    protected abstract void closeTransport();
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 广播帧入队，由分发线程调用
+     */
+    @Override
+    public void accept(BroadcastFrame frame) {
+        if (closed.get()) {
+            return;
+        }
+        queue.offer(frame);
+        if (size.incrementAndGet() > capacity && queue.poll() != null) {
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < BATCH_SIZE && !closed.get(); i++) {
+                BroadcastFrame frame = queue.poll();
+                if (frame == null) {
+                    break;
+                }
+                size.decrementAndGet();
+                send(frame);
+                sent.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.info("网关客户端 {} 发送失败，断开连接: {}", id, e.getMessage());
+            close();
+        } finally {
+            scheduled.set(false);
+        }
+        if (!closed.get() && !queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * 设置客户端当前的订阅，由网关在客户端修改关注的产品和类型时调用
+     *
+     * @return 之前的订阅
+     */
+    List<Subscription> replaceSubscriptions(List<Subscription> updated) {
+        List<Subscription> previous = subscriptions;
+        subscriptions = updated;
+        return previous;
+    }
+
+    /**
+     * 设置关闭客户端时需要额外执行的清理动作
+     */
+    void onClose(Runnable closeHook) {
+        this.closeHook = closeHook;
+    }
+
+    /**
+     * 关闭客户端：取消订阅、清空队列并关闭连接，重复调用没有副作用
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        Runnable hook = closeHook;
+        if (hook != null) {
+            hook.run();
+        }
+        queue.clear();
+        size.set(0);
+        try {
+            closeTransport();
+        } catch (Exception e) {
+            log.debug("关闭网关客户端 {} 时出错", id, e);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * 已发送的帧数
+     */
+    public long getSent() {
+        return sent.get();
+    }
+
+    /**
+     * 因队列已满而丢弃的帧数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 当前排队的帧数
+     */
+    public int getQueued() {
+        return size.get();
+    }
+}
@@ -0,0 +1,47 @@
+package com.itick.client.gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import java.util.Arrays;
+
+/**
+ * 行情扇出网关的WebSocket端点配置
+ * SSE端点由StockDataController提供：GET /api/stream
+ */
+@Slf4j
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "itick.gateway.enabled", havingValue = "true", matchIfMissing = false)
+public class GatewayConfig implements WebSocketConfigurer {
+
+    private final MarketDataGateway gateway;
+    private final ObjectMapper objectMapper;
+
+    @Value("${itick.gateway.ws-path:/ws/market}")
+    private String path;
+
+    /**
+     * 允许的跨域来源，默认为空，只接受同源页面的连接
+     */
+    @Value("${itick.gateway.allowed-origins:}")
+    private String[] allowedOrigins;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        String[] origins = Arrays.stream(allowedOrigins).map(String::trim).filter(origin -> !origin.isEmpty())
+                .toArray(String[]::new);
+        registry.addHandler(new GatewayWebSocketHandler(gateway, objectMapper), path)
+                .setAllowedOrigins(origins);
+        log.info("行情扇出网关WebSocket端点: {}，允许的跨域来源: {}", path,
+                origins.length == 0 ? "仅同源" : String.join(",", origins));
+    }
+}
@@ -0,0 +1,139 @@
+package com.itick.client.gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.model.websocket.WebSocketMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 网关WebSocket端点
+ * 协议与iTick的WebSocket接口相同，客户端可以直接复用接入iTick的代码：
+ * 发送{"ac":"subscribe","params":"BTCUSDT,ETHUSDT","types":"quote,depth"}选择关注的产品和类型（替换之前的选择），
+ * 发送{"ac":"unsubscribe"}停止接收，发送{"ac":"ping","params":"时间戳"}收到pong应答。
+ * 也可以在连接地址上通过symbols、types参数直接指定，省略symbols表示所有产品。
+ */
+@Slf4j
+public class GatewayWebSocketHandler extends TextWebSocketHandler {
+
+    private final MarketDataGateway gateway;
+    private final ObjectMapper objectMapper;
+    private final Map<String, WebSocketGatewayClient> clients = new ConcurrentHashMap<>();
+
+    public GatewayWebSocketHandler(MarketDataGateway gateway, ObjectMapper objectMapper) {
+        this.gateway = gateway;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        WebSocketGatewayClient client;
+        try {
+            client = gateway.openWebSocket(session);
+        } catch (IllegalStateException e) {
+            log.warn("拒绝网关WebSocket连接 {}: {}", session.getId(), e.getMessage());
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+            return;
+        }
+        clients.put(session.getId(), client);
+
+        MultiValueMap<String, String> query = session.getUri() == null ? null
+                : UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        String types = query == null ? null : query.getFirst("types");
+        if (types != null) {
+            try {
+                gateway.select(client, split(query.getFirst("symbols")), split(types));
+            } catch (IllegalArgumentException e) {
+                reply(client, 0, "subscribe", e.getMessage(), null);
+            }
+        }
+        log.debug("网关WebSocket客户端接入: {}", session.getId());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        WebSocketGatewayClient client = clients.get(session.getId());
+        if (client == null) {
+            return;
+        }
+        WebSocketMessage request;
+        try {
+            request = objectMapper.readValue(message.getPayload(), WebSocketMessage.class);
+        } catch (IOException e) {
+            reply(client, 0, "error", "无法解析的请求", null);
+            return;
+        }
+        if (request.getAc() == null) {
+            return;
+        }
+        switch (request.getAc()) {
+            case "subscribe":
+                try {
+                    gateway.select(client, split(request.getParams()), split(request.getTypes()));
+                    reply(client, 1, "subscribe", "subscribed", null);
+                } catch (IllegalArgumentException e) {
+                    reply(client, 0, "subscribe", e.getMessage(), null);
+                }
+                break;
+            case "unsubscribe":
+                gateway.select(client, null, List.of());
+                reply(client, 1, "unsubscribe", "unsubscribed", null);
+                break;
+            case "ping":
+                reply(client, 1, "pong", "ok", Map.of("params", String.valueOf(request.getParams())));
+                break;
+            default:
+                reply(client, 0, request.getAc(), "不支持的操作", null);
+                break;
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("网关WebSocket客户端 {} 传输错误: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        WebSocketGatewayClient client = clients.remove(session.getId());
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private void reply(WebSocketGatewayClient client, int code, String resAc, String msg, Object data) throws IOException {
+        WebSocketMessage response = WebSocketMessage.builder()
+                .code(code)
+                .resAc(resAc)
+                .msg(msg)
+                .data(data)
+                .build();
+        client.sendText(new TextMessage(objectMapper.writeValueAsString(response)));
+    }
+
+    /**
+     * 拆分逗号分隔的列表，null或空字符串返回null
+     */
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.isBlank()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,318 @@
+package com.itick.client.gateway;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.dispatch.SubscriberRegistry;
+import com.itick.client.dispatch.Subscription;
+import com.itick.client.dispatch.SymbolFilter;
+import com.itick.client.dispatch.VirtualThreads;
+import com.itick.client.service.MarketDataSource;
+import com.itick.client.service.WebSocketClientService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 行情扇出网关
+ * 通过一个上游连接接收报价、成交和盘口数据，再通过SSE和WebSocket推送给大量本地客户端。
+ * 每个客户端可以选择关注的产品和数据类型，并拥有自己的有界发送队列。
+ *
+ * 每条数据只在有客户端关注时序列化一次，得到的广播帧由所有关注的客户端共享，
+ * 序列化开销与客户端数量无关；客户端的路由复用SubscriberRegistry的按产品索引。
+ *
+ * 第一个客户端接入时才订阅上游数据。启用auto-subscribe后，客户端指定产品时网关按产品和类型的引用计数
+ * 向iTick订阅和取消订阅，多个客户端关注同一个产品只订阅一次；网关在WebSocketClientService中
+ * 只持有自己的一份引用，最后一个客户端离开时只释放这份引用，不影响应用内其他地方的订阅。
+ * 每个客户端最多指定max-symbols-per-client个产品。
+ */
+@Slf4j
+@Service
+public class MarketDataGateway {
+
+    /**
+     * 网关支持的数据类型
+     */
+    public static final List<String> TYPES = List.of("quote", "tick", "depth");
+
+    private final MarketDataSource marketDataSource;
+    private final WebSocketClientService webSocketClientService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, SubscriberRegistry<BroadcastFrame>> registries = new LinkedHashMap<>();
+    private final Map<String, GatewayClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, Integer> upstreamRefs = new HashMap<>();
+    private final List<Subscription> upstream = new ArrayList<>();
+    private final AtomicLong serialized = new AtomicLong();
+    private final AtomicLong serializeErrors = new AtomicLong();
+    private final AtomicLong closedSent = new AtomicLong();
+    private final AtomicLong closedDropped = new AtomicLong();
+
+    @Value("${itick.gateway.enabled:false}")
+    private boolean enabled;
+
+    @Value("${itick.gateway.max-clients:10000}")
+    private int maxClients;
+
+    @Value("${itick.gateway.client-buffer-size:1000}")
+    private int clientBufferSize;
+
+    @Value("${itick.gateway.sender-threads:0}")
+    private int senderThreads;
+
+    @Value("${itick.gateway.max-symbols-per-client:50}")
+    private int maxSymbolsPerClient;
+
+    @Value("${itick.gateway.sse-timeout-ms:0}")
+    private long sseTimeoutMs;
+
+    @Value("${itick.gateway.auto-subscribe:false}")
+    private boolean autoSubscribe;
+
+    private ExecutorService executor;
+
+    public MarketDataGateway(MarketDataSource marketDataSource, WebSocketClientService webSocketClientService,
+                             ObjectMapper objectMapper) {
+        this.marketDataSource = marketDataSource;
+        this.webSocketClientService = webSocketClientService;
+        this.objectMapper = objectMapper;
+        for (String type : TYPES) {
+            registries.put(type, new SubscriberRegistry<>());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 创建SSE客户端，返回的发送器直接作为控制器的响应体
+     */
+    public SseGatewayClient openSse() {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(sseTimeoutMs > 0 ? sseTimeoutMs : -1L);
+        return attach(new SseGatewayClient("sse-" + UUID.randomUUID(), ensureStarted(), clientBufferSize, emitter));
+    }
+
+    /**
+     * 为新建立的WebSocket会话创建客户端
+     */
+    public WebSocketGatewayClient openWebSocket(WebSocketSession session) {
+        return attach(new WebSocketGatewayClient("ws-" + session.getId(), ensureStarted(), clientBufferSize, session));
+    }
+
+    private <C extends GatewayClient> C attach(C client) {
+        if (clients.size() >= maxClients) {
+            throw new IllegalStateException("网关客户端数量已达上限: " + maxClients);
+        }
+        clients.put(client.getId(), client);
+        client.onClose(() -> detach(client));
+        return client;
+    }
+
+    private void detach(GatewayClient client) {
+        if (clients.remove(client.getId()) != null) {
+            select(client, null, List.of());
+            closedSent.addAndGet(client.getSent());
+            closedDropped.addAndGet(client.getDropped());
+        }
+    }
+
+    /**
+     * 设置客户端关注的产品和数据类型，替换之前的选择
+     *
+     * @param client 客户端
+     * @param symbols 产品代码，null表示所有产品（此时不会向iTick发起订阅），最多max-symbols-per-client个
+     * @param types 数据类型，为空时不接收任何数据
+     */
+    public void select(GatewayClient client, Collection<String> symbols, Collection<String> types) {
+        if (types == null) {
+            throw new IllegalArgumentException("未指定数据类型");
+        }
+        if (symbols != null && new HashSet<>(symbols).size() > maxSymbolsPerClient) {
+            throw new IllegalArgumentException("产品数量超过上限: " + maxSymbolsPerClient);
+        }
+        for (String type : types) {
+            if (!registries.containsKey(type)) {
+                throw new IllegalArgumentException("不支持的数据类型: " + type);
+            }
+        }
+        SymbolFilter filter = SymbolFilter.of(symbols);
+        List<Subscription> subscriptions = new ArrayList<>();
+        if (!client.isClosed()) {
+            for (String type : types) {
+                subscriptions.add(registries.get(type).register(client, filter));
+            }
+        }
+        List<String> acquired = upstreamKeys(symbols, types);
+        List<String> released;
+        synchronized (client) {
+            List<Subscription> previous = client.replaceSubscriptions(subscriptions);
+            previous.forEach(Subscription::cancel);
+            released = client.selectedKeys;
+            client.selectedKeys = client.isClosed() ? List.of() : acquired;
+        }
+        if (client.isClosed()) {
+            subscriptions.forEach(Subscription::cancel);
+            acquired = List.of();
+        }
+        // 先增加新的引用再释放旧的，避免客户端只是调整选择时上游被取消后又重新订阅
+        updateUpstream(acquired, released);
+    }
+
+    private List<String> upstreamKeys(Collection<String> symbols, Collection<String> types) {
+        List<String> keys = new ArrayList<>();
+        if (!autoSubscribe || symbols == null || !(marketDataSource instanceof WebSocketClientService)) {
+            return keys;
+        }
+        for (String symbol : new LinkedHashSet<>(symbols)) {
+            for (String type : new LinkedHashSet<>(types)) {
+                keys.add(type + ":" + symbol);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 按引用计数向iTick订阅和取消订阅，同一类型的产品合并为一个请求
+     * 每个组合在WebSocketClientService中只持有一份引用：第一个客户端关注时获取，最后一个客户端离开时释放
+     */
+    private void updateUpstream(List<String> acquired, List<String> released) {
+        Map<String, List<String>> subscribe = new LinkedHashMap<>();
+        Map<String, List<String>> unsubscribe = new LinkedHashMap<>();
+        synchronized (upstreamRefs) {
+            for (String key : acquired) {
+                if (upstreamRefs.merge(key, 1, Integer::sum) == 1) {
+                    group(subscribe, key);
+                }
+            }
+            for (String key : released) {
+                if (upstreamRefs.merge(key, -1, Integer::sum) == 0) {
+                    upstreamRefs.remove(key);
+                    group(unsubscribe, key);
+                }
+            }
+        }
+        subscribe.forEach((type, symbols) -> webSocketClientService.subscribe(String.join(",", symbols), type)
+                .exceptionally(e -> {
+                    log.warn("网关向上游订阅 {} {} 失败: {}", type, symbols, e.getMessage());
+                    return null;
+                }));
+        unsubscribe.forEach((type, symbols) -> webSocketClientService.unsubscribe(String.join(",", symbols), type));
+    }
+
+    private static void group(Map<String, List<String>> grouped, String key) {
+        int separator = key.indexOf(':');
+        grouped.computeIfAbsent(key.substring(0, separator), type -> new ArrayList<>()).add(key.substring(separator + 1));
+    }
+
+    /**
+     * 第一个客户端接入时订阅上游数据并创建发送线程池
+     * 未指定线程数且运行在Java 21及以上时使用虚拟线程，发送阻塞不占用平台线程
+     */
+    private synchronized ExecutorService ensureStarted() {
+        if (executor != null) {
+            return executor;
+        }
+        if (senderThreads <= 0 && VirtualThreads.isSupported()) {
+            executor = VirtualThreads.newThreadPerTaskExecutor("itick-gateway-");
+        } else {
+            int threads = senderThreads > 0 ? senderThreads : Runtime.getRuntime().availableProcessors() * 2;
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "itick-gateway");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        upstream.add(marketDataSource.subscribeToQuotes(data -> broadcast("quote", data.getS(), data)));
+        upstream.add(marketDataSource.subscribeToTicks(data -> broadcast("tick", data.getS(), data)));
+        upstream.add(marketDataSource.subscribeToDepth(data -> broadcast("depth", data.getS(), data)));
+        log.info("行情扇出网关已启动");
+        return executor;
+    }
+
+    /**
+     * 序列化一次并交给所有关注该产品的客户端
+     */
+    private void broadcast(String type, String symbol, Object data) {
+        SubscriberRegistry<BroadcastFrame> registry = registries.get(type);
+        if (!registry.hasSubscribers(symbol)) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(new Envelope(1, data));
+        } catch (JsonProcessingException e) {
+            if (serializeErrors.getAndIncrement() == 0) {
+                log.warn("网关序列化{}数据失败: {}", type, e.getMessage());
+            }
+            return;
+        }
+        serialized.incrementAndGet();
+        registry.dispatch(new BroadcastFrame(type, symbol, json), symbol);
+    }
+
+    /**
+     * 当前接入的客户端
+     */
+    public Collection<GatewayClient> getClients() {
+        return clients.values();
+    }
+
+    /**
+     * 网关统计：客户端数量、序列化次数、已发送和丢弃的帧数
+     */
+    public Map<String, Object> getStats() {
+        long sent = closedSent.get();
+        long dropped = closedDropped.get();
+        long queued = 0;
+        for (GatewayClient client : clients.values()) {
+            sent += client.getSent();
+            dropped += client.getDropped();
+            queued += client.getQueued();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clients", clients.size());
+        stats.put("serialized", serialized.get());
+        stats.put("sent", sent);
+        stats.put("dropped", dropped);
+        stats.put("queued", queued);
+        synchronized (upstreamRefs) {
+            stats.put("upstreamSubscriptions", upstreamRefs.size());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        new ArrayList<>(clients.values()).forEach(GatewayClient::close);
+        synchronized (this) {
+            upstream.forEach(Subscription::cancel);
+            upstream.clear();
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 与iTick推送的行情消息相同的外层结构
+     */
+    private record Envelope(int code, Object data) {
+    }
+}
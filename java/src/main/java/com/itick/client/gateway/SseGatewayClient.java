@@ -0,0 +1,38 @@
+package com.itick.client.gateway;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * SSE客户端
+ * 响应的Content-Type为text/event-stream，每个广播帧按预先拼接好的SSE事件文本原样写出
+ */
+public class SseGatewayClient extends GatewayClient {
+
+    private final ResponseBodyEmitter emitter;
+
+    public SseGatewayClient(String id, Executor executor, int capacity, ResponseBodyEmitter emitter) {
+        super(id, executor, capacity);
+        this.emitter = emitter;
+        emitter.onCompletion(this::close);
+        emitter.onTimeout(this::close);
+        emitter.onError(e -> close());
+    }
+
+    public ResponseBodyEmitter getEmitter() {
+        return emitter;
+    }
+
+    @Override
+    protected void send(BroadcastFrame frame) throws IOException {
+        emitter.send(frame.getSseEvent(), MediaType.TEXT_PLAIN);
+    }
+
+    @Override
+    protected void closeTransport() {
+        emitter.complete();
+    }
+}
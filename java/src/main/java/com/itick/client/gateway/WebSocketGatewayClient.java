@@ -0,0 +1,47 @@
+package com.itick.client.gateway;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * WebSocket客户端
+ * 广播帧和控制消息的应答可能来自不同线程，发送时对会话加锁，避免同时写同一个连接
+ */
+public class WebSocketGatewayClient extends GatewayClient {
+
+    private final WebSocketSession session;
+
+    public WebSocketGatewayClient(String id, Executor executor, int capacity, WebSocketSession session) {
+        super(id, executor, capacity);
+        this.session = session;
+    }
+
+    @Override
+    protected void send(BroadcastFrame frame) throws IOException {
+        sendText(frame.getTextMessage());
+    }
+
+    /**
+     * 发送控制消息的应答
+     */
+    void sendText(TextMessage message) throws IOException {
+        synchronized (session) {
+            session.sendMessage(message);
+        }
+    }
+
+    @Override
+    protected void closeTransport() {
+        if (session.isOpen()) {
+            try {
+                session.close(CloseStatus.NORMAL);
+            } catch (IOException e) {
+                // 连接已经不可用
+            }
+        }
+    }
+}
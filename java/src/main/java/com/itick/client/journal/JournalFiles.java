@@ -0,0 +1,39 @@
+package com.itick.client.journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 日志目录工具
+ */
+final class JournalFiles {
+
+    private JournalFiles() {
+    }
+
+    /**
+     * 按起始序号升序列出目录中的日志段文件
+     */
+    static List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(JournalSegment.SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 日志段文件的起始序号
+     */
+    static long firstSequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - JournalSegment.SUFFIX.length()));
+    }
+}
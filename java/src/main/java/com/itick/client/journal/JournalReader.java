@@ -0,0 +1,133 @@
+package com.itick.client.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 日志读取器
+ * 只读映射日志段，从指定序号开始逐条读取，读到末尾后可以继续轮询等待写入方追加的新记录。
+ * 可以与写入方同时运行（同一进程或不同进程），每个读取器只能由一个线程使用。
+ * 读完一个日志段后保留其映射，只检查下一个日志段文件是否已创建，写入方切换日志段之前的轮询不会重新映射文件。
+ *
+ * @param <T> 数据类型
+ */
+public class JournalReader<T> implements Closeable {
+
+    private final Path dir;
+    private final JournalRecord<T> record;
+    private JournalSegment segment;
+    // segment已读完，等待写入方创建下一个日志段
+    private boolean exhausted;
+    private int index;
+    private long nextSequence;
+
+    /**
+     * @param dir 日志目录
+     * @param codec 编解码器
+     * @param fromSequence 起始序号，小于第一条记录时从第一条记录开始
+     */
+    public JournalReader(Path dir, RecordCodec<T> codec, long fromSequence) {
+        this.dir = dir;
+        this.record = new JournalRecord<>(codec);
+        this.nextSequence = Math.max(1, fromSequence);
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 记录视图，暂时没有新记录时返回null
+     */
+    public JournalRecord<T> poll() throws IOException {
+        while (true) {
+            if (segment == null && !openSegment()) {
+                return null;
+            }
+            if (exhausted) {
+                // 下一个日志段的起始序号就是nextSequence
+                if (!Files.exists(dir.resolve(JournalSegment.fileName(nextSequence)))) {
+                    return null;
+                }
+                closeSegment();
+                continue;
+            }
+            if (index >= segment.capacity()) {
+                exhausted = true;
+                continue;
+            }
+
+            long sequence = segment.sequenceAt(index);
+            if (sequence == 0) {
+                return null;
+            }
+            if (sequence == JournalSegment.END_OF_SEGMENT) {
+                exhausted = true;
+                continue;
+            }
+
+            record.wrap(segment, segment.position(index), sequence);
+            index++;
+            nextSequence = sequence + 1;
+            return record;
+        }
+    }
+
+    /**
+     * 打开包含nextSequence的日志段
+     */
+    private boolean openSegment() throws IOException {
+        List<Path> files = JournalFiles.list(dir);
+        Path target = null;
+        for (Path file : files) {
+            if (JournalFiles.firstSequenceOf(file) <= nextSequence) {
+                target = file;
+            } else {
+                if (target == null) {
+                    // 起始序号之前的日志段已被删除，从最早的日志段开始
+                    target = file;
+                }
+                break;
+            }
+        }
+        if (target == null || !Files.exists(target)) {
+            return false;
+        }
+
+        JournalSegment opened = JournalSegment.open(target, false);
+        long first = opened.firstSequence();
+        if (first > nextSequence) {
+            nextSequence = first;
+        }
+        long offset = nextSequence - first;
+        segment = opened;
+        if (offset >= opened.capacity()) {
+            // 该日志段已读完，下一个日志段尚未创建
+            exhausted = true;
+        } else {
+            index = (int) offset;
+        }
+        return true;
+    }
+
+    private void closeSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+            segment = null;
+        }
+        exhausted = false;
+    }
+
+    /**
+     * 下一条要读取的记录序号
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+}
@@ -0,0 +1,69 @@
+package com.itick.client.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 日志记录视图
+ * 直接读取映射缓冲区中的记录，不复制数据；由JournalReader复用，只在下一次poll之前有效。
+ *
+ * @param <T> 数据类型
+ */
+public final class JournalRecord<T> {
+
+    private final RecordCodec<T> codec;
+    private JournalSegment segment;
+    private int position;
+    private long sequence;
+
+    JournalRecord(RecordCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    void wrap(JournalSegment segment, int position, long sequence) {
+        this.segment = segment;
+        this.position = position;
+        this.sequence = sequence;
+    }
+
+    /**
+     * 记录序号，从1开始连续递增
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * 接收时间（毫秒）
+     */
+    public long getReceivedAt() {
+        return segment.buffer().getLong(position + 8);
+    }
+
+    /**
+     * 产品代码
+     */
+    public String getSymbol() {
+        return segment.readSymbol(position + 16);
+    }
+
+    /**
+     * 记录所在的映射缓冲区，与getPayloadOffset一起用于按偏移直接读取字段
+     */
+    public ByteBuffer getBuffer() {
+        return segment.buffer();
+    }
+
+    /**
+     * 负载在缓冲区中的起始位置，字段偏移见MarketDataCodecs
+     */
+    public int getPayloadOffset() {
+        return position + JournalSegment.RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * 解码为数据模型
+     */
+    public T decode() {
+        return codec.decode(segment.buffer(), getPayloadOffset(), getSymbol());
+    }
+}
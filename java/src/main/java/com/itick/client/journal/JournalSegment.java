@@ -0,0 +1,209 @@
+package com.itick.client.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 日志段文件
+ * 文件创建时即分配完整长度并整体映射到内存，由64字节的段头和固定长度的记录组成。
+ *
+ * 段头：magic(4) version(4) recordSize(4) capacity(4) firstSequence(8) createdAt(8)
+ * 记录头：sequence(8) receivedAt(8) symbolLength(1) symbol(31，UTF-8编码)，之后是负载
+ *
+ * 记录的sequence字段最后写入（release语义），读取方看到非0的sequence即可读取整条记录；
+ * sequence为-1表示日志段在此结束，后续记录在下一个日志段中。
+ */
+final class JournalSegment implements Closeable {
+
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_HEADER_SIZE = 48;
+    static final int MAX_SYMBOL_LENGTH = 31;
+    static final long END_OF_SEGMENT = -1;
+    static final String SUFFIX = ".journal";
+
+    private static final int MAGIC = 0x4A4B5449;
+    private static final int VERSION = 1;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int recordSize;
+    private final int capacity;
+    private final long firstSequence;
+    private final long createdAt;
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("无效的日志段文件: " + path);
+        }
+        this.recordSize = buffer.getInt(8);
+        this.capacity = buffer.getInt(12);
+        this.firstSequence = buffer.getLong(16);
+        this.createdAt = buffer.getLong(24);
+    }
+
+    /**
+     * 创建日志段
+     * 先写入临时文件，段头写完后再重命名，读取方不会看到不完整的段头
+     */
+    static JournalSegment create(Path dir, int recordSize, int capacity, long firstSequence, long createdAt)
+            throws IOException {
+        Path path = dir.resolve(fileName(firstSequence));
+        Path temp = dir.resolve(fileName(firstSequence) + ".tmp");
+        long size = HEADER_SIZE + (long) recordSize * capacity;
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, recordSize);
+            buffer.putInt(12, capacity);
+            buffer.putLong(16, firstSequence);
+            buffer.putLong(24, createdAt);
+            buffer.force();
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            return new JournalSegment(path, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 打开已有的日志段
+     *
+     * @param path 文件路径
+     * @param writable 是否需要写入
+     */
+    static JournalSegment open(Path path, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            return new JournalSegment(path, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static String fileName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SUFFIX);
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int recordSize() {
+        return recordSize;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long firstSequence() {
+        return firstSequence;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * 第index条记录的起始位置
+     */
+    int position(int index) {
+        return HEADER_SIZE + index * recordSize;
+    }
+
+    /**
+     * 读取第index条记录的sequence（acquire语义），0表示尚未写入
+     */
+    long sequenceAt(int index) {
+        return (long) LONGS.getAcquire(buffer, position(index));
+    }
+
+    /**
+     * 提交第index条记录（release语义），之前写入的记录内容对读取方可见
+     */
+    void commit(int index, long sequence) {
+        LONGS.setRelease(buffer, position(index), sequence);
+    }
+
+    /**
+     * 写入产品代码
+     * 只含ASCII字符时逐字节写入，不分配对象；其他字符按UTF-8编码
+     *
+     * @return 编码后超过MAX_SYMBOL_LENGTH字节时不写入，返回false
+     */
+    boolean writeSymbol(int position, String symbol) {
+        int length = symbol == null ? 0 : symbol.length();
+        if (length <= MAX_SYMBOL_LENGTH) {
+            int i = 0;
+            while (i < length && symbol.charAt(i) < 0x80) {
+                buffer.put(position + 1 + i, (byte) symbol.charAt(i));
+                i++;
+            }
+            if (i == length) {
+                buffer.put(position, (byte) length);
+                return true;
+            }
+        }
+        byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_SYMBOL_LENGTH) {
+            return false;
+        }
+        buffer.put(position, (byte) bytes.length);
+        buffer.put(position + 1, bytes);
+        return true;
+    }
+
+    String readSymbol(int position) {
+        int length = buffer.get(position) & 0xFF;
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 将已写入的内容刷到磁盘
+     */
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
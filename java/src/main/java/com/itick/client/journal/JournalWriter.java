@@ -0,0 +1,187 @@
+package com.itick.client.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 日志写入器
+ * 将数据按固定长度的记录追加到内存映射的日志段中，日志段写满或超过滚动间隔后切换到新的日志段。
+ * 写入只修改映射内存，由force按批次刷盘。
+ *
+ * 启动时从目录中最后一个日志段恢复序号，未提交的记录（崩溃时正在写入）被丢弃。
+ * 产品代码按UTF-8编码后超过记录头中的长度时拒绝写入该记录并计数，不截断。
+ *
+ * @param <T> 数据类型
+ */
+@Slf4j
+public class JournalWriter<T> implements Closeable {
+
+    private final Path dir;
+    private final RecordCodec<T> codec;
+    private final int recordSize;
+    private final int capacity;
+    private final long rollIntervalMillis;
+
+    private JournalSegment segment;
+    private int index;
+    private long nextSequence;
+    private int unflushed;
+    private long rejected;
+
+    /**
+     * @param dir 日志目录
+     * @param codec 编解码器
+     * @param segmentBytes 日志段大小（字节）
+     * @param rollIntervalMillis 日志段滚动间隔（毫秒），0表示只按大小滚动
+     */
+    public JournalWriter(Path dir, RecordCodec<T> codec, long segmentBytes, long rollIntervalMillis) throws IOException {
+        this.dir = dir;
+        this.codec = codec;
+        this.recordSize = JournalSegment.RECORD_HEADER_SIZE + codec.payloadSize();
+        this.capacity = (int) Math.max(1, Math.min(Integer.MAX_VALUE / recordSize,
+                (segmentBytes - JournalSegment.HEADER_SIZE) / recordSize));
+        this.rollIntervalMillis = rollIntervalMillis;
+        Files.createDirectories(dir);
+        this.nextSequence = recover();
+    }
+
+    /**
+     * 找到最后一个日志段中最后一条已提交的记录，并将该日志段标记为结束
+     *
+     * @return 下一条记录的序号
+     */
+    private long recover() throws IOException {
+        List<Path> files = JournalFiles.list(dir);
+        if (files.isEmpty()) {
+            return 1;
+        }
+
+        Path lastPath = files.get(files.size() - 1);
+        long sequence;
+        boolean empty;
+        try (JournalSegment last = JournalSegment.open(lastPath, true)) {
+            int i = 0;
+            sequence = last.firstSequence() - 1;
+            while (i < last.capacity()) {
+                long value = last.sequenceAt(i);
+                if (value <= 0) {
+                    break;
+                }
+                sequence = value;
+                i++;
+            }
+            empty = i == 0;
+            if (!empty && i < last.capacity() && last.sequenceAt(i) != JournalSegment.END_OF_SEGMENT) {
+                last.commit(i, JournalSegment.END_OF_SEGMENT);
+                last.force();
+            }
+        }
+        if (empty) {
+            // 没有任何记录的日志段直接删除，新的日志段使用相同的起始序号
+            Files.delete(lastPath);
+        }
+        log.info("恢复日志 {}，下一条记录序号: {}", dir, sequence + 1);
+        return sequence + 1;
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param data 数据
+     * @param receivedAt 接收时间（毫秒）
+     * @return 记录序号，产品代码过长被拒绝时返回-1
+     */
+    public synchronized long append(T data, long receivedAt) throws IOException {
+        if (segment == null || index == capacity
+                || (rollIntervalMillis > 0 && receivedAt - segment.createdAt() >= rollIntervalMillis)) {
+            roll(receivedAt);
+        }
+
+        MappedByteBuffer buffer = segment.buffer();
+        int position = segment.position(index);
+        String symbol = codec.symbolOf(data);
+        if (!segment.writeSymbol(position + 16, symbol)) {
+            // 记录未提交，该位置由下一条记录覆盖
+            if (rejected++ == 0) {
+                log.warn("产品代码编码后超过 {} 字节，记录未写入日志 {}: {}", JournalSegment.MAX_SYMBOL_LENGTH, dir, symbol);
+            } else {
+                log.debug("产品代码过长，记录未写入日志 {}: {}", dir, symbol);
+            }
+            return -1;
+        }
+        buffer.putLong(position + 8, receivedAt);
+        codec.encode(data, buffer, position + JournalSegment.RECORD_HEADER_SIZE);
+
+        long sequence = nextSequence++;
+        segment.commit(index++, sequence);
+        unflushed++;
+        return sequence;
+    }
+
+    /**
+     * 结束当前日志段并创建新的日志段
+     */
+    private void roll(long now) throws IOException {
+        if (segment != null) {
+            if (index < capacity) {
+                segment.commit(index, JournalSegment.END_OF_SEGMENT);
+            }
+            segment.force();
+            segment.close();
+            log.debug("日志段已结束: {}", segment.path());
+        }
+        segment = JournalSegment.create(dir, recordSize, capacity, nextSequence, now);
+        index = 0;
+        unflushed = 0;
+    }
+
+    /**
+     * 将尚未刷盘的记录写到磁盘
+     */
+    public synchronized void force() {
+        if (segment != null && unflushed > 0) {
+            segment.force();
+            unflushed = 0;
+        }
+    }
+
+    /**
+     * 尚未刷盘的记录数
+     */
+    public synchronized int getUnflushed() {
+        return unflushed;
+    }
+
+    /**
+     * 因产品代码过长被拒绝的记录数
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * 下一条记录的序号
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    public RecordCodec<T> getCodec() {
+        return codec;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.force();
+            segment.close();
+            segment = null;
+        }
+    }
+}
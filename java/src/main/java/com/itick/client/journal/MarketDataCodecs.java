@@ -0,0 +1,241 @@
+package com.itick.client.journal;
+
+import com.itick.client.model.KlineData;
+import com.itick.client.model.websocket.DepthData;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 行情数据的日志编解码器
+ * 所有字段按小端序写在固定偏移上，读取时可以直接按偏移访问映射缓冲区。
+ */
+public final class MarketDataCodecs {
+
+    /**
+     * 成交：ld(8) v(8) t(8)
+     */
+    public static final RecordCodec<TickData> TICK = new RecordCodec<>() {
+        @Override
+        public String name() {
+            return "tick";
+        }
+
+        @Override
+        public int payloadSize() {
+            return 24;
+        }
+
+        @Override
+        public String symbolOf(TickData data) {
+            return data.getS();
+        }
+
+        @Override
+        public void encode(TickData data, ByteBuffer buffer, int offset) {
+            buffer.putDouble(offset, data.getLd());
+            buffer.putLong(offset + 8, data.getV());
+            buffer.putLong(offset + 16, data.getT());
+        }
+
+        @Override
+        public TickData decode(ByteBuffer buffer, int offset, String symbol) {
+            TickData data = new TickData();
+            data.setS(symbol);
+            data.setLd(buffer.getDouble(offset));
+            data.setV(buffer.getLong(offset + 8));
+            data.setT(buffer.getLong(offset + 16));
+            data.setType("tick");
+            return data;
+        }
+    };
+
+    /**
+     * 报价：ld(8) o(8) h(8) l(8) tu(8) t(8) v(8) ts(8)
+     */
+    public static final RecordCodec<QuoteData> QUOTE = new RecordCodec<>() {
+        @Override
+        public String name() {
+            return "quote";
+        }
+
+        @Override
+        public int payloadSize() {
+            return 64;
+        }
+
+        @Override
+        public String symbolOf(QuoteData data) {
+            return data.getS();
+        }
+
+        @Override
+        public void encode(QuoteData data, ByteBuffer buffer, int offset) {
+            buffer.putDouble(offset, data.getLd());
+            buffer.putDouble(offset + 8, data.getO());
+            buffer.putDouble(offset + 16, data.getH());
+            buffer.putDouble(offset + 24, data.getL());
+            buffer.putDouble(offset + 32, data.getTu());
+            buffer.putLong(offset + 40, data.getT());
+            buffer.putLong(offset + 48, data.getV());
+            buffer.putLong(offset + 56, data.getTs());
+        }
+
+        @Override
+        public QuoteData decode(ByteBuffer buffer, int offset, String symbol) {
+            QuoteData data = new QuoteData();
+            data.setS(symbol);
+            data.setLd(buffer.getDouble(offset));
+            data.setO(buffer.getDouble(offset + 8));
+            data.setH(buffer.getDouble(offset + 16));
+            data.setL(buffer.getDouble(offset + 24));
+            data.setTu(buffer.getDouble(offset + 32));
+            data.setT(buffer.getLong(offset + 40));
+            data.setV(buffer.getLong(offset + 48));
+            data.setTs(buffer.getLong(offset + 56));
+            data.setType("quote");
+            return data;
+        }
+    };
+
+    /**
+     * K线：period(4) v(4) t(8) o(8) h(8) l(8) c(8) tu(8)
+     */
+    public static final RecordCodec<KlineWebSocketData> KLINE = new RecordCodec<>() {
+        @Override
+        public String name() {
+            return "kline";
+        }
+
+        @Override
+        public int payloadSize() {
+            return 56;
+        }
+
+        @Override
+        public String symbolOf(KlineWebSocketData data) {
+            return data.getS();
+        }
+
+        @Override
+        public void encode(KlineWebSocketData data, ByteBuffer buffer, int offset) {
+            KlineData k = data.getK();
+            buffer.putInt(offset, data.getT());
+            buffer.putInt(offset + 4, k == null ? 0 : k.getV());
+            buffer.putLong(offset + 8, k == null ? 0 : k.getT());
+            buffer.putDouble(offset + 16, k == null ? 0 : k.getO());
+            buffer.putDouble(offset + 24, k == null ? 0 : k.getH());
+            buffer.putDouble(offset + 32, k == null ? 0 : k.getL());
+            buffer.putDouble(offset + 40, k == null ? 0 : k.getC());
+            buffer.putDouble(offset + 48, k == null ? 0 : k.getTu());
+        }
+
+        @Override
+        public KlineWebSocketData decode(ByteBuffer buffer, int offset, String symbol) {
+            KlineData k = new KlineData();
+            k.setV(buffer.getInt(offset + 4));
+            k.setT(buffer.getLong(offset + 8));
+            k.setO(buffer.getDouble(offset + 16));
+            k.setH(buffer.getDouble(offset + 24));
+            k.setL(buffer.getDouble(offset + 32));
+            k.setC(buffer.getDouble(offset + 40));
+            k.setTu(buffer.getDouble(offset + 48));
+            KlineWebSocketData data = new KlineWebSocketData();
+            data.setS(symbol);
+            data.setT(buffer.getInt(offset));
+            data.setK(k);
+            return data;
+        }
+    };
+
+    /**
+     * 读取时使用的盘口编解码器，档位数由记录中的数量字段决定
+     */
+    public static final RecordCodec<DepthData> DEPTH = depth(10);
+
+    private static final int LEVEL_SIZE = 32;
+
+    private MarketDataCodecs() {
+    }
+
+    /**
+     * 盘口：askCount(4) bidCount(4)，之后依次是卖单和买单档位，每档 po(4) 填充(4) p(8) v(8) o(8)
+     *
+     * @param levels 每一侧最多记录的档位数，超出的档位被丢弃
+     * @return 盘口编解码器
+     */
+    public static RecordCodec<DepthData> depth(int levels) {
+        return new RecordCodec<>() {
+            @Override
+            public String name() {
+                return "depth";
+            }
+
+            @Override
+            public int payloadSize() {
+                return 8 + 2 * levels * LEVEL_SIZE;
+            }
+
+            @Override
+            public String symbolOf(DepthData data) {
+                return data.getS();
+            }
+
+            @Override
+            public void encode(DepthData data, ByteBuffer buffer, int offset) {
+                int askCount = data.getA() == null ? 0 : Math.min(data.getA().size(), levels);
+                int bidCount = data.getB() == null ? 0 : Math.min(data.getB().size(), levels);
+                buffer.putInt(offset, askCount);
+                buffer.putInt(offset + 4, bidCount);
+                int position = offset + 8;
+                for (int i = 0; i < askCount; i++, position += LEVEL_SIZE) {
+                    encodeLevel(data.getA().get(i), buffer, position);
+                }
+                for (int i = 0; i < bidCount; i++, position += LEVEL_SIZE) {
+                    encodeLevel(data.getB().get(i), buffer, position);
+                }
+            }
+
+            @Override
+            public DepthData decode(ByteBuffer buffer, int offset, String symbol) {
+                int askCount = buffer.getInt(offset);
+                int bidCount = buffer.getInt(offset + 4);
+                int position = offset + 8;
+                List<DepthData.OrderItem> asks = new ArrayList<>(askCount);
+                for (int i = 0; i < askCount; i++, position += LEVEL_SIZE) {
+                    asks.add(decodeLevel(buffer, position));
+                }
+                List<DepthData.OrderItem> bids = new ArrayList<>(bidCount);
+                for (int i = 0; i < bidCount; i++, position += LEVEL_SIZE) {
+                    bids.add(decodeLevel(buffer, position));
+                }
+                DepthData data = new DepthData();
+                data.setS(symbol);
+                data.setA(asks);
+                data.setB(bids);
+                data.setType("depth");
+                return data;
+            }
+        };
+    }
+
+    private static void encodeLevel(DepthData.OrderItem item, ByteBuffer buffer, int position) {
+        buffer.putInt(position, item.getPo());
+        buffer.putDouble(position + 8, item.getP());
+        buffer.putDouble(position + 16, item.getV());
+        buffer.putDouble(position + 24, item.getO());
+    }
+
+    private static DepthData.OrderItem decodeLevel(ByteBuffer buffer, int position) {
+        DepthData.OrderItem item = new DepthData.OrderItem();
+        item.setPo(buffer.getInt(position));
+        item.setP(buffer.getDouble(position + 8));
+        item.setV(buffer.getDouble(position + 16));
+        item.setO(buffer.getDouble(position + 24));
+        return item;
+    }
+}
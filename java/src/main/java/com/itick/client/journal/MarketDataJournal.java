@@ -0,0 +1,155 @@
+package com.itick.client.journal;
+
+import com.itick.client.dispatch.Subscription;
+import com.itick.client.model.websocket.DepthData;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import com.itick.client.service.WebSocketClientService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 行情日志服务
+ * 订阅报价、成交、盘口和K线数据，按数据类型写入各自的日志目录，用于崩溃后恢复状态和回放行情。
+ * 日志段按大小或时间滚动，后台线程按固定间隔批量刷盘。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarketDataJournal {
+
+    private final WebSocketClientService webSocketClientService;
+
+    @Value("${itick.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${itick.journal.dir:journal}")
+    private String dir;
+
+    @Value("${itick.journal.segment-size-mb:64}")
+    private long segmentSizeMb;
+
+    @Value("${itick.journal.roll-interval-minutes:60}")
+    private long rollIntervalMinutes;
+
+    @Value("${itick.journal.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${itick.journal.depth-levels:10}")
+    private int depthLevels;
+
+    private final List<JournalWriter<?>> writers = new ArrayList<>();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private ScheduledExecutorService flushExecutor;
+
+    /**
+     * 打开日志并订阅行情数据
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        JournalWriter<QuoteData> quotes = open(MarketDataCodecs.QUOTE);
+        JournalWriter<TickData> ticks = open(MarketDataCodecs.TICK);
+        JournalWriter<DepthData> depth = open(MarketDataCodecs.depth(depthLevels));
+        JournalWriter<KlineWebSocketData> klines = open(MarketDataCodecs.KLINE);
+        subscriptions.add(webSocketClientService.subscribeToQuotes(appender(quotes)));
+        subscriptions.add(webSocketClientService.subscribeToTicks(appender(ticks)));
+        subscriptions.add(webSocketClientService.subscribeToDepth(appender(depth)));
+        subscriptions.add(webSocketClientService.subscribeToKlines(appender(klines)));
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "itick-journal-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("行情日志已启用，目录: {}", getDirectory().toAbsolutePath());
+    }
+
+    private <T> JournalWriter<T> open(RecordCodec<T> codec) throws IOException {
+        JournalWriter<T> writer = new JournalWriter<>(getDirectory().resolve(codec.name()), codec,
+                segmentSizeMb * 1024 * 1024, TimeUnit.MINUTES.toMillis(rollIntervalMinutes));
+        writers.add(writer);
+        return writer;
+    }
+
+    private <T> Consumer<T> appender(JournalWriter<T> writer) {
+        return data -> {
+            try {
+                writer.append(data, System.currentTimeMillis());
+            } catch (IOException e) {
+                log.error("写入行情日志时出错: {}", writer.getCodec().name(), e);
+            }
+        };
+    }
+
+    /**
+     * 将所有日志中尚未刷盘的记录写到磁盘
+     */
+    public void flush() {
+        for (JournalWriter<?> writer : writers) {
+            try {
+                writer.force();
+            } catch (Exception e) {
+                log.error("行情日志刷盘时出错: {}", writer.getCodec().name(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        subscriptions.forEach(Subscription::cancel);
+        subscriptions.clear();
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        for (JournalWriter<?> writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.error("关闭行情日志时出错: {}", writer.getCodec().name(), e);
+            }
+        }
+        writers.clear();
+    }
+
+    /**
+     * 日志根目录，每种数据类型一个子目录
+     */
+    public Path getDirectory() {
+        return Paths.get(dir);
+    }
+
+    /**
+     * 打开某种数据类型的日志读取器，可以在写入的同时跟随读取
+     *
+     * @param codec 编解码器，如MarketDataCodecs.TICK
+     * @param fromSequence 起始序号
+     * @return 日志读取器，使用完毕后需要关闭
+     */
+    public <T> JournalReader<T> openReader(RecordCodec<T> codec, long fromSequence) {
+        return new JournalReader<>(getDirectory().resolve(codec.name()), codec, fromSequence);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,42 @@
+package com.itick.client.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 日志记录编解码器
+ * 每种数据类型对应一个编解码器，记录长度固定，负载紧跟在记录头之后。
+ *
+ * @param <T> 数据类型
+ */
+public interface RecordCodec<T> {
+
+    /**
+     * 日志子目录名
+     */
+    String name();
+
+    /**
+     * 负载长度（字节），必须是8的倍数
+     */
+    int payloadSize();
+
+    /**
+     * 数据所属的产品代码
+     */
+    String symbolOf(T data);
+
+    /**
+     * 将数据写入buffer的offset位置，写入长度不超过payloadSize
+     */
+    void encode(T data, ByteBuffer buffer, int offset);
+
+    /**
+     * 从buffer的offset位置读取数据
+     *
+     * @param buffer 日志段的映射缓冲区
+     * @param offset 负载起始位置
+     * @param symbol 记录头中的产品代码
+     * @return 数据
+     */
+    T decode(ByteBuffer buffer, int offset, String symbol);
+}
@@ -0,0 +1,218 @@
+package com.itick.client.kline;
+
+import com.itick.client.model.KlineData;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 单个周期的实时K线序列
+ * 基于基本类型数组的环形缓冲区，最新的K线位于head，写满后覆盖最早的K线，更新时不分配对象。
+ *
+ * 非线程安全，由SymbolBars负责同步。
+ */
+class BarSeries {
+
+    /** 更新被忽略（早于当前K线的数据） */
+    static final int IGNORED = 0;
+    /** 更新了当前K线 */
+    static final int UPDATED = 1;
+    /** 开始了新的K线，上一根K线已走完 */
+    static final int OPENED = 2;
+
+    private final KlineType type;
+    private final int capacity;
+    private final long[] t;
+    private final double[] o;
+    private final double[] h;
+    private final double[] l;
+    private final double[] c;
+    private final long[] v;
+    private final double[] tu;
+    private final LiveBar view;
+    private int head = -1;
+    private int count;
+    private boolean seeded;
+
+    BarSeries(String symbol, KlineType type, int capacity) {
+        this.type = type;
+        this.capacity = capacity;
+        this.t = new long[capacity];
+        this.o = new double[capacity];
+        this.h = new double[capacity];
+        this.l = new double[capacity];
+        this.c = new double[capacity];
+        this.v = new long[capacity];
+        this.tu = new double[capacity];
+        this.view = new LiveBar(symbol, type);
+    }
+
+    KlineType getType() {
+        return type;
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * 按成交更新K线
+     *
+     * @param start 成交所在K线的起始时间
+     * @param price 成交价格
+     * @param volume 成交量
+     * @param turnover 成交额
+     * @return IGNORED、UPDATED或OPENED
+     */
+    int apply(long start, double price, long volume, double turnover) {
+        if (count > 0 && start < t[head]) {
+            return IGNORED;
+        }
+        if (count > 0 && start == t[head]) {
+            h[head] = Math.max(h[head], price);
+            l[head] = Math.min(l[head], price);
+            c[head] = price;
+            v[head] += volume;
+            tu[head] += turnover;
+            return UPDATED;
+        }
+
+        head = (head + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+        t[head] = start;
+        o[head] = price;
+        h[head] = price;
+        l[head] = price;
+        c[head] = price;
+        v[head] = volume;
+        tu[head] = turnover;
+        return count > 1 ? OPENED : UPDATED;
+    }
+
+    /**
+     * 将倒数第age根K线（0为当前K线）填充到复用的视图中
+     */
+    LiveBar view(int age) {
+        int index = slot(count - 1 - age);
+        view.t = t[index];
+        view.o = o[index];
+        view.h = h[index];
+        view.l = l[index];
+        view.c = c[index];
+        view.v = v[index];
+        view.tu = tu[index];
+        view.closed = age > 0;
+        return view;
+    }
+
+    /**
+     * 第i根K线（0为最早）在数组中的位置
+     */
+    private int slot(int i) {
+        return (head - count + 1 + i + capacity) % capacity;
+    }
+
+    /**
+     * 复制最近的limit根K线，按时间升序
+     */
+    List<KlineData> copy(int limit) {
+        int n = Math.min(limit, count);
+        List<KlineData> bars = new ArrayList<>(n);
+        for (int i = count - n; i < count; i++) {
+            int index = slot(i);
+            KlineData bar = new KlineData();
+            bar.setT(t[index]);
+            bar.setO(o[index]);
+            bar.setH(h[index]);
+            bar.setL(l[index]);
+            bar.setC(c[index]);
+            bar.setV((int) v[index]);
+            bar.setTu(tu[index]);
+            bars.add(bar);
+        }
+        return bars;
+    }
+
+    /**
+     * 用历史K线填充实时K线之前的部分
+     * 与第一根实时K线属于同一周期的历史K线合并到实时K线中：开盘价取历史值，
+     * 成交量和成交额取两者较大值（实时K线只统计了启动之后的成交）。
+     *
+     * @param history 接口返回的历史K线
+     */
+    void seed(List<KlineData> history) {
+        List<KlineData> sorted = new ArrayList<>(history);
+        sorted.sort(Comparator.comparingLong(KlineData::getT));
+        long firstLive = count > 0 ? t[slot(0)] : Long.MAX_VALUE;
+
+        int total = count;
+        for (KlineData bar : sorted) {
+            if (bar.getT() < firstLive) {
+                total++;
+            }
+        }
+
+        long[] mt = new long[total];
+        double[] mo = new double[total];
+        double[] mh = new double[total];
+        double[] ml = new double[total];
+        double[] mc = new double[total];
+        long[] mv = new long[total];
+        double[] mtu = new double[total];
+        int n = 0;
+        KlineData sameAsFirstLive = null;
+        for (KlineData bar : sorted) {
+            if (bar.getT() < firstLive) {
+                mt[n] = bar.getT();
+                mo[n] = bar.getO();
+                mh[n] = bar.getH();
+                ml[n] = bar.getL();
+                mc[n] = bar.getC();
+                mv[n] = bar.getV();
+                mtu[n] = bar.getTu();
+                n++;
+            } else if (bar.getT() == firstLive) {
+                sameAsFirstLive = bar;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int index = slot(i);
+            mt[n] = t[index];
+            mo[n] = o[index];
+            mh[n] = h[index];
+            ml[n] = l[index];
+            mc[n] = c[index];
+            mv[n] = v[index];
+            mtu[n] = tu[index];
+            if (i == 0 && sameAsFirstLive != null) {
+                mo[n] = sameAsFirstLive.getO();
+                mh[n] = Math.max(mh[n], sameAsFirstLive.getH());
+                ml[n] = Math.min(ml[n], sameAsFirstLive.getL());
+                mv[n] = Math.max(mv[n], sameAsFirstLive.getV());
+                mtu[n] = Math.max(mtu[n], sameAsFirstLive.getTu());
+            }
+            n++;
+        }
+
+        int from = Math.max(0, n - capacity);
+        count = n - from;
+        for (int i = 0; i < count; i++) {
+            t[i] = mt[from + i];
+            o[i] = mo[from + i];
+            h[i] = mh[from + i];
+            l[i] = ml[from + i];
+            c[i] = mc[from + i];
+            v[i] = mv[from + i];
+            tu[i] = mtu[from + i];
+        }
+        head = count - 1;
+        seeded = true;
+    }
+}
@@ -0,0 +1,289 @@
+package com.itick.client.kline;
+
+import com.itick.client.backfill.TokenBucket;
+import com.itick.client.dispatch.SubscriberRegistry;
+import com.itick.client.dispatch.Subscription;
+import com.itick.client.dispatch.SymbolFilter;
+import com.itick.client.model.KlineData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import com.itick.client.service.KlineService;
+import com.itick.client.service.MarketDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实时K线聚合服务
+ * 订阅成交数据，为每个产品同时维护全部10个周期的K线；没有成交数据的产品使用报价的最新价和累计成交量增量更新。
+ *
+ * 每个产品第一次出现时通过KlineService拉取各周期的历史K线填充序列，填充完成后
+ * HTTP接口查询最新K线时可以直接使用聚合结果，不需要请求上游接口。
+ * 市场代码取自产品代码的地区后缀（例如"ETHUSDT$ba"对应市场BA、产品ETHUSDT），没有后缀时使用seed-region；
+ * 每个产品需要为每个周期请求一次，历史K线请求按令牌桶限速，避免大量新产品同时出现时集中请求上游接口。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KlineAggregator {
+
+    private final MarketDataSource marketDataSource;
+    private final KlineService klineService;
+
+    @Value("${itick.kline.live.enabled:true}")
+    private boolean enabled;
+
+    @Value("${itick.kline.live.history-size:500}")
+    private int historySize;
+
+    @Value("${itick.kline.live.seed-region:BA}")
+    private String seedRegion;
+
+    @Value("${itick.kline.live.seed-enabled:true}")
+    private boolean seedEnabled;
+
+    @Value("${itick.kline.live.seed-rate-per-second:5}")
+    private double seedRatePerSecond;
+
+    @Value("${itick.kline.live.seed-burst:10}")
+    private int seedBurst;
+
+    @Value("${itick.kline.live.utc-offset-minutes:0}")
+    private int utcOffsetMinutes;
+
+    private final Map<String, SymbolBars> symbols = new ConcurrentHashMap<>();
+    // 市场代码:产品代码 -> 聚合结果，用于响应HTTP查询
+    private final Map<String, SymbolBars> instruments = new ConcurrentHashMap<>();
+    private final SubscriberRegistry<LiveBar> updateListeners = new SubscriberRegistry<>();
+    private final SubscriberRegistry<LiveBar> closeListeners = new SubscriberRegistry<>();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private long offsetMillis;
+    private TokenBucket seedBucket;
+
+    /**
+     * 产品代码对应的市场和代码
+     */
+    private record Instrument(String region, String code) {
+
+        String key() {
+            return region + ":" + code;
+        }
+    }
+
+    /**
+     * 订阅成交和报价数据
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        offsetMillis = utcOffsetMinutes * 60_000L;
+        seedBucket = new TokenBucket(seedRatePerSecond, seedBurst);
+        subscriptions.add(marketDataSource.subscribeToTicks(this::onTick));
+        subscriptions.add(marketDataSource.subscribeToQuotes(this::onQuote));
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        subscriptions.forEach(Subscription::cancel);
+        subscriptions.clear();
+        updateListeners.clear();
+        closeListeners.clear();
+    }
+
+    /**
+     * 处理成交数据
+     *
+     * @param tick 成交数据
+     */
+    public void onTick(TickData tick) {
+        SymbolBars bars = getOrCreate(tick.getS());
+        if (bars == null) {
+            return;
+        }
+        synchronized (bars) {
+            bars.markTickSeen();
+            apply(bars, tick.getT(), tick.getLd(), tick.getV(), tick.getLd() * tick.getV());
+        }
+    }
+
+    /**
+     * 处理报价数据，只用于没有成交数据的产品
+     *
+     * @param quote 报价数据
+     */
+    public void onQuote(QuoteData quote) {
+        SymbolBars bars = getOrCreate(quote.getS());
+        if (bars == null) {
+            return;
+        }
+        synchronized (bars) {
+            if (bars.isTickSeen()) {
+                return;
+            }
+            bars.onQuote(quote.getV(), quote.getTu());
+            apply(bars, quote.getT(), quote.getLd(), bars.getQuoteVolumeDelta(), bars.getQuoteTurnoverDelta());
+        }
+    }
+
+    /**
+     * 更新产品所有周期的K线并通知回调，调用方持有bars的锁
+     */
+    private void apply(SymbolBars bars, long timestamp, double price, long volume, double turnover) {
+        if (timestamp <= 0 || price <= 0) {
+            return;
+        }
+        String symbol = bars.getSymbol();
+        for (BarSeries series : bars.getAllSeries()) {
+            int result = series.apply(series.getType().barStart(timestamp, offsetMillis), price, volume, turnover);
+            if (result == BarSeries.IGNORED) {
+                continue;
+            }
+            if (result == BarSeries.OPENED) {
+                closeListeners.dispatch(series.view(1), symbol);
+            }
+            updateListeners.dispatch(series.view(0), symbol);
+        }
+    }
+
+    private SymbolBars getOrCreate(String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+        SymbolBars bars = symbols.get(symbol);
+        if (bars != null) {
+            return bars;
+        }
+        SymbolBars created = new SymbolBars(symbol, historySize);
+        bars = symbols.putIfAbsent(symbol, created);
+        if (bars != null) {
+            return bars;
+        }
+        Instrument instrument = instrumentOf(symbol);
+        instruments.putIfAbsent(instrument.key(), created);
+        log.debug("开始聚合实时K线: {}", symbol);
+        if (seedEnabled) {
+            seed(created, instrument);
+        }
+        return created;
+    }
+
+    /**
+     * 解析产品代码中的地区后缀，没有后缀时使用配置的市场代码
+     */
+    private Instrument instrumentOf(String symbol) {
+        int separator = symbol.lastIndexOf('$');
+        if (separator > 0 && separator < symbol.length() - 1) {
+            return new Instrument(symbol.substring(separator + 1).toUpperCase(Locale.ROOT),
+                    symbol.substring(0, separator));
+        }
+        return new Instrument(seedRegion.toUpperCase(Locale.ROOT), symbol);
+    }
+
+    /**
+     * 拉取各周期的历史K线填充序列，每个请求先从令牌桶获取令牌
+     */
+    private void seed(SymbolBars bars, Instrument instrument) {
+        for (KlineType type : KlineType.values()) {
+            Mono.defer(() -> {
+                        long waitNanos = seedBucket.reserve();
+                        Mono<List<KlineData>> history = Mono.defer(() -> klineService.getKlineData(
+                                instrument.region(), instrument.code(), type.getCode(), null, historySize));
+                        return waitNanos > 0 ? Mono.delay(Duration.ofNanos(waitNanos)).then(history) : history;
+                    })
+                    .subscribe(history -> {
+                        synchronized (bars) {
+                            bars.getSeries(type).seed(history);
+                        }
+                    }, error -> log.warn("拉取历史K线失败，{} 周期{}只包含实时数据: {}",
+                            bars.getSymbol(), type.getCode(), error.getMessage()));
+        }
+    }
+
+    /**
+     * 订阅实时K线
+     *
+     * @param filter 产品过滤条件
+     * @param listener 回调
+     * @return 订阅句柄，用于取消订阅
+     */
+    public Subscription subscribe(SymbolFilter filter, KlineListener listener) {
+        Subscription update = updateListeners.register(listener::onBarUpdate, filter);
+        Subscription close = closeListeners.register(listener::onBarClose, filter);
+        return new Subscription() {
+            @Override
+            public void cancel() {
+                update.cancel();
+                close.cancel();
+            }
+
+            @Override
+            public boolean isActive() {
+                return update.isActive();
+            }
+        };
+    }
+
+    /**
+     * 获取产品某个周期最近的K线，按时间升序，最后一根为当前K线
+     *
+     * @param symbol 产品代码
+     * @param type 周期类型
+     * @param limit 返回数量
+     * @return K线数据，尚未收到该产品的数据时返回空列表
+     */
+    public List<KlineData> getBars(String symbol, KlineType type, int limit) {
+        SymbolBars bars = symbols.get(symbol);
+        if (bars == null) {
+            return Collections.emptyList();
+        }
+        synchronized (bars) {
+            return bars.getSeries(type).copy(limit);
+        }
+    }
+
+    /**
+     * 使用聚合结果响应HTTP查询
+     * 只处理查询最新K线、指定了返回数量、历史已填充且K线数量足够的情况
+     *
+     * @return K线数据，无法使用聚合结果时返回null
+     */
+    public List<KlineData> getLatestBars(String region, String code, int kType, Long endTime, Integer limit) {
+        if (!enabled || endTime != null || limit == null || limit <= 0 || region == null || code == null
+                || kType < 1 || kType > KlineType.values().length) {
+            return null;
+        }
+        SymbolBars bars = instruments.get(new Instrument(region.toUpperCase(Locale.ROOT), code).key());
+        if (bars == null) {
+            return null;
+        }
+        synchronized (bars) {
+            BarSeries series = bars.getSeries(KlineType.of(kType));
+            if (!series.isSeeded() || series.size() < limit) {
+                return null;
+            }
+            return series.copy(limit);
+        }
+    }
+
+    /**
+     * 正在聚合的产品代码
+     */
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(symbols.keySet());
+    }
+}
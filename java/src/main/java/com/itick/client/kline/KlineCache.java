@@ -0,0 +1,210 @@
+package com.itick.client.kline;
+
+import com.itick.client.model.KlineData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * K线缓存
+ * 按(市场, 产品, 周期)保存K线序列，按endTime/limit查询时通过二分查找直接返回缓存中的数据，
+ * 缺少数据时给出需要补充拉取的最小范围，由调用方拉取后写回缓存。
+ *
+ * 查询不包含结束时间（或结束时间晚于当前时间）时视为实时查询，最后一次拉取距今不超过tail-ttl-ms时直接使用缓存，
+ * 否则只补拉最近的几根K线。
+ *
+ * 缓存按最近最少使用淘汰，同时限制序列数量和K线总数。
+ */
+@Slf4j
+@Component
+public class KlineCache {
+
+    /**
+     * 查询结果：命中时包含K线数据，未命中时包含需要拉取的范围
+     */
+    public static final class Lookup {
+        private final List<KlineData> bars;
+        private final Long fetchEndTime;
+        private final int fetchLimit;
+
+        private Lookup(List<KlineData> bars, Long fetchEndTime, int fetchLimit) {
+            this.bars = bars;
+            this.fetchEndTime = fetchEndTime;
+            this.fetchLimit = fetchLimit;
+        }
+
+        static Lookup hit(List<KlineData> bars) {
+            return new Lookup(bars, null, 0);
+        }
+
+        static Lookup miss(Long fetchEndTime, int fetchLimit) {
+            return new Lookup(null, fetchEndTime, fetchLimit);
+        }
+
+        public boolean isHit() {
+            return bars != null;
+        }
+
+        /**
+         * 命中时的K线数据，按时间升序
+         */
+        public List<KlineData> getBars() {
+            return bars;
+        }
+
+        /**
+         * 未命中时需要拉取的结束时间，null表示拉取最新数据
+         */
+        public Long getFetchEndTime() {
+            return fetchEndTime;
+        }
+
+        /**
+         * 未命中时需要拉取的K线数量
+         */
+        public int getFetchLimit() {
+            return fetchLimit;
+        }
+    }
+
+    @Value("${itick.kline.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${itick.kline.cache.max-series:1000}")
+    private int maxSeries;
+
+    @Value("${itick.kline.cache.max-bars:2000000}")
+    private long maxBars;
+
+    @Value("${itick.kline.cache.tail-ttl-ms:1000}")
+    private long tailTtlMs;
+
+    private final LinkedHashMap<KlineKey, KlineSeries> series = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBars;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 查询K线
+     *
+     * @param key 序列标识
+     * @param endTime 结束时间，null表示最新
+     * @param limit 返回记录数量
+     * @param now 当前时间
+     * @return 查询结果
+     */
+    public synchronized Lookup lookup(KlineKey key, Long endTime, int limit, long now) {
+        KlineSeries cached = series.get(key);
+        if (cached == null || !cached.isCovered()) {
+            return Lookup.miss(endTime, limit);
+        }
+
+        boolean live = endTime == null || endTime >= now;
+        long end = live ? now : endTime;
+        if (end < cached.getCoveredFrom()) {
+            return Lookup.miss(endTime, limit);
+        }
+
+        boolean tailCovered = end <= cached.getCoveredTo() || (live && now - cached.getCoveredTo() <= tailTtlMs);
+        if (!tailCovered) {
+            if (cached.isEmpty()) {
+                return Lookup.miss(endTime, limit);
+            }
+            // 只补拉覆盖范围之后的K线，同时刷新最后一根可能未走完的K线
+            long period = KlineType.of(key.kType()).getDurationMillis();
+            long missing = (end - cached.lastTime()) / period + 2;
+            if (missing >= limit) {
+                return Lookup.miss(endTime, limit);
+            }
+            return Lookup.miss(endTime, (int) missing);
+        }
+
+        int to = cached.upperBound(end);
+        if (to >= limit) {
+            return Lookup.hit(cached.copy(to - limit, to));
+        }
+        if (cached.getCoveredFrom() == Long.MIN_VALUE) {
+            // 已经包含最早的历史数据
+            return Lookup.hit(cached.copy(0, to));
+        }
+        if (cached.isEmpty()) {
+            return Lookup.miss(endTime, limit);
+        }
+        // 补拉覆盖范围之前的K线
+        return Lookup.miss(cached.firstTime() - 1, limit - to);
+    }
+
+    /**
+     * 写入一次拉取的结果
+     *
+     * @param key 序列标识
+     * @param fetchEndTime 拉取时使用的结束时间，null表示最新
+     * @param fetchLimit 拉取时使用的记录数量
+     * @param fetchedAt 发起拉取的时间
+     * @param bars 拉取到的K线
+     */
+    public synchronized void store(KlineKey key, Long fetchEndTime, int fetchLimit, long fetchedAt, List<KlineData> bars) {
+        if (!enabled) {
+            return;
+        }
+        List<KlineData> sorted = bars == null ? new ArrayList<>() : new ArrayList<>(bars);
+        sorted.sort(Comparator.comparingLong(KlineData::getT));
+
+        long to = fetchEndTime == null ? fetchedAt : Math.min(fetchEndTime, fetchedAt);
+        // 返回数量少于请求数量说明已经取到最早的数据
+        long from = sorted.size() < fetchLimit ? Long.MIN_VALUE : sorted.get(0).getT();
+
+        KlineSeries target = series.computeIfAbsent(key, k -> new KlineSeries());
+        totalBars -= target.size();
+        target.merge(sorted, from, to);
+        totalBars += target.size();
+        evict(key);
+    }
+
+    /**
+     * 按最近最少使用顺序淘汰序列，直到数量和K线总数都不超过上限，刚写入的序列不会被淘汰
+     */
+    private void evict(KlineKey keep) {
+        Iterator<Map.Entry<KlineKey, KlineSeries>> iterator = series.entrySet().iterator();
+        while ((series.size() > maxSeries || totalBars > maxBars) && iterator.hasNext()) {
+            Map.Entry<KlineKey, KlineSeries> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            totalBars -= eldest.getValue().size();
+            iterator.remove();
+            log.debug("淘汰K线缓存: {}", eldest.getKey());
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        series.clear();
+        totalBars = 0;
+    }
+
+    /**
+     * 缓存的序列数量
+     */
+    public synchronized int getSeriesCount() {
+        return series.size();
+    }
+
+    /**
+     * 缓存的K线总数
+     */
+    public synchronized long getBarCount() {
+        return totalBars;
+    }
+}
@@ -0,0 +1,124 @@
+package com.itick.client.kline;
+
+import com.itick.client.model.KlineData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按列保存的K线
+ * 每个字段一个基本类型数组，流式解码时直接写入，不为每根K线创建对象，
+ * 适合批量计算或写入本地存储；需要KlineData时再通过get或toList转换。
+ *
+ * 非线程安全。
+ */
+public final class KlineColumns implements KlineStreamDecoder.BarSink {
+
+    private long[] t;
+    private double[] o;
+    private double[] h;
+    private double[] l;
+    private double[] c;
+    private int[] v;
+    private double[] tu;
+    private int size;
+
+    /**
+     * @param initialCapacity 初始容量，通常为请求的K线数量
+     */
+    public KlineColumns(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        t = new long[capacity];
+        o = new double[capacity];
+        h = new double[capacity];
+        l = new double[capacity];
+        c = new double[capacity];
+        v = new int[capacity];
+        tu = new double[capacity];
+    }
+
+    @Override
+    public void onBar(long t, double o, double h, double l, double c, int v, double tu) {
+        if (size == this.t.length) {
+            grow();
+        }
+        this.t[size] = t;
+        this.o[size] = o;
+        this.h[size] = h;
+        this.l[size] = l;
+        this.c[size] = c;
+        this.v[size] = v;
+        this.tu[size] = tu;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = t.length << 1;
+        t = Arrays.copyOf(t, capacity);
+        o = Arrays.copyOf(o, capacity);
+        h = Arrays.copyOf(h, capacity);
+        l = Arrays.copyOf(l, capacity);
+        c = Arrays.copyOf(c, capacity);
+        v = Arrays.copyOf(v, capacity);
+        tu = Arrays.copyOf(tu, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long time(int i) {
+        return t[i];
+    }
+
+    public double open(int i) {
+        return o[i];
+    }
+
+    public double high(int i) {
+        return h[i];
+    }
+
+    public double low(int i) {
+        return l[i];
+    }
+
+    public double close(int i) {
+        return c[i];
+    }
+
+    public int volume(int i) {
+        return v[i];
+    }
+
+    public double turnover(int i) {
+        return tu[i];
+    }
+
+    /**
+     * 第i根K线
+     */
+    public KlineData get(int i) {
+        KlineData bar = new KlineData();
+        bar.setT(t[i]);
+        bar.setO(o[i]);
+        bar.setH(h[i]);
+        bar.setL(l[i]);
+        bar.setC(c[i]);
+        bar.setV(v[i]);
+        bar.setTu(tu[i]);
+        return bar;
+    }
+
+    /**
+     * 转换为KlineData列表
+     */
+    public List<KlineData> toList() {
+        List<KlineData> bars = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bars.add(get(i));
+        }
+        return bars;
+    }
+}
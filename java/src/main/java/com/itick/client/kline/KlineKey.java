@@ -0,0 +1,11 @@
+package com.itick.client.kline;
+
+/**
+ * K线序列标识
+ *
+ * @param region 市场代码
+ * @param code 产品代码
+ * @param kType 周期类型
+ */
+public record KlineKey(String region, String code, int kType) {
+}
@@ -0,0 +1,24 @@
+package com.itick.client.kline;
+
+/**
+ * 实时K线回调接口
+ * 回调在行情分发线程中执行，应尽快返回
+ */
+public interface KlineListener {
+
+    /**
+     * 当前K线更新
+     *
+     * @param bar 更新后的K线
+     */
+    default void onBarUpdate(LiveBar bar) {
+    }
+
+    /**
+     * K线走完，在下一根K线的第一次更新之前调用
+     *
+     * @param bar 走完的K线
+     */
+    default void onBarClose(LiveBar bar) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.itick.client.kline;
+
+import com.itick.client.model.KlineData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单个产品、单个周期的K线序列
+ * 按时间升序保存在基本类型数组中，每个字段一列，时间范围查询通过二分查找完成。
+ *
+ * 序列同时记录已覆盖的时间范围[coveredFrom, coveredTo]：该范围内的所有K线都已在序列中，
+ * coveredFrom为Long.MIN_VALUE时表示已取到最早的历史数据。覆盖范围始终是连续的一段。
+ *
+ * 非线程安全，由KlineCache负责同步。
+ */
+class KlineSeries {
+
+    private long[] t = new long[0];
+    private double[] o = new double[0];
+    private double[] h = new double[0];
+    private double[] l = new double[0];
+    private double[] c = new double[0];
+    private int[] v = new int[0];
+    private double[] tu = new double[0];
+    private int size;
+
+    private boolean covered;
+    private long coveredFrom;
+    private long coveredTo;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 是否已经有覆盖范围（覆盖范围内可能没有K线）
+     */
+    boolean isCovered() {
+        return covered;
+    }
+
+    long getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    long getCoveredTo() {
+        return coveredTo;
+    }
+
+    long firstTime() {
+        return t[0];
+    }
+
+    long lastTime() {
+        return t[size - 1];
+    }
+
+    /**
+     * 时间不晚于time的K线数量，即第一根时间晚于time的K线的下标
+     */
+    int upperBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (t[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 复制[from, to)范围内的K线
+     */
+    List<KlineData> copy(int from, int to) {
+        List<KlineData> bars = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            KlineData bar = new KlineData();
+            bar.setT(t[i]);
+            bar.setO(o[i]);
+            bar.setH(h[i]);
+            bar.setL(l[i]);
+            bar.setC(c[i]);
+            bar.setV(v[i]);
+            bar.setTu(tu[i]);
+            bars.add(bar);
+        }
+        return bars;
+    }
+
+    /**
+     * 合并一次拉取的结果
+     * 新覆盖范围与已有范围相交或相邻时合并两者，否则丢弃已有数据只保留新的范围。
+     * 相同时间的K线以新数据为准（最后一根K线在拉取时可能尚未走完）。
+     *
+     * @param bars 按时间升序排列的K线
+     * @param from 新数据的覆盖起点
+     * @param to 新数据的覆盖终点
+     */
+    void merge(List<KlineData> bars, long from, long to) {
+        boolean connected = covered
+                && from <= saturatedIncrement(coveredTo)
+                && saturatedIncrement(to) >= coveredFrom;
+        if (!connected) {
+            covered = true;
+            size = 0;
+            coveredFrom = from;
+            coveredTo = to;
+        } else {
+            coveredFrom = Math.min(coveredFrom, from);
+            coveredTo = Math.max(coveredTo, to);
+        }
+
+        int capacity = size + bars.size();
+        long[] mt = new long[capacity];
+        double[] mo = new double[capacity];
+        double[] mh = new double[capacity];
+        double[] ml = new double[capacity];
+        double[] mc = new double[capacity];
+        int[] mv = new int[capacity];
+        double[] mtu = new double[capacity];
+
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < size || j < bars.size()) {
+            KlineData bar = j < bars.size() ? bars.get(j) : null;
+            if (bar == null || (i < size && t[i] < bar.getT())) {
+                mt[n] = t[i];
+                mo[n] = o[i];
+                mh[n] = h[i];
+                ml[n] = l[i];
+                mc[n] = c[i];
+                mv[n] = v[i];
+                mtu[n] = tu[i];
+                i++;
+            } else {
+                if (i < size && t[i] == bar.getT()) {
+                    i++;
+                }
+                mt[n] = bar.getT();
+                mo[n] = bar.getO();
+                mh[n] = bar.getH();
+                ml[n] = bar.getL();
+                mc[n] = bar.getC();
+                mv[n] = bar.getV();
+                mtu[n] = bar.getTu();
+                j++;
+                // 同一批数据中的重复时间保留最后一条
+                while (j < bars.size() && bars.get(j).getT() == mt[n]) {
+                    bar = bars.get(j++);
+                    mo[n] = bar.getO();
+                    mh[n] = bar.getH();
+                    ml[n] = bar.getL();
+                    mc[n] = bar.getC();
+                    mv[n] = bar.getV();
+                    mtu[n] = bar.getTu();
+                }
+            }
+            n++;
+        }
+
+        t = n == capacity ? mt : Arrays.copyOf(mt, n);
+        o = n == capacity ? mo : Arrays.copyOf(mo, n);
+        h = n == capacity ? mh : Arrays.copyOf(mh, n);
+        l = n == capacity ? ml : Arrays.copyOf(ml, n);
+        c = n == capacity ? mc : Arrays.copyOf(mc, n);
+        v = n == capacity ? mv : Arrays.copyOf(mv, n);
+        tu = n == capacity ? mtu : Arrays.copyOf(mtu, n);
+        size = n;
+    }
+
+    private static long saturatedIncrement(long value) {
+        return value == Long.MAX_VALUE ? value : value + 1;
+    }
+}
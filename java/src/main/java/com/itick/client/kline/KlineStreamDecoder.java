@@ -0,0 +1,211 @@
+package com.itick.client.kline;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * K线接口响应的流式解码器
+ * 基于Jackson的非阻塞解析器，响应体的每个分片到达后立即解析其中完整的token，
+ * data数组中的每根K线读完即交给BarSink，不需要等待完整的响应，也不构建ApiResponse和KlineData列表。
+ * 解码器只保存当前K线的几个基本类型字段，内存占用与响应大小无关。
+ *
+ * 响应格式：{"code":0,"msg":"ok","data":[{"t":...,"o":...,"h":...,"l":...,"c":...,"v":...,"tu":...}, ...]}
+ * code和msg在finish之后通过getCode、getMsg读取，由调用方判断是否出错。
+ *
+ * 每个响应使用独立的实例，非线程安全。
+ */
+public final class KlineStreamDecoder {
+
+    /**
+     * 解码出的K线的接收方
+     */
+    @FunctionalInterface
+    public interface BarSink {
+
+        /**
+         * 收到一根K线
+         *
+         * @param t 时间戳
+         * @param o 开盘价
+         * @param h 最高价
+         * @param l 最低价
+         * @param c 收盘价
+         * @param v 成交数量
+         * @param tu 成交金额
+         */
+        void onBar(long t, double o, double h, double l, double c, int v, double tu);
+    }
+
+    // 顶层对象、data数组、K线对象所在的嵌套深度
+    private static final int ROOT_DEPTH = 1;
+    private static final int DATA_DEPTH = 2;
+    private static final int BAR_DEPTH = 3;
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final BarSink sink;
+
+    private int depth;
+    private boolean inData;
+    private String field;
+    private int code;
+    private String msg;
+    private long bars;
+
+    // 当前K线
+    private long t;
+    private double o;
+    private double h;
+    private double l;
+    private double c;
+    private int v;
+    private double tu;
+
+    public KlineStreamDecoder(JsonFactory jsonFactory, BarSink sink) {
+        try {
+            this.parser = jsonFactory.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建K线解析器失败", e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.sink = sink;
+    }
+
+    /**
+     * 解析一个分片
+     * 分片中的内容在返回前全部交给解析器处理，返回后调用方可以释放分片
+     *
+     * @param buffer 响应体分片
+     */
+    public void feed(ByteBuffer buffer) throws IOException {
+        feeder.feedInput(buffer);
+        drain();
+    }
+
+    /**
+     * 响应体结束，解析剩余的token并检查响应是否完整
+     */
+    public void finish() throws IOException {
+        feeder.endOfInput();
+        drain();
+        if (depth != 0) {
+            throw new IOException("K线响应不完整，已解析 " + bars + " 根K线");
+        }
+        parser.close();
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case FIELD_NAME:
+                    field = parser.currentName();
+                    break;
+                case START_OBJECT:
+                    depth++;
+                    if (inData && depth == BAR_DEPTH) {
+                        resetBar();
+                    }
+                    break;
+                case END_OBJECT:
+                    if (inData && depth == BAR_DEPTH) {
+                        bars++;
+                        sink.onBar(t, o, h, l, c, v, tu);
+                    }
+                    depth--;
+                    break;
+                case START_ARRAY:
+                    depth++;
+                    if (depth == DATA_DEPTH && "data".equals(field)) {
+                        inData = true;
+                    }
+                    break;
+                case END_ARRAY:
+                    if (depth == DATA_DEPTH) {
+                        inData = false;
+                    }
+                    depth--;
+                    break;
+                default:
+                    onValue(token);
+                    break;
+            }
+        }
+    }
+
+    private void onValue(JsonToken token) throws IOException {
+        if (depth == ROOT_DEPTH) {
+            if ("code".equals(field)) {
+                code = parser.getValueAsInt();
+            } else if ("msg".equals(field)) {
+                msg = parser.getValueAsString();
+            }
+            return;
+        }
+        if (!inData || depth != BAR_DEPTH || token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        switch (field) {
+            case "t":
+                t = parser.getValueAsLong();
+                break;
+            case "o":
+                o = parser.getValueAsDouble();
+                break;
+            case "h":
+                h = parser.getValueAsDouble();
+                break;
+            case "l":
+                l = parser.getValueAsDouble();
+                break;
+            case "c":
+                c = parser.getValueAsDouble();
+                break;
+            case "v":
+                v = parser.getValueAsInt();
+                break;
+            case "tu":
+                tu = parser.getValueAsDouble();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void resetBar() {
+        t = 0;
+        o = 0;
+        h = 0;
+        l = 0;
+        c = 0;
+        v = 0;
+        tu = 0;
+    }
+
+    /**
+     * 响应中的code，未包含时为0
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * 响应中的msg
+     */
+    public String getMsg() {
+        return msg;
+    }
+
+    /**
+     * 已解码的K线数量
+     */
+    public long getBars() {
+        return bars;
+    }
+}
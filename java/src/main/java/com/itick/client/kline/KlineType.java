@@ -0,0 +1,100 @@
+package com.itick.client.kline;
+
+/**
+ * K线周期类型
+ * 与接口参数kType一一对应
+ */
+public enum KlineType {
+    MINUTE_1(1, 60_000L),
+    MINUTE_5(2, 5 * 60_000L),
+    MINUTE_10(3, 10 * 60_000L),
+    MINUTE_30(4, 30 * 60_000L),
+    HOUR_1(5, 3_600_000L),
+    HOUR_2(6, 2 * 3_600_000L),
+    HOUR_4(7, 4 * 3_600_000L),
+    DAY_1(8, 86_400_000L),
+    WEEK_1(9, 7 * 86_400_000L),
+    MONTH_1(10, 30 * 86_400_000L);
+
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    /**
+     * 1970-01-01是星期四，周线从星期一开始
+     */
+    private static final long MONDAY_OFFSET_MILLIS = 4 * DAY_MILLIS;
+
+    private final int code;
+    private final long durationMillis;
+
+    KlineType(int code, long durationMillis) {
+        this.code = code;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * 接口中使用的kType值
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * 周期时长（毫秒），月线按30天估算
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * 计算时间戳所在K线的起始时间
+     * 日线按自然日、周线按星期一、月线按自然月对齐，均以offsetMillis指定的时区计算
+     *
+     * @param timestamp 时间戳（毫秒）
+     * @param offsetMillis 时区偏移（毫秒），UTC为0
+     * @return K线起始时间（毫秒）
+     */
+    public long barStart(long timestamp, long offsetMillis) {
+        long local = timestamp + offsetMillis;
+        long start;
+        switch (this) {
+            case WEEK_1:
+                start = Math.floorDiv(local - MONDAY_OFFSET_MILLIS, durationMillis) * durationMillis + MONDAY_OFFSET_MILLIS;
+                break;
+            case MONTH_1:
+                start = firstDayOfMonth(Math.floorDiv(local, DAY_MILLIS)) * DAY_MILLIS;
+                break;
+            default:
+                start = Math.floorDiv(local, durationMillis) * durationMillis;
+                break;
+        }
+        return start - offsetMillis;
+    }
+
+    /**
+     * 计算某天所在月份第一天的纪元日，不创建日期对象
+     */
+    private static long firstDayOfMonth(long epochDay) {
+        // 按3月为一年的第一个月计算，400年为一个周期
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        long firstDayOfYear = dayOfYear - (dayOfYear - (153 * monthIndex + 2) / 5);
+        return era * 146_097 + 365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100 + firstDayOfYear - 719_468;
+    }
+
+    /**
+     * 根据kType值获取周期类型
+     *
+     * @param code kType值，1-10
+     * @return 周期类型
+     */
+    public static KlineType of(int code) {
+        if (code < 1 || code > values().length) {
+            throw new IllegalArgumentException("未知的K线周期类型: " + code);
+        }
+        return values()[code - 1];
+    }
+}
@@ -0,0 +1,88 @@
+package com.itick.client.kline;
+
+import com.itick.client.model.KlineData;
+
+/**
+ * 实时K线
+ * 回调中传递的对象由聚合器复用，只在回调执行期间有效，需要保留时请调用toKlineData复制
+ */
+public final class LiveBar {
+
+    private final String symbol;
+    private final KlineType type;
+
+    long t;
+    double o;
+    double h;
+    double l;
+    double c;
+    long v;
+    double tu;
+    boolean closed;
+
+    LiveBar(String symbol, KlineType type) {
+        this.symbol = symbol;
+        this.type = type;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public KlineType getType() {
+        return type;
+    }
+
+    /**
+     * K线起始时间
+     */
+    public long getT() {
+        return t;
+    }
+
+    public double getO() {
+        return o;
+    }
+
+    public double getH() {
+        return h;
+    }
+
+    public double getL() {
+        return l;
+    }
+
+    public double getC() {
+        return c;
+    }
+
+    public long getV() {
+        return v;
+    }
+
+    public double getTu() {
+        return tu;
+    }
+
+    /**
+     * 该K线是否已经走完
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 复制为K线数据模型
+     */
+    public KlineData toKlineData() {
+        KlineData data = new KlineData();
+        data.setT(t);
+        data.setO(o);
+        data.setH(h);
+        data.setL(l);
+        data.setC(c);
+        data.setV((int) v);
+        data.setTu(tu);
+        return data;
+    }
+}
@@ -0,0 +1,50 @@
+package com.itick.client.kline;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 相同请求的合并执行
+ * 同一个键在请求完成前的所有调用共享同一个进行中的Mono，只会发起一次上游请求；
+ * 请求结束（成功或失败）后立即移除，之后的调用重新发起请求，结果不会被长期缓存。
+ *
+ * 某个调用方取消订阅不会取消共享的上游请求，其他调用方仍然可以得到结果。
+ *
+ * @param <K> 请求键
+ * @param <V> 结果类型
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行请求，相同键已有进行中的请求时直接加入
+     *
+     * @param key 请求键
+     * @param request 发起上游请求，只在没有进行中的请求时调用
+     * @return 请求结果
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> request) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> share(k, request.get())));
+    }
+
+    private Mono<V> share(K key, Mono<V> source) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> shared = source
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(shared);
+        return shared;
+    }
+
+    /**
+     * 进行中的请求数量
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
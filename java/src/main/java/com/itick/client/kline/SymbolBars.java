@@ -0,0 +1,71 @@
+package com.itick.client.kline;
+
+/**
+ * 单个产品所有周期的实时K线
+ * 成交和报价可能来自不同的分发线程，读写都需要在该对象上同步。
+ */
+class SymbolBars {
+
+    private final String symbol;
+    private final BarSeries[] series;
+
+    /** 是否收到过成交数据，收到后不再使用报价更新K线 */
+    private boolean tickSeen;
+    /** 上一条报价的累计成交量和成交额，用于计算增量 */
+    private long lastQuoteVolume = -1;
+    private double lastQuoteTurnover;
+    private long quoteVolumeDelta;
+    private double quoteTurnoverDelta;
+
+    SymbolBars(String symbol, int capacity) {
+        this.symbol = symbol;
+        KlineType[] types = KlineType.values();
+        this.series = new BarSeries[types.length];
+        for (int i = 0; i < types.length; i++) {
+            series[i] = new BarSeries(symbol, types[i], capacity);
+        }
+    }
+
+    String getSymbol() {
+        return symbol;
+    }
+
+    BarSeries getSeries(KlineType type) {
+        return series[type.ordinal()];
+    }
+
+    BarSeries[] getAllSeries() {
+        return series;
+    }
+
+    /**
+     * 记录收到成交数据
+     */
+    void markTickSeen() {
+        tickSeen = true;
+    }
+
+    boolean isTickSeen() {
+        return tickSeen;
+    }
+
+    /**
+     * 记录一条报价的累计成交量和成交额，计算与上一条报价之间的增量
+     * 第一条报价或累计值回退（如交易日切换）时增量为0
+     */
+    void onQuote(long cumulativeVolume, double cumulativeTurnover) {
+        boolean reset = lastQuoteVolume < 0 || cumulativeVolume < lastQuoteVolume;
+        quoteVolumeDelta = reset ? 0 : cumulativeVolume - lastQuoteVolume;
+        quoteTurnoverDelta = reset ? 0 : Math.max(0, cumulativeTurnover - lastQuoteTurnover);
+        lastQuoteVolume = cumulativeVolume;
+        lastQuoteTurnover = cumulativeTurnover;
+    }
+
+    long getQuoteVolumeDelta() {
+        return quoteVolumeDelta;
+    }
+
+    double getQuoteTurnoverDelta() {
+        return quoteTurnoverDelta;
+    }
+}
@@ -0,0 +1,45 @@
+package com.itick.client.metrics;
+
+import com.itick.client.service.WebSocketClientService;
+import com.itick.client.websocket.ConnectionStats;
+import com.itick.client.websocket.WebSocketConnection;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * WebSocket连接指标
+ * 以连接名称为标签导出连接状态、重连次数和数据中断情况，数值在采集时从ConnectionStats读取
+ */
+@RequiredArgsConstructor
+public class ConnectionMetricsBinder implements MeterBinder {
+
+    private final WebSocketClientService webSocketClientService;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (WebSocketConnection connection : webSocketClientService.getConnections()) {
+            String name = connection.getName();
+            ConnectionStats stats = connection.getStats();
+            Gauge.builder("itick.ws.connection.open", connection, c -> c.isOpen() ? 1 : 0)
+                    .description("连接是否已建立")
+                    .tag("connection", name)
+                    .register(registry);
+            FunctionCounter.builder("itick.ws.reconnects", stats, ConnectionStats::getReconnectCount)
+                    .description("重连次数")
+                    .tag("connection", name)
+                    .register(registry);
+            FunctionCounter.builder("itick.ws.gaps", stats, ConnectionStats::getGapCount)
+                    .description("已结束的数据中断次数")
+                    .tag("connection", name)
+                    .register(registry);
+            Gauge.builder("itick.ws.gap.current", stats, s -> s.getCurrentGapMillis(System.currentTimeMillis()))
+                    .description("当前正在持续的数据中断时长")
+                    .tag("connection", name)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+    }
+}
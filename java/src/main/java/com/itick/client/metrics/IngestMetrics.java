@@ -0,0 +1,58 @@
+package com.itick.client.metrics;
+
+/**
+ * 行情接收路径的指标
+ * 所有方法都在WebSocket接收线程中逐条消息调用，实现不应产生对象分配，也不应阻塞。
+ */
+public interface IngestMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    IngestMetrics NOOP = new IngestMetrics() {
+    };
+
+    /**
+     * 收到一条行情数据
+     *
+     * @param type 消息类型
+     * @param symbol 产品代码，可能为null
+     */
+    default void onMessage(MessageType type, String symbol) {
+    }
+
+    /**
+     * 记录一条消息的解码耗时（不含分发）
+     *
+     * @param nanos 耗时，单位纳秒
+     */
+    default void recordDecode(long nanos) {
+    }
+
+    /**
+     * 记录一条行情数据交给分发通道的耗时
+     * 同步分发时包括所有订阅者的处理时间，环形缓冲区分发时只包括写入缓冲区的时间
+     *
+     * @param type 消息类型
+     * @param nanos 耗时，单位纳秒
+     */
+    default void recordDispatch(MessageType type, long nanos) {
+    }
+
+    /**
+     * 记录交易所时间戳到本地接收时间的延迟
+     *
+     * @param type 消息类型
+     * @param millis 延迟，单位毫秒
+     */
+    default void recordExchangeLag(MessageType type, long millis) {
+    }
+
+    /**
+     * 记录心跳往返时间
+     *
+     * @param nanos 从发送ping到收到pong的时间，单位纳秒
+     */
+    default void recordHeartbeatRtt(long nanos) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.itick.client.metrics;
+
+/**
+ * 行情消息类型，用作指标的type标签
+ */
+public enum MessageType {
+    QUOTE("quote"),
+    TICK("tick"),
+    DEPTH("depth"),
+    KLINE("kline");
+
+    private final String tag;
+
+    MessageType(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
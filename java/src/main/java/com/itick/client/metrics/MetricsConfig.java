@@ -0,0 +1,63 @@
+package com.itick.client.metrics;
+
+import com.itick.client.dispatch.CallbackMetrics;
+import com.itick.client.service.WebSocketClientService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 行情指标配置类
+ * 启用时通过Micrometer记录接收路径和订阅者回调的指标，由Actuator导出（/actuator/metrics、/actuator/prometheus）；
+ * 未启用时使用空实现，接收路径上不做任何计时。
+ */
+@Slf4j
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 启用指标时的配置
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "itick.metrics.enabled", havingValue = "true", matchIfMissing = true)
+    static class EnabledMetricsConfig {
+
+        @Value("${itick.metrics.symbol-tags-max:500}")
+        private int symbolTagsMax;
+
+        /**
+         * 同时实现IngestMetrics和CallbackMetrics
+         */
+        @Bean
+        public MicrometerIngestMetrics ingestMetrics(MeterRegistry meterRegistry) {
+            log.info("已启用行情指标，按产品统计的标签上限: {}", symbolTagsMax);
+            return new MicrometerIngestMetrics(meterRegistry, symbolTagsMax);
+        }
+
+        @Bean
+        public ConnectionMetricsBinder connectionMetricsBinder(WebSocketClientService webSocketClientService) {
+            return new ConnectionMetricsBinder(webSocketClientService);
+        }
+    }
+
+    /**
+     * 未启用指标时的配置
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "itick.metrics.enabled", havingValue = "false")
+    static class DisabledMetricsConfig {
+
+        @Bean
+        public IngestMetrics ingestMetrics() {
+            return IngestMetrics.NOOP;
+        }
+
+        @Bean
+        public CallbackMetrics callbackMetrics() {
+            return CallbackMetrics.NOOP;
+        }
+    }
+}
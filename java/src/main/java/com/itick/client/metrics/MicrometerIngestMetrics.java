@@ -0,0 +1,169 @@
+package com.itick.client.metrics;
+
+import com.itick.client.dispatch.CallbackMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于Micrometer的行情指标
+ * 所有计时器在创建时注册并发布直方图（HDR直方图），记录时只更新已有的计时器，不产生对象分配；
+ * 按产品统计的消息计数器在产品第一次出现时注册，之后通过一次哈希查找得到。
+ *
+ * 按产品的标签数量有上限，超过上限的产品计入symbol=other，避免指标数量无限增长。
+ */
+@Slf4j
+public class MicrometerIngestMetrics implements IngestMetrics, CallbackMetrics {
+
+    private static final String OTHER_SYMBOL = "other";
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private final MeterRegistry registry;
+    private final int maxSymbolTags;
+    private final AtomicInteger symbolTagCount = new AtomicInteger();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final Timer decodeTimer;
+    private final Timer heartbeatRttTimer;
+    private final Timer[] dispatchTimers = new Timer[TYPES.length];
+    private final Timer[] lagTimers = new Timer[TYPES.length];
+    private final Counter[] otherCounters = new Counter[TYPES.length];
+    private final Map<String, Counter>[] symbolCounters;
+
+    /**
+     * @param registry 指标注册表
+     * @param maxSymbolTags 按产品统计消息数时最多使用的产品标签数量
+     */
+    @SuppressWarnings("unchecked")
+    public MicrometerIngestMetrics(MeterRegistry registry, int maxSymbolTags) {
+        this.registry = registry;
+        this.maxSymbolTags = maxSymbolTags;
+        this.symbolCounters = new Map[TYPES.length];
+
+        this.decodeTimer = Timer.builder("itick.ws.decode")
+                .description("WebSocket消息解码耗时（不含分发）")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(500))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(registry);
+        this.heartbeatRttTimer = Timer.builder("itick.ws.heartbeat.rtt")
+                .description("心跳往返时间")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(15))
+                .register(registry);
+
+        for (MessageType type : TYPES) {
+            int index = type.ordinal();
+            dispatchTimers[index] = Timer.builder("itick.ws.dispatch")
+                    .description("行情数据交给分发通道的耗时")
+                    .tag("type", type.getTag())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100))
+                    .maximumExpectedValue(Duration.ofSeconds(1))
+                    .register(registry);
+            lagTimers[index] = Timer.builder("itick.ws.exchange.lag")
+                    .description("交易所时间戳到本地接收的延迟")
+                    .tag("type", type.getTag())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(1))
+                    .register(registry);
+            otherCounters[index] = messageCounter(type, OTHER_SYMBOL);
+            symbolCounters[index] = new ConcurrentHashMap<>();
+        }
+    }
+
+    private Counter messageCounter(MessageType type, String symbol) {
+        return Counter.builder("itick.ws.messages")
+                .description("收到的行情消息数")
+                .tag("type", type.getTag())
+                .tag("symbol", symbol)
+                .register(registry);
+    }
+
+    @Override
+    public void onMessage(MessageType type, String symbol) {
+        int index = type.ordinal();
+        if (symbol == null) {
+            otherCounters[index].increment();
+            return;
+        }
+        Counter counter = symbolCounters[index].get(symbol);
+        if (counter == null) {
+            counter = registerSymbol(type, symbol);
+        }
+        counter.increment();
+    }
+
+    /**
+     * 产品第一次出现时注册计数器，超过标签数量上限时使用other计数器
+     */
+    private Counter registerSymbol(MessageType type, String symbol) {
+        Map<String, Counter> counters = symbolCounters[type.ordinal()];
+        return counters.computeIfAbsent(symbol, key -> {
+            int count = symbolTagCount.incrementAndGet();
+            if (count > maxSymbolTags) {
+                if (count == maxSymbolTags + 1) {
+                    log.warn("按产品统计的消息计数器超过上限 {}，之后出现的产品计入symbol={}", maxSymbolTags, OTHER_SYMBOL);
+                }
+                return otherCounters[type.ordinal()];
+            }
+            return messageCounter(type, key);
+        });
+    }
+
+    @Override
+    public void recordDecode(long nanos) {
+        decodeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordDispatch(MessageType type, long nanos) {
+        dispatchTimers[type.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordExchangeLag(MessageType type, long millis) {
+        // 本地时钟落后于交易所时延迟为负数，计时器不接受负值
+        lagTimers[type.ordinal()].record(Math.max(millis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordHeartbeatRtt(long nanos) {
+        heartbeatRttTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 每个订阅者一个计时器，使用通道名称和订阅者序号作为标签，订阅取消时移除
+     */
+    @Override
+    public CallbackMetrics.CallbackTimer newTimer(String channel) {
+        Timer timer = Timer.builder("itick.dispatch.callback")
+                .description("订阅者处理一条数据的耗时")
+                .tag("channel", channel == null ? "unknown" : channel)
+                .tag("subscriber", String.valueOf(subscriberCount.incrementAndGet()))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(registry);
+        return new CallbackMetrics.CallbackTimer() {
+            @Override
+            public void record(long nanos) {
+                timer.record(nanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void close() {
+                registry.remove(timer);
+            }
+        };
+    }
+}
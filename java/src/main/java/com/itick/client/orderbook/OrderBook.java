@@ -0,0 +1,314 @@
+package com.itick.client.orderbook;
+
+import com.itick.client.model.websocket.DepthData;
+import com.itick.client.websocket.DepthLevels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 单个产品的订单簿
+ * 买卖档位的价格、数量和订单数以double形式保存在堆外内存中，按档位（OrderItem.po）直接寻址，
+ * 更新和查询都不会产生对象分配。
+ *
+ * 只允许一个线程（行情接收线程）写入，查询可以在任意线程进行：
+ * 读取使用StampedLock乐观读，与写入发生冲突时退化为读锁。
+ */
+public class OrderBook {
+
+    /**
+     * 买卖方向
+     */
+    public enum Side {
+        BID,
+        ASK
+    }
+
+    private static final int FIELDS_PER_LEVEL = 3;
+    private static final int PRICE = 0;
+    private static final int VOLUME = 1;
+    private static final int ORDERS = 2;
+    private static final int LEVEL_BYTES = FIELDS_PER_LEVEL * Double.BYTES;
+
+    private final String symbol;
+    private final int maxLevels;
+    private final ByteBuffer levels;
+    private final StampedLock lock = new StampedLock();
+
+    private int bidDepth;
+    private int askDepth;
+    private long lastUpdateTime;
+
+    /**
+     * @param symbol 产品代码
+     * @param maxLevels 每一侧保存的最大档位数，超出的档位会被忽略
+     */
+    public OrderBook(String symbol, int maxLevels) {
+        this.symbol = symbol;
+        this.maxLevels = maxLevels;
+        this.levels = ByteBuffer.allocateDirect(2 * maxLevels * LEVEL_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getMaxLevels() {
+        return maxLevels;
+    }
+
+    /**
+     * 使用盘口快照更新订单簿
+     *
+     * @param depthData 盘口数据
+     */
+    public void update(DepthData depthData) {
+        update(DepthLevels.of(depthData));
+    }
+
+    /**
+     * 使用解码器输出的盘口档位更新订单簿，档位直接写入堆外缓冲区
+     *
+     * @param levels 盘口档位
+     */
+    public void update(DepthLevels levels) {
+        long stamp = lock.writeLock();
+        try {
+            bidDepth = applySide(Side.BID, levels.bids());
+            askDepth = applySide(Side.ASK, levels.asks());
+            lastUpdateTime = System.currentTimeMillis();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 用快照中的档位覆盖一侧的数据，返回该侧的有效档位数
+     */
+    private int applySide(Side side, DepthLevels.Side items) {
+        int previousDepth = depth(side);
+        int depth = 0;
+        for (int i = 0; i < items.size(); i++) {
+            int level = items.po(i) - 1;
+            if (level < 0 || level >= maxLevels) {
+                continue;
+            }
+            // 快照中缺失的中间档位清零
+            for (int gap = depth; gap < level; gap++) {
+                writeLevel(side, gap, 0, 0, 0);
+            }
+            writeLevel(side, level, items.price(i), items.volume(i), items.orders(i));
+            depth = Math.max(depth, level + 1);
+        }
+        for (int level = depth; level < previousDepth; level++) {
+            writeLevel(side, level, 0, 0, 0);
+        }
+        return depth;
+    }
+
+    private void writeLevel(Side side, int level, double price, double volume, double orders) {
+        int offset = offset(side, level);
+        levels.putDouble(offset + PRICE * Double.BYTES, price);
+        levels.putDouble(offset + VOLUME * Double.BYTES, volume);
+        levels.putDouble(offset + ORDERS * Double.BYTES, orders);
+    }
+
+    private double read(Side side, int level, int field) {
+        return levels.getDouble(offset(side, level) + field * Double.BYTES);
+    }
+
+    private int offset(Side side, int level) {
+        return (side.ordinal() * maxLevels + level) * LEVEL_BYTES;
+    }
+
+    private int depth(Side side) {
+        return side == Side.BID ? bidDepth : askDepth;
+    }
+
+    /**
+     * 获取一侧的有效档位数
+     */
+    public int getDepth(Side side) {
+        long stamp = lock.tryOptimisticRead();
+        int depth = depth(side);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                depth = depth(side);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * 获取最近一次更新的本地时间戳（毫秒）
+     */
+    public long getLastUpdateTime() {
+        long stamp = lock.tryOptimisticRead();
+        long time = lastUpdateTime;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                time = lastUpdateTime;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return time;
+    }
+
+    /**
+     * 获取指定档位的价格
+     *
+     * @param side 买卖方向
+     * @param po 档位，从1开始
+     * @return 价格，档位不存在时返回NaN
+     */
+    public double getPrice(Side side, int po) {
+        return readField(side, po - 1, PRICE);
+    }
+
+    /**
+     * 获取指定档位的数量
+     *
+     * @param side 买卖方向
+     * @param po 档位，从1开始
+     * @return 数量，档位不存在时返回NaN
+     */
+    public double getVolume(Side side, int po) {
+        return readField(side, po - 1, VOLUME);
+    }
+
+    /**
+     * 获取指定档位的订单数
+     *
+     * @param side 买卖方向
+     * @param po 档位，从1开始
+     * @return 订单数，档位不存在时返回NaN
+     */
+    public double getOrders(Side side, int po) {
+        return readField(side, po - 1, ORDERS);
+    }
+
+    private double readField(Side side, int level, int field) {
+        long stamp = lock.tryOptimisticRead();
+        double value = level >= 0 && level < depth(side) ? read(side, level, field) : Double.NaN;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = level >= 0 && level < depth(side) ? read(side, level, field) : Double.NaN;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 获取买一价
+     */
+    public double getBestBid() {
+        return getPrice(Side.BID, 1);
+    }
+
+    /**
+     * 获取卖一价
+     */
+    public double getBestAsk() {
+        return getPrice(Side.ASK, 1);
+    }
+
+    /**
+     * 获取买卖价差（卖一价 - 买一价），任一侧为空时返回NaN
+     */
+    public double getSpread() {
+        long stamp = lock.tryOptimisticRead();
+        double spread = spread();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                spread = spread();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return spread;
+    }
+
+    private double spread() {
+        if (bidDepth == 0 || askDepth == 0) {
+            return Double.NaN;
+        }
+        return read(Side.ASK, 0, PRICE) - read(Side.BID, 0, PRICE);
+    }
+
+    /**
+     * 获取一侧前若干档的累计数量
+     *
+     * @param side 买卖方向
+     * @param levelCount 档位数
+     * @return 累计数量
+     */
+    public double getCumulativeVolume(Side side, int levelCount) {
+        long stamp = lock.tryOptimisticRead();
+        double volume = cumulativeVolume(side, levelCount);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                volume = cumulativeVolume(side, levelCount);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return volume;
+    }
+
+    private double cumulativeVolume(Side side, int levelCount) {
+        int levelLimit = Math.min(Math.max(levelCount, 0), depth(side));
+        double volume = 0;
+        for (int level = 0; level < levelLimit; level++) {
+            volume += read(side, level, VOLUME);
+        }
+        return volume;
+    }
+
+    /**
+     * 计算按当前盘口成交指定数量的成交量加权均价（VWAP）
+     * 买入时吃卖盘（ASK），卖出时吃买盘（BID）
+     *
+     * @param side 被吃掉的一侧
+     * @param size 成交数量
+     * @return 加权均价，盘口深度不足时返回NaN
+     */
+    public double getVwap(Side side, double size) {
+        long stamp = lock.tryOptimisticRead();
+        double vwap = vwap(side, size);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                vwap = vwap(side, size);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return vwap;
+    }
+
+    private double vwap(Side side, double size) {
+        if (size <= 0) {
+            return Double.NaN;
+        }
+        int depth = depth(side);
+        double remaining = size;
+        double notional = 0;
+        for (int level = 0; level < depth && remaining > 0; level++) {
+            double fill = Math.min(remaining, read(side, level, VOLUME));
+            notional += fill * read(side, level, PRICE);
+            remaining -= fill;
+        }
+        return remaining > 0 ? Double.NaN : notional / size;
+    }
+}
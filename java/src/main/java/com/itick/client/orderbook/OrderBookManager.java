@@ -0,0 +1,75 @@
+package com.itick.client.orderbook;
+
+import com.itick.client.service.MarketDataSource;
+import com.itick.client.websocket.DepthLevels;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 订单簿管理服务
+ * 订阅盘口数据流，为每个产品维护一个OrderBook
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderBookManager {
+
+    private final MarketDataSource marketDataSource;
+
+    @Value("${itick.orderbook.max-levels:50}")
+    private int maxLevels;
+
+    private final Map<String, OrderBook> orderBooks = new ConcurrentHashMap<>();
+
+    /**
+     * 订阅盘口档位，实时行情下档位由解码器直接写入订单簿，不构建DepthData
+     */
+    @PostConstruct
+    public void init() {
+        marketDataSource.subscribeToDepthLevels(null, this::onDepth);
+    }
+
+    /**
+     * 处理盘口档位，更新对应产品的订单簿
+     *
+     * @param levels 盘口档位
+     */
+    public void onDepth(DepthLevels levels) {
+        String symbol = levels.getSymbol();
+        if (symbol == null) {
+            return;
+        }
+
+        OrderBook orderBook = orderBooks.get(symbol);
+        if (orderBook == null) {
+            orderBook = orderBooks.computeIfAbsent(symbol, key -> new OrderBook(key, maxLevels));
+            log.debug("创建订单簿: {}", symbol);
+        }
+        orderBook.update(levels);
+    }
+
+    /**
+     * 获取产品的订单簿
+     *
+     * @param symbol 产品代码
+     * @return 订单簿，尚未收到该产品的盘口数据时返回null
+     */
+    public OrderBook getOrderBook(String symbol) {
+        return orderBooks.get(symbol);
+    }
+
+    /**
+     * 获取已维护订单簿的产品代码
+     */
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(orderBooks.keySet());
+    }
+}
@@ -0,0 +1,328 @@
+package com.itick.client.replay;
+
+import com.itick.client.dispatch.MarketDataChannel;
+import com.itick.client.dispatch.MarketDataChannelFactory;
+import com.itick.client.dispatch.Subscription;
+import com.itick.client.dispatch.SymbolFilter;
+import com.itick.client.journal.JournalReader;
+import com.itick.client.journal.JournalRecord;
+import com.itick.client.journal.MarketDataCodecs;
+import com.itick.client.journal.RecordCodec;
+import com.itick.client.model.websocket.DepthData;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import com.itick.client.service.MarketDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 行情回放数据源
+ * 从行情日志中读取记录，按接收时间对所有日志（每个目录的报价、成交、盘口、K线）做多路归并，
+ * 通过与实时行情相同的订阅接口分发，订阅方不需要区分实时和回放。
+ *
+ * 支持三种速度：max（尽快回放）、1（按原始时间间隔回放）、N（N倍速）。
+ * 接收时间相同的记录按目录和数据类型的固定顺序分发，多次回放的顺序完全一致；
+ * 需要跨数据类型的严格顺序时应使用inline分发模式。
+ *
+ * 在itick.source.mode=replay时启用，并替代WebSocketClientService作为MarketDataSource。
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(name = "itick.source.mode", havingValue = "replay")
+public class ReplayMarketDataSource implements MarketDataSource {
+
+    private static final int REPORT_CHECK_MASK = 1023;
+
+    @Value("${itick.replay.dirs:journal}")
+    private String dirs;
+
+    @Value("${itick.replay.speed:max}")
+    private String speed;
+
+    @Value("${itick.replay.auto-start:true}")
+    private boolean autoStart;
+
+    @Value("${itick.replay.from:0}")
+    private long fromTime;
+
+    @Value("${itick.replay.to:0}")
+    private long toTime;
+
+    @Value("${itick.replay.report-interval-ms:5000}")
+    private long reportIntervalMs;
+
+    private final MarketDataChannel<QuoteData> quoteChannel;
+    private final MarketDataChannel<TickData> tickChannel;
+    private final MarketDataChannel<DepthData> depthChannel;
+    private final MarketDataChannel<KlineWebSocketData> klineChannel;
+
+    private volatile Thread thread;
+    private volatile boolean stopRequested;
+    private volatile long events;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile long firstEventTime;
+    private volatile long currentEventTime;
+
+    public ReplayMarketDataSource(MarketDataChannelFactory channelFactory) {
+        // 只有回放线程发布数据
+        this.quoteChannel = channelFactory.create("replay-quote", QuoteData::getS, false);
+        this.tickChannel = channelFactory.create("replay-tick", TickData::getS, false);
+        this.depthChannel = channelFactory.create("replay-depth", DepthData::getS, false);
+        this.klineChannel = channelFactory.create("replay-kline", KlineWebSocketData::getS, false);
+    }
+
+    /**
+     * 应用启动完成（所有订阅方都已订阅）后开始回放
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (autoStart) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        stop();
+        quoteChannel.close();
+        tickChannel.close();
+        depthChannel.close();
+        klineChannel.close();
+    }
+
+    /**
+     * 开始回放，已经在回放时忽略
+     */
+    public synchronized void start() {
+        if (thread != null && thread.isAlive()) {
+            return;
+        }
+        stopRequested = false;
+        thread = new Thread(this::run, "itick-replay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 停止回放
+     */
+    public synchronized void stop() {
+        stopRequested = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 回放是否正在进行
+     */
+    public boolean isRunning() {
+        Thread current = thread;
+        return current != null && current.isAlive();
+    }
+
+    private void run() {
+        double rate = parseSpeed(speed);
+        List<Cursor<?>> cursors = new ArrayList<>();
+        PriorityQueue<Cursor<?>> queue = new PriorityQueue<>(
+                Comparator.<Cursor<?>>comparingLong(cursor -> cursor.time).thenComparingInt(cursor -> cursor.order));
+
+        events = 0;
+        firstEventTime = 0;
+        currentEventTime = 0;
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+        try {
+            for (String dir : dirs.split(",")) {
+                if (dir.trim().isEmpty()) {
+                    continue;
+                }
+                Path root = Paths.get(dir.trim());
+                cursors.add(new Cursor<>(root, MarketDataCodecs.QUOTE, quoteChannel, cursors.size()));
+                cursors.add(new Cursor<>(root, MarketDataCodecs.TICK, tickChannel, cursors.size()));
+                cursors.add(new Cursor<>(root, MarketDataCodecs.DEPTH, depthChannel, cursors.size()));
+                cursors.add(new Cursor<>(root, MarketDataCodecs.KLINE, klineChannel, cursors.size()));
+            }
+            for (Cursor<?> cursor : cursors) {
+                if (cursor.advance(fromTime, toTime)) {
+                    queue.add(cursor);
+                }
+            }
+            log.info("开始回放行情日志: {}，速度: {}，数据流: {}", dirs, speed, queue.size());
+
+            long startNanos = System.nanoTime();
+            long lastReport = startNanos;
+            long count = 0;
+            while (!queue.isEmpty() && !stopRequested) {
+                Cursor<?> cursor = queue.poll();
+                if (count == 0) {
+                    firstEventTime = cursor.time;
+                }
+                if (rate > 0) {
+                    pace(startNanos, cursor.time - firstEventTime, rate);
+                }
+
+                currentEventTime = cursor.time;
+                cursor.publish();
+                events = ++count;
+                if (cursor.advance(fromTime, toTime)) {
+                    queue.add(cursor);
+                }
+
+                if ((count & REPORT_CHECK_MASK) == 0 && System.nanoTime() - lastReport >= reportIntervalMs * 1_000_000) {
+                    lastReport = System.nanoTime();
+                    logProgress();
+                }
+            }
+        } catch (IOException e) {
+            log.error("读取行情日志时出错", e);
+        } catch (Exception e) {
+            log.error("回放行情时出错", e);
+        } finally {
+            for (Cursor<?> cursor : cursors) {
+                cursor.close();
+            }
+            finishedAt = System.currentTimeMillis();
+            log.info("回放{}，{}", stopRequested ? "已停止" : "完成", describe(getStats()));
+        }
+    }
+
+    /**
+     * 等待到记录按回放速度应当分发的时刻
+     */
+    private void pace(long startNanos, long offsetMillis, double rate) {
+        long due = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(offsetMillis) / rate);
+        long wait;
+        while ((wait = due - System.nanoTime()) > 0 && !stopRequested) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private static double parseSpeed(String speed) {
+        String value = speed.trim().toLowerCase();
+        if (value.equals("max")) {
+            return 0;
+        }
+        double rate = Double.parseDouble(value.endsWith("x") ? value.substring(0, value.length() - 1) : value);
+        if (rate <= 0) {
+            throw new IllegalArgumentException("回放速度必须大于0: " + speed);
+        }
+        return rate;
+    }
+
+    private void logProgress() {
+        log.info("回放进度，{}", describe(getStats()));
+    }
+
+    private static String describe(ReplayStats stats) {
+        return String.format("记录数: %d，用时: %d毫秒，吞吐量: %.0f条/秒，当前记录时间: %d",
+                stats.getEvents(), stats.getElapsedMillis(), stats.getEventsPerSecond(), stats.getCurrentEventTime());
+    }
+
+    /**
+     * 回放统计
+     */
+    public ReplayStats getStats() {
+        long count = events;
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        long elapsed = startedAt > 0 ? end - startedAt : 0;
+        return ReplayStats.builder()
+                .running(isRunning())
+                .speed(speed)
+                .events(count)
+                .elapsedMillis(elapsed)
+                .eventsPerSecond(elapsed > 0 ? count * 1000.0 / elapsed : 0)
+                .firstEventTime(firstEventTime)
+                .currentEventTime(currentEventTime)
+                .build();
+    }
+
+    @Override
+    public Subscription subscribeToQuotes(SymbolFilter filter, Consumer<QuoteData> subscriber) {
+        return quoteChannel.subscribe(subscriber, filter);
+    }
+
+    @Override
+    public Subscription subscribeToTicks(SymbolFilter filter, Consumer<TickData> subscriber) {
+        return tickChannel.subscribe(subscriber, filter);
+    }
+
+    @Override
+    public Subscription subscribeToDepth(SymbolFilter filter, Consumer<DepthData> subscriber) {
+        return depthChannel.subscribe(subscriber, filter);
+    }
+
+    @Override
+    public Subscription subscribeToKlines(SymbolFilter filter, Consumer<KlineWebSocketData> subscriber) {
+        return klineChannel.subscribe(subscriber, filter);
+    }
+
+    /**
+     * 归并中的一路数据流：一个日志目录中一种数据类型的记录
+     */
+    private static final class Cursor<T> {
+
+        private final JournalReader<T> reader;
+        private final MarketDataChannel<T> channel;
+        private final int order;
+        private JournalRecord<T> current;
+        private long time;
+
+        Cursor(Path root, RecordCodec<T> codec, MarketDataChannel<T> channel, int order) {
+            this.reader = new JournalReader<>(root.resolve(codec.name()), codec, 1);
+            this.channel = channel;
+            this.order = order;
+        }
+
+        /**
+         * 读取下一条时间范围内的记录
+         *
+         * @return 是否还有记录
+         */
+        boolean advance(long from, long to) throws IOException {
+            while ((current = reader.poll()) != null) {
+                time = current.getReceivedAt();
+                if (to > 0 && time > to) {
+                    current = null;
+                    return false;
+                }
+                if (time >= from) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void publish() {
+            channel.publish(current.decode());
+        }
+
+        void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                log.warn("关闭日志读取器时出错", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.itick.client.replay;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 回放统计
+ */
+@Data
+@Builder
+public class ReplayStats {
+    private boolean running;      // 是否正在回放
+    private String speed;         // 回放速度
+    private long events;          // 已回放的记录数
+    private long elapsedMillis;   // 已用时间
+    private double eventsPerSecond; // 平均吞吐量
+    private long firstEventTime;  // 第一条记录的接收时间
+    private long currentEventTime; // 当前记录的接收时间
+}
@@ -1,26 +1,61 @@
 package com.itick.client.service;
 
-import com.itick.client.model.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.kline.KlineCache;
+import com.itick.client.kline.KlineColumns;
+import com.itick.client.kline.KlineKey;
+import com.itick.client.kline.KlineStreamDecoder;
+import com.itick.client.kline.SingleFlight;
 import com.itick.client.model.KlineData;
+import com.itick.client.store.KlineStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * K线数据服务
- * 负责通过HTTP API获取K线数据
+ * 负责通过HTTP API获取K线数据，指定了返回数量的查询优先使用K线缓存，只拉取缓存中缺少的部分。
+ * 启用本地K线存储时，缓存未命中的部分先查本地存储，只向接口拉取存储中最后一根K线之后的数据。
+ * 参数完全相同的并发请求合并为一次HTTP调用。
+ * 响应体按分片流式解码，不缓冲完整的响应，内存占用只与返回的K线数量有关。
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class KlineService {
 
+    /**
+     * 单次查询最多补拉的次数，超过后直接请求完整范围
+     */
+    private static final int MAX_CACHE_FETCHES = 3;
+
+    /**
+     * 按limit预分配的最大容量，limit来自调用方，超过后按实际返回的记录数扩容
+     */
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
     private final WebClient webClient;
+    private final KlineCache klineCache;
+    private final KlineStore klineStore;
+    private final ObjectMapper objectMapper;
+    private final SingleFlight<FetchKey, List<KlineData>> singleFlight = new SingleFlight<>();
+
+    /**
+     * HTTP请求参数，用于合并相同的并发请求
+     */
+    private record FetchKey(String region, String code, int kType, Long endTime, Integer limit) {
+    }
     
     /**
      * 获取特定股票/外汇/指数的K线数据
@@ -33,6 +68,212 @@ public class KlineService {
      * @return K线数据列表
      */
     public Mono<List<KlineData>> getKlineData(String region, String code, int kType, Long endTime, Integer limit) {
+        if (!klineCache.isEnabled() || limit == null || limit <= 0) {
+            return fetchKlineData(region, code, kType, endTime, limit);
+        }
+        return getThroughCache(new KlineKey(region, code, kType), endTime, limit, MAX_CACHE_FETCHES);
+    }
+
+    /**
+     * 不经过K线缓存直接拉取一页K线，用于批量回补等不需要缓存的场景
+     *
+     * @param region 市场代码
+     * @param code 产品代码
+     * @param kType 周期类型
+     * @param endTime 结束时间，返回该时间及之前的K线
+     * @param limit 返回记录数量
+     * @return K线数据列表
+     */
+    public Mono<List<KlineData>> fetchPage(String region, String code, int kType, long endTime, int limit) {
+        return requestShared(region, code, kType, endTime, limit);
+    }
+
+    /**
+     * 从缓存查询K线，缺少数据时拉取缺少的部分写回缓存后重新查询
+     */
+    private Mono<List<KlineData>> getThroughCache(KlineKey key, Long endTime, int limit, int remainingFetches) {
+        long now = System.currentTimeMillis();
+        KlineCache.Lookup lookup = klineCache.lookup(key, endTime, limit, now);
+        if (lookup.isHit()) {
+            return Mono.just(lookup.getBars());
+        }
+        if (remainingFetches == 0) {
+            log.debug("K线缓存补拉次数已用完，直接请求: {}", key);
+            return fetchKlineData(key.region(), key.code(), key.kType(), endTime, limit);
+        }
+
+        return fetchKlineData(key.region(), key.code(), key.kType(), lookup.getFetchEndTime(), lookup.getFetchLimit())
+                .flatMap(bars -> {
+                    klineCache.store(key, lookup.getFetchEndTime(), lookup.getFetchLimit(), now, bars);
+                    return getThroughCache(key, endTime, limit, remainingFetches - 1);
+                });
+    }
+
+    /**
+     * 拉取K线数据，启用本地存储且指定了返回数量时经过本地存储
+     */
+    private Mono<List<KlineData>> fetchKlineData(String region, String code, int kType, Long endTime, Integer limit) {
+        if (klineStore.isEnabled() && limit != null && limit > 0) {
+            return getThroughStore(new KlineKey(region, code, kType), endTime, limit, true);
+        }
+        return requestShared(region, code, kType, endTime, limit);
+    }
+
+    /**
+     * 从本地存储查询K线
+     * 存储的数据截止时间早于查询时间时先补拉最新的数据写入存储，再重新查询一次；
+     * 存储中没有该序列时，实时查询的结果作为序列的初始数据写入存储
+     */
+    private Mono<List<KlineData>> getThroughStore(KlineKey key, Long endTime, int limit, boolean fetchTail) {
+        long now = System.currentTimeMillis();
+        KlineStore.Lookup lookup = klineStore.lookup(key, endTime, limit, now);
+        switch (lookup.getKind()) {
+            case HIT:
+                return Mono.just(lookup.getBars());
+            case TAIL:
+                if (fetchTail) {
+                    long coveredTo = endTime == null ? now : Math.min(endTime, now);
+                    return fetchTail(key, endTime, lookup.getLastTime(), new ArrayList<>(), klineStore.getMaxTailPages())
+                            .flatMap(bars -> {
+                                klineStore.append(key, bars, coveredTo);
+                                return getThroughStore(key, endTime, limit, false);
+                            });
+                }
+                return requestShared(key.region(), key.code(), key.kType(), endTime, limit);
+            default:
+                return requestShared(key.region(), key.code(), key.kType(), endTime, limit)
+                        .doOnNext(bars -> {
+                            if (lookup.isSeed()) {
+                                klineStore.append(key, sorted(bars), now);
+                            }
+                        });
+        }
+    }
+
+    /**
+     * 从结束时间向前翻页拉取，直到与存储中最后一根K线衔接
+     * 翻页次数超过上限时清空存储中的序列，以拉取到的数据重新开始
+     *
+     * @param lastTime 存储中最后一根K线的时间
+     * @param pages 已拉取的页，越新的页越靠前
+     * @return 按时间升序的K线
+     */
+    private Mono<List<KlineData>> fetchTail(KlineKey key, Long endTime, long lastTime, List<List<KlineData>> pages,
+                                            int remainingPages) {
+        return requestShared(key.region(), key.code(), key.kType(), endTime, klineStore.getTailPageSize())
+                .flatMap(page -> {
+                    List<KlineData> bars = sorted(page);
+                    pages.add(bars);
+                    boolean connected = bars.isEmpty() || bars.get(0).getT() <= lastTime;
+                    if (!connected && remainingPages > 1) {
+                        return fetchTail(key, bars.get(0).getT() - 1, lastTime, pages, remainingPages - 1);
+                    }
+                    if (!connected) {
+                        log.info("K线存储 {} 与最新数据之间的缺口过大，重新开始该序列", key);
+                        klineStore.clear(key);
+                    }
+                    List<KlineData> result = new ArrayList<>();
+                    for (int i = pages.size() - 1; i >= 0; i--) {
+                        result.addAll(pages.get(i));
+                    }
+                    return Mono.just(result);
+                });
+    }
+
+    private static List<KlineData> sorted(List<KlineData> bars) {
+        List<KlineData> result = new ArrayList<>(bars);
+        result.sort(Comparator.comparingLong(KlineData::getT));
+        return result;
+    }
+
+    /**
+     * 通过HTTP API拉取K线数据，相同参数的请求在完成前共享同一次HTTP调用
+     */
+    private Mono<List<KlineData>> requestShared(String region, String code, int kType, Long endTime, Integer limit) {
+        return singleFlight.execute(new FetchKey(region, code, kType, endTime, limit),
+                () -> requestKlineData(region, code, kType, endTime, limit));
+    }
+
+    /**
+     * 通过HTTP API拉取K线数据
+     * 响应体边接收边解码，不缓冲完整的响应
+     */
+    private Mono<List<KlineData>> requestKlineData(String region, String code, int kType, Long endTime, Integer limit) {
+        return Mono.defer(() -> {
+            List<KlineData> bars = new ArrayList<>(initialCapacity(limit));
+            return decode(region, code, kType, endTime, limit, (t, o, h, l, c, v, tu) -> bars.add(bar(t, o, h, l, c, v, tu)))
+                    .thenReturn(bars);
+        }).doOnError(error -> log.error("获取K线数据时出错", error));
+    }
+
+    private static int initialCapacity(Integer limit) {
+        return limit != null && limit > 0 ? Math.min(limit, MAX_INITIAL_CAPACITY) : 16;
+    }
+
+    /**
+     * 以流的形式获取K线数据，不经过K线缓存和本地存储
+     * 响应体的每个分片到达后立即解码，分片中读完的K线随即发出，按接口返回的顺序排列；
+     * 响应的code不为0时在最后以错误结束。
+     *
+     * @param region 市场代码
+     * @param code 产品代码
+     * @param kType 周期类型
+     * @param endTime 结束时间（可选）
+     * @param limit 返回记录数量（可选）
+     * @return K线数据流
+     */
+    public Flux<KlineData> streamKlineData(String region, String code, int kType, Long endTime, Integer limit) {
+        return Flux.defer(() -> {
+            List<KlineData> chunk = new ArrayList<>();
+            KlineStreamDecoder decoder = new KlineStreamDecoder(objectMapper.getFactory(),
+                    (t, o, h, l, c, v, tu) -> chunk.add(bar(t, o, h, l, c, v, tu)));
+            return requestBody(region, code, kType, endTime, limit)
+                    .concatMapIterable(buffer -> {
+                        feed(decoder, buffer);
+                        return drain(chunk);
+                    })
+                    .concatWith(Flux.defer(() -> {
+                        finish(decoder);
+                        return Flux.fromIterable(drain(chunk));
+                    }));
+        }).doOnError(error -> log.error("获取K线数据时出错", error));
+    }
+
+    /**
+     * 获取K线数据并按列保存，不经过K线缓存和本地存储
+     * 解码出的K线直接写入基本类型数组，不创建KlineData对象，适合大批量的历史数据
+     *
+     * @param region 市场代码
+     * @param code 产品代码
+     * @param kType 周期类型
+     * @param endTime 结束时间（可选）
+     * @param limit 返回记录数量（可选）
+     * @return 按列保存的K线，按接口返回的顺序排列
+     */
+    public Mono<KlineColumns> fetchColumns(String region, String code, int kType, Long endTime, Integer limit) {
+        return Mono.defer(() -> {
+            KlineColumns columns = new KlineColumns(initialCapacity(limit));
+            return decode(region, code, kType, endTime, limit, columns).thenReturn(columns);
+        }).doOnError(error -> log.error("获取K线数据时出错", error));
+    }
+
+    /**
+     * 请求K线接口，将响应体逐个分片交给解码器，完成后检查响应的code
+     */
+    private Mono<Void> decode(String region, String code, int kType, Long endTime, Integer limit,
+                              KlineStreamDecoder.BarSink sink) {
+        return Mono.defer(() -> {
+            KlineStreamDecoder decoder = new KlineStreamDecoder(objectMapper.getFactory(), sink);
+            return requestBody(region, code, kType, endTime, limit)
+                    .doOnNext(buffer -> feed(decoder, buffer))
+                    .then(Mono.fromRunnable(() -> finish(decoder)));
+        });
+    }
+
+    /**
+     * K线接口的响应体，分片由调用方释放
+     */
+    private Flux<DataBuffer> requestBody(String region, String code, int kType, Long endTime, Integer limit) {
         return webClient.get()
                 .uri(uriBuilder -> {
                     uriBuilder.path("/crypto/kline")
@@ -51,14 +292,56 @@ public class KlineService {
                     return uriBuilder.build();
                 })
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<ApiResponse<List<KlineData>>>() {})
-                .map(response -> {
-                    if (response.getCode() != 0) {
-                        log.error("获取K线数据时出错: {}", response.getMsg());
-                        throw new RuntimeException("获取K线数据失败: " + response.getMsg());
-                    }
-                    return response.getData();
-                })
-                .doOnError(error -> log.error("获取K线数据时出错", error));
+                .bodyToFlux(DataBuffer.class)
+                // 被取消或出错时尚未处理的分片
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    /**
+     * 解码一个分片，解码后释放分片
+     */
+    private static void feed(KlineStreamDecoder decoder, DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                decoder.feed(iterator.next());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("解析K线数据失败", e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * 响应结束，检查响应是否完整以及code是否为0
+     */
+    private static void finish(KlineStreamDecoder decoder) {
+        try {
+            decoder.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException("解析K线数据失败", e);
+        }
+        if (decoder.getCode() != 0) {
+            log.error("获取K线数据时出错: {}", decoder.getMsg());
+            throw new RuntimeException("获取K线数据失败: " + decoder.getMsg());
+        }
+    }
+
+    private static List<KlineData> drain(List<KlineData> chunk) {
+        List<KlineData> bars = new ArrayList<>(chunk);
+        chunk.clear();
+        return bars;
+    }
+
+    private static KlineData bar(long t, double o, double h, double l, double c, int v, double tu) {
+        KlineData bar = new KlineData();
+        bar.setT(t);
+        bar.setO(o);
+        bar.setH(h);
+        bar.setL(l);
+        bar.setC(c);
+        bar.setV(v);
+        bar.setTu(tu);
+        return bar;
     }
 }
@@ -0,0 +1,149 @@
+package com.itick.client.service;
+
+import com.itick.client.dispatch.ConflatingBuffer;
+import com.itick.client.dispatch.Subscription;
+import com.itick.client.dispatch.SymbolFilter;
+import com.itick.client.model.websocket.DepthData;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import com.itick.client.websocket.DepthLevels;
+
+import java.util.function.Consumer;
+
+/**
+ * 行情数据源
+ * 实时行情（WebSocketClientService）和回放行情（ReplayMarketDataSource）都实现该接口，
+ * 订阅方只依赖该接口时，同一份代码可以在实时和回放两种模式下运行。
+ */
+public interface MarketDataSource {
+
+    /**
+     * 订阅报价数据
+     * @param subscriber 报价数据订阅者
+     * @return 订阅句柄，可用于取消订阅
+     */
+    default Subscription subscribeToQuotes(Consumer<QuoteData> subscriber) {
+        return subscribeToQuotes(null, subscriber);
+    }
+
+    /**
+     * 订阅指定产品的报价数据
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param subscriber 报价数据订阅者
+     * @return 订阅句柄，可用于取消订阅
+     */
+    Subscription subscribeToQuotes(SymbolFilter filter, Consumer<QuoteData> subscriber);
+
+    /**
+     * 订阅成交数据
+     * @param subscriber 成交数据订阅者
+     * @return 订阅句柄，可用于取消订阅
+     */
+    default Subscription subscribeToTicks(Consumer<TickData> subscriber) {
+        return subscribeToTicks(null, subscriber);
+    }
+
+    /**
+     * 订阅指定产品的成交数据
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param subscriber 成交数据订阅者
+     * @return 订阅句柄，可用于取消订阅
+     */
+    Subscription subscribeToTicks(SymbolFilter filter, Consumer<TickData> subscriber);
+
+    /**
+     * 订阅盘口数据
+     * @param subscriber 盘口数据订阅者
+     * @return 订阅句柄，可用于取消订阅
+     */
+    default Subscription subscribeToDepth(Consumer<DepthData> subscriber) {
+        return subscribeToDepth(null, subscriber);
+    }
+
+    /**
+     * 订阅指定产品的盘口数据
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param subscriber 盘口数据订阅者
+     * @return 订阅句柄，可用于取消订阅
+     */
+    Subscription subscribeToDepth(SymbolFilter filter, Consumer<DepthData> subscriber);
+
+    /**
+     * 订阅指定产品的盘口档位
+     * 与subscribeToDepth不同，档位以DepthLevels交给订阅者，实时行情下不构建DepthData和OrderItem：
+     * 订阅者在接收线程中同步调用，DepthLevels由解码器复用，只在回调期间有效。
+     * 默认实现把DepthData转换为DepthLevels，供回放等不经过解码器的数据源使用。
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param subscriber 盘口档位订阅者
+     * @return 订阅句柄，可用于取消订阅
+     */
+    default Subscription subscribeToDepthLevels(SymbolFilter filter, Consumer<DepthLevels> subscriber) {
+        return subscribeToDepth(filter, data -> subscriber.accept(DepthLevels.of(data)));
+    }
+
+    /**
+     * 订阅K线数据
+     * @param subscriber K线数据订阅者
+     * @return 订阅句柄，可用于取消订阅
+     */
+    default Subscription subscribeToKlines(Consumer<KlineWebSocketData> subscriber) {
+        return subscribeToKlines(null, subscriber);
+    }
+
+    /**
+     * 订阅指定产品的K线数据
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param subscriber K线数据订阅者
+     * @return 订阅句柄，可用于取消订阅
+     */
+    Subscription subscribeToKlines(SymbolFilter filter, Consumer<KlineWebSocketData> subscriber);
+
+    /**
+     * 以合并模式订阅报价数据
+     * 订阅者只收到每个产品的最新报价，处理不过来时中间的更新被合并掉
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param subscriber 报价数据订阅者，在独立的线程中调用
+     * @return 订阅句柄，可用于取消订阅
+     */
+    default Subscription subscribeToQuotesConflated(SymbolFilter filter, Consumer<QuoteData> subscriber) {
+        ConflatingBuffer<QuoteData> buffer = conflateQuotes(filter);
+        buffer.start("quote", subscriber);
+        return buffer;
+    }
+
+    /**
+     * 创建按产品合并的报价缓冲区，由调用方定期调用drain取出有变化的产品的最新报价
+     * @param filter 产品过滤条件，null表示所有产品
+     * @return 合并缓冲区，取消后不再接收数据
+     */
+    default ConflatingBuffer<QuoteData> conflateQuotes(SymbolFilter filter) {
+        ConflatingBuffer<QuoteData> buffer = new ConflatingBuffer<>(QuoteData::getS);
+        buffer.bind(subscribeToQuotes(filter, buffer::offer));
+        return buffer;
+    }
+
+    /**
+     * 以合并模式订阅盘口数据
+     * 订阅者只收到每个产品的最新盘口，处理不过来时中间的更新被合并掉
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param subscriber 盘口数据订阅者，在独立的线程中调用
+     * @return 订阅句柄，可用于取消订阅
+     */
+    default Subscription subscribeToDepthConflated(SymbolFilter filter, Consumer<DepthData> subscriber) {
+        ConflatingBuffer<DepthData> buffer = conflateDepth(filter);
+        buffer.start("depth", subscriber);
+        return buffer;
+    }
+
+    /**
+     * 创建按产品合并的盘口缓冲区，由调用方定期调用drain取出有变化的产品的最新盘口
+     * @param filter 产品过滤条件，null表示所有产品
+     * @return 合并缓冲区，取消后不再接收数据
+     */
+    default ConflatingBuffer<DepthData> conflateDepth(SymbolFilter filter) {
+        ConflatingBuffer<DepthData> buffer = new ConflatingBuffer<>(DepthData::getS);
+        buffer.bind(subscribeToDepth(filter, buffer::offer));
+        return buffer;
+    }
+}
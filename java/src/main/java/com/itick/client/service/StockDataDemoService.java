@@ -13,6 +13,8 @@ import org.springframework.stereotype.Service;
  * 产品数据演示服务
  * 展示如何订阅和处理实时产品数据
  * 这是一个演示用途的服务，可以根据需要修改或删除
+ *
+ * 每条数据都会调用处理方法，这里只输出DEBUG日志，避免在高数据量下被日志拖慢
  */
 @Slf4j
 @Service
@@ -61,8 +63,10 @@ public class StockDataDemoService {
      * @param quoteData 报价数据
      */
     private void processQuoteData(QuoteData quoteData) {
-        log.info("收到 {} 的报价数据: 最新价 = {}, 最高价 = {}, 最低价 = {}, 成交量 = {}",
-                quoteData.getS(), quoteData.getLd(), quoteData.getH(), quoteData.getL(), quoteData.getV());
+        if (log.isDebugEnabled()) {
+            log.debug("收到 {} 的报价数据: 最新价 = {}, 最高价 = {}, 最低价 = {}, 成交量 = {}",
+                    quoteData.getS(), quoteData.getLd(), quoteData.getH(), quoteData.getL(), quoteData.getV());
+        }
         
         // 在这里添加自定义处理逻辑
     }
@@ -73,8 +77,10 @@ public class StockDataDemoService {
      * @param tickData 成交数据
      */
     private void processTickData(TickData tickData) {
-        log.info("收到 {} 的成交数据: 最新价 = {}, 成交量 = {}",
-                tickData.getS(), tickData.getLd(), tickData.getV());
+        if (log.isDebugEnabled()) {
+            log.debug("收到 {} 的成交数据: 最新价 = {}, 成交量 = {}",
+                    tickData.getS(), tickData.getLd(), tickData.getV());
+        }
         
         // 在这里添加自定义处理逻辑
     }
@@ -85,10 +91,12 @@ public class StockDataDemoService {
      * @param depthData 盘口数据
      */
     private void processDepthData(DepthData depthData) {
-        log.info("收到 {} 的盘口数据: {} 个卖单, {} 个买单",
-                depthData.getS(), 
-                depthData.getA() != null ? depthData.getA().size() : 0,
-                depthData.getB() != null ? depthData.getB().size() : 0);
+        if (log.isDebugEnabled()) {
+            log.debug("收到 {} 的盘口数据: {} 个卖单, {} 个买单",
+                    depthData.getS(), 
+                    depthData.getA() != null ? depthData.getA().size() : 0,
+                    depthData.getB() != null ? depthData.getB().size() : 0);
+        }
         
         // 在这里添加自定义处理逻辑
     }
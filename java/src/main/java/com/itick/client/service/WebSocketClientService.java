@@ -1,34 +1,44 @@
 package com.itick.client.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.dispatch.MarketDataChannel;
+import com.itick.client.dispatch.MarketDataChannelFactory;
+import com.itick.client.dispatch.SubscriberRegistry;
+import com.itick.client.dispatch.Subscription;
+import com.itick.client.dispatch.SymbolFilter;
+import com.itick.client.metrics.IngestMetrics;
 import com.itick.client.model.websocket.*;
-import com.itick.client.model.websocket.WebSocketMessage;
+import com.itick.client.trace.PayloadTracer;
+import com.itick.client.websocket.ConnectionSettings;
+import com.itick.client.websocket.DepthLevels;
+import com.itick.client.websocket.MarketDataSink;
+import com.itick.client.websocket.ShardingPolicy;
+import com.itick.client.websocket.WebSocketConnection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.*;
-import org.springframework.web.socket.client.standard.StandardWebSocketClient;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import java.io.IOException;
-import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 
 /**
  * WebSocket客户端服务
  * 负责处理与iTick.org WebSocket API的连接、认证、订阅和数据接收
+ *
+ * 内部维护一个WebSocket连接池，产品按分片策略分配到各个连接，
+ * 每个连接独立心跳和重连，所有连接收到的数据合并后分发给订阅者。
  */
 @Slf4j
 @Service
-public class WebSocketClientService extends TextWebSocketHandler {
+public class WebSocketClientService implements MarketDataSource {
 
     @Value("${itick.api.websocket-url}")
     private String webSocketUrl;
@@ -36,16 +46,61 @@ public class WebSocketClientService extends TextWebSocketHandler {
     @Value("${itick.api.token}")
     private String apiToken;
 
-    private WebSocketSession session;
+    @Value("${itick.api.websocket-sharding:consistent-hash}")
+    private String sharding;
+
+    @Value("${itick.api.reconnect-initial-delay-ms:1000}")
+    private long reconnectInitialDelayMs;
+
+    @Value("${itick.api.reconnect-max-delay-ms:60000}")
+    private long reconnectMaxDelayMs;
+
+    @Value("${itick.api.subscribe-batch-size:100}")
+    private int subscribeBatchSize;
+
+    @Value("${itick.api.subscribe-batch-window-ms:50}")
+    private long subscribeBatchWindowMs;
+
+    @Value("${itick.api.websocket-permessage-deflate:false}")
+    private boolean perMessageDeflate;
+
+    @Value("${itick.api.websocket-max-message-kb:1024}")
+    private int maxMessageKb;
+
+    @Value("${itick.source.mode:live}")
+    private String sourceMode;
+
+    private final int poolSize;
+    private final IngestMetrics ingestMetrics;
+    private final PayloadTracer payloadTracer;
+    private final Executor connectExecutor;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor();
-    private ScheduledFuture<?> heartbeatTask;
-    
-    // 不同类型数据的订阅者列表
-    private final List<Consumer<QuoteData>> quoteSubscribers = new ArrayList<>();
-    private final List<Consumer<TickData>> tickSubscribers = new ArrayList<>();
-    private final List<Consumer<DepthData>> depthSubscribers = new ArrayList<>();
-    private final List<Consumer<KlineWebSocketData>> klineSubscribers = new ArrayList<>();
+    private final List<WebSocketConnection> connections = new ArrayList<>();
+    private ShardingPolicy shardingPolicy;
+
+    // 不同类型数据的分发通道
+    private final MarketDataChannel<QuoteData> quoteChannel;
+    private final MarketDataChannel<TickData> tickChannel;
+    private final MarketDataChannel<DepthData> depthChannel;
+    private final MarketDataChannel<KlineWebSocketData> klineChannel;
+    // 盘口档位订阅者，在接收线程中直接调用
+    private final SubscriberRegistry<DepthLevels> depthLevelSubscribers = new SubscriberRegistry<>();
+
+    public WebSocketClientService(MarketDataChannelFactory channelFactory, IngestMetrics ingestMetrics,
+                                  PayloadTracer payloadTracer,
+                                  @Value("${itick.api.websocket-pool-size:1}") int poolSize) {
+        this.poolSize = Math.max(poolSize, 1);
+        this.ingestMetrics = ingestMetrics;
+        this.payloadTracer = payloadTracer;
+        this.connectExecutor = channelFactory.connectExecutor();
+        // 多个连接的接收线程会同时发布数据
+        boolean multiProducer = this.poolSize > 1;
+        this.quoteChannel = channelFactory.create("quote", QuoteData::getS, multiProducer);
+        this.tickChannel = channelFactory.create("tick", TickData::getS, multiProducer);
+        this.depthChannel = channelFactory.create("depth", DepthData::getS, multiProducer);
+        this.klineChannel = channelFactory.create("kline", KlineWebSocketData::getS, multiProducer);
+    }
 
     /**
      * 初始化WebSocket连接
@@ -54,6 +109,30 @@ public class WebSocketClientService extends TextWebSocketHandler {
     @PostConstruct
     public void init() {
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        shardingPolicy = ShardingPolicy.of(sharding, poolSize);
+
+        ConnectionSettings settings = ConnectionSettings.builder()
+                .url(String.format("%s?token=%s", webSocketUrl, apiToken))
+                .authToken(apiToken)
+                .reconnectInitialDelayMs(reconnectInitialDelayMs)
+                .reconnectMaxDelayMs(reconnectMaxDelayMs)
+                .subscribeBatchSize(subscribeBatchSize)
+                .subscribeBatchWindowMs(subscribeBatchWindowMs)
+                .perMessageDeflate(perMessageDeflate)
+                .maxMessageBytes(maxMessageKb * 1024)
+                .connectExecutor(connectExecutor)
+                .build();
+        MarketDataSink sink = new ChannelSink();
+        for (int i = 0; i < poolSize; i++) {
+            connections.add(new WebSocketConnection("ws-" + i, settings, objectMapper, heartbeatExecutor, sink,
+                    ingestMetrics, payloadTracer));
+        }
+        log.info("WebSocket连接池大小: {}，分片策略: {}", poolSize, sharding);
+
+        if ("replay".equalsIgnoreCase(sourceMode)) {
+            log.info("当前为回放模式，不建立WebSocket连接");
+            return;
+        }
         connect();
     }
 
@@ -63,255 +142,189 @@ public class WebSocketClientService extends TextWebSocketHandler {
      */
     @PreDestroy
     public void cleanup() {
-        stopHeartbeat();
         disconnect();
+        heartbeatExecutor.shutdownNow();
+        quoteChannel.close();
+        tickChannel.close();
+        depthChannel.close();
+        depthLevelSubscribers.clear();
+        klineChannel.close();
     }
 
     /**
-     * 建立WebSocket连接
+     * 建立所有WebSocket连接
+     * 各连接并行握手，不阻塞调用方；使用虚拟线程分发模式时握手在虚拟线程中进行
      */
     public void connect() {
-        try {
-            StandardWebSocketClient client = new StandardWebSocketClient();
-            String webSocketUrlTmp = String.format("%s?token=%s",webSocketUrl,apiToken);
-            session = client.execute(this, null, URI.create(webSocketUrlTmp)).get();
-            log.info("WebSocket连接已建立");
-            Thread.sleep(1000);
-        } catch (Exception e) {
-            log.error("连接WebSocket服务器失败", e);
-        }
+        connections.forEach(WebSocketConnection::connect);
     }
 
     /**
-     * 断开WebSocket连接
+     * 断开所有WebSocket连接
      */
     public void disconnect() {
-        if (session != null && session.isOpen()) {
-            try {
-                session.close();
-                log.info("WebSocket连接已关闭");
-            } catch (IOException e) {
-                log.error("关闭WebSocket连接时出错", e);
-            }
-        }
-    }
-
-    /**
-     * 连接建立后的回调方法
-     */
-    @Override
-    public void afterConnectionEstablished(WebSocketSession session) throws InterruptedException {
-
+        connections.forEach(WebSocketConnection::disconnect);
     }
 
     /**
      * 订阅产品数据
+     * 产品按分片策略分组交给对应的连接，连接在短时间窗口内合并订阅请求，
+     * 记录订阅并在断线重连后自动重放。
+     * 每次订阅为产品和数据类型的组合增加一个引用，需要通过unsubscribe释放
      * 
      * @param symbols 产品代码，多个代码用逗号分隔
      * @param types 数据类型，可选值：quote(报价)、tick(成交)、depth(盘口)
+     * @return 服务端确认所有订阅后完成
      */
-    public void subscribe(String symbols, String types) {
-        if (session == null || !session.isOpen()) {
-            log.error("无法订阅，WebSocket连接未建立");
-            return;
-        }
-
-        WebSocketMessage subscribeMessage = WebSocketMessage.builder()
-                .ac("subscribe")
-                .params(symbols)
-                .types(types)
-                .build();
-        
-        sendMessage(subscribeMessage);
+    public CompletableFuture<Void> subscribe(String symbols, String types) {
+        List<String> typeList = splitCsv(types);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        groupByShard(symbols).forEach((shard, shardSymbols) ->
+                futures.add(connections.get(shard).subscribe(shardSymbols, typeList)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
     }
 
     /**
-     * 启动心跳机制
+     * 取消订阅产品数据
+     * 释放subscribe增加的引用，组合的所有引用都被释放后才向服务端取消订阅
+     *
+     * @param symbols 产品代码，多个代码用逗号分隔
+     * @param types 数据类型，多个类型用逗号分隔
+     * @return 取消订阅请求发送后完成
      */
-    private void startHeartbeat() {
-        stopHeartbeat();
-        heartbeatTask = heartbeatExecutor.scheduleAtFixedRate(this::sendHeartbeat, 15, 15, TimeUnit.SECONDS);
+    public CompletableFuture<Void> unsubscribe(String symbols, String types) {
+        List<String> typeList = splitCsv(types);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        groupByShard(symbols).forEach((shard, shardSymbols) ->
+                futures.add(connections.get(shard).unsubscribe(shardSymbols, typeList)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
     }
 
     /**
-     * 停止心跳机制
+     * 按分片策略将产品分组
      */
-    private void stopHeartbeat() {
-        if (heartbeatTask != null && !heartbeatTask.isCancelled()) {
-            heartbeatTask.cancel(true);
+    private Map<Integer, List<String>> groupByShard(String symbols) {
+        Map<Integer, List<String>> symbolsByShard = new LinkedHashMap<>();
+        for (String symbol : splitCsv(symbols)) {
+            symbolsByShard.computeIfAbsent(shardingPolicy.shardOf(symbol), shard -> new ArrayList<>()).add(symbol);
         }
+        return symbolsByShard;
     }
 
     /**
-     * 发送心跳消息
+     * 获取连接池中的所有连接，用于查看订阅台账和连接统计
      */
-    private void sendHeartbeat() {
-        if (session != null && session.isOpen()) {
-            long timestamp = System.currentTimeMillis();
-            WebSocketMessage pingMessage = WebSocketMessage.builder()
-                    .ac("ping")
-                    .params(String.valueOf(timestamp))
-                    .build();
-            
-            sendMessage(pingMessage);
-        }
+    public List<WebSocketConnection> getConnections() {
+        return Collections.unmodifiableList(connections);
     }
 
-    /**
-     * 发送WebSocket消息
-     */
-    private void sendMessage(WebSocketMessage message) {
-        try {
-            if (session != null && session.isOpen()) {
-                String jsonMessage = objectMapper.writeValueAsString(message);
-                session.sendMessage(new TextMessage(jsonMessage));
-                log.debug("已发送消息: {}", jsonMessage);
-            } else {
-                log.error("无法发送消息，WebSocket连接未建立");
+    private static List<String> splitCsv(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            String trimmed = item.trim();
+            if (!trimmed.isEmpty() && !items.contains(trimmed)) {
+                items.add(trimmed);
             }
-        } catch (IOException e) {
-            log.error("发送WebSocket消息时出错", e);
         }
+        return items;
     }
 
-    /**
-     * 处理接收到的WebSocket文本消息
-     */
-    @Override
-    public void handleTextMessage(WebSocketSession session, TextMessage message) {
-        try {
-            String payload = message.getPayload();
-            log.info("接收到消息: {}", payload);
-            
-            JsonNode rootNode = objectMapper.readTree(payload);
-            int code = rootNode.path("code").asInt();
-            
-            if (rootNode.has("resAc")) {
-                String resAc = rootNode.path("resAc").asText();
-                
-                if ("auth".equals(resAc)) {
-                    handleAuthResponse(code, rootNode);
-                } else if ("subscribe".equals(resAc)) {
-                    handleSubscribeResponse(code, rootNode);
-                } else if ("pong".equals(resAc)) {
-                    log.debug("收到pong响应");
-                }
-            } else if (rootNode.has("data")) {
-                JsonNode dataNode = rootNode.path("data");
-                
-                if (dataNode.has("type")) {
-                    String type = dataNode.path("type").asText();
-                    
-                    switch (type) {
-                        case "quote":
-                            QuoteData quoteData = objectMapper.treeToValue(dataNode, QuoteData.class);
-                            notifyQuoteSubscribers(quoteData);
-                            break;
-                        case "tick":
-                            TickData tickData = objectMapper.treeToValue(dataNode, TickData.class);
-                            notifyTickSubscribers(tickData);
-                            break;
-                        case "depth":
-                            DepthData depthData = objectMapper.treeToValue(dataNode, DepthData.class);
-                            notifyDepthSubscribers(depthData);
-                            break;
-                        default:
-                            if (dataNode.has("k")) {
-                                KlineWebSocketData klineData = objectMapper.treeToValue(dataNode, KlineWebSocketData.class);
-                                notifyKlineSubscribers(klineData);
-                            }
-                            break;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.error("处理WebSocket消息时出错", e);
-        }
-    }
+    // 订阅不同类型数据的方法
 
     /**
-     * 处理认证响应
+     * 订阅报价数据
+     * @param subscriber 报价数据订阅者
+     * @return 订阅句柄，可用于取消订阅
      */
-    private void handleAuthResponse(int code, JsonNode rootNode) {
-        if (code == 1) {
-            log.info("认证成功");
-            startHeartbeat();
-        } else {
-            log.error("认证失败: {}", rootNode.path("msg").asText());
-            disconnect();
-        }
+    @Override
+    public Subscription subscribeToQuotes(Consumer<QuoteData> subscriber) {
+        return quoteChannel.subscribe(subscriber, null);
     }
 
     /**
-     * 处理订阅响应
+     * 订阅指定产品的报价数据
+     * @param filter 产品过滤条件，例如SymbolFilter.of("BTCUSDT")、SymbolFilter.suffix("$ba")
+     * @param subscriber 报价数据订阅者
+     * @return 订阅句柄，可用于取消订阅
      */
-    private void handleSubscribeResponse(int code, JsonNode rootNode) {
-        if (code == 1) {
-            log.info("订阅成功");
-        } else {
-            log.error("订阅失败: {}", rootNode.path("msg").asText());
-        }
+    @Override
+    public Subscription subscribeToQuotes(SymbolFilter filter, Consumer<QuoteData> subscriber) {
+        return quoteChannel.subscribe(subscriber, filter);
     }
 
     /**
-     * 处理WebSocket传输错误
+     * 订阅成交数据
+     * @param subscriber 成交数据订阅者
+     * @return 订阅句柄，可用于取消订阅
      */
     @Override
-    public void handleTransportError(WebSocketSession session, Throwable exception) {
-        log.error("WebSocket传输错误", exception);
-        stopHeartbeat();
-        scheduleReconnect();
+    public Subscription subscribeToTicks(Consumer<TickData> subscriber) {
+        return tickChannel.subscribe(subscriber, null);
     }
 
     /**
-     * 连接关闭后的回调方法
+     * 订阅指定产品的成交数据
+     * @param filter 产品过滤条件，例如SymbolFilter.of("BTCUSDT")、SymbolFilter.suffix("$ba")
+     * @param subscriber 成交数据订阅者
+     * @return 订阅句柄，可用于取消订阅
      */
     @Override
-    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        log.info("WebSocket连接已关闭: {}", status);
-        stopHeartbeat();
-        scheduleReconnect();
+    public Subscription subscribeToTicks(SymbolFilter filter, Consumer<TickData> subscriber) {
+        return tickChannel.subscribe(subscriber, filter);
     }
 
     /**
-     * 安排重新连接
+     * 订阅盘口数据
+     * @param subscriber 盘口数据订阅者
+     * @return 订阅句柄，可用于取消订阅
      */
-    private void scheduleReconnect() {
-        CompletableFuture.delayedExecutor(5, TimeUnit.SECONDS).execute(this::connect);
+    @Override
+    public Subscription subscribeToDepth(Consumer<DepthData> subscriber) {
+        return depthChannel.subscribe(subscriber, null);
     }
 
-    // 订阅不同类型数据的方法
-
     /**
-     * 订阅报价数据
-     * @param subscriber 报价数据订阅者
+     * 订阅指定产品的盘口数据
+     * @param filter 产品过滤条件，例如SymbolFilter.of("BTCUSDT")、SymbolFilter.suffix("$ba")
+     * @param subscriber 盘口数据订阅者
+     * @return 订阅句柄，可用于取消订阅
      */
-    public void subscribeToQuotes(Consumer<QuoteData> subscriber) {
-        quoteSubscribers.add(subscriber);
+    @Override
+    public Subscription subscribeToDepth(SymbolFilter filter, Consumer<DepthData> subscriber) {
+        return depthChannel.subscribe(subscriber, filter);
     }
 
     /**
-     * 订阅成交数据
-     * @param subscriber 成交数据订阅者
+     * 订阅指定产品的盘口档位
+     * 订阅者在接收线程中同步调用，档位直接来自解码器的复用缓冲区
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param subscriber 盘口档位订阅者
+     * @return 订阅句柄，可用于取消订阅
      */
-    public void subscribeToTicks(Consumer<TickData> subscriber) {
-        tickSubscribers.add(subscriber);
+    @Override
+    public Subscription subscribeToDepthLevels(SymbolFilter filter, Consumer<DepthLevels> subscriber) {
+        return depthLevelSubscribers.register(subscriber, filter);
     }
 
     /**
-     * 订阅盘口数据
-     * @param subscriber 盘口数据订阅者
+     * 订阅K线数据
+     * @param subscriber K线数据订阅者
+     * @return 订阅句柄，可用于取消订阅
      */
-    public void subscribeToDepth(Consumer<DepthData> subscriber) {
-        depthSubscribers.add(subscriber);
+    @Override
+    public Subscription subscribeToKlines(Consumer<KlineWebSocketData> subscriber) {
+        return klineChannel.subscribe(subscriber, null);
     }
 
     /**
-     * 订阅K线数据
+     * 订阅指定产品的K线数据
+     * @param filter 产品过滤条件，例如SymbolFilter.of("BTCUSDT")、SymbolFilter.suffix("$ba")
      * @param subscriber K线数据订阅者
+     * @return 订阅句柄，可用于取消订阅
      */
-    public void subscribeToKlines(Consumer<KlineWebSocketData> subscriber) {
-        klineSubscribers.add(subscriber);
+    @Override
+    public Subscription subscribeToKlines(SymbolFilter filter, Consumer<KlineWebSocketData> subscriber) {
+        return klineChannel.subscribe(subscriber, filter);
     }
 
     // 通知不同类型数据的方法
@@ -320,27 +333,57 @@ public class WebSocketClientService extends TextWebSocketHandler {
      * 通知报价数据订阅者
      */
     private void notifyQuoteSubscribers(QuoteData data) {
-        quoteSubscribers.forEach(subscriber -> subscriber.accept(data));
+        quoteChannel.publish(data);
     }
 
     /**
      * 通知成交数据订阅者
      */
     private void notifyTickSubscribers(TickData data) {
-        tickSubscribers.forEach(subscriber -> subscriber.accept(data));
+        tickChannel.publish(data);
     }
 
     /**
      * 通知盘口数据订阅者
      */
     private void notifyDepthSubscribers(DepthData data) {
-        depthSubscribers.forEach(subscriber -> subscriber.accept(data));
+        depthChannel.publish(data);
     }
 
     /**
      * 通知K线数据订阅者
      */
     private void notifyKlineSubscribers(KlineWebSocketData data) {
-        klineSubscribers.forEach(subscriber -> subscriber.accept(data));
+        klineChannel.publish(data);
+    }
+
+    /**
+     * 所有连接共用的数据接收端，把各连接的数据合并到分发通道
+     */
+    private class ChannelSink implements MarketDataSink {
+
+        @Override
+        public void onQuote(QuoteData data) {
+            notifyQuoteSubscribers(data);
+        }
+
+        @Override
+        public void onTick(TickData data) {
+            notifyTickSubscribers(data);
+        }
+
+        @Override
+        public void onDepth(DepthLevels levels) {
+            depthLevelSubscribers.dispatch(levels, levels.getSymbol());
+            // 只在有DepthData订阅者时构建DepthData
+            if (depthChannel.hasSubscribers()) {
+                notifyDepthSubscribers(levels.toDepthData());
+            }
+        }
+
+        @Override
+        public void onKline(KlineWebSocketData data) {
+            notifyKlineSubscribers(data);
+        }
     }
 }
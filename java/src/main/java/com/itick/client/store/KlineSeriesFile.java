@@ -0,0 +1,289 @@
+package com.itick.client.store;
+
+import com.itick.client.model.KlineData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按列存储的K线序列
+ * 一个序列对应一个目录，时间、开盘价、最高价、最低价、收盘价、成交量和成交额各占一个文件，
+ * 每个文件是连续的小端序基本类型数组，整体映射到内存，容量不足时按两倍扩容并重新映射。
+ * series.meta记录K线数量和数据完整的截止时间，列数据写完后才更新数量，进程中途退出时多写的部分会被忽略。
+ *
+ * K线按时间严格递增追加，与最后一根时间相同的K线覆盖最后一根（未完成的K线）。
+ * 打开序列时每隔INDEX_INTERVAL根K线取一个时间组成稀疏索引，按时间查找时先在索引中二分，
+ * 再在对应的块内二分，时间复杂度为O(log n)。
+ *
+ * 非线程安全，由KlineStore加锁访问。
+ */
+final class KlineSeriesFile implements Closeable {
+
+    static final int INDEX_INTERVAL = 1024;
+
+    private static final int MAGIC = 0x4B4C4353;
+    private static final int VERSION = 1;
+    private static final int META_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int T = 0;
+    private static final int O = 1;
+    private static final int H = 2;
+    private static final int L = 3;
+    private static final int C = 4;
+    private static final int V = 5;
+    private static final int TU = 6;
+    private static final String[] COLUMNS = {"t", "o", "h", "l", "c", "v", "tu"};
+    private static final int[] WIDTHS = {8, 8, 8, 8, 8, 4, 8};
+
+    private final Path dir;
+    private final FileChannel metaChannel;
+    private final MappedByteBuffer meta;
+    private final FileChannel[] channels = new FileChannel[COLUMNS.length];
+    private final MappedByteBuffer[] columns = new MappedByteBuffer[COLUMNS.length];
+    private int capacity;
+    private int count;
+    private long coveredTo;
+    private long[] index;
+
+    private KlineSeriesFile(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        metaChannel = FileChannel.open(dir.resolve("series.meta"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = metaChannel.size() == 0;
+            meta = metaChannel.map(FileChannel.MapMode.READ_WRITE, 0, META_SIZE);
+            meta.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                meta.putInt(0, MAGIC);
+                meta.putInt(4, VERSION);
+                meta.putLong(8, 0);
+                meta.putLong(16, Long.MIN_VALUE);
+            } else if (meta.getInt(0) != MAGIC || meta.getInt(4) != VERSION) {
+                throw new IOException("无效的K线序列文件: " + dir);
+            }
+            count = (int) meta.getLong(8);
+            coveredTo = meta.getLong(16);
+            for (int i = 0; i < COLUMNS.length; i++) {
+                channels[i] = FileChannel.open(dir.resolve(COLUMNS[i] + ".col"), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            map(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, count)) << 1));
+            buildIndex();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 打开序列目录，不存在时创建
+     */
+    static KlineSeriesFile open(Path dir) throws IOException {
+        return new KlineSeriesFile(dir);
+    }
+
+    private void map(int newCapacity) throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            // 以读写方式映射超出文件长度的范围时文件会自动扩展
+            columns[i] = channels[i].map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * WIDTHS[i]);
+            columns[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        capacity = newCapacity;
+    }
+
+    private void buildIndex() {
+        index = new long[(count + INDEX_INTERVAL - 1) / INDEX_INTERVAL + 1];
+        for (int i = 0; i * INDEX_INTERVAL < count; i++) {
+            index[i] = timeAt(i * INDEX_INTERVAL);
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * 数据完整的截止时间，Long.MIN_VALUE表示没有数据
+     */
+    long coveredTo() {
+        return coveredTo;
+    }
+
+    long firstTime() {
+        return count == 0 ? Long.MIN_VALUE : timeAt(0);
+    }
+
+    long lastTime() {
+        return count == 0 ? Long.MIN_VALUE : timeAt(count - 1);
+    }
+
+    private long timeAt(int i) {
+        return columns[T].getLong(i << 3);
+    }
+
+    /**
+     * 追加K线
+     * 早于最后一根的K线被忽略，与最后一根时间相同的K线覆盖最后一根
+     *
+     * @param bars 按时间升序的K线
+     * @param coveredTo 数据完整的截止时间
+     */
+    void append(List<KlineData> bars, long coveredTo) throws IOException {
+        int n = count;
+        long last = lastTime();
+        for (KlineData bar : bars) {
+            if (bar.getT() < last) {
+                continue;
+            }
+            if (bar.getT() == last) {
+                write(n - 1, bar);
+                continue;
+            }
+            if (n == capacity) {
+                map(capacity << 1);
+            }
+            write(n, bar);
+            if (n % INDEX_INTERVAL == 0) {
+                int slot = n / INDEX_INTERVAL;
+                if (slot >= index.length) {
+                    index = Arrays.copyOf(index, index.length << 1);
+                }
+                index[slot] = bar.getT();
+            }
+            last = bar.getT();
+            n++;
+        }
+        // 先写列数据，再更新截止时间和数量
+        this.coveredTo = Math.max(this.coveredTo, coveredTo);
+        meta.putLong(16, this.coveredTo);
+        meta.putLong(8, n);
+        count = n;
+    }
+
+    private void write(int i, KlineData bar) {
+        columns[T].putLong(i << 3, bar.getT());
+        columns[O].putDouble(i << 3, bar.getO());
+        columns[H].putDouble(i << 3, bar.getH());
+        columns[L].putDouble(i << 3, bar.getL());
+        columns[C].putDouble(i << 3, bar.getC());
+        columns[V].putInt(i << 2, bar.getV());
+        columns[TU].putDouble(i << 3, bar.getTu());
+    }
+
+    private KlineData read(int i) {
+        KlineData bar = new KlineData();
+        bar.setT(columns[T].getLong(i << 3));
+        bar.setO(columns[O].getDouble(i << 3));
+        bar.setH(columns[H].getDouble(i << 3));
+        bar.setL(columns[L].getDouble(i << 3));
+        bar.setC(columns[C].getDouble(i << 3));
+        bar.setV(columns[V].getInt(i << 2));
+        bar.setTu(columns[TU].getDouble(i << 3));
+        return bar;
+    }
+
+    /**
+     * 时间不晚于time的K线数量，即第一根晚于time的K线的下标
+     */
+    int upperBound(long time) {
+        if (count == 0 || time < timeAt(0)) {
+            return 0;
+        }
+        // 在稀疏索引中找到最后一个不晚于time的块
+        int blocks = (count + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+        int lo = 0;
+        int hi = blocks - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (index[mid] <= time) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        // 在块内二分
+        int from = lo * INDEX_INTERVAL;
+        int to = Math.min(count, from + INDEX_INTERVAL);
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (timeAt(mid) <= time) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * 读取结束时间之前（包含）的最后limit根K线，按时间升序
+     */
+    List<KlineData> readLast(long endTime, int limit) {
+        int to = upperBound(endTime);
+        return readRange(Math.max(0, to - limit), to);
+    }
+
+    /**
+     * 读取时间在[fromTime, toTime]内的K线，按时间升序
+     */
+    List<KlineData> read(long fromTime, long toTime) {
+        return readRange(fromTime == Long.MIN_VALUE ? 0 : upperBound(fromTime - 1), upperBound(toTime));
+    }
+
+    private List<KlineData> readRange(int from, int to) {
+        List<KlineData> bars = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            bars.add(read(i));
+        }
+        return bars;
+    }
+
+    /**
+     * 清空序列
+     */
+    void clear() {
+        count = 0;
+        coveredTo = Long.MIN_VALUE;
+        meta.putLong(8, 0);
+        meta.putLong(16, Long.MIN_VALUE);
+    }
+
+    /**
+     * 将映射的内容刷到磁盘
+     */
+    void force() {
+        for (MappedByteBuffer column : columns) {
+            if (column != null) {
+                column.force();
+            }
+        }
+        if (meta != null) {
+            meta.force();
+        }
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : channels) {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+        metaChannel.close();
+    }
+}
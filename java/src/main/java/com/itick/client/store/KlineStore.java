@@ -0,0 +1,249 @@
+package com.itick.client.store;
+
+import com.itick.client.kline.KlineKey;
+import com.itick.client.model.KlineData;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地K线存储
+ * 每个(市场, 产品, 周期)序列按列保存在内存映射文件中，进程重启后不需要重新拉取已经保存的历史。
+ * 序列从最早保存的K线到数据完整的截止时间之间是连续的，只需要向接口拉取截止时间之后的部分。
+ *
+ * 查询和写入都是内存映射文件的读写，只有扩容时涉及系统调用；最近使用的序列保持打开，
+ * 超过max-open-series时关闭最久未使用的序列。
+ */
+@Slf4j
+@Component
+public class KlineStore {
+
+    /**
+     * 查询结果的类型
+     */
+    public enum Kind {
+        /**
+         * 存储中有完整的数据
+         */
+        HIT,
+        /**
+         * 需要先拉取最后一根K线之后的数据再查询
+         */
+        TAIL,
+        /**
+         * 存储无法满足查询（没有数据或需要更早的历史），直接请求接口
+         */
+        MISS
+    }
+
+    /**
+     * 查询结果
+     */
+    public static final class Lookup {
+        private final Kind kind;
+        private final List<KlineData> bars;
+        private final long lastTime;
+        private final boolean seed;
+
+        private Lookup(Kind kind, List<KlineData> bars, long lastTime, boolean seed) {
+            this.kind = kind;
+            this.bars = bars;
+            this.lastTime = lastTime;
+            this.seed = seed;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * HIT时的K线数据，按时间升序
+         */
+        public List<KlineData> getBars() {
+            return bars;
+        }
+
+        /**
+         * TAIL时存储中最后一根K线的时间，拉取的数据需要覆盖到这个时间才能与已有数据连续
+         */
+        public long getLastTime() {
+            return lastTime;
+        }
+
+        /**
+         * MISS时请求结果是否可以作为序列的初始数据写入存储
+         */
+        public boolean isSeed() {
+            return seed;
+        }
+    }
+
+    @Value("${itick.kline.store.enabled:false}")
+    private boolean enabled;
+
+    @Value("${itick.kline.store.dir:kline-store}")
+    private String dir;
+
+    @Value("${itick.kline.store.max-open-series:256}")
+    private int maxOpenSeries;
+
+    @Value("${itick.kline.store.tail-ttl-ms:1000}")
+    private long tailTtlMs;
+
+    @Value("${itick.kline.store.tail-page-size:1000}")
+    private int tailPageSize;
+
+    @Value("${itick.kline.store.max-tail-pages:10}")
+    private int maxTailPages;
+
+    private final LinkedHashMap<KlineKey, KlineSeriesFile> open = new LinkedHashMap<>(16, 0.75f, true);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 补拉最新数据时每页请求的K线数量
+     */
+    public int getTailPageSize() {
+        return tailPageSize;
+    }
+
+    /**
+     * 补拉最新数据时最多请求的页数，超过后放弃已有数据，以最新的数据重新开始序列
+     */
+    public int getMaxTailPages() {
+        return maxTailPages;
+    }
+
+    /**
+     * 查询K线
+     * 查询不包含结束时间（或结束时间晚于当前时间）时视为实时查询，截止时间距今不超过tail-ttl-ms时直接使用存储
+     *
+     * @param key 序列标识
+     * @param endTime 结束时间，null表示最新
+     * @param limit 返回记录数量
+     * @param now 当前时间
+     */
+    public synchronized Lookup lookup(KlineKey key, Long endTime, int limit, long now) {
+        boolean live = endTime == null || endTime >= now;
+        KlineSeriesFile series = series(key, false);
+        if (series == null || series.count() == 0) {
+            return new Lookup(Kind.MISS, null, 0, live);
+        }
+        long end = live ? now : endTime;
+        boolean tailCovered = end <= series.coveredTo() || (live && now - series.coveredTo() <= tailTtlMs);
+        if (!tailCovered) {
+            return new Lookup(Kind.TAIL, null, series.lastTime(), false);
+        }
+        List<KlineData> bars = series.readLast(end, limit);
+        if (bars.size() < limit) {
+            return new Lookup(Kind.MISS, null, 0, false);
+        }
+        return new Lookup(Kind.HIT, bars, 0, false);
+    }
+
+    /**
+     * 读取时间在[fromTime, toTime]内已经保存的K线，按时间升序
+     *
+     * @param key 序列标识
+     * @param fromTime 开始时间（包含）
+     * @param toTime 结束时间（包含）
+     */
+    public synchronized List<KlineData> read(KlineKey key, long fromTime, long toTime) {
+        KlineSeriesFile series = series(key, false);
+        return series == null ? List.of() : series.read(fromTime, toTime);
+    }
+
+    /**
+     * 追加K线
+     * 调用方需要保证数据与已有数据连续（最早一根不晚于已有的最后一根），早于已有最后一根的K线被忽略
+     *
+     * @param key 序列标识
+     * @param bars 按时间升序的K线
+     * @param coveredTo 数据完整的截止时间
+     */
+    public synchronized void append(KlineKey key, List<KlineData> bars, long coveredTo) {
+        try {
+            series(key, true).append(bars, coveredTo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入K线存储失败: " + key, e);
+        }
+    }
+
+    /**
+     * 清空序列，之后追加的数据作为新的开始
+     */
+    public synchronized void clear(KlineKey key) {
+        KlineSeriesFile series = series(key, false);
+        if (series != null) {
+            series.clear();
+        }
+    }
+
+    private KlineSeriesFile series(KlineKey key, boolean create) {
+        KlineSeriesFile series = open.get(key);
+        if (series != null) {
+            return series;
+        }
+        Path path = pathOf(key);
+        if (!create && !Files.exists(path.resolve("series.meta"))) {
+            return null;
+        }
+        try {
+            series = KlineSeriesFile.open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开K线存储失败: " + path, e);
+        }
+        open.put(key, series);
+        evict();
+        return series;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<KlineKey, KlineSeriesFile>> iterator = open.entrySet().iterator();
+        while (open.size() > maxOpenSeries && iterator.hasNext()) {
+            KlineSeriesFile series = iterator.next().getValue();
+            iterator.remove();
+            closeQuietly(series);
+        }
+    }
+
+    private Path pathOf(KlineKey key) {
+        return Path.of(dir, encode(key.region()), encode(key.code()), Integer.toString(key.kType()));
+    }
+
+    /**
+     * 将代码编码为安全的目录名，点号也被编码，避免"."、".."这样的目录名
+     */
+    private static String encode(String name) {
+        return URLEncoder.encode(String.valueOf(name), StandardCharsets.UTF_8).replace(".", "%2E");
+    }
+
+    private static void closeQuietly(KlineSeriesFile series) {
+        try {
+            series.force();
+            series.close();
+        } catch (IOException e) {
+            log.warn("关闭K线存储失败: {}", series.dir(), e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void cleanup() {
+        open.values().forEach(KlineStore::closeQuietly);
+        open.clear();
+    }
+}
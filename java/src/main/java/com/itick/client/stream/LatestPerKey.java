@@ -0,0 +1,97 @@
+package com.itick.client.stream;
+
+import com.itick.client.dispatch.ConflatingBuffer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 按键只保留最新值的溢出处理
+ * 上游数据写入ConflatingBuffer，每个键（通常是产品代码）只保留最新的一条；
+ * 下游请求时按请求量取出有变化的键的最新值。下游落后时每个键最多积压一条，
+ * 合并流中不同产品的数据不会互相覆盖。
+ *
+ * 上游的新数据和下游的请求都可能触发交付，通过wip计数保证同一时刻只有一个线程调用drain。
+ *
+ * @param <T> 数据类型
+ */
+final class LatestPerKey<T> {
+
+    private final ConflatingBuffer<T> buffer;
+    private final FluxSink<T> sink;
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean done;
+    private volatile Throwable error;
+
+    private LatestPerKey(Function<? super T, String> keyExtractor, FluxSink<T> sink) {
+        this.buffer = new ConflatingBuffer<>(keyExtractor);
+        this.sink = sink;
+    }
+
+    /**
+     * 在数据流上按键保留最新值
+     *
+     * @param source 不考虑下游请求量的数据流
+     * @param keyExtractor 从数据中提取键，键为null的数据被忽略
+     * @return 按下游请求量交付各键最新值的数据流
+     */
+    static <T> Flux<T> apply(Flux<T> source, Function<? super T, String> keyExtractor) {
+        return Flux.create(sink -> {
+            LatestPerKey<T> latest = new LatestPerKey<>(keyExtractor, sink);
+            Disposable upstream = source.subscribe(latest::onNext, latest::onError, latest::onComplete);
+            sink.onRequest(requested -> latest.drain());
+            sink.onDispose(() -> {
+                upstream.dispose();
+                latest.buffer.cancel();
+            });
+        }, FluxSink.OverflowStrategy.IGNORE);
+    }
+
+    private void onNext(T data) {
+        buffer.offer(data);
+        drain();
+    }
+
+    private void onError(Throwable throwable) {
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    private void onComplete() {
+        done = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (sink.isCancelled()) {
+                return;
+            }
+            long requested = sink.requestedFromDownstream();
+            if (requested > 0) {
+                buffer.drain(sink::next, (int) Math.min(requested, Integer.MAX_VALUE));
+            }
+            if (done) {
+                // 出错时立即结束；正常结束时先交付完剩余的最新值
+                Throwable failure = error;
+                if (failure != null) {
+                    sink.error(failure);
+                    return;
+                }
+                if (!buffer.hasPending()) {
+                    sink.complete();
+                    return;
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,183 @@
+package com.itick.client.stream;
+
+import com.itick.client.dispatch.Subscription;
+import com.itick.client.dispatch.SymbolFilter;
+import com.itick.client.model.websocket.DepthData;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import com.itick.client.service.MarketDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 响应式行情流
+ * 把MarketDataSource的回调订阅包装为Flux：订阅Flux时登记回调，取消或结束时取消回调订阅。
+ *
+ * 上游推送数据不受下游请求量的约束，超出请求量的数据按溢出策略处理（每个产品只保留最新、丢弃最旧、
+ * 有限缓冲或报错），接收线程不会被下游阻塞，堆内存也不会因慢消费者无限增长。
+ * 只保留最新时K线按产品和周期分别合并。
+ *
+ * 数据在分发线程中发出，下游处理耗时的操作时应使用publishOn切换线程，溢出策略在两个线程之间生效。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarketDataStreams {
+
+    private final MarketDataSource marketDataSource;
+
+    @Value("${itick.stream.overflow:latest}")
+    private String defaultOverflow;
+
+    @Value("${itick.stream.buffer-size:1024}")
+    private int defaultBufferSize;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * 配置的默认溢出策略
+     */
+    public OverflowPolicy getDefaultPolicy() {
+        return OverflowPolicy.of(defaultOverflow, defaultBufferSize);
+    }
+
+    /**
+     * 所有产品的报价流，使用默认溢出策略
+     */
+    public Flux<QuoteData> quotes() {
+        return quotes(null, getDefaultPolicy());
+    }
+
+    /**
+     * 指定产品的报价流，使用默认溢出策略
+     *
+     * @param symbols 产品代码
+     */
+    public Flux<QuoteData> quotes(String... symbols) {
+        return quotes(SymbolFilter.of(symbols), getDefaultPolicy());
+    }
+
+    /**
+     * 报价流
+     *
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param policy 溢出策略
+     */
+    public Flux<QuoteData> quotes(SymbolFilter filter, OverflowPolicy policy) {
+        return stream(filter, policy, QuoteData::getS, marketDataSource::subscribeToQuotes);
+    }
+
+    /**
+     * 所有产品的成交流，使用默认溢出策略
+     */
+    public Flux<TickData> ticks() {
+        return ticks(null, getDefaultPolicy());
+    }
+
+    /**
+     * 指定产品的成交流，使用默认溢出策略
+     *
+     * @param symbols 产品代码
+     */
+    public Flux<TickData> ticks(String... symbols) {
+        return ticks(SymbolFilter.of(symbols), getDefaultPolicy());
+    }
+
+    /**
+     * 成交流
+     *
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param policy 溢出策略
+     */
+    public Flux<TickData> ticks(SymbolFilter filter, OverflowPolicy policy) {
+        return stream(filter, policy, TickData::getS, marketDataSource::subscribeToTicks);
+    }
+
+    /**
+     * 所有产品的盘口流，使用默认溢出策略
+     */
+    public Flux<DepthData> depth() {
+        return depth(null, getDefaultPolicy());
+    }
+
+    /**
+     * 指定产品的盘口流，使用默认溢出策略
+     *
+     * @param symbols 产品代码
+     */
+    public Flux<DepthData> depth(String... symbols) {
+        return depth(SymbolFilter.of(symbols), getDefaultPolicy());
+    }
+
+    /**
+     * 盘口流
+     *
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param policy 溢出策略
+     */
+    public Flux<DepthData> depth(SymbolFilter filter, OverflowPolicy policy) {
+        return stream(filter, policy, DepthData::getS, marketDataSource::subscribeToDepth);
+    }
+
+    /**
+     * 所有产品的K线流，使用默认溢出策略
+     */
+    public Flux<KlineWebSocketData> klines() {
+        return klines(null, getDefaultPolicy());
+    }
+
+    /**
+     * 指定产品的K线流，使用默认溢出策略
+     *
+     * @param symbols 产品代码
+     */
+    public Flux<KlineWebSocketData> klines(String... symbols) {
+        return klines(SymbolFilter.of(symbols), getDefaultPolicy());
+    }
+
+    /**
+     * K线流
+     *
+     * @param filter 产品过滤条件，null表示所有产品
+     * @param policy 溢出策略
+     */
+    public Flux<KlineWebSocketData> klines(SymbolFilter filter, OverflowPolicy policy) {
+        return stream(filter, policy, MarketDataStreams::klineKey, marketDataSource::subscribeToKlines);
+    }
+
+    /**
+     * 因下游处理不过来而丢弃的数据条数（所有流合计，不含LATEST策略覆盖的数据）
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * K线按产品和周期合并
+     */
+    private static String klineKey(KlineWebSocketData kline) {
+        return kline.getS() + ":" + kline.getT();
+    }
+
+    /**
+     * 每次订阅Flux时登记一个回调订阅，Flux取消、出错或结束时取消回调订阅
+     */
+    private <T> Flux<T> stream(SymbolFilter filter, OverflowPolicy policy, Function<? super T, String> keyExtractor,
+                               BiFunction<SymbolFilter, Consumer<T>, Subscription> subscribe) {
+        Flux<T> source = Flux.create(sink -> {
+            Subscription subscription = subscribe.apply(filter, sink::next);
+            sink.onDispose(subscription::cancel);
+        }, FluxSink.OverflowStrategy.IGNORE);
+        return policy.apply(source, keyExtractor, data -> dropped.incrementAndGet());
+    }
+}
@@ -0,0 +1,108 @@
+package com.itick.client.stream;
+
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 下游处理不过来时的溢出策略
+ * 行情流的上游是接收线程，不能被下游阻塞，数据超出下游请求量时按策略处理：
+ *
+ * @param kind 策略类型
+ * @param capacity 缓冲区大小，LATEST时不使用
+ */
+public record OverflowPolicy(Kind kind, int capacity) {
+
+    public enum Kind {
+        /** 每个产品只保留最新的一条，下游请求时交付有变化的产品的最新数据 */
+        LATEST,
+        /** 缓冲最多capacity条，满时丢弃最旧的数据 */
+        DROP_OLDEST,
+        /** 缓冲最多capacity条，满时丢弃新的数据 */
+        BUFFER,
+        /** 缓冲最多capacity条，满时以溢出错误结束数据流 */
+        ERROR
+    }
+
+    public OverflowPolicy {
+        if (kind == null) {
+            throw new IllegalArgumentException("溢出策略不能为空");
+        }
+        if (kind != Kind.LATEST && capacity < 1) {
+            throw new IllegalArgumentException("缓冲区大小必须大于0: " + capacity);
+        }
+    }
+
+    public static OverflowPolicy latest() {
+        return new OverflowPolicy(Kind.LATEST, 1);
+    }
+
+    public static OverflowPolicy dropOldest(int capacity) {
+        return new OverflowPolicy(Kind.DROP_OLDEST, capacity);
+    }
+
+    public static OverflowPolicy buffer(int capacity) {
+        return new OverflowPolicy(Kind.BUFFER, capacity);
+    }
+
+    public static OverflowPolicy error(int capacity) {
+        return new OverflowPolicy(Kind.ERROR, capacity);
+    }
+
+    /**
+     * 根据配置解析溢出策略
+     *
+     * @param name 策略名称：latest、drop-oldest、buffer、error
+     * @param capacity 缓冲区大小
+     */
+    public static OverflowPolicy of(String name, int capacity) {
+        switch (name.trim().toLowerCase()) {
+            case "latest":
+                return latest();
+            case "drop-oldest":
+                return dropOldest(capacity);
+            case "buffer":
+                return buffer(capacity);
+            case "error":
+                return error(capacity);
+            default:
+                throw new IllegalArgumentException("未知的溢出策略: " + name);
+        }
+    }
+
+    /**
+     * 在数据流上应用溢出策略
+     * LATEST策略下整个数据流只保留最新的一条，数据流包含多个产品时应使用指定键的重载
+     *
+     * @param flux 不考虑下游请求量的数据流
+     * @param onDropped 数据被丢弃时调用
+     * @return 按策略处理溢出的数据流
+     */
+    public <T> Flux<T> apply(Flux<T> flux, Consumer<? super T> onDropped) {
+        return apply(flux, null, onDropped);
+    }
+
+    /**
+     * 在数据流上应用溢出策略
+     * LATEST策略下按键分别保留最新的一条，不同产品的数据不会互相覆盖
+     *
+     * @param flux 不考虑下游请求量的数据流
+     * @param keyExtractor 从数据中提取合并的键（通常是产品代码），为null时整个数据流只保留最新的一条
+     * @param onDropped 数据被丢弃时调用
+     * @return 按策略处理溢出的数据流
+     */
+    public <T> Flux<T> apply(Flux<T> flux, Function<? super T, String> keyExtractor, Consumer<? super T> onDropped) {
+        switch (kind) {
+            case LATEST:
+                return keyExtractor == null ? flux.onBackpressureLatest() : LatestPerKey.apply(flux, keyExtractor);
+            case DROP_OLDEST:
+                return flux.onBackpressureBuffer(capacity, onDropped, BufferOverflowStrategy.DROP_OLDEST);
+            case BUFFER:
+                return flux.onBackpressureBuffer(capacity, onDropped, BufferOverflowStrategy.DROP_LATEST);
+            default:
+                return flux.onBackpressureBuffer(capacity, onDropped, BufferOverflowStrategy.ERROR);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.itick.client.trace;
+
+import com.itick.client.dispatch.EventProcessor;
+import com.itick.client.dispatch.RingBuffer;
+import com.itick.client.dispatch.WaitStrategies;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 原始消息跟踪
+ * 按采样比例和产品白名单选出需要跟踪的WebSocket消息，写入环形缓冲区后由独立线程输出到
+ * com.itick.client.trace.payload日志，接收线程不做任何格式化和IO。
+ *
+ * 默认关闭，关闭时每条消息只有一次volatile读取；设置可以在运行时通过/api/trace修改。
+ * 缓冲区已满时丢弃新的消息并计数，不会阻塞接收线程。
+ */
+@Slf4j
+@Component
+public class PayloadTracer {
+
+    private static final Logger TRACE_LOG = LoggerFactory.getLogger("com.itick.client.trace.payload");
+
+    @Value("${itick.trace.enabled:false}")
+    private boolean initialEnabled;
+
+    @Value("${itick.trace.sample-rate:1.0}")
+    private double initialSampleRate;
+
+    @Value("${itick.trace.symbols:}")
+    private String initialSymbols;
+
+    @Value("${itick.trace.buffer-size:8192}")
+    private int bufferSize = 8192;
+
+    private final AtomicLong traced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile TraceSettings settings = TraceSettings.DISABLED;
+    // 在update中创建，接收线程调用submit时不加锁读取
+    private volatile RingBuffer<TraceEntry> ringBuffer;
+    private EventProcessor<TraceEntry> processor;
+
+    /**
+     * 一条待输出的消息
+     */
+    private record TraceEntry(long receivedAt, String connection, String symbol, String payload) {
+    }
+
+    @PostConstruct
+    public void init() {
+        update(new TraceSettings(initialEnabled, initialSampleRate, parseSymbols(initialSymbols)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            if (processor != null) {
+                processor.halt();
+            }
+        }
+    }
+
+    /**
+     * 解析以逗号分隔的产品代码
+     */
+    public static Set<String> parseSymbols(String symbols) {
+        if (symbols == null || symbols.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(symbols.split(","))
+                .map(String::trim)
+                .filter(symbol -> !symbol.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 替换跟踪设置，第一次启用时创建缓冲区和输出线程
+     *
+     * @param updated 新的设置
+     */
+    public synchronized void update(TraceSettings updated) {
+        if (updated.enabled() && ringBuffer == null) {
+            startWriter();
+        }
+        settings = updated;
+        log.info("消息跟踪设置: 启用 = {}, 采样比例 = {}, 产品 = {}",
+                updated.enabled(), updated.sampleRate(), updated.symbols().isEmpty() ? "全部" : updated.symbols());
+    }
+
+    private void startWriter() {
+        ringBuffer = new RingBuffer<>(bufferSize, WaitStrategies.of("sleeping"), true);
+        processor = new EventProcessor<>(ringBuffer, this::write);
+        Thread thread = new Thread(processor, "itick-payload-trace");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public TraceSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * 是否启用了跟踪，调用方可以据此跳过准备跟踪参数的工作
+     */
+    public boolean isEnabled() {
+        return settings.enabled();
+    }
+
+    /**
+     * 跟踪一条消息，满足采样条件时写入缓冲区
+     *
+     * @param connection 收到消息的连接名称
+     * @param symbol 消息所属的产品代码，响应消息为null
+     * @param payload 原始消息内容
+     */
+    public void trace(String connection, String symbol, String payload) {
+        if (sample(symbol)) {
+            submit(connection, symbol, payload);
+        }
+    }
+
+    /**
+     * 判断一条消息是否需要跟踪，消息内容需要转换才能得到时先调用此方法，再调用submit
+     *
+     * @param symbol 消息所属的产品代码，响应消息为null
+     * @return 是否需要跟踪
+     */
+    public boolean sample(String symbol) {
+        TraceSettings current = settings;
+        if (!current.enabled()) {
+            return false;
+        }
+        double random = current.sampleRate() >= 1 ? 0 : ThreadLocalRandom.current().nextDouble();
+        return current.accepts(symbol, random);
+    }
+
+    /**
+     * 将已选中的消息写入缓冲区，缓冲区已满时丢弃
+     *
+     * @param connection 收到消息的连接名称
+     * @param symbol 消息所属的产品代码，响应消息为null
+     * @param payload 原始消息内容
+     */
+    public void submit(String connection, String symbol, String payload) {
+        RingBuffer<TraceEntry> buffer = ringBuffer;
+        if (buffer == null) {
+            return;
+        }
+        if (!buffer.tryPublish(new TraceEntry(System.currentTimeMillis(), connection, symbol, payload))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void write(TraceEntry entry) {
+        traced.incrementAndGet();
+        TRACE_LOG.info("[{}] {} {}", entry.connection(), entry.receivedAt(), entry.payload());
+    }
+
+    /**
+     * 已输出的消息数
+     */
+    public long getTraced() {
+        return traced.get();
+    }
+
+    /**
+     * 因缓冲区已满丢弃的消息数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,39 @@
+package com.itick.client.trace;
+
+import java.util.Set;
+
+/**
+ * 消息跟踪设置
+ * 不可变，运行时修改设置时整体替换，接收线程每条消息只读取一次
+ *
+ * @param enabled 是否启用跟踪
+ * @param sampleRate 采样比例，0到1之间
+ * @param symbols 只跟踪这些产品的消息，为空时跟踪所有消息
+ */
+public record TraceSettings(boolean enabled, double sampleRate, Set<String> symbols) {
+
+    public static final TraceSettings DISABLED = new TraceSettings(false, 1.0, Set.of());
+
+    public TraceSettings {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("采样比例必须在0到1之间: " + sampleRate);
+        }
+        symbols = symbols == null ? Set.of() : Set.copyOf(symbols);
+    }
+
+    /**
+     * 判断一条消息是否需要跟踪
+     *
+     * @param symbol 消息所属的产品代码，响应消息为null
+     * @param random 0到1之间的随机数
+     */
+    boolean accepts(String symbol, double random) {
+        if (!enabled) {
+            return false;
+        }
+        if (!symbols.isEmpty() && (symbol == null || !symbols.contains(symbol))) {
+            return false;
+        }
+        return sampleRate >= 1 || random < sampleRate;
+    }
+}
@@ -0,0 +1,23 @@
+package com.itick.client.websocket;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.concurrent.Executor;
+
+/**
+ * WebSocket连接设置
+ */
+@Data
+@Builder
+public class ConnectionSettings {
+    private String url;                     // 带token的WebSocket地址
+    private String authToken;               // 连接建立后发送的认证令牌，为null时只依赖地址中的token
+    private long reconnectInitialDelayMs;   // 首次重连的基础等待时间
+    private long reconnectMaxDelayMs;       // 重连等待时间上限
+    private int subscribeBatchSize;         // 单个订阅请求的最大产品数
+    private long subscribeBatchWindowMs;    // 订阅请求的合并窗口
+    private boolean perMessageDeflate;      // 握手时是否请求permessage-deflate压缩
+    private int maxMessageBytes;            // 单条消息（解压后）的最大字节数，0表示使用容器默认值
+    private Executor connectExecutor;       // 握手和重连使用的线程池，为null时使用容器默认的线程
+}
@@ -0,0 +1,92 @@
+package com.itick.client.websocket;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接统计
+ * 记录重连次数以及断线期间没有收到数据的时长
+ */
+public class ConnectionStats {
+
+    private final AtomicLong reconnectCount = new AtomicLong();
+    private final AtomicLong gapCount = new AtomicLong();
+    private final AtomicLong totalGapMillis = new AtomicLong();
+    private final AtomicLong maxGapMillis = new AtomicLong();
+    private volatile long lastGapMillis;
+    private volatile long lastDataTime;
+    private volatile long gapStartTime;
+
+    /**
+     * 收到行情数据时调用，如果正处于数据中断中则结束本次中断
+     *
+     * @param now 当前时间（毫秒）
+     * @return 本次结束的中断时长，没有中断时返回-1
+     */
+    long onData(long now) {
+        lastDataTime = now;
+        long start = gapStartTime;
+        if (start == 0) {
+            return -1;
+        }
+        gapStartTime = 0;
+        long gap = now - start;
+        lastGapMillis = gap;
+        gapCount.incrementAndGet();
+        totalGapMillis.addAndGet(gap);
+        maxGapMillis.accumulateAndGet(gap, Math::max);
+        return gap;
+    }
+
+    /**
+     * 连接断开时调用，从最后一次收到数据的时间开始计算中断
+     *
+     * @param now 当前时间（毫秒）
+     */
+    void onDisconnected(long now) {
+        if (gapStartTime == 0) {
+            long last = lastDataTime;
+            gapStartTime = last > 0 ? last : now;
+        }
+    }
+
+    void onReconnect() {
+        reconnectCount.incrementAndGet();
+    }
+
+    public long getReconnectCount() {
+        return reconnectCount.get();
+    }
+
+    /**
+     * 已结束的数据中断次数
+     */
+    public long getGapCount() {
+        return gapCount.get();
+    }
+
+    public long getTotalGapMillis() {
+        return totalGapMillis.get();
+    }
+
+    public long getMaxGapMillis() {
+        return maxGapMillis.get();
+    }
+
+    public long getLastGapMillis() {
+        return lastGapMillis;
+    }
+
+    public long getLastDataTime() {
+        return lastDataTime;
+    }
+
+    /**
+     * 当前正在持续的数据中断时长，没有中断时返回0
+     *
+     * @param now 当前时间（毫秒）
+     */
+    public long getCurrentGapMillis(long now) {
+        long start = gapStartTime;
+        return start == 0 ? 0 : now - start;
+    }
+}
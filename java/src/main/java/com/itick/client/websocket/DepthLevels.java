@@ -0,0 +1,164 @@
+package com.itick.client.websocket;
+
+import com.itick.client.model.websocket.DepthData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一条盘口消息中的买卖档位
+ * 档位以基本类型数组保存，解码器每个连接复用同一个实例，解码盘口消息时不为每个档位创建对象。
+ * 实例只在回调期间有效，需要保留数据的订阅者应自行复制，或者调用toDepthData。
+ *
+ * 非线程安全。
+ */
+public final class DepthLevels {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Side bids = new Side();
+    private final Side asks = new Side();
+    private String symbol;
+
+    /**
+     * 把DepthData转换为档位，供不经过解码器的数据源（例如回放）使用
+     *
+     * @param depthData 盘口数据
+     * @return 新的档位实例
+     */
+    public static DepthLevels of(DepthData depthData) {
+        DepthLevels levels = new DepthLevels();
+        levels.symbol = depthData.getS();
+        levels.bids.addAll(depthData.getB());
+        levels.asks.addAll(depthData.getA());
+        return levels;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * 买盘档位
+     */
+    public Side bids() {
+        return bids;
+    }
+
+    /**
+     * 卖盘档位
+     */
+    public Side asks() {
+        return asks;
+    }
+
+    /**
+     * 构建DepthData，只在有DepthData订阅者时调用
+     */
+    public DepthData toDepthData() {
+        DepthData data = new DepthData();
+        data.setS(symbol);
+        data.setB(bids.toOrderItems());
+        data.setA(asks.toOrderItems());
+        data.setType("depth");
+        return data;
+    }
+
+    void reset() {
+        symbol = null;
+        bids.clear();
+        asks.clear();
+    }
+
+    void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * 一侧的档位，按消息中的顺序保存
+     */
+    public static final class Side {
+
+        private int[] po = new int[INITIAL_CAPACITY];
+        private double[] price = new double[INITIAL_CAPACITY];
+        private double[] volume = new double[INITIAL_CAPACITY];
+        private double[] orders = new double[INITIAL_CAPACITY];
+        private int size;
+        // 消息中是否包含该侧的数组，不包含时DepthData中对应字段为null
+        private boolean present;
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 第i个档位的档位号（OrderItem.po，从1开始）
+         */
+        public int po(int i) {
+            return po[i];
+        }
+
+        public double price(int i) {
+            return price[i];
+        }
+
+        public double volume(int i) {
+            return volume[i];
+        }
+
+        public double orders(int i) {
+            return orders[i];
+        }
+
+        void clear() {
+            size = 0;
+            present = false;
+        }
+
+        void markPresent() {
+            present = true;
+        }
+
+        void add(int level, double levelPrice, double levelVolume, double levelOrders) {
+            if (size == po.length) {
+                int capacity = size * 2;
+                po = Arrays.copyOf(po, capacity);
+                price = Arrays.copyOf(price, capacity);
+                volume = Arrays.copyOf(volume, capacity);
+                orders = Arrays.copyOf(orders, capacity);
+            }
+            po[size] = level;
+            price[size] = levelPrice;
+            volume[size] = levelVolume;
+            orders[size] = levelOrders;
+            size++;
+        }
+
+        private void addAll(List<DepthData.OrderItem> items) {
+            if (items == null) {
+                return;
+            }
+            present = true;
+            for (DepthData.OrderItem item : items) {
+                add(item.getPo(), item.getP(), item.getV(), item.getO());
+            }
+        }
+
+        private List<DepthData.OrderItem> toOrderItems() {
+            if (!present) {
+                return null;
+            }
+            List<DepthData.OrderItem> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                DepthData.OrderItem item = new DepthData.OrderItem();
+                item.setPo(po[i]);
+                item.setP(price[i]);
+                item.setV(volume[i]);
+                item.setO(orders[i]);
+                items.add(item);
+            }
+            return items;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.itick.client.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.itick.client.model.KlineData;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * WebSocket行情消息解码器
+ * 基于Jackson的JsonParser逐个读取token，一次遍历即可确定消息路由（resAc / data.type）并填充对应的数据模型，
+ * 不再构建中间的JsonNode树。
+ * 二进制消息直接从UTF-8字节解析，不会先转换为String。
+ * 盘口档位写入复用的DepthLevels，是否构建DepthData由接收端按需决定。
+ *
+ * 解码器内部持有可复用的临时状态，非线程安全，每个连接应使用独立的实例。
+ */
+public class MarketDataDecoder {
+
+    /**
+     * 解码结果的回调接口
+     */
+    public interface Listener extends MarketDataSink {
+
+        /**
+         * 认证响应
+         */
+        void onAuth(int code, String msg);
+
+        /**
+         * 订阅响应
+         */
+        void onSubscribe(int code, String msg);
+
+        /**
+         * 心跳响应
+         */
+        void onPong(int code, String msg);
+    }
+
+    private final JsonFactory jsonFactory;
+    private final SymbolInterner symbols = new SymbolInterner();
+
+    // 顶层字段
+    private int code;
+    private String msg;
+    private String resAc;
+    private boolean hasData;
+
+    // data对象字段，字段名在各数据类型之间共用
+    private String s;
+    private String type;
+    private double ld;
+    private double o;
+    private double h;
+    private double l;
+    private long t;
+    private long v;
+    private double tu;
+    private long ts;
+    private final DepthLevels levels = new DepthLevels();
+    private KlineData k;
+
+    public MarketDataDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * 解码一条文本消息
+     *
+     * @param payload 消息内容
+     * @param listener 解码结果回调
+     * @throws IOException 如果JSON无效
+     */
+    public void decode(String payload, Listener listener) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            decode(parser, listener);
+        }
+    }
+
+    /**
+     * 解码一条UTF-8编码的消息
+     *
+     * @param data 消息内容
+     * @param offset 起始位置
+     * @param length 长度
+     * @param listener 解码结果回调
+     * @throws IOException 如果JSON无效
+     */
+    public void decode(byte[] data, int offset, int length, Listener listener) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(data, offset, length)) {
+            decode(parser, listener);
+        }
+    }
+
+    /**
+     * 解码一条UTF-8编码的消息，堆内缓冲区直接解析底层数组，堆外缓冲区通过流读取
+     *
+     * @param buffer 消息内容，读取位置不会改变
+     * @param listener 解码结果回调
+     * @throws IOException 如果JSON无效
+     */
+    public void decode(ByteBuffer buffer, Listener listener) throws IOException {
+        if (buffer.hasArray()) {
+            decode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), listener);
+            return;
+        }
+        try (JsonParser parser = jsonFactory.createParser(new ByteBufferBackedInputStream(buffer.duplicate()))) {
+            decode(parser, listener);
+        }
+    }
+
+    /**
+     * 从解析器当前位置解码一条消息
+     */
+    void decode(JsonParser parser, Listener listener) throws IOException {
+        reset();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return;
+        }
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "code":
+                    code = parser.getValueAsInt();
+                    break;
+                case "msg":
+                    msg = parser.getValueAsString();
+                    break;
+                case "resAc":
+                    resAc = parser.getValueAsString();
+                    break;
+                case "data":
+                    if (token == JsonToken.START_OBJECT) {
+                        hasData = true;
+                        readData(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+
+        dispatch(listener);
+    }
+
+    /**
+     * 根据已读取的字段将消息分发给回调
+     */
+    private void dispatch(Listener listener) {
+        if (resAc != null) {
+            switch (resAc) {
+                case "auth":
+                    listener.onAuth(code, msg);
+                    break;
+                case "subscribe":
+                    listener.onSubscribe(code, msg);
+                    break;
+                case "pong":
+                    listener.onPong(code, msg);
+                    break;
+                default:
+                    break;
+            }
+            return;
+        }
+
+        if (!hasData || type == null) {
+            return;
+        }
+
+        switch (type) {
+            case "quote":
+                listener.onQuote(toQuote());
+                break;
+            case "tick":
+                listener.onTick(toTick());
+                break;
+            case "depth":
+                levels.setSymbol(s);
+                listener.onDepth(levels);
+                break;
+            default:
+                if (k != null) {
+                    listener.onKline(toKline());
+                }
+                break;
+        }
+    }
+
+    /**
+     * 读取data对象，parser位于START_OBJECT
+     */
+    private void readData(JsonParser parser) throws IOException {
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "s":
+                    s = token == JsonToken.VALUE_STRING
+                            ? symbols.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())
+                            : parser.getValueAsString();
+                    break;
+                case "type":
+                    type = parser.getValueAsString();
+                    break;
+                case "ld":
+                    ld = parser.getValueAsDouble();
+                    break;
+                case "o":
+                    o = parser.getValueAsDouble();
+                    break;
+                case "h":
+                    h = parser.getValueAsDouble();
+                    break;
+                case "l":
+                    l = parser.getValueAsDouble();
+                    break;
+                case "t":
+                    t = parser.getValueAsLong();
+                    break;
+                case "v":
+                    v = parser.getValueAsLong();
+                    break;
+                case "tu":
+                    tu = parser.getValueAsDouble();
+                    break;
+                case "ts":
+                    ts = parser.getValueAsLong();
+                    break;
+                case "a":
+                    readLevels(parser, token, levels.asks());
+                    break;
+                case "b":
+                    readLevels(parser, token, levels.bids());
+                    break;
+                case "k":
+                    k = readKline(parser, token);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 读取盘口档位数组，档位直接写入复用的DepthLevels，不创建OrderItem
+     */
+    private void readLevels(JsonParser parser, JsonToken token, DepthLevels.Side side) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+
+        side.clear();
+        side.markPresent();
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            int po = 0;
+            double price = 0;
+            double volume = 0;
+            double orders = 0;
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                parser.nextToken();
+                switch (field) {
+                    case "po":
+                        po = parser.getValueAsInt();
+                        break;
+                    case "p":
+                        price = parser.getValueAsDouble();
+                        break;
+                    case "v":
+                        volume = parser.getValueAsDouble();
+                        break;
+                    case "o":
+                        orders = parser.getValueAsDouble();
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+            side.add(po, price, volume, orders);
+        }
+    }
+
+    /**
+     * 读取K线对象
+     */
+    private KlineData readKline(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        KlineData kline = new KlineData();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            switch (field) {
+                case "tu":
+                    kline.setTu(parser.getValueAsDouble());
+                    break;
+                case "c":
+                    kline.setC(parser.getValueAsDouble());
+                    break;
+                case "t":
+                    kline.setT(parser.getValueAsLong());
+                    break;
+                case "v":
+                    kline.setV(parser.getValueAsInt());
+                    break;
+                case "h":
+                    kline.setH(parser.getValueAsDouble());
+                    break;
+                case "l":
+                    kline.setL(parser.getValueAsDouble());
+                    break;
+                case "o":
+                    kline.setO(parser.getValueAsDouble());
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return kline;
+    }
+
+    private QuoteData toQuote() {
+        QuoteData data = new QuoteData();
+        data.setS(s);
+        data.setLd(ld);
+        data.setO(o);
+        data.setH(h);
+        data.setL(l);
+        data.setT(t);
+        data.setV(v);
+        data.setTu(tu);
+        data.setTs(ts);
+        data.setType(type);
+        return data;
+    }
+
+    private TickData toTick() {
+        TickData data = new TickData();
+        data.setS(s);
+        data.setLd(ld);
+        data.setV(v);
+        data.setT(t);
+        data.setType(type);
+        return data;
+    }
+
+    private KlineWebSocketData toKline() {
+        KlineWebSocketData data = new KlineWebSocketData();
+        data.setS(s);
+        data.setT((int) t);
+        data.setK(k);
+        return data;
+    }
+
+    private void reset() {
+        code = 0;
+        msg = null;
+        resAc = null;
+        hasData = false;
+        s = null;
+        type = null;
+        ld = 0;
+        o = 0;
+        h = 0;
+        l = 0;
+        t = 0;
+        v = 0;
+        tu = 0;
+        ts = 0;
+        levels.reset();
+        k = null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.itick.client.websocket;
+
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+
+/**
+ * 行情数据接收端
+ * 各连接解码出的行情数据统一交给它，合并为一路数据流
+ */
+public interface MarketDataSink {
+
+    void onQuote(QuoteData data);
+
+    void onTick(TickData data);
+
+    /**
+     * 盘口数据
+     *
+     * @param levels 解码器复用的档位，只在回调期间有效
+     */
+    void onDepth(DepthLevels levels);
+
+    void onKline(KlineWebSocketData data);
+}
@@ -0,0 +1,146 @@
+package com.itick.client.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 二进制消息解压器
+ * 识别gzip和zlib格式的压缩消息，解压到可复用的输出缓冲区中，解压过程不产生对象分配。
+ * gzip尾部的CRC和长度不做校验，传输层已经保证了数据完整。
+ *
+ * 非线程安全，每个连接应使用独立的实例。
+ */
+class PayloadInflater {
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int GZIP_HEADER_SIZE = 10;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final int maxSize;
+    private Inflater gzipInflater;
+    private Inflater zlibInflater;
+    private byte[] output = new byte[16 * 1024];
+
+    /**
+     * @param maxSize 解压后的最大字节数，超过时视为无效消息
+     */
+    PayloadInflater(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 是否是可识别的压缩格式，JSON文本总是以空白或'{'开头，不会与压缩格式的头部混淆
+     */
+    static boolean isCompressed(ByteBuffer payload) {
+        if (payload.remaining() < 2) {
+            return false;
+        }
+        int position = payload.position();
+        int b0 = payload.get(position) & 0xff;
+        int b1 = payload.get(position + 1) & 0xff;
+        return isGzip(b0, b1) || isZlib(b0, b1);
+    }
+
+    private static boolean isGzip(int b0, int b1) {
+        return b0 == GZIP_MAGIC_1 && b1 == GZIP_MAGIC_2;
+    }
+
+    private static boolean isZlib(int b0, int b1) {
+        return (b0 & 0x0f) == 8 && ((b0 << 8) | b1) % 31 == 0;
+    }
+
+    /**
+     * 解压消息，结果位于getOutput()的[0, 返回值)范围内，下一次解压前有效
+     *
+     * @param payload 压缩的消息，读取位置不会改变
+     * @return 解压后的字节数
+     * @throws DataFormatException 如果压缩数据无效或解压后超过上限
+     */
+    int inflate(ByteBuffer payload) throws DataFormatException {
+        ByteBuffer input = payload.duplicate();
+        int b0 = input.get(input.position()) & 0xff;
+        int b1 = input.get(input.position() + 1) & 0xff;
+
+        Inflater inflater;
+        if (isGzip(b0, b1)) {
+            skipGzipHeader(input);
+            if (gzipInflater == null) {
+                gzipInflater = new Inflater(true);
+            }
+            inflater = gzipInflater;
+        } else {
+            if (zlibInflater == null) {
+                zlibInflater = new Inflater();
+            }
+            inflater = zlibInflater;
+        }
+
+        inflater.reset();
+        inflater.setInput(input);
+        int length = 0;
+        while (!inflater.finished()) {
+            if (length == output.length) {
+                grow();
+            }
+            int count = inflater.inflate(output, length, output.length - length);
+            if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("压缩数据不完整");
+            }
+            length += count;
+        }
+        return length;
+    }
+
+    byte[] getOutput() {
+        return output;
+    }
+
+    private void grow() throws DataFormatException {
+        if (output.length >= maxSize) {
+            throw new DataFormatException("解压后的消息超过上限: " + maxSize);
+        }
+        byte[] larger = new byte[(int) Math.min((long) output.length * 2, maxSize)];
+        System.arraycopy(output, 0, larger, 0, output.length);
+        output = larger;
+    }
+
+    /**
+     * 跳过gzip头部，input位于头部之后的压缩数据
+     */
+    private static void skipGzipHeader(ByteBuffer input) throws DataFormatException {
+        if (input.remaining() < GZIP_HEADER_SIZE) {
+            throw new DataFormatException("gzip头部不完整");
+        }
+        int start = input.position();
+        int flags = input.get(start + 3) & 0xff;
+        input.position(start + GZIP_HEADER_SIZE);
+        try {
+            if ((flags & FEXTRA) != 0) {
+                int extraLength = (input.get() & 0xff) | ((input.get() & 0xff) << 8);
+                input.position(input.position() + extraLength);
+            }
+            if ((flags & FNAME) != 0) {
+                skipZeroTerminated(input);
+            }
+            if ((flags & FCOMMENT) != 0) {
+                skipZeroTerminated(input);
+            }
+            if ((flags & FHCRC) != 0) {
+                input.position(input.position() + 2);
+            }
+        } catch (RuntimeException e) {
+            throw new DataFormatException("gzip头部无效");
+        }
+    }
+
+    private static void skipZeroTerminated(ByteBuffer input) {
+        while (input.get() != 0) {
+            // 跳过以0结尾的字符串
+        }
+    }
+}
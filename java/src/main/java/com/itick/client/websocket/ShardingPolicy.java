@@ -0,0 +1,79 @@
+package com.itick.client.websocket;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 产品分片策略
+ * 决定每个产品的订阅和数据走连接池中的哪一个连接，同一个产品总是落在同一个连接上
+ */
+public interface ShardingPolicy {
+
+    /**
+     * 计算产品所属的连接序号
+     *
+     * @param symbol 产品代码
+     * @return 连接序号，范围[0, 连接数)
+     */
+    int shardOf(String symbol);
+
+    /**
+     * 根据名称创建分片策略
+     *
+     * @param name 策略名称：consistent-hash(一致性哈希)、modulo(哈希取模)
+     * @param shards 连接数
+     * @return 分片策略
+     */
+    static ShardingPolicy of(String name, int shards) {
+        switch (name.trim().toLowerCase()) {
+            case "consistent-hash":
+                return new ConsistentHash(shards);
+            case "modulo":
+                return symbol -> Math.floorMod(hash(symbol), shards);
+            default:
+                throw new IllegalArgumentException("未知的分片策略: " + name);
+        }
+    }
+
+    /**
+     * 产品代码的哈希值（FNV-1a加murmur3末尾混合），比String.hashCode分布更均匀
+     */
+    static int hash(String value) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * 一致性哈希
+     * 每个连接在哈希环上放置若干虚拟节点，调整连接数时只有少量产品需要迁移
+     */
+    class ConsistentHash implements ShardingPolicy {
+
+        private static final int VIRTUAL_NODES = 128;
+
+        private final TreeMap<Integer, Integer> ring = new TreeMap<>();
+
+        ConsistentHash(int shards) {
+            for (int shard = 0; shard < shards; shard++) {
+                for (int node = 0; node < VIRTUAL_NODES; node++) {
+                    ring.put(hash("shard-" + shard + "#" + node), shard);
+                }
+            }
+        }
+
+        @Override
+        public int shardOf(String symbol) {
+            Map.Entry<Integer, Integer> entry = ring.ceilingEntry(hash(symbol));
+            return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+        }
+    }
+}
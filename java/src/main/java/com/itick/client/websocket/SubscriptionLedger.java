@@ -0,0 +1,305 @@
+package com.itick.client.websocket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 订阅台账
+ * 记录一个连接上每个产品/数据类型组合的订阅状态，用于合并订阅请求以及断线重连后重放订阅。
+ *
+ * 服务端的订阅响应不携带请求标识，按发送顺序与已发送的订阅请求一一对应。
+ *
+ * 每个组合记录引用计数：每次登记订阅加一，每次登记取消减一，减到零时才真正取消订阅，
+ * 应用内多处订阅同一产品时，一处取消不会影响其他调用方。
+ */
+public class SubscriptionLedger {
+
+    /**
+     * 订阅状态
+     */
+    public enum State {
+        /** 尚未发送（新增或需要重放） */
+        UNSENT,
+        /** 已发送，等待服务端确认 */
+        PENDING,
+        /** 服务端已确认 */
+        ACKED,
+        /** 服务端拒绝，不再重放 */
+        FAILED
+    }
+
+    /**
+     * 产品和数据类型组合
+     */
+    public record Key(String symbol, String type) {
+    }
+
+    /**
+     * 一次订阅或取消订阅请求
+     * 包含的所有产品使用相同的数据类型
+     */
+    public record Frame(String symbols, String types, List<Key> keys) {
+    }
+
+    /**
+     * 一次订阅调用，所有组合都被确认后完成
+     */
+    private static final class Intent {
+        private final Set<Key> remaining;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Intent(Set<Key> remaining) {
+            this.remaining = remaining;
+        }
+    }
+
+    private final Map<Key, State> entries = new LinkedHashMap<>();
+    private final Map<Key, Integer> references = new HashMap<>();
+    private final Map<Key, List<Intent>> waiters = new LinkedHashMap<>();
+    private final Set<Key> unsubscribes = new LinkedHashSet<>();
+    private final List<CompletableFuture<Void>> unsubscribeFutures = new ArrayList<>();
+    private final Deque<Frame> inFlight = new ArrayDeque<>();
+
+    /**
+     * 登记订阅，已经登记过的组合保持原状态，引用计数加一
+     * 同一次调用中重复的产品或数据类型只计一次
+     *
+     * @param symbols 产品代码
+     * @param types 数据类型
+     * @return 所有组合都被服务端确认后完成，任一组合被拒绝时以异常结束
+     */
+    public synchronized CompletableFuture<Void> add(Collection<String> symbols, Collection<String> types) {
+        Set<Key> remaining = new HashSet<>();
+        for (String symbol : new LinkedHashSet<>(symbols)) {
+            for (String type : new LinkedHashSet<>(types)) {
+                Key key = new Key(symbol, type);
+                references.merge(key, 1, Integer::sum);
+                unsubscribes.remove(key);
+                State state = entries.get(key);
+                if (state == null || state == State.FAILED) {
+                    entries.put(key, State.UNSENT);
+                    state = State.UNSENT;
+                }
+                if (state != State.ACKED) {
+                    remaining.add(key);
+                }
+            }
+        }
+
+        Intent intent = new Intent(remaining);
+        if (remaining.isEmpty()) {
+            intent.future.complete(null);
+        } else {
+            remaining.forEach(key -> waiters.computeIfAbsent(key, k -> new ArrayList<>()).add(intent));
+        }
+        return intent.future;
+    }
+
+    /**
+     * 登记取消订阅，引用计数减一
+     * 计数减到零时尚未发送的订阅直接撤销，已发送的订阅在下次发送时生成取消订阅请求；
+     * 仍有其他引用的组合保持订阅
+     *
+     * @param symbols 产品代码
+     * @param types 数据类型
+     * @return 取消订阅请求发送后完成
+     */
+    public synchronized CompletableFuture<Void> remove(Collection<String> symbols, Collection<String> types) {
+        boolean needsFrame = false;
+        for (String symbol : new LinkedHashSet<>(symbols)) {
+            for (String type : new LinkedHashSet<>(types)) {
+                Key key = new Key(symbol, type);
+                Integer count = references.get(key);
+                if (count != null && count > 1) {
+                    references.put(key, count - 1);
+                    continue;
+                }
+                references.remove(key);
+                State state = entries.remove(key);
+                if (state == State.PENDING || state == State.ACKED) {
+                    unsubscribes.add(key);
+                    needsFrame = true;
+                }
+                List<Intent> intents = waiters.remove(key);
+                if (intents != null) {
+                    intents.forEach(intent -> intent.future.completeExceptionally(
+                            new CancellationException("订阅已被取消: " + key.symbol() + " " + key.type())));
+                }
+            }
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (needsFrame) {
+            unsubscribeFutures.add(future);
+        } else {
+            future.complete(null);
+        }
+        return future;
+    }
+
+    /**
+     * 是否有等待发送的订阅或取消订阅
+     */
+    public synchronized boolean hasUnsent() {
+        return !unsubscribes.isEmpty() || entries.containsValue(State.UNSENT);
+    }
+
+    /**
+     * 取出所有未发送的订阅并合并为尽量少的订阅请求，这些组合转为等待确认状态
+     * 订阅相同数据类型的产品合并到同一个请求中，每个请求最多包含maxSymbolsPerFrame个产品
+     *
+     * @param maxSymbolsPerFrame 单个请求的最大产品数
+     * @return 需要发送的订阅请求
+     */
+    public synchronized List<Frame> takeUnsent(int maxSymbolsPerFrame) {
+        List<Key> keys = new ArrayList<>();
+        entries.forEach((key, state) -> {
+            if (state == State.UNSENT) {
+                keys.add(key);
+            }
+        });
+
+        List<Frame> frames = toFrames(keys, maxSymbolsPerFrame);
+        for (Frame frame : frames) {
+            frame.keys().forEach(key -> entries.put(key, State.PENDING));
+            inFlight.addLast(frame);
+        }
+        return frames;
+    }
+
+    /**
+     * 取出所有待发送的取消订阅并合并为尽量少的请求
+     * 取消订阅不等待服务端确认，取出即视为已发送
+     *
+     * @param maxSymbolsPerFrame 单个请求的最大产品数
+     * @return 需要发送的取消订阅请求
+     */
+    public synchronized List<Frame> takeUnsubscribes(int maxSymbolsPerFrame) {
+        List<Frame> frames = toFrames(new ArrayList<>(unsubscribes), maxSymbolsPerFrame);
+        unsubscribes.clear();
+        completeUnsubscribeFutures();
+        return frames;
+    }
+
+    /**
+     * 将组合按产品分组，订阅相同数据类型组合的产品合并为一个请求
+     */
+    private static List<Frame> toFrames(List<Key> keys, int maxSymbolsPerFrame) {
+        // 产品 -> 数据类型
+        Map<String, TreeSet<String>> typesBySymbol = new LinkedHashMap<>();
+        for (Key key : keys) {
+            typesBySymbol.computeIfAbsent(key.symbol(), symbol -> new TreeSet<>()).add(key.type());
+        }
+
+        // 数据类型组合 -> 产品
+        Map<String, List<String>> symbolsByTypes = new LinkedHashMap<>();
+        typesBySymbol.forEach((symbol, types) ->
+                symbolsByTypes.computeIfAbsent(String.join(",", types), joined -> new ArrayList<>()).add(symbol));
+
+        List<Frame> frames = new ArrayList<>();
+        symbolsByTypes.forEach((types, symbols) -> {
+            for (int from = 0; from < symbols.size(); from += maxSymbolsPerFrame) {
+                List<String> chunk = symbols.subList(from, Math.min(from + maxSymbolsPerFrame, symbols.size()));
+                List<Key> frameKeys = new ArrayList<>();
+                for (String symbol : chunk) {
+                    for (String type : typesBySymbol.get(symbol)) {
+                        frameKeys.add(new Key(symbol, type));
+                    }
+                }
+                frames.add(new Frame(String.join(",", chunk), types, frameKeys));
+            }
+        });
+        return frames;
+    }
+
+    /**
+     * 处理服务端的订阅响应，对应最早发送且尚未确认的请求
+     *
+     * @param success 是否订阅成功
+     * @param msg 服务端返回的消息
+     * @return 对应的订阅请求，没有等待确认的请求时返回null
+     */
+    public synchronized Frame acknowledge(boolean success, String msg) {
+        Frame frame = inFlight.pollFirst();
+        if (frame == null) {
+            return null;
+        }
+        State state = success ? State.ACKED : State.FAILED;
+        for (Key key : frame.keys()) {
+            if (!entries.replace(key, State.PENDING, state)) {
+                continue;
+            }
+            List<Intent> intents = waiters.remove(key);
+            if (intents == null) {
+                continue;
+            }
+            for (Intent intent : intents) {
+                if (!success) {
+                    intent.future.completeExceptionally(
+                            new RuntimeException("订阅失败: " + key.symbol() + " " + key.type() + " " + msg));
+                } else {
+                    intent.remaining.remove(key);
+                    if (intent.remaining.isEmpty()) {
+                        intent.future.complete(null);
+                    }
+                }
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * 连接断开后调用，所有未被拒绝的订阅都需要在重连后重放
+     * 新会话上不存在旧的订阅，待发送的取消订阅直接视为完成
+     */
+    public synchronized void resetForReplay() {
+        inFlight.clear();
+        unsubscribes.clear();
+        completeUnsubscribeFutures();
+        entries.replaceAll((key, state) -> state == State.FAILED ? State.FAILED : State.UNSENT);
+    }
+
+    private void completeUnsubscribeFutures() {
+        unsubscribeFutures.forEach(future -> future.complete(null));
+        unsubscribeFutures.clear();
+    }
+
+    /**
+     * 各状态的订阅数量
+     */
+    public synchronized Map<State, Integer> countByState() {
+        Map<State, Integer> counts = new EnumMap<>(State.class);
+        for (State state : State.values()) {
+            counts.put(state, 0);
+        }
+        entries.values().forEach(state -> counts.merge(state, 1, Integer::sum));
+        return counts;
+    }
+
+    /**
+     * 组合当前的引用计数，未登记时为0
+     */
+    public synchronized int references(String symbol, String type) {
+        return references.getOrDefault(new Key(symbol, type), 0);
+    }
+
+    /**
+     * 登记的订阅数量
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
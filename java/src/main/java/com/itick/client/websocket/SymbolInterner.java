@@ -0,0 +1,81 @@
+package com.itick.client.websocket;
+
+/**
+ * 产品代码驻留表
+ * 直接用解析器缓冲区中的字符查找已有的产品代码字符串，同一个产品在每条消息中都得到同一个String实例：
+ * 不再为每条消息分配新的字符串，哈希值也只计算一次，后续按产品路由时的查找更快。
+ *
+ * 非线程安全，由解码器独占使用。
+ */
+class SymbolInterner {
+
+    private static final int MAX_SIZE = 1 << 16;
+
+    private String[] table = new String[256];
+    private int size;
+
+    /**
+     * 查找或登记产品代码
+     *
+     * @param chars 字符缓冲区
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 驻留的产品代码
+     */
+    String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+
+        int mask = table.length - 1;
+        int index = spread(hash) & mask;
+        String existing;
+        while ((existing = table[index]) != null) {
+            if (existing.hashCode() == hash && matches(existing, chars, offset, length)) {
+                return existing;
+            }
+            index = (index + 1) & mask;
+        }
+
+        String symbol = new String(chars, offset, length);
+        if (size < MAX_SIZE) {
+            table[index] = symbol;
+            if (++size * 2 > table.length) {
+                resize();
+            }
+        }
+        return symbol;
+    }
+
+    private static boolean matches(String symbol, char[] chars, int offset, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void resize() {
+        String[] old = table;
+        table = new String[old.length * 2];
+        int mask = table.length - 1;
+        for (String symbol : old) {
+            if (symbol != null) {
+                int index = spread(symbol.hashCode()) & mask;
+                while (table[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = symbol;
+            }
+        }
+    }
+}
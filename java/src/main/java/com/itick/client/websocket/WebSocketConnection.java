@@ -0,0 +1,597 @@
+package com.itick.client.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.metrics.IngestMetrics;
+import com.itick.client.metrics.MessageType;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import com.itick.client.model.websocket.WebSocketMessage;
+import com.itick.client.trace.PayloadTracer;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个WebSocket连接
+ * 负责一个会话的连接、认证、心跳、重连和消息解码，解码出的行情数据交给MarketDataSink
+ *
+ * 订阅记录在SubscriptionLedger中，短时间窗口内的订阅和取消订阅合并后分批发送；
+ * 断线后按指数退避加随机抖动重连，重新认证后自动重放所有订阅。
+ *
+ * 同时接受文本和二进制消息：二进制消息直接从字节解析，gzip或zlib压缩的消息先解压到可复用的缓冲区；
+ * 配置后在握手时请求permessage-deflate扩展，由WebSocket容器透明解压。
+ */
+@Slf4j
+public class WebSocketConnection extends AbstractWebSocketHandler {
+
+    private static final int DEFAULT_MAX_INFLATED_BYTES = 64 * 1024 * 1024;
+
+    private final String name;
+    private final ConnectionSettings settings;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService heartbeatExecutor;
+    private final MarketDataSink sink;
+    private final IngestMetrics metrics;
+    private final PayloadTracer tracer;
+    private final MarketDataDecoder decoder;
+    private final PayloadInflater inflater;
+    private final StandardWebSocketClient client;
+    private final MarketDataDecoder.Listener messageListener = new MessageListener();
+    private final SubscriptionLedger ledger = new SubscriptionLedger();
+    private final ConnectionStats stats = new ConnectionStats();
+    private final AtomicBoolean reconnectScheduled = new AtomicBoolean();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private volatile WebSocketSession session;
+    private volatile boolean closed;
+    private volatile boolean authenticated;
+    private int reconnectAttempts;
+    private ScheduledFuture<?> heartbeatTask;
+    private volatile long pingSentNanos;
+    // 当前消息中分发所用的时间和所属的产品，只在接收线程中访问
+    private long dispatchNanos;
+    private String messageSymbol;
+
+    /**
+     * @param name 连接名称，用于日志
+     * @param settings 连接设置
+     * @param objectMapper 用于序列化发送的消息
+     * @param heartbeatExecutor 心跳调度线程
+     * @param sink 行情数据接收端
+     */
+    public WebSocketConnection(String name, ConnectionSettings settings, ObjectMapper objectMapper,
+                               ScheduledExecutorService heartbeatExecutor, MarketDataSink sink) {
+        this(name, settings, objectMapper, heartbeatExecutor, sink, IngestMetrics.NOOP, new PayloadTracer());
+    }
+
+    /**
+     * @param name 连接名称，用于日志和指标标签
+     * @param settings 连接设置
+     * @param objectMapper 用于序列化发送的消息
+     * @param heartbeatExecutor 心跳调度线程
+     * @param sink 行情数据接收端
+     * @param metrics 接收路径指标
+     * @param tracer 原始消息跟踪
+     */
+    public WebSocketConnection(String name, ConnectionSettings settings, ObjectMapper objectMapper,
+                               ScheduledExecutorService heartbeatExecutor, MarketDataSink sink,
+                               IngestMetrics metrics, PayloadTracer tracer) {
+        this.name = name;
+        this.settings = settings;
+        this.objectMapper = objectMapper;
+        this.heartbeatExecutor = heartbeatExecutor;
+        this.sink = sink;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.decoder = new MarketDataDecoder(objectMapper.getFactory());
+        this.inflater = new PayloadInflater(settings.getMaxMessageBytes() > 0
+                ? settings.getMaxMessageBytes() : DEFAULT_MAX_INFLATED_BYTES);
+        this.client = createClient(settings);
+    }
+
+    /**
+     * 创建WebSocket客户端，按设置调整容器的消息缓冲区大小，避免大的盘口快照超过默认的8KB限制；
+     * 配置了连接线程池时握手在线程池中进行
+     */
+    private static StandardWebSocketClient createClient(ConnectionSettings settings) {
+        StandardWebSocketClient client;
+        if (settings.getMaxMessageBytes() <= 0) {
+            client = new StandardWebSocketClient();
+        } else {
+            WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+            container.setDefaultMaxTextMessageBufferSize(settings.getMaxMessageBytes());
+            container.setDefaultMaxBinaryMessageBufferSize(settings.getMaxMessageBytes());
+            client = new StandardWebSocketClient(container);
+        }
+        if (settings.getConnectExecutor() != null) {
+            client.setTaskExecutor(new TaskExecutorAdapter(settings.getConnectExecutor()));
+        }
+        return client;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SubscriptionLedger getLedger() {
+        return ledger;
+    }
+
+    public ConnectionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 连接是否已建立
+     */
+    public boolean isOpen() {
+        WebSocketSession current = session;
+        return current != null && current.isOpen();
+    }
+
+    /**
+     * 建立WebSocket连接
+     * 握手在连接线程池（未配置时为容器默认的线程）中进行，不阻塞调用方；
+     * 连接建立后在afterConnectionEstablished中发送认证，失败时安排重连
+     */
+    public void connect() {
+        closed = false;
+        WebSocketHttpHeaders headers = null;
+        if (settings.isPerMessageDeflate()) {
+            headers = new WebSocketHttpHeaders();
+            headers.setSecWebSocketExtensions(List.of(new WebSocketExtension("permessage-deflate")));
+        }
+        client.execute(this, headers, URI.create(settings.getUrl()))
+                .thenAccept(established -> {
+                    // 握手期间调用了disconnect()
+                    if (closed) {
+                        closeQuietly(established);
+                    }
+                })
+                .exceptionally(e -> {
+                    log.error("[{}] 连接WebSocket服务器失败", name, e);
+                    scheduleReconnect();
+                    return null;
+                });
+    }
+
+    /**
+     * 断开WebSocket连接，之后不再自动重连
+     */
+    public void disconnect() {
+        closed = true;
+        stopHeartbeat();
+        WebSocketSession current = session;
+        if (current != null) {
+            closeQuietly(current);
+        }
+    }
+
+    private void closeQuietly(WebSocketSession current) {
+        if (current.isOpen()) {
+            try {
+                current.close();
+                log.info("[{}] WebSocket连接已关闭", name);
+            } catch (IOException e) {
+                log.error("[{}] 关闭WebSocket连接时出错", name, e);
+            }
+        }
+    }
+
+    /**
+     * 连接建立后的回调方法
+     * 配置了认证令牌时发送认证消息，认证成功后开始心跳并重放订阅
+     */
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        this.session = session;
+        log.info("[{}] WebSocket连接已建立", name);
+        if (settings.getAuthToken() != null) {
+            sendMessage(WebSocketMessage.builder()
+                    .ac("auth")
+                    .params(settings.getAuthToken())
+                    .build());
+        }
+    }
+
+    /**
+     * 订阅产品数据
+     * 订阅先记入台账，在合并窗口结束时与同一窗口内的其他订阅和取消订阅一起发送；
+     * 连接尚未认证时在认证成功后发送
+     *
+     * @param symbols 产品代码
+     * @param types 数据类型
+     * @return 服务端确认所有订阅后完成
+     */
+    public CompletableFuture<Void> subscribe(Collection<String> symbols, Collection<String> types) {
+        CompletableFuture<Void> future = ledger.add(symbols, types);
+        scheduleFlush();
+        return future;
+    }
+
+    /**
+     * 取消订阅产品数据
+     * 与订阅一样在合并窗口结束时发送，尚未发送的订阅会被直接撤销；
+     * 组合仍被其他订阅引用时只减少引用计数
+     *
+     * @param symbols 产品代码
+     * @param types 数据类型
+     * @return 取消订阅请求发送后完成
+     */
+    public CompletableFuture<Void> unsubscribe(Collection<String> symbols, Collection<String> types) {
+        CompletableFuture<Void> future = ledger.remove(symbols, types);
+        scheduleFlush();
+        return future;
+    }
+
+    /**
+     * 在合并窗口结束后发送台账中的待发送请求，窗口内的多次调用只触发一次发送
+     */
+    private void scheduleFlush() {
+        if (!ledger.hasUnsent()) {
+            return;
+        }
+        if (!authenticated || !isOpen()) {
+            log.debug("[{}] 连接尚未就绪，订阅将在认证成功后发送", name);
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            heartbeatExecutor.schedule(() -> {
+                flushScheduled.set(false);
+                flushSubscriptions();
+            }, settings.getSubscribeBatchWindowMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 发送台账中所有待发送的取消订阅和订阅
+     * 取出和发送在同一把锁内完成，保证发送顺序与台账中等待确认的顺序一致
+     */
+    private void flushSubscriptions() {
+        if (!authenticated || !isOpen()) {
+            return;
+        }
+        synchronized (ledger) {
+            int batchSize = settings.getSubscribeBatchSize();
+            for (SubscriptionLedger.Frame frame : ledger.takeUnsubscribes(batchSize)) {
+                sendMessage(WebSocketMessage.builder()
+                        .ac("unsubscribe")
+                        .params(frame.symbols())
+                        .types(frame.types())
+                        .build());
+            }
+            for (SubscriptionLedger.Frame frame : ledger.takeUnsent(batchSize)) {
+                sendMessage(WebSocketMessage.builder()
+                        .ac("subscribe")
+                        .params(frame.symbols())
+                        .types(frame.types())
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * 启动心跳机制
+     */
+    private synchronized void startHeartbeat() {
+        stopHeartbeat();
+        heartbeatTask = heartbeatExecutor.scheduleAtFixedRate(this::sendHeartbeat, 15, 15, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 停止心跳机制
+     */
+    private synchronized void stopHeartbeat() {
+        if (heartbeatTask != null && !heartbeatTask.isCancelled()) {
+            heartbeatTask.cancel(true);
+        }
+    }
+
+    /**
+     * 发送心跳消息
+     */
+    private void sendHeartbeat() {
+        if (isOpen()) {
+            long timestamp = System.currentTimeMillis();
+            WebSocketMessage pingMessage = WebSocketMessage.builder()
+                    .ac("ping")
+                    .params(String.valueOf(timestamp))
+                    .build();
+
+            pingSentNanos = System.nanoTime();
+            sendMessage(pingMessage);
+        }
+    }
+
+    /**
+     * 发送WebSocket消息
+     * 同一会话不允许并发发送，心跳线程和订阅调用方在这里串行化
+     */
+    private void sendMessage(WebSocketMessage message) {
+        try {
+            WebSocketSession current = session;
+            if (current != null && current.isOpen()) {
+                String jsonMessage = objectMapper.writeValueAsString(message);
+                synchronized (current) {
+                    current.sendMessage(new TextMessage(jsonMessage));
+                }
+                log.debug("[{}] 已发送消息: {}", name, jsonMessage);
+            } else {
+                log.error("[{}] 无法发送消息，WebSocket连接未建立", name);
+            }
+        } catch (IOException e) {
+            log.error("[{}] 发送WebSocket消息时出错", name, e);
+        }
+    }
+
+    /**
+     * 处理接收到的WebSocket文本消息
+     * 消息内容不再逐条记录日志，需要查看原始消息时启用PayloadTracer
+     */
+    @Override
+    public void handleTextMessage(WebSocketSession session, TextMessage message) {
+        try {
+            String payload = message.getPayload();
+
+            long start = System.nanoTime();
+            dispatchNanos = 0;
+            messageSymbol = null;
+            decoder.decode(payload, messageListener);
+            metrics.recordDecode(System.nanoTime() - start - dispatchNanos);
+            if (tracer.isEnabled()) {
+                tracer.trace(name, messageSymbol, payload);
+            }
+        } catch (Exception e) {
+            log.error("[{}] 处理WebSocket消息时出错", name, e);
+        }
+    }
+
+    /**
+     * 处理接收到的WebSocket二进制消息
+     * 未压缩的消息直接从ByteBuffer解析，压缩的消息解压后从字节数组解析，消息内容不会转换为String
+     */
+    @Override
+    public void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        try {
+            ByteBuffer payload = message.getPayload();
+
+            long start = System.nanoTime();
+            dispatchNanos = 0;
+            messageSymbol = null;
+            byte[] inflated = null;
+            int inflatedLength = 0;
+            if (PayloadInflater.isCompressed(payload)) {
+                inflatedLength = inflater.inflate(payload);
+                inflated = inflater.getOutput();
+                decoder.decode(inflated, 0, inflatedLength, messageListener);
+            } else {
+                decoder.decode(payload, messageListener);
+            }
+            metrics.recordDecode(System.nanoTime() - start - dispatchNanos);
+            if (tracer.isEnabled() && tracer.sample(messageSymbol)) {
+                String text = inflated != null
+                        ? new String(inflated, 0, inflatedLength, StandardCharsets.UTF_8)
+                        : StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+                tracer.submit(name, messageSymbol, text);
+            }
+        } catch (Exception e) {
+            log.error("[{}] 处理WebSocket二进制消息时出错", name, e);
+        }
+    }
+
+    /**
+     * 处理认证响应
+     */
+    private void handleAuthResponse(int code, String msg) {
+        if (code == 1) {
+            // 地址中的token在握手时已完成认证的服务端会对认证消息再次响应
+            if (authenticated) {
+                return;
+            }
+            log.info("[{}] 认证成功", name);
+            authenticated = true;
+            synchronized (this) {
+                reconnectAttempts = 0;
+            }
+            startHeartbeat();
+            if (ledger.size() > 0) {
+                log.info("[{}] 重放订阅，台账中共 {} 个订阅", name, ledger.size());
+            }
+            flushSubscriptions();
+        } else {
+            log.error("[{}] 认证失败: {}", name, msg);
+            disconnect();
+        }
+    }
+
+    /**
+     * 处理订阅响应
+     */
+    private void handleSubscribeResponse(int code, String msg) {
+        SubscriptionLedger.Frame frame = ledger.acknowledge(code == 1, msg);
+        String symbols = frame != null ? frame.symbols() : "";
+        if (code == 1) {
+            log.info("[{}] 订阅成功: {}", name, symbols);
+        } else {
+            log.error("[{}] 订阅失败: {} {}", name, symbols, msg);
+        }
+    }
+
+    /**
+     * 处理WebSocket传输错误
+     */
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.error("[{}] WebSocket传输错误", name, exception);
+        connectionLost();
+    }
+
+    /**
+     * 连接关闭后的回调方法
+     */
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        log.info("[{}] WebSocket连接已关闭: {}", name, status);
+        connectionLost();
+    }
+
+    /**
+     * 连接断开：停止心跳，所有订阅等待重放，并安排重连
+     */
+    private void connectionLost() {
+        authenticated = false;
+        stopHeartbeat();
+        ledger.resetForReplay();
+        stats.onDisconnected(System.currentTimeMillis());
+        scheduleReconnect();
+    }
+
+    /**
+     * 安排重新连接
+     * 等待时间按指数增长并加入随机抖动，避免大量客户端在同一时刻重连
+     */
+    private void scheduleReconnect() {
+        if (closed || !reconnectScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        long delay = nextReconnectDelay();
+        log.info("[{}] {} 毫秒后重新连接", name, delay);
+        Executor executor = settings.getConnectExecutor();
+        Executor delayed = executor == null
+                ? CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                : CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor);
+        delayed.execute(() -> {
+            reconnectScheduled.set(false);
+            if (!closed && !isOpen()) {
+                stats.onReconnect();
+                connect();
+            }
+        });
+    }
+
+    /**
+     * 计算下一次重连的等待时间：在[上限/2, 上限]之间随机，上限为初始等待时间按重连次数翻倍
+     */
+    private synchronized long nextReconnectDelay() {
+        int exponent = Math.min(reconnectAttempts++, 20);
+        long ceiling = Math.min(settings.getReconnectMaxDelayMs(), settings.getReconnectInitialDelayMs() << exponent);
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    /**
+     * 收到行情数据，结束可能正在进行的数据中断统计，并记录消息数和交易所时间戳延迟
+     */
+    private void onMarketData(MessageType type, String symbol, long exchangeTime) {
+        messageSymbol = symbol;
+        long now = System.currentTimeMillis();
+        long gap = stats.onData(now);
+        if (gap >= 0) {
+            log.info("[{}] 数据在中断 {} 毫秒后恢复", name, gap);
+        }
+        metrics.onMessage(type, symbol);
+        if (exchangeTime > 0) {
+            metrics.recordExchangeLag(type, now - exchangeTime);
+        }
+    }
+
+    /**
+     * 记录分发耗时，并从当前消息的解码耗时中扣除
+     */
+    private void onDispatched(MessageType type, long start) {
+        long elapsed = System.nanoTime() - start;
+        dispatchNanos += elapsed;
+        metrics.recordDispatch(type, elapsed);
+    }
+
+    /**
+     * 收到pong时记录心跳往返时间
+     */
+    private void onPongReceived() {
+        long sent = pingSentNanos;
+        if (sent != 0) {
+            pingSentNanos = 0;
+            metrics.recordHeartbeatRtt(System.nanoTime() - sent);
+        }
+    }
+
+    /**
+     * 解码结果回调，响应消息在连接内处理，行情数据交给接收端
+     */
+    private class MessageListener implements MarketDataDecoder.Listener {
+
+        @Override
+        public void onAuth(int code, String msg) {
+            handleAuthResponse(code, msg);
+        }
+
+        @Override
+        public void onSubscribe(int code, String msg) {
+            handleSubscribeResponse(code, msg);
+        }
+
+        @Override
+        public void onPong(int code, String msg) {
+            log.debug("[{}] 收到pong响应", name);
+            onPongReceived();
+        }
+
+        @Override
+        public void onQuote(QuoteData data) {
+            onMarketData(MessageType.QUOTE, data.getS(), data.getT());
+            long start = System.nanoTime();
+            sink.onQuote(data);
+            onDispatched(MessageType.QUOTE, start);
+        }
+
+        @Override
+        public void onTick(TickData data) {
+            onMarketData(MessageType.TICK, data.getS(), data.getT());
+            long start = System.nanoTime();
+            sink.onTick(data);
+            onDispatched(MessageType.TICK, start);
+        }
+
+        @Override
+        public void onDepth(DepthLevels levels) {
+            // 盘口数据不携带交易所时间戳
+            onMarketData(MessageType.DEPTH, levels.getSymbol(), 0);
+            long start = System.nanoTime();
+            sink.onDepth(levels);
+            onDispatched(MessageType.DEPTH, start);
+        }
+
+        @Override
+        public void onKline(KlineWebSocketData data) {
+            // K线推送中的t是周期类型，不是时间戳
+            onMarketData(MessageType.KLINE, data.getS(), 0);
+            long start = System.nanoTime();
+            sink.onKline(data);
+            onDispatched(MessageType.KLINE, start);
+        }
+    }
+}
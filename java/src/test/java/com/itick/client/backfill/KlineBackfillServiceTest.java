@@ -0,0 +1,168 @@
+package com.itick.client.backfill;
+
+import com.itick.client.kline.KlineKey;
+import com.itick.client.model.KlineData;
+import com.itick.client.service.KlineService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 模拟的接口按et + limit返回该时间及之前最近的limit根1分钟K线（按时间降序），检查各页的边界
+ */
+class KlineBackfillServiceTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long BASE = 1_700_000_000_000L;
+
+    @TempDir
+    Path checkpointDir;
+
+    private final KlineService klineService = mock(KlineService.class);
+    private KlineBackfillService service;
+    // 模拟的接口中存在的K线时间
+    private LongPredicate exists = time -> true;
+
+    @BeforeEach
+    void setUp() {
+        when(klineService.fetchPage(anyString(), anyString(), anyInt(), anyLong(), anyInt()))
+                .thenAnswer(invocation -> Mono.just(page(invocation.getArgument(3), invocation.getArgument(4))));
+        service = new KlineBackfillService(klineService);
+        ReflectionTestUtils.setField(service, "defaultPageSize", 100);
+        ReflectionTestUtils.setField(service, "defaultConcurrency", 4);
+        ReflectionTestUtils.setField(service, "retryDelayMs", 1L);
+        ReflectionTestUtils.setField(service, "checkpointDir", checkpointDir.toString());
+        service.init();
+    }
+
+    @Test
+    void pagesTileTheRangeWithoutGapsOrOverlap() {
+        long from = BASE + 10 * MINUTE;
+        long to = BASE + 260 * MINUTE;
+        List<BackfillPage> pages = service.backfillPages(job(from, to, null)).collectList().block();
+
+        // 251根K线，每页100分钟，从结束时间向前切分
+        assertEquals(3, pages.size());
+        assertEquals(from - 1, pages.get(0).from());
+        for (int i = 1; i < pages.size(); i++) {
+            assertEquals(pages.get(i - 1).to(), pages.get(i).from());
+        }
+        assertEquals(to, pages.get(pages.size() - 1).to());
+        for (BackfillPage page : pages) {
+            for (KlineData bar : page.bars()) {
+                assertTrue(bar.getT() > page.from() && bar.getT() <= page.to(), "K线不在页的范围内: " + bar.getT());
+            }
+        }
+
+        assertEquals(expected(from, to), times(pages));
+    }
+
+    @Test
+    void pagesKeepEveryBarWhenDataHasGaps() {
+        // 每天只有一半时间有数据
+        exists = time -> (time - BASE) / MINUTE % 1440 < 720;
+        long from = BASE;
+        long to = BASE + 5 * 1440 * MINUTE;
+        List<BackfillPage> pages = service.backfillPages(job(from, to, null)).collectList().block();
+        assertEquals(expected(from, to), times(pages));
+    }
+
+    @Test
+    void singleBarRange() {
+        long time = BASE + 42 * MINUTE;
+        List<BackfillPage> pages = service.backfillPages(job(time, time, null)).collectList().block();
+        assertEquals(1, pages.size());
+        assertEquals(List.of(time), times(pages));
+    }
+
+    @Test
+    void checkpointSkipsCompletedPages() {
+        long from = BASE;
+        long to = BASE + 250 * MINUTE;
+        assertEquals(expected(from, to), times(service.backfillPages(job(from, to, "job-1")).collectList().block()));
+
+        // 扩大结束时间后重新回补，只拉取检查点之后的部分
+        long extended = to + 30 * MINUTE;
+        List<BackfillPage> pages = service.backfillPages(job(from, extended, "job-1")).collectList().block();
+        assertEquals(1, pages.size());
+        assertEquals(to, pages.get(0).from());
+        assertEquals(expected(to + 1, extended), times(pages));
+    }
+
+    @Test
+    void completedCheckpointFetchesNothing() {
+        long from = BASE;
+        long to = BASE + 50 * MINUTE;
+        service.backfillPages(job(from, to, "job-2")).collectList().block();
+        clearInvocations(klineService);
+
+        assertTrue(service.backfillPages(job(from, to, "job-2")).collectList().block().isEmpty());
+        verify(klineService, never()).fetchPage(anyString(), anyString(), anyInt(), anyLong(), anyInt());
+    }
+
+    private BackfillJob job(long from, long to, String checkpointId) {
+        return BackfillJob.builder()
+                .region("BA")
+                .codes(List.of("BTCUSDT"))
+                .kTypes(List.of(1))
+                .from(from)
+                .to(to)
+                .checkpointId(checkpointId)
+                .build();
+    }
+
+    /**
+     * 该时间及之前最近的limit根K线，按时间降序
+     */
+    private List<KlineData> page(long endTime, int limit) {
+        List<KlineData> bars = new ArrayList<>(limit);
+        for (long time = endTime - Math.floorMod(endTime - BASE, MINUTE); bars.size() < limit && time >= BASE;
+             time -= MINUTE) {
+            if (exists.test(time)) {
+                KlineData bar = new KlineData();
+                bar.setT(time);
+                bar.setC(1);
+                bars.add(bar);
+            }
+        }
+        return bars;
+    }
+
+    private List<Long> expected(long from, long to) {
+        List<Long> times = new ArrayList<>();
+        long first = from + Math.floorMod(BASE - from, MINUTE);
+        for (long time = first; time <= to; time += MINUTE) {
+            if (exists.test(time)) {
+                times.add(time);
+            }
+        }
+        return times;
+    }
+
+    private static List<Long> times(List<BackfillPage> pages) {
+        List<Long> times = new ArrayList<>();
+        for (BackfillPage page : pages) {
+            assertEquals(new KlineKey("BA", "BTCUSDT", 1), page.key());
+            page.bars().forEach(bar -> times.add(bar.getT()));
+        }
+        return times;
+    }
+}
@@ -0,0 +1,139 @@
+package com.itick.client.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.dispatch.InlineMarketDataChannel;
+import com.itick.client.dispatch.MarketDataChannel;
+import com.itick.client.dispatch.RingBufferMarketDataChannel;
+import com.itick.client.dispatch.SymbolFilter;
+import com.itick.client.dispatch.WaitStrategies;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import com.itick.client.websocket.DepthLevels;
+import com.itick.client.websocket.MarketDataDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接收路径的JMH基准：解码一条成交消息并经分发通道交给订阅者
+ * 每个订阅者通过SymbolFilter订阅一部分产品，测量按产品路由的开销随订阅者数量的变化。
+ * ring模式下生产者在订阅者落后时等待，稳定状态下测得的吞吐量即为端到端吞吐量。
+ *
+ * 延迟分位数和每条消息的分配量见IngestBenchmark。
+ *
+ * 运行：mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *   -Dexec.args="-cp %classpath org.openjdk.jmh.Main DispatchBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final int PAYLOADS = 1 << 12;
+    private static final int MASK = PAYLOADS - 1;
+
+    @Param({"inline", "ring"})
+    public String dispatch;
+
+    @Param({"1", "50"})
+    public int subscribers;
+
+    @Param({"500"})
+    public int symbols;
+
+    @Param({"yielding"})
+    public String waitStrategy;
+
+    private MarketDataChannel<TickData> channel;
+    private MarketDataDecoder decoder;
+    private MarketDataDecoder.Listener listener;
+    private String[] payloads;
+    private long[] received;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        channel = "inline".equals(dispatch)
+                ? new InlineMarketDataChannel<>(TickData::getS)
+                : new RingBufferMarketDataChannel<>("bench-tick", TickData::getS, 4096,
+                WaitStrategies.of(waitStrategy), false);
+        // 每个订阅者订阅连续的一段产品，所有订阅者合起来覆盖全部产品
+        received = new long[subscribers];
+        int perSubscriber = Math.max(1, symbols / subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            List<String> filter = new ArrayList<>();
+            for (int j = i * perSubscriber; j < Math.min(symbols, (i + 1) * perSubscriber); j++) {
+                filter.add("SYM" + j);
+            }
+            int index = i;
+            channel.subscribe(data -> received[index] += data.getV(), SymbolFilter.of(filter));
+        }
+
+        SyntheticMarketData generator = new SyntheticMarketData(5);
+        payloads = new String[PAYLOADS];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < PAYLOADS; i++) {
+            payloads[i] = generator.next("SYM" + (i % symbols), "tick", now, i);
+        }
+
+        decoder = new MarketDataDecoder(new ObjectMapper().getFactory());
+        listener = new MarketDataDecoder.Listener() {
+            @Override
+            public void onTick(TickData data) {
+                channel.publish(data);
+            }
+
+            @Override
+            public void onQuote(QuoteData data) {
+            }
+
+            @Override
+            public void onDepth(DepthLevels levels) {
+            }
+
+            @Override
+            public void onKline(KlineWebSocketData data) {
+            }
+
+            @Override
+            public void onAuth(int code, String msg) {
+            }
+
+            @Override
+            public void onSubscribe(int code, String msg) {
+            }
+
+            @Override
+            public void onPong(int code, String msg) {
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.close();
+    }
+
+    @Benchmark
+    public void decodeAndPublish() throws Exception {
+        decoder.decode(payloads[next++ & MASK], listener);
+    }
+}
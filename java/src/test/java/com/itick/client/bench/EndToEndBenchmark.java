@@ -0,0 +1,156 @@
+package com.itick.client.bench;
+
+import com.itick.client.JavaClientApplication;
+import com.itick.client.dispatch.Subscription;
+import com.itick.client.service.WebSocketClientService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 端到端压测
+ * 使用fake配置文件启动应用，WebSocketClientService通过真实的WebSocket连接从本地模拟服务端
+ * （FakeItickWebSocketHandler）接收数据，经过帧处理、解码和分发后交给订阅者。测量：
+ * 订阅者收到的吞吐量（条/秒），以及从模拟服务端生成消息到订阅者收到的延迟分位数。
+ *
+ * 延迟按消息中的时间戳t计算，精度为毫秒；盘口消息不带时间戳，只统计吞吐量。
+ * 模拟服务端按连接推送，总速率约为 --rate × 连接数；服务端和客户端在同一进程中，
+ * 测得的吞吐量同时受服务端生成速度的限制。
+ *
+ * 运行：mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.itick.client.bench.EndToEndBenchmark
+ *   -Dexec.args="--type=tick --rate=200000 --dispatch=inline"
+ */
+public final class EndToEndBenchmark {
+
+    private EndToEndBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("type", "tick");
+        options.put("symbols", "100");
+        options.put("rate", "100000");
+        options.put("frame", "text");
+        options.put("dispatch", "inline");
+        options.put("wait-strategy", "blocking");
+        options.put("pool-size", "1");
+        options.put("depth-levels", "5");
+        options.put("warmup-seconds", "5");
+        options.put("seconds", "20");
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        System.out.println("参数: " + options);
+
+        // 以命令行参数传入，优先于application.properties；properties()设置的是默认值，会被配置文件覆盖
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(JavaClientApplication.class)
+                .profiles("fake")
+                .run("--server.port=" + freePort(),
+                        "--itick.fake-server.messages-per-second=" + options.get("rate"),
+                        "--itick.fake-server.frame-type=" + options.get("frame"),
+                        "--itick.fake-server.depth-levels=" + options.get("depth-levels"),
+                        "--itick.api.websocket-pool-size=" + options.get("pool-size"),
+                        "--itick.dispatch.mode=" + options.get("dispatch"),
+                        "--itick.dispatch.wait-strategy=" + options.get("wait-strategy"),
+                        // 只测量接收路径，不启动K线聚合、历史K线拉取和命令行示例
+                        "--itick.kline.live.enabled=false",
+                        "--itick.example.enabled=false",
+                        "--logging.level.com.itick=WARN");
+        try {
+            run(context.getBean(WebSocketClientService.class), options);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void run(WebSocketClientService client, Map<String, String> options) throws Exception {
+        String type = options.get("type");
+        Probe probe = new Probe();
+        Subscription subscription;
+        switch (type) {
+            case "quote":
+                subscription = client.subscribeToQuotes(data -> probe.onMessage(data.getT()));
+                break;
+            case "tick":
+                subscription = client.subscribeToTicks(data -> probe.onMessage(data.getT()));
+                break;
+            case "depth":
+                subscription = client.subscribeToDepth(data -> probe.onMessage(0));
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的数据类型: " + type);
+        }
+
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < Integer.parseInt(options.get("symbols")); i++) {
+            symbols.add("SYM" + i);
+        }
+        // 应用启动时连接可能尚未认证，订阅在认证后发送，这里等待服务端确认
+        client.subscribe(String.join(",", symbols), type).get(30, TimeUnit.SECONDS);
+
+        try {
+            TimeUnit.SECONDS.sleep(Long.parseLong(options.get("warmup-seconds")));
+            probe.reset();
+            long start = System.nanoTime();
+            TimeUnit.SECONDS.sleep(Long.parseLong(options.get("seconds")));
+            long received = probe.received.sum();
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("[%s] 分发模式: %s，帧类型: %s，连接数: %s，每个连接目标速率: %s 条/秒%n", type,
+                    options.get("dispatch"), options.get("frame"), options.get("pool-size"), options.get("rate"));
+            System.out.printf("  吞吐量: %,.0f 条/秒%n", received * 1e9 / elapsed);
+            if (!"depth".equals(type)) {
+                synchronized (probe.histogram) {
+                    System.out.printf("  延迟(毫秒): p50=%d p99=%d p99.9=%d max=%d%n",
+                            probe.histogram.percentile(50) / 1_000_000, probe.histogram.percentile(99) / 1_000_000,
+                            probe.histogram.percentile(99.9) / 1_000_000, probe.histogram.getMax() / 1_000_000);
+                }
+            }
+        } finally {
+            subscription.cancel();
+            client.unsubscribe(String.join(",", symbols), type);
+        }
+    }
+
+    private static int freePort() throws Exception {
+        // websocket-url引用server.port，需要在启动前确定端口，不能使用0
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 订阅者端的测量
+     * 连接池有多个连接或使用多线程分发时订阅者可能被并发调用，直方图的记录加锁
+     */
+    private static final class Probe {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder received = new LongAdder();
+
+        void onMessage(long timestamp) {
+            if (timestamp > 0) {
+                long millis = Math.max(0, System.currentTimeMillis() - timestamp);
+                synchronized (histogram) {
+                    histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+                }
+            }
+            received.increment();
+        }
+
+        void reset() {
+            synchronized (histogram) {
+                histogram.reset();
+            }
+            received.reset();
+        }
+    }
+}
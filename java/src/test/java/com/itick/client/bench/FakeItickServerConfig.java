@@ -0,0 +1,62 @@
+package com.itick.client.bench;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 本地模拟iTick服务端
+ * 在应用内嵌的Web服务器上注册WebSocket端点，用于开发、压测时替代wss://api.itick.org。
+ * 位于测试代码中，不会打包进应用；使用测试类路径和fake配置文件启动即可让客户端连接到模拟服务端：
+ * mvn spring-boot:run -Dspring-boot.run.useTestClasspath=true -Dspring-boot.run.profiles=fake
+ */
+@Slf4j
+@Configuration
+@EnableWebSocket
+@ConditionalOnProperty(name = "itick.fake-server.enabled", havingValue = "true")
+public class FakeItickServerConfig implements WebSocketConfigurer {
+
+    @Value("${itick.fake-server.path:/fake/crypto}")
+    private String path;
+
+    @Value("${itick.fake-server.messages-per-second:1000}")
+    private int messagesPerSecond;
+
+    @Value("${itick.fake-server.depth-levels:5}")
+    private int depthLevels;
+
+    @Value("${itick.fake-server.frame-type:text}")
+    private String frameType;
+
+    @Value("${itick.fake-server.threads:2}")
+    private int threads;
+
+    private ScheduledExecutorService executor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        executor = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "itick-fake-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        registry.addHandler(new FakeItickWebSocketHandler(executor, messagesPerSecond, depthLevels, frameType), path)
+                .setAllowedOrigins("*");
+        log.info("模拟iTick服务端已启用: {}，每个连接每秒推送 {} 条消息", path, messagesPerSecond);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
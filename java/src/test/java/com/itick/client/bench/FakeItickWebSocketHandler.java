@@ -0,0 +1,210 @@
+package com.itick.client.bench;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.model.websocket.WebSocketMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.AbstractWebSocketMessage;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 模拟iTick WebSocket服务端的消息处理器
+ * 支持auth、subscribe、unsubscribe、ping协议，按配置的速率为每个连接推送已订阅产品的合成行情。
+ * 行情可以按文本、二进制或gzip压缩的二进制消息推送。
+ */
+@Slf4j
+public class FakeItickWebSocketHandler extends TextWebSocketHandler {
+
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+    private static final int SEND_BUFFER_LIMIT = 16 * 1024 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ScheduledExecutorService executor;
+    private final int messagesPerSecond;
+    private final int depthLevels;
+    private final String frameType;
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * @param executor 推送任务使用的线程池
+     * @param messagesPerSecond 每个连接每秒推送的消息数
+     * @param depthLevels 盘口每一侧的档位数
+     * @param frameType 行情消息的帧类型：text、binary、gzip
+     */
+    public FakeItickWebSocketHandler(ScheduledExecutorService executor, int messagesPerSecond, int depthLevels,
+                                     String frameType) {
+        this.executor = executor;
+        this.messagesPerSecond = messagesPerSecond;
+        this.depthLevels = depthLevels;
+        this.frameType = frameType.trim().toLowerCase();
+        if (!List.of("text", "binary", "gzip").contains(this.frameType)) {
+            throw new IllegalArgumentException("未知的帧类型: " + frameType);
+        }
+    }
+
+    /**
+     * 按配置的帧类型构造行情消息
+     */
+    private AbstractWebSocketMessage<?> toMessage(String json) throws IOException {
+        switch (frameType) {
+            case "binary":
+                return new BinaryMessage(json.getBytes(StandardCharsets.UTF_8));
+            case "gzip":
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                    gzip.write(json.getBytes(StandardCharsets.UTF_8));
+                }
+                return new BinaryMessage(bytes.toByteArray());
+            default:
+                return new TextMessage(json);
+        }
+    }
+
+    /**
+     * 单个连接的订阅和推送状态
+     */
+    private final class SessionState {
+        private final WebSocketSession session;
+        private final Set<String> subscriptions = Collections.synchronizedSet(new LinkedHashSet<>());
+        private final SyntheticMarketData generator = new SyntheticMarketData(depthLevels);
+        private ScheduledFuture<?> task;
+        private double credit;
+        private long sequence;
+        private int cursor;
+
+        SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+
+        /**
+         * 每毫秒执行一次，按速率推送消息
+         */
+        void emit() {
+            List<String> current;
+            synchronized (subscriptions) {
+                current = new ArrayList<>(subscriptions);
+            }
+            if (current.isEmpty() || !session.isOpen()) {
+                return;
+            }
+            credit += messagesPerSecond / 1000.0;
+            long now = System.currentTimeMillis();
+            try {
+                while (credit >= 1) {
+                    credit--;
+                    String[] pair = current.get(cursor++ % current.size()).split(" ");
+                    session.sendMessage(toMessage(generator.next(pair[0], pair[1], now, ++sequence)));
+                }
+            } catch (Exception e) {
+                log.warn("模拟服务端推送消息失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT);
+        SessionState state = new SessionState(concurrent);
+        sessions.put(session.getId(), state);
+
+        String query = session.getUri() == null ? null : session.getUri().getQuery();
+        boolean authorized = query != null && query.contains("token=");
+        send(concurrent, authorized ? 1 : 0, "auth", authorized ? "authenticated" : "token required", null);
+        if (!authorized) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        state.task = executor.scheduleAtFixedRate(state::emit, 1, 1, TimeUnit.MILLISECONDS);
+        log.info("模拟服务端新连接: {}", session.getId());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        SessionState state = sessions.get(session.getId());
+        if (state == null) {
+            return;
+        }
+        WebSocketMessage request = objectMapper.readValue(message.getPayload(), WebSocketMessage.class);
+        if (request.getAc() == null) {
+            return;
+        }
+        switch (request.getAc()) {
+            case "auth":
+                send(state.session, 1, "auth", "authenticated", null);
+                break;
+            case "subscribe":
+            case "unsubscribe":
+                boolean subscribe = request.getAc().equals("subscribe");
+                for (String symbol : split(request.getParams())) {
+                    for (String type : split(request.getTypes())) {
+                        if (subscribe) {
+                            state.subscriptions.add(symbol + " " + type);
+                        } else {
+                            state.subscriptions.remove(symbol + " " + type);
+                        }
+                    }
+                }
+                if (subscribe) {
+                    send(state.session, 1, "subscribe", "subscribed", null);
+                }
+                break;
+            case "ping":
+                send(state.session, 1, "pong", "ok", Map.of("params", String.valueOf(request.getParams())));
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        SessionState state = sessions.remove(session.getId());
+        if (state != null && state.task != null) {
+            state.task.cancel(false);
+        }
+    }
+
+    private void send(WebSocketSession session, int code, String resAc, String msg, Object data) throws IOException {
+        WebSocketMessage response = WebSocketMessage.builder()
+                .code(code)
+                .resAc(resAc)
+                .msg(msg)
+                .data(data)
+                .build();
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+    }
+
+    private static List<String> split(String value) {
+        List<String> items = new ArrayList<>();
+        if (value == null) {
+            return items;
+        }
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,254 @@
+package com.itick.client.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.dispatch.InlineMarketDataChannel;
+import com.itick.client.dispatch.MarketDataChannel;
+import com.itick.client.dispatch.RingBufferMarketDataChannel;
+import com.itick.client.dispatch.WaitStrategies;
+import com.itick.client.model.websocket.DepthData;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import com.itick.client.websocket.DepthLevels;
+import com.itick.client.websocket.MarketDataDecoder;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 行情接收路径压测
+ * 在进程内重复解码预先生成的行情消息并经分发通道交给订阅者，测量：
+ * 吞吐量（条/秒）、从开始解码到订阅者收到数据的延迟分位数、接收线程和分发线程每条消息分配的字节数。
+ *
+ * 每条消息携带其在预生成数组中的下标（报价、成交的成交量，盘口第一档的订单数），
+ * 订阅者据此找到解码开始的时间戳，测量过程本身不分配对象。
+ *
+ * 不指定速率时以最快速度发送，测量最大吞吐量，此时延迟主要是排队时间；
+ * 测量延迟时应使用--rate指定低于最大吞吐量的固定速率。
+ *
+ * 只测量解码和分发；经过真实WebSocket连接的完整路径见EndToEndBenchmark，单条消息的解码开销见MarketDataDecoderBenchmark。
+ *
+ * 运行：mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.itick.client.bench.IngestBenchmark
+ *   -Dexec.args="--type=tick,quote,depth --rate=100000"
+ */
+public final class IngestBenchmark {
+
+    private static final int PAYLOADS = 1 << 16;
+    private static final int MASK = PAYLOADS - 1;
+
+    private IngestBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("type", "tick");
+        options.put("messages", "2000000");
+        options.put("warmup", "500000");
+        options.put("dispatch", "ring");
+        options.put("buffer-size", "4096");
+        options.put("wait-strategy", "yielding");
+        options.put("symbols", "100");
+        options.put("depth-levels", "5");
+        options.put("rate", "0");
+        options.put("frame", "text");
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        System.out.println("参数: " + options);
+
+        for (String type : options.get("type").split(",")) {
+            run(type.trim(), options);
+        }
+    }
+
+    private static void run(String type, Map<String, String> options) throws InterruptedException {
+        long messages = Long.parseLong(options.get("messages"));
+        long warmup = Long.parseLong(options.get("warmup"));
+        int symbols = Integer.parseInt(options.get("symbols"));
+        long rate = Long.parseLong(options.get("rate"));
+
+        SyntheticMarketData generator = new SyntheticMarketData(Integer.parseInt(options.get("depth-levels")));
+        String[] payloads = new String[PAYLOADS];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < PAYLOADS; i++) {
+            payloads[i] = generator.next("SYM" + (i % symbols), type, now, i);
+            if (payloads[i] == null) {
+                throw new IllegalArgumentException("不支持的数据类型: " + type);
+            }
+        }
+        // binary：模拟二进制消息，直接从UTF-8字节解码
+        byte[][] frames = null;
+        if ("binary".equals(options.get("frame"))) {
+            frames = new byte[PAYLOADS][];
+            for (int i = 0; i < PAYLOADS; i++) {
+                frames[i] = payloads[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        Probe probe = new Probe();
+        MarketDataChannel<QuoteData> quotes = createChannel("quote", QuoteData::getS, options);
+        MarketDataChannel<TickData> ticks = createChannel("tick", TickData::getS, options);
+        MarketDataChannel<DepthData> depth = createChannel("depth", DepthData::getS, options);
+        switch (type) {
+            case "quote":
+                quotes.subscribe(data -> probe.onMessage(data.getV()), null);
+                break;
+            case "tick":
+                ticks.subscribe(data -> probe.onMessage(data.getV()), null);
+                break;
+            default:
+                depth.subscribe(data -> probe.onMessage((long) data.getA().get(0).getO()), null);
+                break;
+        }
+
+        MarketDataDecoder decoder = new MarketDataDecoder(new ObjectMapper().getFactory());
+        MarketDataDecoder.Listener listener = new MarketDataDecoder.Listener() {
+            @Override
+            public void onQuote(QuoteData data) {
+                quotes.publish(data);
+            }
+
+            @Override
+            public void onTick(TickData data) {
+                ticks.publish(data);
+            }
+
+            @Override
+            public void onDepth(DepthLevels levels) {
+                if (depth.hasSubscribers()) {
+                    depth.publish(levels.toDepthData());
+                }
+            }
+
+            @Override
+            public void onKline(KlineWebSocketData data) {
+            }
+
+            @Override
+            public void onAuth(int code, String msg) {
+            }
+
+            @Override
+            public void onSubscribe(int code, String msg) {
+            }
+
+            @Override
+            public void onPong(int code, String msg) {
+            }
+        };
+
+        try {
+            // 预热
+            feed(decoder, listener, payloads, frames, probe, 0, warmup, rate);
+            probe.awaitReceived(warmup);
+            probe.histogram.reset();
+
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long ingestThread = Thread.currentThread().getId();
+            long dispatchThread = probe.dispatchThread;
+            long ingestAllocated = threads.getThreadAllocatedBytes(ingestThread);
+            long dispatchAllocated = threads.getThreadAllocatedBytes(dispatchThread);
+
+            long start = System.nanoTime();
+            feed(decoder, listener, payloads, frames, probe, warmup, messages, rate);
+            probe.awaitReceived(warmup + messages);
+            long elapsed = System.nanoTime() - start;
+
+            ingestAllocated = threads.getThreadAllocatedBytes(ingestThread) - ingestAllocated;
+            dispatchAllocated = threads.getThreadAllocatedBytes(dispatchThread) - dispatchAllocated;
+
+            System.out.printf("[%s] 分发模式: %s，帧类型: %s，消息数: %d，目标速率: %s%n", type, options.get("dispatch"),
+                    options.get("frame"), messages, rate > 0 ? rate + " 条/秒" : "不限");
+            System.out.printf("  吞吐量: %,.0f 条/秒%n", messages * 1e9 / elapsed);
+            System.out.printf("  延迟(微秒): p50=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                    probe.histogram.percentile(50) / 1e3, probe.histogram.percentile(99) / 1e3,
+                    probe.histogram.percentile(99.9) / 1e3, probe.histogram.getMax() / 1e3);
+            if (ingestThread == dispatchThread) {
+                System.out.printf("  分配(字节/条): %.1f%n", (double) ingestAllocated / messages);
+            } else {
+                System.out.printf("  分配(字节/条): 接收线程 %.1f，分发线程 %.1f%n",
+                        (double) ingestAllocated / messages, (double) dispatchAllocated / messages);
+            }
+        } finally {
+            quotes.close();
+            ticks.close();
+            depth.close();
+        }
+    }
+
+    /**
+     * 依次解码消息
+     * 指定速率时按计划时间发送，延迟从计划时间开始计算，接收端跟不上时排队时间会计入延迟
+     */
+    private static void feed(MarketDataDecoder decoder, MarketDataDecoder.Listener listener, String[] payloads,
+                             byte[][] frames, Probe probe, long from, long count, long rate) {
+        long start = System.nanoTime();
+        double interval = rate > 0 ? 1e9 / rate : 0;
+        for (long n = from; n < from + count; n++) {
+            int index = (int) (n & MASK);
+            if (rate > 0) {
+                long due = start + (long) ((n - from) * interval);
+                while (System.nanoTime() < due) {
+                    Thread.onSpinWait();
+                }
+                probe.stamps[index] = due;
+            } else {
+                probe.stamps[index] = System.nanoTime();
+            }
+            try {
+                if (frames != null) {
+                    decoder.decode(frames[index], 0, frames[index].length, listener);
+                } else {
+                    decoder.decode(payloads[index], listener);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("解码失败: " + payloads[index], e);
+            }
+        }
+    }
+
+    private static <T> MarketDataChannel<T> createChannel(String name, Function<? super T, String> symbolExtractor,
+                                                          Map<String, String> options) {
+        if ("inline".equals(options.get("dispatch"))) {
+            return new InlineMarketDataChannel<>(symbolExtractor);
+        }
+        return new RingBufferMarketDataChannel<>("bench-" + name, symbolExtractor,
+                Integer.parseInt(options.get("buffer-size")), WaitStrategies.of(options.get("wait-strategy")), false);
+    }
+
+    /**
+     * 订阅者端的测量
+     * 环形缓冲区容量小于预生成消息数，订阅者落后时生产者会等待，时间戳不会在读取前被覆盖
+     */
+    private static final class Probe {
+        private final long[] stamps = new long[PAYLOADS];
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong received = new AtomicLong();
+        private volatile long dispatchThread = -1;
+
+        void onMessage(long marker) {
+            histogram.record(System.nanoTime() - stamps[(int) (marker & MASK)]);
+            if (dispatchThread < 0) {
+                dispatchThread = Thread.currentThread().getId();
+            }
+            received.lazySet(received.get() + 1);
+        }
+
+        void awaitReceived(long count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+            while (received.get() < count) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("等待订阅者超时，已收到: " + received.get());
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.itick.client.bench;
+
+import java.util.Arrays;
+
+/**
+ * 延迟直方图
+ * 按对数分桶（每个2的幂区间再细分为32个线性子桶，相对误差不超过1/32），记录时不分配对象。
+ *
+ * 非线程安全，只能由一个线程记录。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * HALF + HALF];
+    private long total;
+    private long max;
+
+    /**
+     * 记录一个延迟值（纳秒）
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexOf(value)]++;
+        total++;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * 小于64的值每个值一个桶，更大的值按最高位所在区间分组，每组32个桶
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return HALF * shift + (int) (value >>> shift);
+    }
+
+    private static long valueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        return (long) (index - HALF * shift) << shift;
+    }
+
+    /**
+     * 分位数对应的延迟（纳秒），取所在桶的下界
+     *
+     * @param percentile 百分位，例如99.9
+     */
+    public long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return valueOf(i);
+            }
+        }
+        return max;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+}
@@ -0,0 +1,131 @@
+package com.itick.client.bench;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.model.websocket.DepthData;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import com.itick.client.websocket.DepthLevels;
+import com.itick.client.websocket.MarketDataDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MarketDataDecoder与JsonNode树解码的对比
+ * tree为流式解码器引入之前的实现：readTree构建整棵树，按resAc / data.type路由后再treeToValue转换为数据模型；
+ * streaming和streamingBytes为MarketDataDecoder分别解码String和UTF-8字节。
+ *
+ * 运行方式：mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *   -Dexec.args="-cp %classpath org.openjdk.jmh.Main MarketDataDecoderBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarketDataDecoderBenchmark {
+
+    @Param({"quote", "tick", "depth"})
+    public String type;
+
+    @Param({"10"})
+    public int depthLevels;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private MarketDataDecoder decoder;
+    private String payload;
+    private byte[] bytes;
+    private MarketDataDecoder.Listener listener;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        listener = new BlackholeListener(blackhole);
+        decoder = new MarketDataDecoder(objectMapper.getFactory());
+        payload = new SyntheticMarketData(depthLevels).next("ETHUSDT$ba", type, System.currentTimeMillis(), 1);
+        bytes = payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void streaming() throws Exception {
+        decoder.decode(payload, listener);
+    }
+
+    @Benchmark
+    public void streamingBytes() throws Exception {
+        decoder.decode(bytes, 0, bytes.length, listener);
+    }
+
+    @Benchmark
+    public Object tree() throws Exception {
+        JsonNode rootNode = objectMapper.readTree(payload);
+        JsonNode dataNode = rootNode.path("data");
+        switch (dataNode.path("type").asText()) {
+            case "quote":
+                return objectMapper.treeToValue(dataNode, QuoteData.class);
+            case "tick":
+                return objectMapper.treeToValue(dataNode, TickData.class);
+            case "depth":
+                return objectMapper.treeToValue(dataNode, DepthData.class);
+            default:
+                return dataNode.has("k") ? objectMapper.treeToValue(dataNode, KlineWebSocketData.class) : null;
+        }
+    }
+
+    /**
+     * 把解码结果交给Blackhole，避免被JIT消除
+     */
+    private record BlackholeListener(Blackhole blackhole) implements MarketDataDecoder.Listener {
+
+        @Override
+        public void onAuth(int code, String msg) {
+            blackhole.consume(code);
+        }
+
+        @Override
+        public void onSubscribe(int code, String msg) {
+            blackhole.consume(code);
+        }
+
+        @Override
+        public void onPong(int code, String msg) {
+            blackhole.consume(code);
+        }
+
+        @Override
+        public void onQuote(QuoteData data) {
+            blackhole.consume(data);
+        }
+
+        @Override
+        public void onTick(TickData data) {
+            blackhole.consume(data);
+        }
+
+        @Override
+        public void onDepth(DepthLevels levels) {
+            blackhole.consume(levels);
+        }
+
+        @Override
+        public void onKline(KlineWebSocketData data) {
+            blackhole.consume(data);
+        }
+    }
+}
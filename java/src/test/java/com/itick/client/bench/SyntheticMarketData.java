@@ -0,0 +1,76 @@
+package com.itick.client.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 合成行情数据生成器
+ * 按iTick WebSocket推送的消息格式生成报价、成交和盘口消息，价格按随机游走变化。
+ *
+ * 非线程安全，每个生成线程使用独立的实例。
+ */
+public class SyntheticMarketData {
+
+    private final int depthLevels;
+    private final StringBuilder builder = new StringBuilder(512);
+    private double price = 100;
+
+    public SyntheticMarketData(int depthLevels) {
+        this.depthLevels = depthLevels;
+    }
+
+    /**
+     * 生成一条消息
+     *
+     * @param symbol 产品代码
+     * @param type 数据类型：quote、tick、depth
+     * @param timestamp 时间戳
+     * @param marker 写入消息的附加数值（成交量或第一档订单数），压测时用于标识消息
+     * @return 消息内容，未知的数据类型返回null
+     */
+    public String next(String symbol, String type, long timestamp, long marker) {
+        price = Math.max(1, price + ThreadLocalRandom.current().nextDouble(-0.05, 0.05));
+        builder.setLength(0);
+        builder.append("{\"code\":1,\"data\":{\"s\":\"").append(symbol).append('"');
+        switch (type) {
+            case "quote":
+                builder.append(",\"ld\":").append(price)
+                        .append(",\"o\":").append(price - 1)
+                        .append(",\"h\":").append(price + 1)
+                        .append(",\"l\":").append(price - 2)
+                        .append(",\"t\":").append(timestamp)
+                        .append(",\"v\":").append(marker)
+                        .append(",\"tu\":").append(price * marker)
+                        .append(",\"ts\":0");
+                break;
+            case "tick":
+                builder.append(",\"ld\":").append(price)
+                        .append(",\"v\":").append(marker)
+                        .append(",\"t\":").append(timestamp);
+                break;
+            case "depth":
+                builder.append(",\"a\":[");
+                appendLevels(price + 0.01, 0.01, marker);
+                builder.append("],\"b\":[");
+                appendLevels(price - 0.01, -0.01, marker);
+                builder.append(']');
+                break;
+            default:
+                return null;
+        }
+        builder.append(",\"type\":\"").append(type).append("\"}}");
+        return builder.toString();
+    }
+
+    private void appendLevels(double first, double step, long marker) {
+        for (int i = 0; i < depthLevels; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"po\":").append(i + 1)
+                    .append(",\"p\":").append(first + step * i)
+                    .append(",\"v\":").append(10 + i)
+                    .append(",\"o\":").append(i == 0 ? marker : i)
+                    .append('}');
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.itick.client.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConflatingBufferTest {
+
+    private record Update(String symbol, long sequence) {
+    }
+
+    @Test
+    void drainDeliversLatestValuePerSymbol() {
+        ConflatingBuffer<Update> buffer = new ConflatingBuffer<>(Update::symbol);
+        buffer.offer(new Update("A", 1));
+        buffer.offer(new Update("B", 1));
+        buffer.offer(new Update("A", 2));
+
+        List<Update> delivered = new ArrayList<>();
+        assertEquals(2, buffer.drain(delivered::add));
+        assertEquals(List.of(new Update("A", 2), new Update("B", 1)), delivered);
+        assertFalse(buffer.hasPending());
+        assertEquals(0, buffer.drain(delivered::add));
+        assertEquals(3, buffer.getUpdates());
+        assertEquals(2, buffer.getDelivered());
+    }
+
+    @Test
+    void boundedDrainKeepsRemainingSymbolsPending() {
+        ConflatingBuffer<Update> buffer = new ConflatingBuffer<>(Update::symbol);
+        // 跨越多个页
+        int symbols = 3000;
+        for (int i = 0; i < symbols; i++) {
+            buffer.offer(new Update("SYM" + i, 1));
+        }
+
+        Set<String> delivered = new HashSet<>();
+        int rounds = 0;
+        while (buffer.hasPending()) {
+            int count = buffer.drain(update -> assertTrue(delivered.add(update.symbol()), "重复交付: " + update), 700);
+            assertTrue(count <= 700);
+            rounds++;
+        }
+        assertEquals(symbols, delivered.size());
+        assertEquals(5, rounds);
+        assertEquals(0, buffer.drain(update -> {
+        }, 700));
+    }
+
+    @Test
+    void boundedDrainDeliversUpdatesArrivingBetweenCalls() {
+        ConflatingBuffer<Update> buffer = new ConflatingBuffer<>(Update::symbol);
+        buffer.offer(new Update("A", 1));
+        buffer.offer(new Update("B", 1));
+
+        List<Update> delivered = new ArrayList<>();
+        assertEquals(1, buffer.drain(delivered::add, 1));
+        buffer.offer(new Update("A", 2));
+        buffer.offer(new Update("B", 2));
+        assertEquals(2, buffer.drain(delivered::add, 10));
+        assertEquals(List.of(new Update("A", 1), new Update("A", 2), new Update("B", 2)), delivered);
+        assertFalse(buffer.hasPending());
+    }
+
+    @Test
+    void cancelledBufferIgnoresOffers() {
+        ConflatingBuffer<Update> buffer = new ConflatingBuffer<>(Update::symbol);
+        buffer.cancel();
+        buffer.offer(new Update("A", 1));
+        assertFalse(buffer.hasPending());
+        assertFalse(buffer.isActive());
+    }
+
+    @Test
+    void startedBufferPushesLatestValues() throws Exception {
+        ConflatingBuffer<Update> buffer = new ConflatingBuffer<>(Update::symbol);
+        Map<String, Long> latest = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(2);
+        buffer.start("test", update -> {
+            latest.put(update.symbol(), update.sequence());
+            if (update.sequence() == 100) {
+                done.countDown();
+            }
+        });
+
+        for (long sequence = 1; sequence <= 100; sequence++) {
+            buffer.offer(new Update("A", sequence));
+            buffer.offer(new Update("B", sequence));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Map.of("A", 100L, "B", 100L), latest);
+        buffer.cancel();
+    }
+
+    @Test
+    void startedBufferWakesUpForUpdatesAfterIdling() throws Exception {
+        ConflatingBuffer<Update> buffer = new ConflatingBuffer<>(Update::symbol);
+        AtomicReference<CountDownLatch> received = new AtomicReference<>(new CountDownLatch(1));
+        buffer.start("test", update -> received.get().countDown());
+
+        // 每次写入前推送线程都已空闲等待，只能由offer唤醒
+        for (int i = 1; i <= 20; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            CountDownLatch latch = new CountDownLatch(1);
+            received.set(latch);
+            buffer.offer(new Update("A", i));
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "第 " + i + " 次写入未被交付");
+        }
+        buffer.cancel();
+    }
+
+    /**
+     * 多个线程同时写入，一个线程按随机上限反复drain：
+     * 每个产品交付的序号严格递增（不会交付旧值或重复交付），写入结束后最后交付的是最新值
+     */
+    @Test
+    void concurrentOfferAndDrain() throws Exception {
+        ConflatingBuffer<Update> buffer = new ConflatingBuffer<>(Update::symbol);
+        int writers = 4;
+        int symbolsPerWriter = 300;
+        int updatesPerSymbol = 2000;
+
+        Map<String, Long> lastSequence = new HashMap<>();
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread drainer = new Thread(() -> {
+            while (writing.get() || buffer.hasPending()) {
+                buffer.drain(update -> {
+                    Long previous = lastSequence.put(update.symbol(), update.sequence());
+                    if (previous != null && previous >= update.sequence()) {
+                        failure.compareAndSet(null, update.symbol() + ": " + previous + " -> " + update.sequence());
+                    }
+                }, ThreadLocalRandom.current().nextInt(1, 500));
+            }
+        });
+        drainer.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                for (long sequence = 1; sequence <= updatesPerSymbol; sequence++) {
+                    for (int i = 0; i < symbolsPerWriter; i++) {
+                        buffer.offer(new Update("W" + writer + "-" + i, sequence));
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writing.set(false);
+        drainer.join();
+
+        assertNull(failure.get());
+        assertEquals(writers * symbolsPerWriter, lastSequence.size());
+        lastSequence.forEach((symbol, sequence) -> assertEquals(updatesPerSymbol, sequence, symbol));
+        assertEquals((long) writers * symbolsPerWriter * updatesPerSymbol, buffer.getUpdates());
+        assertTrue(buffer.getDelivered() <= buffer.getUpdates());
+    }
+}
@@ -0,0 +1,125 @@
+package com.itick.client.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscriberRegistryTest {
+
+    private final SubscriberRegistry<String> registry = new SubscriberRegistry<>();
+
+    @Test
+    void routesOnlyToSubscribersOfTheSymbol() {
+        List<String> all = new ArrayList<>();
+        List<String> apple = new ArrayList<>();
+        List<String> tencent = new ArrayList<>();
+        registry.register(all::add, SymbolFilter.all());
+        registry.register(apple::add, SymbolFilter.of("AAPL"));
+        registry.register(tencent::add, SymbolFilter.of("700", "9988"));
+
+        registry.dispatch("a1", "AAPL");
+        registry.dispatch("t1", "700");
+        registry.dispatch("x1", "MSFT");
+        registry.dispatch("n1", null);
+
+        assertEquals(List.of("a1", "t1", "x1", "n1"), all);
+        assertEquals(List.of("a1"), apple);
+        assertEquals(List.of("t1"), tencent);
+    }
+
+    @Test
+    void prefixAndSuffixFilters() {
+        List<String> hongKong = new ArrayList<>();
+        List<String> shares = new ArrayList<>();
+        registry.register(hongKong::add, SymbolFilter.suffix("$hk"));
+        registry.register(shares::add, SymbolFilter.prefix("600"));
+
+        registry.dispatch("h1", "700$hk");
+        registry.dispatch("s1", "600519");
+        registry.dispatch("x1", "AAPL");
+
+        assertEquals(List.of("h1"), hongKong);
+        assertEquals(List.of("s1"), shares);
+    }
+
+    @Test
+    void subscriberAddedAfterSymbolWasRoutedReceivesIt() {
+        List<String> first = new ArrayList<>();
+        List<String> late = new ArrayList<>();
+        registry.register(first::add, SymbolFilter.of("AAPL"));
+        registry.dispatch("a1", "AAPL");
+
+        registry.register(late::add, SymbolFilter.of("AAPL"));
+        registry.dispatch("a2", "AAPL");
+
+        assertEquals(List.of("a1", "a2"), first);
+        assertEquals(List.of("a2"), late);
+    }
+
+    @Test
+    void cancelledSubscriberStopsReceiving() {
+        List<String> received = new ArrayList<>();
+        AtomicInteger hookRuns = new AtomicInteger();
+        SubscriberRegistry.Registration<String> registration = registry.register(received::add, SymbolFilter.all());
+        registration.onCancel(hookRuns::incrementAndGet);
+
+        registry.dispatch("before", "AAPL");
+        registration.cancel();
+        registration.cancel();
+        registry.dispatch("after", "AAPL");
+
+        assertEquals(List.of("before"), received);
+        assertFalse(registration.isActive());
+        assertEquals(1, hookRuns.get());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void cancelKeepsOtherSubscribers() {
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        List<String> third = new ArrayList<>();
+        registry.register(first::add, SymbolFilter.all());
+        Subscription middle = registry.register(second::add, SymbolFilter.all());
+        registry.register(third::add, SymbolFilter.all());
+
+        middle.cancel();
+        registry.dispatch("x", "AAPL");
+
+        assertEquals(List.of("x"), first);
+        assertTrue(second.isEmpty());
+        assertEquals(List.of("x"), third);
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void failingSubscriberDoesNotStopDispatch() {
+        List<String> received = new ArrayList<>();
+        registry.register(data -> {
+            throw new IllegalStateException("boom");
+        }, SymbolFilter.all());
+        registry.register(received::add, SymbolFilter.all());
+
+        registry.dispatch("x", "AAPL");
+
+        assertEquals(List.of("x"), received);
+    }
+
+    @Test
+    void clearCancelsEverySubscription() {
+        Subscription first = registry.register(data -> { }, SymbolFilter.all());
+        Subscription second = registry.register(data -> { }, SymbolFilter.of("AAPL"));
+
+        registry.clear();
+
+        assertFalse(first.isActive());
+        assertFalse(second.isActive());
+        assertEquals(0, registry.size());
+    }
+}
@@ -0,0 +1,192 @@
+package com.itick.client.journal;
+
+import com.itick.client.model.websocket.TickData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JournalWriterTest {
+
+    // 每个日志段4条记录
+    private static final long SEGMENT_BYTES = JournalSegment.HEADER_SIZE
+            + 4L * (JournalSegment.RECORD_HEADER_SIZE + MarketDataCodecs.TICK.payloadSize());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rollsOverWhenSegmentIsFull() throws IOException {
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 0)) {
+            for (int i = 1; i <= 10; i++) {
+                assertEquals(i, writer.append(tick("SYM" + i, i), 1000 + i));
+            }
+            assertEquals(11, writer.getNextSequence());
+        }
+
+        List<Path> files = JournalFiles.list(dir);
+        assertEquals(3, files.size());
+        assertEquals(List.of(1L, 5L, 9L), files.stream().map(JournalFiles::firstSequenceOf).toList());
+
+        List<TickData> ticks = readAll(1);
+        assertEquals(10, ticks.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("SYM" + (i + 1), ticks.get(i).getS());
+            assertEquals(i + 1, ticks.get(i).getV());
+        }
+    }
+
+    @Test
+    void rollsOverAfterInterval() throws IOException {
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 1000)) {
+            writer.append(tick("A", 1), 0);
+            writer.append(tick("A", 2), 999);
+            writer.append(tick("A", 3), 1000);
+        }
+        assertEquals(List.of(1L, 3L), JournalFiles.list(dir).stream().map(JournalFiles::firstSequenceOf).toList());
+        assertEquals(3, readAll(1).size());
+    }
+
+    @Test
+    void readerStartsFromRequestedSequence() throws IOException {
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 0)) {
+            for (int i = 1; i <= 10; i++) {
+                writer.append(tick("A", i), i);
+            }
+        }
+        try (JournalReader<TickData> reader = new JournalReader<>(dir, MarketDataCodecs.TICK, 6)) {
+            JournalRecord<TickData> record = reader.poll();
+            assertEquals(6, record.getSequence());
+            assertEquals(6, record.getReceivedAt());
+            assertEquals("A", record.getSymbol());
+        }
+    }
+
+    @Test
+    void readerPicksUpRecordsAppendedLater() throws IOException {
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 0);
+             JournalReader<TickData> reader = new JournalReader<>(dir, MarketDataCodecs.TICK, 1)) {
+            assertNull(reader.poll());
+            writer.append(tick("A", 1), 1);
+            assertEquals(1, reader.poll().getSequence());
+            assertNull(reader.poll());
+            // 写满第一个日志段并切换到新的日志段
+            for (int i = 2; i <= 6; i++) {
+                writer.append(tick("A", i), i);
+            }
+            for (int i = 2; i <= 6; i++) {
+                assertEquals(i, reader.poll().getSequence());
+            }
+            assertNull(reader.poll());
+        }
+    }
+
+    @Test
+    void readerWaitsAtFullSegmentUntilWriterRolls() throws IOException {
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 0);
+             JournalReader<TickData> reader = new JournalReader<>(dir, MarketDataCodecs.TICK, 1);
+             JournalReader<TickData> late = new JournalReader<>(dir, MarketDataCodecs.TICK, 5)) {
+            for (int i = 1; i <= 4; i++) {
+                writer.append(tick("A", i), i);
+                assertEquals(i, reader.poll().getSequence());
+            }
+            // 第一个日志段已写满，写入方在下一次追加时才创建新的日志段
+            assertNull(reader.poll());
+            assertNull(reader.poll());
+            assertNull(late.poll());
+            assertNull(late.poll());
+
+            writer.append(tick("A", 5), 5);
+            assertEquals(5, reader.poll().getSequence());
+            assertEquals(5, late.poll().getSequence());
+            assertNull(reader.poll());
+        }
+    }
+
+    @Test
+    void symbolsAreEncodedAsUtf8AndOverlongSymbolsAreRejected() throws IOException {
+        String ascii = "A".repeat(JournalSegment.MAX_SYMBOL_LENGTH);
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 0)) {
+            assertEquals(1, writer.append(tick("腾讯控股", 1), 1));
+            assertEquals(2, writer.append(tick(ascii, 2), 2));
+            assertEquals(-1, writer.append(tick(ascii + "B", 3), 3));
+            // 11个汉字编码后为33字节
+            assertEquals(-1, writer.append(tick("腾".repeat(11), 4), 4));
+            assertEquals(3, writer.append(tick(null, 5), 5));
+            assertEquals(2, writer.getRejected());
+        }
+
+        List<TickData> ticks = readAll(1);
+        assertEquals(List.of(1L, 2L, 5L), ticks.stream().map(TickData::getV).toList());
+        assertEquals("腾讯控股", ticks.get(0).getS());
+        assertEquals(ascii, ticks.get(1).getS());
+        assertNull(ticks.get(2).getS());
+    }
+
+    @Test
+    void recoversSequenceAfterRestart() throws IOException {
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 0)) {
+            writer.append(tick("A", 1), 1);
+            writer.append(tick("A", 2), 2);
+        }
+
+        // 重启后结束原日志段，新记录写入新的日志段
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 0)) {
+            assertEquals(3, writer.getNextSequence());
+            assertEquals(3, writer.append(tick("B", 3), 3));
+        }
+        assertEquals(List.of(1L, 3L), JournalFiles.list(dir).stream().map(JournalFiles::firstSequenceOf).toList());
+
+        List<TickData> ticks = readAll(1);
+        assertEquals(List.of(1L, 2L, 3L), ticks.stream().map(TickData::getV).toList());
+        assertEquals("B", ticks.get(2).getS());
+    }
+
+    @Test
+    void recoveryDiscardsEmptyTrailingSegment() throws IOException {
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 0)) {
+            writer.append(tick("A", 1), 1);
+            writer.append(tick("A", 2), 2);
+        }
+        // 模拟切换日志段时进程退出：原日志段已结束，新日志段还没有写入记录
+        try (JournalSegment first = JournalSegment.open(JournalFiles.list(dir).get(0), true)) {
+            first.commit(2, JournalSegment.END_OF_SEGMENT);
+        }
+        int recordSize = JournalSegment.RECORD_HEADER_SIZE + MarketDataCodecs.TICK.payloadSize();
+        JournalSegment.create(dir, recordSize, 4, 3, 0).close();
+        assertEquals(2, JournalFiles.list(dir).size());
+
+        try (JournalWriter<TickData> writer = new JournalWriter<>(dir, MarketDataCodecs.TICK, SEGMENT_BYTES, 0)) {
+            assertEquals(3, writer.getNextSequence());
+            assertEquals(1, JournalFiles.list(dir).size());
+            writer.append(tick("A", 3), 3);
+        }
+        assertEquals(List.of(1L, 2L, 3L), readAll(1).stream().map(TickData::getV).toList());
+    }
+
+    private List<TickData> readAll(long fromSequence) throws IOException {
+        List<TickData> ticks = new ArrayList<>();
+        try (JournalReader<TickData> reader = new JournalReader<>(dir, MarketDataCodecs.TICK, fromSequence)) {
+            JournalRecord<TickData> record;
+            while ((record = reader.poll()) != null) {
+                ticks.add(record.decode());
+            }
+        }
+        return ticks;
+    }
+
+    private static TickData tick(String symbol, long volume) {
+        TickData tick = new TickData();
+        tick.setS(symbol);
+        tick.setLd(100 + volume);
+        tick.setV(volume);
+        tick.setT(volume);
+        return tick;
+    }
+}
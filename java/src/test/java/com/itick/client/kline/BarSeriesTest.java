@@ -0,0 +1,114 @@
+package com.itick.client.kline;
+
+import com.itick.client.model.KlineData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BarSeriesTest {
+
+    private static final long PERIOD = KlineType.MINUTE_1.getDurationMillis();
+
+    @Test
+    void tradesInTheSamePeriodUpdateTheCurrentBar() {
+        BarSeries series = new BarSeries("AAPL", KlineType.MINUTE_1, 8);
+
+        assertEquals(BarSeries.UPDATED, series.apply(0, 10.0, 100, 1000.0));
+        assertEquals(BarSeries.UPDATED, series.apply(0, 12.0, 50, 600.0));
+        assertEquals(BarSeries.UPDATED, series.apply(0, 9.0, 10, 90.0));
+        assertEquals(BarSeries.UPDATED, series.apply(0, 11.0, 5, 55.0));
+
+        LiveBar bar = series.view(0);
+        assertEquals(1, series.size());
+        assertEquals(10.0, bar.getO());
+        assertEquals(12.0, bar.getH());
+        assertEquals(9.0, bar.getL());
+        assertEquals(11.0, bar.getC());
+        assertEquals(165, bar.getV());
+        assertEquals(1745.0, bar.getTu());
+        assertFalse(bar.isClosed());
+    }
+
+    @Test
+    void newPeriodOpensBarAndOlderTradesAreIgnored() {
+        BarSeries series = new BarSeries("AAPL", KlineType.MINUTE_1, 8);
+        series.apply(0, 10.0, 1, 10.0);
+
+        assertEquals(BarSeries.OPENED, series.apply(PERIOD, 11.0, 2, 22.0));
+        assertEquals(BarSeries.IGNORED, series.apply(0, 99.0, 1, 99.0));
+
+        assertEquals(2, series.size());
+        assertEquals(11.0, series.view(0).getC());
+        LiveBar previous = series.view(1);
+        assertEquals(0, previous.getT());
+        assertEquals(10.0, previous.getC());
+        assertTrue(previous.isClosed());
+    }
+
+    @Test
+    void ringKeepsTheMostRecentBars() {
+        BarSeries series = new BarSeries("AAPL", KlineType.MINUTE_1, 3);
+        for (int i = 0; i < 5; i++) {
+            series.apply(i * PERIOD, i, 1, i);
+        }
+
+        List<KlineData> bars = series.copy(10);
+
+        assertEquals(3, series.size());
+        assertEquals(List.of(2 * PERIOD, 3 * PERIOD, 4 * PERIOD), bars.stream().map(KlineData::getT).toList());
+        assertEquals(List.of(3 * PERIOD, 4 * PERIOD), series.copy(2).stream().map(KlineData::getT).toList());
+    }
+
+    @Test
+    void seedPrependsHistoryAndMergesTheFirstLiveBar() {
+        BarSeries series = new BarSeries("AAPL", KlineType.MINUTE_1, 8);
+        series.apply(2 * PERIOD, 20.0, 5, 100.0);
+        series.apply(3 * PERIOD, 21.0, 1, 21.0);
+
+        series.seed(List.of(bar(2 * PERIOD, 19.0, 25.0, 18.0, 50, 1000.0),
+                bar(0, 10.0, 11.0, 9.0, 7, 70.0),
+                bar(PERIOD, 12.0, 13.0, 11.0, 8, 80.0)));
+
+        assertTrue(series.isSeeded());
+        List<KlineData> bars = series.copy(10);
+        assertEquals(List.of(0L, PERIOD, 2 * PERIOD, 3 * PERIOD), bars.stream().map(KlineData::getT).toList());
+        KlineData merged = bars.get(2);
+        assertEquals(19.0, merged.getO());
+        assertEquals(25.0, merged.getH());
+        assertEquals(18.0, merged.getL());
+        assertEquals(20.0, merged.getC());
+        assertEquals(50, merged.getV());
+        assertEquals(1000.0, merged.getTu());
+
+        assertEquals(BarSeries.UPDATED, series.apply(3 * PERIOD, 22.0, 1, 22.0));
+        assertEquals(22.0, series.view(0).getC());
+    }
+
+    @Test
+    void seedKeepsOnlyCapacityBars() {
+        BarSeries series = new BarSeries("AAPL", KlineType.MINUTE_1, 2);
+        series.apply(5 * PERIOD, 50.0, 1, 50.0);
+
+        series.seed(List.of(bar(3 * PERIOD, 30, 30, 30, 1, 30), bar(4 * PERIOD, 40, 40, 40, 1, 40)));
+
+        assertEquals(List.of(4 * PERIOD, 5 * PERIOD), series.copy(10).stream().map(KlineData::getT).toList());
+        assertEquals(BarSeries.OPENED, series.apply(6 * PERIOD, 60.0, 1, 60.0));
+        assertEquals(List.of(5 * PERIOD, 6 * PERIOD), series.copy(10).stream().map(KlineData::getT).toList());
+    }
+
+    private static KlineData bar(long t, double o, double h, double l, int v, double tu) {
+        KlineData bar = new KlineData();
+        bar.setT(t);
+        bar.setO(o);
+        bar.setH(h);
+        bar.setL(l);
+        bar.setC(o);
+        bar.setV(v);
+        bar.setTu(tu);
+        return bar;
+    }
+}
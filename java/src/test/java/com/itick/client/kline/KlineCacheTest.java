@@ -0,0 +1,150 @@
+package com.itick.client.kline;
+
+import com.itick.client.model.KlineData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KlineCacheTest {
+
+    private static final long PERIOD = KlineType.MINUTE_1.getDurationMillis();
+    private static final KlineKey KEY = new KlineKey("US", "AAPL", KlineType.MINUTE_1.getCode());
+
+    private final KlineCache cache = new KlineCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSeries", 1000);
+        ReflectionTestUtils.setField(cache, "maxBars", 2_000_000L);
+        ReflectionTestUtils.setField(cache, "tailTtlMs", 1000L);
+    }
+
+    @Test
+    void missesUntilStored() {
+        KlineCache.Lookup lookup = cache.lookup(KEY, 100 * PERIOD, 10, 1000 * PERIOD);
+
+        assertFalse(lookup.isHit());
+        assertEquals(100 * PERIOD, lookup.getFetchEndTime());
+        assertEquals(10, lookup.getFetchLimit());
+    }
+
+    @Test
+    void hitsInsideCoveredRange() {
+        cache.store(KEY, 100 * PERIOD, 10, 1000 * PERIOD, bars(91, 100));
+
+        KlineCache.Lookup lookup = cache.lookup(KEY, 98 * PERIOD, 5, 1000 * PERIOD);
+
+        assertTrue(lookup.isHit());
+        assertEquals(times(94, 98), startTimes(lookup.getBars()));
+    }
+
+    @Test
+    void fetchesOnlyTheOlderPartAndMergesAdjacentRanges() {
+        cache.store(KEY, 100 * PERIOD, 10, 1000 * PERIOD, bars(91, 100));
+
+        KlineCache.Lookup partial = cache.lookup(KEY, 100 * PERIOD, 15, 1000 * PERIOD);
+        assertFalse(partial.isHit());
+        assertEquals(91 * PERIOD - 1, partial.getFetchEndTime());
+        assertEquals(5, partial.getFetchLimit());
+
+        cache.store(KEY, partial.getFetchEndTime(), partial.getFetchLimit(), 1000 * PERIOD, bars(86, 90));
+
+        KlineCache.Lookup merged = cache.lookup(KEY, 100 * PERIOD, 15, 1000 * PERIOD);
+        assertTrue(merged.isHit());
+        assertEquals(times(86, 100), startTimes(merged.getBars()));
+        assertEquals(15, cache.getBarCount());
+    }
+
+    @Test
+    void disjointRangeReplacesPreviousData() {
+        cache.store(KEY, 100 * PERIOD, 10, 1000 * PERIOD, bars(91, 100));
+
+        cache.store(KEY, 50 * PERIOD, 5, 1000 * PERIOD, bars(46, 50));
+
+        assertEquals(5, cache.getBarCount());
+        assertFalse(cache.lookup(KEY, 100 * PERIOD, 5, 1000 * PERIOD).isHit());
+        assertEquals(times(48, 50), startTimes(cache.lookup(KEY, 50 * PERIOD, 3, 1000 * PERIOD).getBars()));
+    }
+
+    @Test
+    void shortFetchMarksTheStartOfHistory() {
+        cache.store(KEY, 100 * PERIOD, 10, 1000 * PERIOD, bars(98, 100));
+
+        KlineCache.Lookup lookup = cache.lookup(KEY, 100 * PERIOD, 50, 1000 * PERIOD);
+
+        assertTrue(lookup.isHit());
+        assertEquals(times(98, 100), startTimes(lookup.getBars()));
+    }
+
+    @Test
+    void liveQueryUsesFreshTailAndRefreshesStaleTail() {
+        long now = 100 * PERIOD + 30_000;
+        cache.store(KEY, null, 10, now, bars(91, 100));
+
+        KlineCache.Lookup fresh = cache.lookup(KEY, null, 5, now + 500);
+        assertTrue(fresh.isHit());
+        assertEquals(times(96, 100), startTimes(fresh.getBars()));
+
+        KlineCache.Lookup stale = cache.lookup(KEY, null, 5, now + 2 * PERIOD);
+        assertFalse(stale.isHit());
+        assertNull(stale.getFetchEndTime());
+        assertEquals(4, stale.getFetchLimit());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedSeries() {
+        ReflectionTestUtils.setField(cache, "maxSeries", 2);
+        KlineKey first = new KlineKey("US", "A", 1);
+        KlineKey second = new KlineKey("US", "B", 1);
+        KlineKey third = new KlineKey("US", "C", 1);
+        cache.store(first, 10 * PERIOD, 5, 1000 * PERIOD, bars(6, 10));
+        cache.store(second, 10 * PERIOD, 5, 1000 * PERIOD, bars(6, 10));
+        cache.lookup(first, 10 * PERIOD, 5, 1000 * PERIOD);
+
+        cache.store(third, 10 * PERIOD, 5, 1000 * PERIOD, bars(6, 10));
+
+        assertEquals(2, cache.getSeriesCount());
+        assertTrue(cache.lookup(first, 10 * PERIOD, 5, 1000 * PERIOD).isHit());
+        assertFalse(cache.lookup(second, 10 * PERIOD, 5, 1000 * PERIOD).isHit());
+        assertEquals(10, cache.getBarCount());
+    }
+
+    /**
+     * 第from到第to个周期的K线，时间按周期对齐
+     */
+    private static List<KlineData> bars(int from, int to) {
+        List<KlineData> bars = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            KlineData bar = new KlineData();
+            bar.setT(i * PERIOD);
+            bar.setO(i);
+            bar.setH(i + 1);
+            bar.setL(i - 1);
+            bar.setC(i + 0.5);
+            bar.setV(i);
+            bars.add(bar);
+        }
+        return bars;
+    }
+
+    private static List<Long> times(int from, int to) {
+        List<Long> times = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            times.add(i * PERIOD);
+        }
+        return times;
+    }
+
+    private static List<Long> startTimes(List<KlineData> bars) {
+        return bars.stream().map(KlineData::getT).toList();
+    }
+}
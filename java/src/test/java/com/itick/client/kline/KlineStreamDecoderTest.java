@@ -0,0 +1,109 @@
+package com.itick.client.kline;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.itick.client.model.KlineData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KlineStreamDecoderTest {
+
+    private static final String RESPONSE = "{\"code\":0,\"msg\":\"成功\",\"data\":["
+            + "{\"tu\":1.5E7,\"c\":189.5,\"t\":1700000000000,\"v\":12000,\"h\":190.25,\"l\":188.0,\"o\":188.5},"
+            + "{\"t\":1700000060000,\"o\":189.5,\"h\":189.75,\"l\":189.0,\"c\":189.25,\"v\":800,\"tu\":151400.0,"
+            + "\"extra\":{\"t\":1,\"o\":2},\"tags\":[1,2]},"
+            + "{\"t\":1700000120000,\"o\":null,\"c\":189.0}"
+            + "]}";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    void decodesBarsInOneChunk() throws IOException {
+        List<KlineData> bars = new ArrayList<>();
+        KlineStreamDecoder decoder = decode(bars, RESPONSE.getBytes(StandardCharsets.UTF_8).length);
+
+        assertEquals(expected(), bars);
+        assertEquals(0, decoder.getCode());
+        assertEquals("成功", decoder.getMsg());
+        assertEquals(3, decoder.getBars());
+    }
+
+    @Test
+    void resultDoesNotDependOnChunkBoundaries() throws IOException {
+        for (int chunkSize = 1; chunkSize <= 17; chunkSize++) {
+            List<KlineData> bars = new ArrayList<>();
+            KlineStreamDecoder decoder = decode(bars, chunkSize);
+
+            assertEquals(expected(), bars, "chunk size " + chunkSize);
+            assertEquals("成功", decoder.getMsg(), "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    void errorResponseHasNoBars() throws IOException {
+        List<KlineData> bars = new ArrayList<>();
+        KlineStreamDecoder decoder = new KlineStreamDecoder(jsonFactory, sinkInto(bars));
+
+        decoder.feed(ByteBuffer.wrap("{\"code\":429,\"msg\":\"too many requests\",\"data\":null}"
+                .getBytes(StandardCharsets.UTF_8)));
+        decoder.finish();
+
+        assertEquals(429, decoder.getCode());
+        assertEquals("too many requests", decoder.getMsg());
+        assertTrue(bars.isEmpty());
+    }
+
+    @Test
+    void truncatedResponseFailsOnFinish() throws IOException {
+        List<KlineData> bars = new ArrayList<>();
+        KlineStreamDecoder decoder = new KlineStreamDecoder(jsonFactory, sinkInto(bars));
+        byte[] bytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+        decoder.feed(ByteBuffer.wrap(bytes, 0, bytes.length - 30));
+
+        assertThrows(IOException.class, decoder::finish);
+        assertEquals(2, bars.size());
+    }
+
+    private KlineStreamDecoder decode(List<KlineData> bars, int chunkSize) throws IOException {
+        KlineStreamDecoder decoder = new KlineStreamDecoder(jsonFactory, sinkInto(bars));
+        byte[] bytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        for (int from = 0; from < bytes.length; from += chunkSize) {
+            decoder.feed(ByteBuffer.wrap(bytes, from, Math.min(chunkSize, bytes.length - from)));
+        }
+        decoder.finish();
+        return decoder;
+    }
+
+    private static KlineStreamDecoder.BarSink sinkInto(List<KlineData> bars) {
+        return (t, o, h, l, c, v, tu) -> bars.add(bar(t, o, h, l, c, v, tu));
+    }
+
+    private static List<KlineData> expected() {
+        return List.of(
+                bar(1700000000000L, 188.5, 190.25, 188.0, 189.5, 12000, 1.5E7),
+                bar(1700000060000L, 189.5, 189.75, 189.0, 189.25, 800, 151400.0),
+                // null和缺失的字段为0
+                bar(1700000120000L, 0, 0, 0, 189.0, 0, 0));
+    }
+
+    private static KlineData bar(long t, double o, double h, double l, double c, int v, double tu) {
+        KlineData bar = new KlineData();
+        bar.setT(t);
+        bar.setO(o);
+        bar.setH(h);
+        bar.setL(l);
+        bar.setC(c);
+        bar.setV(v);
+        bar.setTu(tu);
+        return bar;
+    }
+}
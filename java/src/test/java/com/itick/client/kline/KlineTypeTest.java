@@ -0,0 +1,90 @@
+package com.itick.client.kline;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KlineTypeTest {
+
+    private static final ZoneOffset HONG_KONG = ZoneOffset.ofHours(8);
+    private static final long HONG_KONG_MILLIS = HONG_KONG.getTotalSeconds() * 1000L;
+
+    @Test
+    void intradayPeriodsAlignToTheirDuration() {
+        long timestamp = millis(LocalDateTime.of(2024, 3, 15, 10, 37, 42), ZoneOffset.UTC);
+
+        assertEquals(millis(LocalDateTime.of(2024, 3, 15, 10, 37), ZoneOffset.UTC),
+                KlineType.MINUTE_1.barStart(timestamp, 0));
+        assertEquals(millis(LocalDateTime.of(2024, 3, 15, 10, 35), ZoneOffset.UTC),
+                KlineType.MINUTE_5.barStart(timestamp, 0));
+        assertEquals(millis(LocalDateTime.of(2024, 3, 15, 10, 30), ZoneOffset.UTC),
+                KlineType.MINUTE_30.barStart(timestamp, 0));
+        assertEquals(millis(LocalDateTime.of(2024, 3, 15, 8, 0), ZoneOffset.UTC),
+                KlineType.HOUR_4.barStart(timestamp, 0));
+    }
+
+    @Test
+    void periodStartIsItsOwnBarStart() {
+        long start = millis(LocalDateTime.of(2024, 3, 15, 10, 35), ZoneOffset.UTC);
+
+        assertEquals(start, KlineType.MINUTE_5.barStart(start, 0));
+        assertEquals(start - KlineType.MINUTE_5.getDurationMillis(), KlineType.MINUTE_5.barStart(start - 1, 0));
+    }
+
+    @Test
+    void dayAlignsToLocalMidnight() {
+        // 香港时间2024-03-16 01:00，UTC仍是3月15日
+        long timestamp = millis(LocalDateTime.of(2024, 3, 16, 1, 0), HONG_KONG);
+
+        assertEquals(millis(LocalDateTime.of(2024, 3, 16, 0, 0), HONG_KONG),
+                KlineType.DAY_1.barStart(timestamp, HONG_KONG_MILLIS));
+        assertEquals(millis(LocalDateTime.of(2024, 3, 15, 0, 0), ZoneOffset.UTC),
+                KlineType.DAY_1.barStart(timestamp, 0));
+    }
+
+    @Test
+    void weekStartsOnMonday() {
+        for (int day = 1; day <= 31; day++) {
+            LocalDate date = LocalDate.of(2024, 3, day);
+            long timestamp = millis(date.atTime(23, 59), HONG_KONG);
+            LocalDate monday = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+            assertEquals(millis(monday.atStartOfDay(), HONG_KONG),
+                    KlineType.WEEK_1.barStart(timestamp, HONG_KONG_MILLIS), date.toString());
+        }
+    }
+
+    @Test
+    void monthStartsOnTheFirstCalendarDay() {
+        LocalDate[] dates = {
+                LocalDate.of(1969, 12, 31), LocalDate.of(1970, 1, 1), LocalDate.of(2000, 2, 29),
+                LocalDate.of(2023, 2, 28), LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 1),
+                LocalDate.of(2024, 12, 31), LocalDate.of(2100, 3, 1)
+        };
+        for (LocalDate date : dates) {
+            long timestamp = millis(date.atTime(12, 0), HONG_KONG);
+
+            assertEquals(millis(date.withDayOfMonth(1).atStartOfDay(), HONG_KONG),
+                    KlineType.MONTH_1.barStart(timestamp, HONG_KONG_MILLIS), date.toString());
+        }
+    }
+
+    @Test
+    void ofMapsApiCodes() {
+        assertEquals(KlineType.MINUTE_1, KlineType.of(1));
+        assertEquals(KlineType.MONTH_1, KlineType.of(10));
+        assertThrows(IllegalArgumentException.class, () -> KlineType.of(0));
+        assertThrows(IllegalArgumentException.class, () -> KlineType.of(11));
+    }
+
+    private static long millis(LocalDateTime dateTime, ZoneOffset offset) {
+        return dateTime.toInstant(offset).toEpochMilli();
+    }
+}
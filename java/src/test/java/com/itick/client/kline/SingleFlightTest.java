@@ -0,0 +1,92 @@
+package com.itick.client.kline;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Test
+    void concurrentCallersShareOneRequest() {
+        Sinks.One<String> upstream = Sinks.one();
+
+        CompletableFuture<String> first = singleFlight.execute("AAPL", () -> request(upstream)).toFuture();
+        CompletableFuture<String> second = singleFlight.execute("AAPL", () -> request(upstream)).toFuture();
+        assertEquals(1, singleFlight.size());
+        assertFalse(first.isDone());
+
+        upstream.tryEmitValue("bars");
+
+        assertEquals("bars", first.join());
+        assertEquals("bars", second.join());
+        assertEquals(1, requests.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        singleFlight.execute("AAPL", () -> request(Mono.never())).subscribe();
+        singleFlight.execute("MSFT", () -> request(Mono.never())).subscribe();
+
+        assertEquals(2, requests.get());
+        assertEquals(2, singleFlight.size());
+    }
+
+    @Test
+    void completedRequestIsNotCached() {
+        assertEquals("1", singleFlight.execute("AAPL", () -> request(Mono.fromCallable(() -> "1"))).block());
+        assertEquals("2", singleFlight.execute("AAPL", () -> request(Mono.fromCallable(() -> "2"))).block());
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void errorReachesEveryCallerAndIsNotCached() {
+        Sinks.One<String> upstream = Sinks.one();
+        CompletableFuture<String> first = singleFlight.execute("AAPL", () -> request(upstream)).toFuture();
+        CompletableFuture<String> second = singleFlight.execute("AAPL", () -> request(upstream)).toFuture();
+
+        upstream.tryEmitError(new IllegalStateException("upstream failed"));
+
+        assertInstanceOf(IllegalStateException.class, assertThrows(CompletionException.class, first::join).getCause());
+        assertInstanceOf(IllegalStateException.class, assertThrows(CompletionException.class, second::join).getCause());
+        assertEquals(0, singleFlight.size());
+        assertEquals("retry", singleFlight.execute("AAPL", () -> request(Mono.just("retry"))).block());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void cancellingOneCallerKeepsTheSharedRequest() {
+        Sinks.One<String> upstream = Sinks.one();
+        Disposable cancelled = singleFlight.execute("AAPL", () -> request(upstream)).subscribe();
+        CompletableFuture<String> remaining = singleFlight.execute("AAPL", () -> request(upstream)).toFuture();
+
+        cancelled.dispose();
+        upstream.tryEmitValue("bars");
+
+        assertEquals("bars", remaining.join());
+        assertEquals(1, requests.get());
+    }
+
+    private Mono<String> request(Sinks.One<String> upstream) {
+        return request(upstream.asMono());
+    }
+
+    private Mono<String> request(Mono<String> source) {
+        requests.incrementAndGet();
+        return source;
+    }
+}
@@ -0,0 +1,120 @@
+package com.itick.client.orderbook;
+
+import com.itick.client.model.websocket.DepthData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderBookTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void spreadAndBestPrices() {
+        OrderBook book = new OrderBook("AAPL", 10);
+
+        book.update(depth(levels(1, 100.0, 5, 2, 100.5, 10), levels(1, 100.2, 7, 2, 100.3, 3)));
+
+        assertEquals(100.0, book.getBestBid(), EPSILON);
+        assertEquals(100.2, book.getBestAsk(), EPSILON);
+        assertEquals(0.2, book.getSpread(), EPSILON);
+    }
+
+    @Test
+    void spreadIsNaNWhenOneSideIsEmpty() {
+        OrderBook book = new OrderBook("AAPL", 10);
+
+        book.update(depth(levels(1, 100.0, 5), null));
+
+        assertTrue(Double.isNaN(book.getSpread()));
+        assertTrue(Double.isNaN(book.getBestAsk()));
+    }
+
+    @Test
+    void cumulativeVolumeIsCappedByDepth() {
+        OrderBook book = new OrderBook("AAPL", 10);
+
+        book.update(depth(levels(1, 99.9, 5, 2, 99.8, 10, 3, 99.7, 20), null));
+
+        assertEquals(5, book.getCumulativeVolume(OrderBook.Side.BID, 1), EPSILON);
+        assertEquals(15, book.getCumulativeVolume(OrderBook.Side.BID, 2), EPSILON);
+        assertEquals(35, book.getCumulativeVolume(OrderBook.Side.BID, 100), EPSILON);
+        assertEquals(0, book.getCumulativeVolume(OrderBook.Side.ASK, 5), EPSILON);
+    }
+
+    @Test
+    void vwapWalksLevelsUntilFilled() {
+        OrderBook book = new OrderBook("AAPL", 10);
+
+        book.update(depth(null, levels(1, 10.0, 5, 2, 11.0, 10, 3, 12.0, 100)));
+
+        assertEquals(10.0, book.getVwap(OrderBook.Side.ASK, 5), EPSILON);
+        assertEquals((5 * 10.0 + 5 * 11.0) / 10, book.getVwap(OrderBook.Side.ASK, 10), EPSILON);
+        assertEquals((5 * 10.0 + 10 * 11.0 + 5 * 12.0) / 20, book.getVwap(OrderBook.Side.ASK, 20), EPSILON);
+    }
+
+    @Test
+    void vwapIsNaNWhenDepthIsInsufficient() {
+        OrderBook book = new OrderBook("AAPL", 10);
+
+        book.update(depth(null, levels(1, 10.0, 5)));
+
+        assertTrue(Double.isNaN(book.getVwap(OrderBook.Side.ASK, 6)));
+        assertTrue(Double.isNaN(book.getVwap(OrderBook.Side.ASK, 0)));
+        assertTrue(Double.isNaN(book.getVwap(OrderBook.Side.BID, 1)));
+    }
+
+    @Test
+    void snapshotReplacesPreviousLevels() {
+        OrderBook book = new OrderBook("AAPL", 10);
+        book.update(depth(levels(1, 100.0, 5, 2, 99.0, 5, 3, 98.0, 5), null));
+
+        book.update(depth(levels(1, 101.0, 1), null));
+
+        assertEquals(1, book.getDepth(OrderBook.Side.BID));
+        assertEquals(101.0, book.getBestBid(), EPSILON);
+        assertTrue(Double.isNaN(book.getPrice(OrderBook.Side.BID, 2)));
+        assertEquals(1, book.getCumulativeVolume(OrderBook.Side.BID, 3), EPSILON);
+    }
+
+    @Test
+    void missingLevelsAreZeroedAndLevelsBeyondMaxAreIgnored() {
+        OrderBook book = new OrderBook("AAPL", 3);
+
+        book.update(depth(levels(1, 100.0, 5, 3, 98.0, 7, 4, 97.0, 9), null));
+
+        assertEquals(3, book.getDepth(OrderBook.Side.BID));
+        assertEquals(0, book.getVolume(OrderBook.Side.BID, 2), EPSILON);
+        assertEquals(12, book.getCumulativeVolume(OrderBook.Side.BID, 10), EPSILON);
+        assertTrue(Double.isNaN(book.getPrice(OrderBook.Side.BID, 4)));
+    }
+
+    private static DepthData depth(List<DepthData.OrderItem> bids, List<DepthData.OrderItem> asks) {
+        DepthData depthData = new DepthData();
+        depthData.setS("AAPL");
+        depthData.setType("depth");
+        depthData.setB(bids);
+        depthData.setA(asks);
+        return depthData;
+    }
+
+    /**
+     * 按 (档位, 价格, 数量) 三元组构造档位列表
+     */
+    private static List<DepthData.OrderItem> levels(double... values) {
+        List<DepthData.OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < values.length; i += 3) {
+            DepthData.OrderItem item = new DepthData.OrderItem();
+            item.setPo((int) values[i]);
+            item.setP(values[i + 1]);
+            item.setV(values[i + 2]);
+            item.setO(1);
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,122 @@
+package com.itick.client.store;
+
+import com.itick.client.model.KlineData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KlineSeriesFileTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long BASE = 1_700_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void upperBoundAcrossIndexBlocks() throws IOException {
+        // 超过初始容量和多个索引块
+        int count = KlineSeriesFile.INDEX_INTERVAL * 3 + 17;
+        try (KlineSeriesFile file = KlineSeriesFile.open(dir)) {
+            file.append(bars(0, count), BASE + (count - 1) * MINUTE);
+            assertUpperBound(file, count);
+        }
+        // 重新打开后重建索引
+        try (KlineSeriesFile file = KlineSeriesFile.open(dir)) {
+            assertEquals(count, file.count());
+            assertUpperBound(file, count);
+        }
+    }
+
+    private static void assertUpperBound(KlineSeriesFile file, int count) {
+        assertEquals(0, file.upperBound(Long.MIN_VALUE));
+        assertEquals(0, file.upperBound(BASE - 1));
+        for (int i = 0; i < count; i++) {
+            long time = BASE + i * MINUTE;
+            assertEquals(i + 1, file.upperBound(time), "t=" + i);
+            assertEquals(i, file.upperBound(time - 1), "t=" + i + "-1");
+            assertEquals(i + 1, file.upperBound(time + MINUTE / 2), "t=" + i + "+30s");
+        }
+        assertEquals(count, file.upperBound(Long.MAX_VALUE));
+    }
+
+    @Test
+    void upperBoundOnEmptySeries() throws IOException {
+        try (KlineSeriesFile file = KlineSeriesFile.open(dir)) {
+            assertEquals(0, file.upperBound(BASE));
+            assertEquals(Long.MIN_VALUE, file.coveredTo());
+        }
+    }
+
+    @Test
+    void appendOverwritesLastBarAndIgnoresOlderBars() throws IOException {
+        try (KlineSeriesFile file = KlineSeriesFile.open(dir)) {
+            file.append(bars(0, 3), BASE + 2 * MINUTE);
+
+            // 早于最后一根的K线被忽略，与最后一根时间相同的K线覆盖最后一根
+            KlineData older = bar(1, 999);
+            KlineData updated = bar(2, 42);
+            KlineData next = bar(3, 7);
+            file.append(List.of(older, updated, next), BASE + 3 * MINUTE);
+
+            assertEquals(4, file.count());
+            List<KlineData> stored = file.readLast(Long.MAX_VALUE, 10);
+            assertEquals(List.of(0.0, 1.0, 42.0, 7.0), stored.stream().map(KlineData::getC).toList());
+            assertEquals(BASE + 3 * MINUTE, file.lastTime());
+            assertEquals(BASE + 3 * MINUTE, file.coveredTo());
+        }
+    }
+
+    @Test
+    void appendOverwriteOnlyUpdatesLastBarAcrossCalls() throws IOException {
+        try (KlineSeriesFile file = KlineSeriesFile.open(dir)) {
+            file.append(bars(0, 2), BASE + MINUTE);
+            file.append(List.of(bar(1, 5)), BASE + MINUTE);
+            file.append(List.of(bar(1, 6)), BASE + MINUTE);
+        }
+        try (KlineSeriesFile file = KlineSeriesFile.open(dir)) {
+            assertEquals(2, file.count());
+            assertEquals(6.0, file.readLast(BASE + MINUTE, 1).get(0).getC());
+            assertEquals(List.of(BASE, BASE + MINUTE),
+                    file.read(BASE, BASE + MINUTE).stream().map(KlineData::getT).toList());
+        }
+    }
+
+    @Test
+    void readRangeIsInclusive() throws IOException {
+        try (KlineSeriesFile file = KlineSeriesFile.open(dir)) {
+            file.append(bars(0, 10), BASE + 9 * MINUTE);
+            assertEquals(List.of(BASE + 2 * MINUTE, BASE + 3 * MINUTE, BASE + 4 * MINUTE),
+                    file.read(BASE + 2 * MINUTE, BASE + 4 * MINUTE).stream().map(KlineData::getT).toList());
+            assertEquals(10, file.read(Long.MIN_VALUE, Long.MAX_VALUE).size());
+            assertEquals(List.of(BASE + 4 * MINUTE, BASE + 5 * MINUTE),
+                    file.readLast(BASE + 5 * MINUTE + 1, 2).stream().map(KlineData::getT).toList());
+        }
+    }
+
+    private static List<KlineData> bars(int from, int count) {
+        List<KlineData> bars = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            bars.add(bar(i, i));
+        }
+        return bars;
+    }
+
+    private static KlineData bar(int minute, double close) {
+        KlineData bar = new KlineData();
+        bar.setT(BASE + minute * MINUTE);
+        bar.setO(close);
+        bar.setH(close);
+        bar.setL(close);
+        bar.setC(close);
+        bar.setV(minute);
+        bar.setTu(close * minute);
+        return bar;
+    }
+}
@@ -0,0 +1,182 @@
+package com.itick.client.websocket;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itick.client.model.websocket.DepthData;
+import com.itick.client.model.websocket.KlineWebSocketData;
+import com.itick.client.model.websocket.QuoteData;
+import com.itick.client.model.websocket.TickData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流式解码与原readTree/treeToValue路径的结果对比
+ */
+class MarketDataDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final MarketDataDecoder decoder = new MarketDataDecoder(objectMapper.getFactory());
+
+    @Test
+    void quoteMatchesTreePath() throws Exception {
+        String payload = "{\"code\":1,\"data\":{\"s\":\"AAPL\",\"ld\":189.5,\"o\":188.1,\"h\":190.2,\"l\":187.9,"
+                + "\"t\":1700000000000,\"v\":123456,\"tu\":2.3e7,\"ts\":0,\"type\":\"quote\"}}";
+
+        Recorder recorder = decode(payload);
+
+        assertEquals(List.of(treeValue(payload, QuoteData.class)), recorder.events);
+    }
+
+    @Test
+    void tickMatchesTreePath() throws Exception {
+        String payload = "{\"code\":1,\"data\":{\"type\":\"tick\",\"s\":\"700\",\"ld\":312.4,\"v\":800,\"t\":1700000000123}}";
+
+        Recorder recorder = decode(payload);
+
+        assertEquals(List.of(treeValue(payload, TickData.class)), recorder.events);
+    }
+
+    @Test
+    void depthMatchesTreePath() throws Exception {
+        String payload = "{\"code\":1,\"data\":{\"s\":\"EURUSD\",\"type\":\"depth\","
+                + "\"a\":[{\"po\":1,\"p\":1.0851,\"v\":100,\"o\":2},{\"po\":2,\"p\":1.0852,\"v\":250,\"o\":4}],"
+                + "\"b\":[{\"po\":1,\"p\":1.0849,\"v\":300,\"o\":3}]}}";
+
+        Recorder recorder = decode(payload);
+
+        assertEquals(List.of(treeValue(payload, DepthData.class)), recorder.events);
+    }
+
+    @Test
+    void depthLevelsAreReusedWithoutLeakingEarlierLevels() throws Exception {
+        String first = "{\"code\":1,\"data\":{\"s\":\"EURUSD\",\"type\":\"depth\","
+                + "\"a\":[{\"po\":1,\"p\":1.0851,\"v\":100,\"o\":2},{\"po\":2,\"p\":1.0852,\"v\":250,\"o\":4}],"
+                + "\"b\":[{\"po\":1,\"p\":1.0849,\"v\":300,\"o\":3}]}}";
+        // 产品代码在档位之后，且没有买盘
+        String second = "{\"code\":1,\"data\":{\"type\":\"depth\","
+                + "\"a\":[{\"po\":1,\"p\":1.0853,\"v\":10,\"o\":1}],\"s\":\"GBPUSD\"}}";
+        Recorder recorder = new Recorder();
+
+        decoder.decode(first, recorder);
+        decoder.decode(second, recorder);
+
+        assertEquals(List.of(treeValue(first, DepthData.class), treeValue(second, DepthData.class)), recorder.events);
+    }
+
+    @Test
+    void klineMatchesTreePath() throws Exception {
+        String payload = "{\"code\":1,\"data\":{\"s\":\"BTCUSDT\",\"t\":2,\"type\":\"kline\","
+                + "\"k\":{\"tu\":1.5e6,\"c\":64000.5,\"t\":1700000040000,\"v\":12,\"h\":64010,\"l\":63990,\"o\":64001}}}";
+
+        Recorder recorder = decode(payload);
+
+        assertEquals(List.of(treeValue(payload, KlineWebSocketData.class)), recorder.events);
+    }
+
+    @Test
+    void skipsUnknownFieldsAndNestedValues() throws Exception {
+        String payload = "{\"extra\":{\"nested\":[1,2,{\"x\":3}]},\"code\":1,"
+                + "\"data\":{\"unknown\":[{\"a\":1}],\"s\":\"AAPL\",\"ld\":1.5,\"v\":7,\"t\":9,\"type\":\"tick\"}}";
+
+        Recorder recorder = decode(payload);
+
+        assertEquals(List.of(treeValue(payload, TickData.class)), recorder.events);
+    }
+
+    @Test
+    void routesResponsesByResAc() throws Exception {
+        Recorder recorder = new Recorder();
+
+        decoder.decode("{\"code\":1,\"resAc\":\"auth\",\"msg\":\"ok\"}", recorder);
+        decoder.decode("{\"resAc\":\"subscribe\",\"code\":0,\"msg\":\"denied\"}", recorder);
+        decoder.decode("{\"code\":1,\"resAc\":\"pong\",\"data\":{\"params\":1}}", recorder);
+
+        assertEquals(List.of("auth:1:ok", "subscribe:0:denied", "pong:1:null"), recorder.events);
+    }
+
+    @Test
+    void ignoresMessagesWithoutRoute() throws Exception {
+        Recorder recorder = new Recorder();
+
+        decoder.decode("{\"code\":1,\"msg\":\"hello\"}", recorder);
+        decoder.decode("{\"code\":1,\"data\":{\"s\":\"AAPL\"}}", recorder);
+        decoder.decode("{\"code\":1,\"data\":{\"s\":\"AAPL\",\"type\":\"unknown\"}}", recorder);
+        decoder.decode("[]", recorder);
+
+        assertTrue(recorder.events.isEmpty());
+    }
+
+    @Test
+    void doesNotLeakStateBetweenMessages() throws Exception {
+        String first = "{\"code\":1,\"data\":{\"s\":\"AAPL\",\"ld\":1.5,\"v\":7,\"t\":9,\"type\":\"tick\"}}";
+        String second = "{\"code\":1,\"data\":{\"s\":\"MSFT\",\"type\":\"tick\"}}";
+        Recorder recorder = new Recorder();
+
+        decoder.decode(first, recorder);
+        decoder.decode(second, recorder);
+
+        assertEquals(List.of(treeValue(first, TickData.class), treeValue(second, TickData.class)), recorder.events);
+    }
+
+    private Recorder decode(String payload) throws Exception {
+        Recorder recorder = new Recorder();
+        decoder.decode(payload, recorder);
+        return recorder;
+    }
+
+    /**
+     * 原实现的路径：先构建树，再按data节点转换
+     */
+    private <T> T treeValue(String payload, Class<T> type) throws Exception {
+        JsonNode dataNode = objectMapper.readTree(payload).path("data");
+        return objectMapper.treeToValue(dataNode, type);
+    }
+
+    private static class Recorder implements MarketDataDecoder.Listener {
+
+        final List<Object> events = new ArrayList<>();
+
+        @Override
+        public void onAuth(int code, String msg) {
+            events.add("auth:" + code + ":" + msg);
+        }
+
+        @Override
+        public void onSubscribe(int code, String msg) {
+            events.add("subscribe:" + code + ":" + msg);
+        }
+
+        @Override
+        public void onPong(int code, String msg) {
+            events.add("pong:" + code + ":" + msg);
+        }
+
+        @Override
+        public void onQuote(QuoteData data) {
+            events.add(data);
+        }
+
+        @Override
+        public void onTick(TickData data) {
+            events.add(data);
+        }
+
+        @Override
+        public void onDepth(DepthLevels levels) {
+            events.add(levels.toDepthData());
+        }
+
+        @Override
+        public void onKline(KlineWebSocketData data) {
+            events.add(data);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.itick.client.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscriptionLedgerTest {
+
+    private final SubscriptionLedger ledger = new SubscriptionLedger();
+
+    @Test
+    void acknowledgementsMatchFramesInSendOrder() {
+        CompletableFuture<Void> quotes = ledger.add(List.of("A", "B"), List.of("quote"));
+        CompletableFuture<Void> ticks = ledger.add(List.of("C"), List.of("tick"));
+        List<SubscriptionLedger.Frame> frames = ledger.takeUnsent(10);
+        assertEquals(2, frames.size());
+        assertEquals("A,B", frames.get(0).symbols());
+        assertEquals("quote", frames.get(0).types());
+        assertEquals("C", frames.get(1).symbols());
+
+        assertEquals(frames.get(0), ledger.acknowledge(true, "ok"));
+        assertTrue(quotes.isDone());
+        assertFalse(quotes.isCompletedExceptionally());
+        assertFalse(ticks.isDone());
+
+        assertEquals(frames.get(1), ledger.acknowledge(false, "invalid symbol"));
+        assertTrue(ticks.isCompletedExceptionally());
+        assertEquals(2, ledger.countByState().get(SubscriptionLedger.State.ACKED));
+        assertEquals(1, ledger.countByState().get(SubscriptionLedger.State.FAILED));
+
+        assertNull(ledger.acknowledge(true, "ok"));
+    }
+
+    @Test
+    void symbolsWithTheSameTypesShareFramesUpToTheLimit() {
+        ledger.add(List.of("A", "B", "C"), List.of("quote", "tick"));
+        ledger.add(List.of("D"), List.of("depth"));
+
+        List<SubscriptionLedger.Frame> frames = ledger.takeUnsent(2);
+
+        assertEquals(3, frames.size());
+        assertEquals("A,B", frames.get(0).symbols());
+        assertEquals("quote,tick", frames.get(0).types());
+        assertEquals(4, frames.get(0).keys().size());
+        assertEquals("C", frames.get(1).symbols());
+        assertEquals("D", frames.get(2).symbols());
+        assertEquals("depth", frames.get(2).types());
+        assertTrue(ledger.takeUnsent(2).isEmpty());
+    }
+
+    @Test
+    void futureCompletesWhenEveryFrameIsAcknowledged() {
+        CompletableFuture<Void> future = ledger.add(List.of("A", "B", "C"), List.of("quote"));
+        assertEquals(2, ledger.takeUnsent(2).size());
+
+        ledger.acknowledge(true, "ok");
+        assertFalse(future.isDone());
+        ledger.acknowledge(true, "ok");
+        assertTrue(future.isDone());
+        assertFalse(ledger.hasUnsent());
+    }
+
+    @Test
+    void keysSharedWithEarlierRequestCompleteWithThatFrame() {
+        CompletableFuture<Void> first = ledger.add(List.of("A"), List.of("quote"));
+        ledger.takeUnsent(10);
+        // A已发送等待确认，第二次登记只需发送B
+        CompletableFuture<Void> second = ledger.add(List.of("A", "B"), List.of("quote"));
+        List<SubscriptionLedger.Frame> frames = ledger.takeUnsent(10);
+        assertEquals(1, frames.size());
+        assertEquals("B", frames.get(0).symbols());
+
+        ledger.acknowledge(true, "ok");
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        ledger.acknowledge(true, "ok");
+        assertTrue(second.isDone());
+
+        // 已确认的组合再次登记立即完成
+        assertTrue(ledger.add(List.of("A"), List.of("quote")).isDone());
+        assertFalse(ledger.hasUnsent());
+    }
+
+    @Test
+    void referencesKeepSubscriptionUntilLastRemove() {
+        ledger.add(List.of("A"), List.of("quote"));
+        ledger.takeUnsent(10);
+        ledger.acknowledge(true, "ok");
+        ledger.add(List.of("A", "A"), List.of("quote", "quote"));
+        assertEquals(2, ledger.references("A", "quote"));
+
+        assertTrue(ledger.remove(List.of("A"), List.of("quote")).isDone());
+        assertEquals(1, ledger.references("A", "quote"));
+        assertFalse(ledger.hasUnsent());
+        assertEquals(1, ledger.size());
+
+        CompletableFuture<Void> removed = ledger.remove(List.of("A"), List.of("quote"));
+        assertFalse(removed.isDone());
+        assertEquals(0, ledger.references("A", "quote"));
+        assertTrue(ledger.hasUnsent());
+        List<SubscriptionLedger.Frame> frames = ledger.takeUnsubscribes(10);
+        assertEquals(1, frames.size());
+        assertEquals("A", frames.get(0).symbols());
+        assertTrue(removed.isDone());
+        assertEquals(0, ledger.size());
+    }
+
+    @Test
+    void removeBeforeSendCancelsPendingFuture() {
+        CompletableFuture<Void> future = ledger.add(List.of("A"), List.of("quote"));
+        assertTrue(ledger.remove(List.of("A"), List.of("quote")).isDone());
+
+        assertTrue(future.isCompletedExceptionally());
+        assertThrows(CancellationException.class, future::join);
+        assertFalse(ledger.hasUnsent());
+        assertTrue(ledger.takeUnsent(10).isEmpty());
+    }
+
+    @Test
+    void replayResendsAllButRejectedSubscriptions() {
+        ledger.add(List.of("A"), List.of("quote"));
+        ledger.add(List.of("B"), List.of("tick"));
+        ledger.takeUnsent(10);
+        ledger.acknowledge(true, "ok");
+        ledger.acknowledge(false, "invalid symbol");
+
+        ledger.resetForReplay();
+        assertEquals(1, ledger.countByState().get(SubscriptionLedger.State.UNSENT));
+        assertEquals(1, ledger.countByState().get(SubscriptionLedger.State.FAILED));
+        List<SubscriptionLedger.Frame> frames = ledger.takeUnsent(10);
+        assertEquals(1, frames.size());
+        assertEquals("A", frames.get(0).symbols());
+        // 重连前发送的请求不再等待确认
+        assertEquals(frames.get(0), ledger.acknowledge(true, "ok"));
+        assertNull(ledger.acknowledge(true, "ok"));
+    }
+}